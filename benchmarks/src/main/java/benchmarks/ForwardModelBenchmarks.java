@@ -0,0 +1,82 @@
+package benchmarks;
+
+import core.AbstractForwardModel;
+import core.AbstractGameState;
+import core.Game;
+import core.actions.AbstractAction;
+import games.GameType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the forward model and state copies, for every GameType, from states taken early, half way and late
+ * in a game (see GameSnapshots). Run with -prof gc to also report the allocation rate of each.
+ * <p>
+ * next() changes the state it is given, so it is run on a fresh copy of the snapshot for each call. The copy is made
+ * in an invocation-level setup (see FreshState), which is not included in the time, but adds some overhead for very
+ * fast games.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ForwardModelBenchmarks {
+
+    // All games by default; select some with -p gameType=TicTacToe,Connect4
+    @Param
+    public GameType gameType;
+
+    @Param
+    public GameSnapshots.Stage stage;
+
+    @Param("42")
+    public long seed;
+
+    private AbstractForwardModel forwardModel;
+    private AbstractGameState snapshot;
+    private AbstractAction action;
+
+    @State(Scope.Thread)
+    public static class FreshState {
+        AbstractGameState state;
+
+        @Setup(Level.Invocation)
+        public void copySnapshot(ForwardModelBenchmarks benchmark) {
+            state = benchmark.snapshot.copy();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void captureState() {
+        Game game = GameSnapshots.createGame(gameType, seed);
+        GameSnapshots.Snapshot captured = GameSnapshots.capture(game, seed, stage);
+        forwardModel = game.getForwardModel();
+        snapshot = captured.state;
+        action = captured.action;
+    }
+
+    @Benchmark
+    public AbstractGameState next(FreshState fresh) {
+        forwardModel.next(fresh.state, action.copy());
+        return fresh.state;
+    }
+
+    @Benchmark
+    public List<AbstractAction> computeAvailableActions() {
+        return forwardModel.computeAvailableActions(snapshot);
+    }
+
+    @Benchmark
+    public AbstractGameState copy() {
+        return snapshot.copy();
+    }
+
+    @Benchmark
+    public AbstractGameState copyForPlayer() {
+        return snapshot.copy(snapshot.getCurrentPlayer());
+    }
+}
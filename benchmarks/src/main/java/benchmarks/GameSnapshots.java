@@ -0,0 +1,94 @@
+package benchmarks;
+
+import core.AbstractForwardModel;
+import core.AbstractGameState;
+import core.Game;
+import core.actions.AbstractAction;
+import games.GameType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Captures game states from part-way through a game, for the benchmarks to start from.
+ * A game is played with random actions from a fixed seed, and the state is copied before every action, so that
+ * the same states (and the actions taken in them) are used on every run.
+ */
+public final class GameSnapshots {
+
+    // Games that never end (such as the GameTemplate) are cut off after this many actions
+    static final int MAX_ACTIONS = 2000;
+
+    public enum Stage {
+        EARLY(0.1), MID(0.5), LATE(0.9);
+
+        final double fraction;  // how far through the game the state is taken from
+
+        Stage(double fraction) {
+            this.fraction = fraction;
+        }
+    }
+
+    /**
+     * A copy of the state at some point in a game, and the action that was taken from it.
+     */
+    public static final class Snapshot {
+        public final AbstractGameState state;
+        public final AbstractAction action;
+
+        Snapshot(AbstractGameState state, AbstractAction action) {
+            this.state = state;
+            this.action = action;
+        }
+    }
+
+    private GameSnapshots() {
+    }
+
+    /**
+     * Creates a game of the given type, with the smallest number of players it allows (but at least 2).
+     *
+     * @param gameType - game to create.
+     * @param seed     - seed for the game.
+     * @return - the game, set up and ready for the first action.
+     */
+    public static Game createGame(GameType gameType, long seed) {
+        int nPlayers = Math.min(Math.max(2, gameType.getMinPlayers()), gameType.getMaxPlayers());
+        return gameType.createGameInstance(nPlayers, seed);
+    }
+
+    /**
+     * Plays the game with random actions, and returns the state from the given stage of the game.
+     * If random play breaks the rules of the game part-way through, then the states before that point are used.
+     *
+     * @param game  - game, as returned by createGame().
+     * @param seed  - seed for the choice of actions.
+     * @param stage - how far through the game the state should be.
+     * @return - a copy of the state at that point, and the action then taken.
+     */
+    public static Snapshot capture(Game game, long seed, Stage stage) {
+        AbstractGameState gameState = game.getGameState();
+        AbstractForwardModel forwardModel = game.getForwardModel();
+        Random rnd = new Random(seed);
+        List<Snapshot> snapshots = new ArrayList<>();
+        try {
+            while (gameState.isNotTerminal() && snapshots.size() < MAX_ACTIONS) {
+                List<AbstractAction> actions = forwardModel.computeAvailableActions(gameState);
+                AbstractAction action = actions.get(rnd.nextInt(actions.size()));
+                // copy the action before it is taken, as some actions change when executed
+                snapshots.add(new Snapshot(gameState.copy(), action.copy()));
+                forwardModel.next(gameState, action);
+            }
+        } catch (RuntimeException | AssertionError e) {
+            System.err.printf("%s failed after %d actions, so only these are used: %s%n",
+                    game.getGameType().name(), snapshots.size(), e);
+            // the last state is the one the failing action was taken from
+            if (!snapshots.isEmpty())
+                snapshots.remove(snapshots.size() - 1);
+        }
+        if (snapshots.isEmpty())
+            throw new AssertionError("No actions could be taken in " + game.getGameType().name());
+        return snapshots.get((int) (stage.fraction * (snapshots.size() - 1)));
+    }
+}
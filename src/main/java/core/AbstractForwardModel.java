@@ -1,6 +1,8 @@
 package core;
 
 import core.actions.AbstractAction;
+import core.components.ComponentIDAllocator;
+import core.interfaces.IActionCodec;
 import utilities.ElapsedCpuChessTimer;
 
 import java.util.Arrays;
@@ -31,8 +33,14 @@ public abstract class AbstractForwardModel {
                     firstState.gameParameters.incrementRoundS, firstState.gameParameters.incrementMilestoneS);
         }
 
-        _setup(firstState);
-        firstState.addAllComponents();
+        // All components created during setup take their IDs from this game's allocator
+        ComponentIDAllocator previous = ComponentIDAllocator.bind(firstState.componentIDs);
+        try {
+            _setup(firstState);
+            firstState.addAllComponents();
+        } finally {
+            ComponentIDAllocator.bind(previous);
+        }
     }
 
     /* Methods to be implemented by subclasses, unavailable to AI players */
@@ -123,21 +131,111 @@ public abstract class AbstractForwardModel {
      * @param action       - action requested to be played by a player.
      */
     public final void next(AbstractGameState currentState, AbstractAction action) {
-        if (action != null) {
-            int player = currentState.getCurrentPlayer();
-            currentState.recordAction(action, player);
-            if (currentState.isActionInProgress()) {
-                // we register the action with the currently active ActionSequence
-                currentState.currentActionInProgress().registerActionTaken(currentState, action);
-            }
-            _next(currentState, action);
-        } else {
-            if (currentState.coreGameParameters.verbose) {
-                System.out.println("Invalid action.");
+        ComponentIDAllocator previous = ComponentIDAllocator.bind(currentState.componentIDs);
+        try {
+            if (action != null) {
+                int player = currentState.getCurrentPlayer();
+                currentState.recordAction(action, player);
+                if (currentState.isActionInProgress()) {
+                    // we register the action with the currently active ActionSequence
+                    currentState.currentActionInProgress().registerActionTaken(currentState, action);
+                }
+                _next(currentState, action);
+            } else {
+                if (currentState.coreGameParameters.verbose) {
+                    System.out.println("Invalid action.");
+                }
+                illegalActionPlayed(currentState, action);
             }
-            illegalActionPlayed(currentState, action);
+            currentState.advanceGameTick();
+        } finally {
+            ComponentIDAllocator.bind(previous);
         }
-        currentState.advanceGameTick();
+    }
+
+    /**
+     * Whether this forward model can undo actions, by implementing _undoData() and _rewind().
+     * Search agents can then apply and undo actions on one state, rather than copying the state each time.
+     *
+     * @return - true if nextWithUndo() and rewind() are supported.
+     */
+    public boolean supportsUndo() {
+        return false;
+    }
+
+    /**
+     * @param gameState - state an action is about to be applied to.
+     * @return - true if the next action on this state can be undone. Actions taken while an action is in progress
+     * (see IExtendedSequence) cannot be undone, as the sequence may change its own internal state.
+     */
+    public final boolean canUndo(AbstractGameState gameState) {
+        return supportsUndo() && !gameState.isActionInProgress();
+    }
+
+    /**
+     * As next(), but returns a token that can be passed to rewind() to put the state back as it was.
+     * Tokens must be rewound in the reverse order to that in which they were created.
+     * Random number generators and player timers are not rewound, and any listeners will have been told about
+     * the action, so this is intended for the copies of the state used in search.
+     *
+     * @param currentState - current game state, to be modified by the action.
+     * @param action       - action requested to be played by a player.
+     * @return - token to undo the action.
+     */
+    public final UndoToken nextWithUndo(AbstractGameState currentState, AbstractAction action) {
+        if (!canUndo(currentState))
+            throw new AssertionError("Cannot undo actions on this state with " + getClass().getSimpleName());
+        if (action == null)
+            throw new IllegalArgumentException("Cannot undo a null action");
+        UndoToken token = new UndoToken(currentState, action, _undoData(currentState, action));
+        next(currentState, action);
+        return token;
+    }
+
+    /**
+     * Undoes an action taken with nextWithUndo().
+     *
+     * @param currentState - the state the action was applied to.
+     * @param token        - token returned by nextWithUndo(); this must be the most recent one not yet rewound.
+     */
+    public final void rewind(AbstractGameState currentState, UndoToken token) {
+        currentState.rewind(token);
+        _rewind(currentState, token.action, token.gameData);
+    }
+
+    /**
+     * Saves whatever game-specific state the action will change, before it is applied.
+     * Must be implemented if supportsUndo() returns true.
+     *
+     * @param currentState - state the action is about to be applied to.
+     * @param action       - action about to be applied.
+     * @return - data for _rewind() to put the game-specific state back.
+     */
+    protected Object _undoData(AbstractGameState currentState, AbstractAction action) {
+        throw new AssertionError("Undo is not supported by " + getClass().getSimpleName());
+    }
+
+    /**
+     * Puts back the game-specific state changed by an action. This is called after the core state (turn owner,
+     * counters, game status, player results and phase) has been put back, so getCurrentPlayer() is the player who
+     * took the action.
+     *
+     * @param currentState - state the action was applied to.
+     * @param action       - action that was applied.
+     * @param undoData     - value returned by _undoData() before the action was applied.
+     */
+    protected void _rewind(AbstractGameState currentState, AbstractAction action, Object undoData) {
+        throw new AssertionError("Undo is not supported by " + getClass().getSimpleName());
+    }
+
+    /**
+     * Games can override this to give a codec for their actions, so that search agents can look actions up by number
+     * (see ActionTable) rather than with equals() and hashCode().
+     *
+     * @return - the codec for this game's actions, or null if there is none.
+     */
+    public IActionCodec getActionCodec() {
+        return null;
     }
 
     /**
@@ -147,11 +245,16 @@ public abstract class AbstractForwardModel {
      * @return - the list of actions available.
      */
     public final List<AbstractAction> computeAvailableActions(AbstractGameState gameState) {
-        // If there is an action in progress (see IExtendedSequence), then delegate to that
-        if (gameState.isActionInProgress()) {
-            return gameState.actionsInProgress.peek()._computeAvailableActions(gameState);
+        ComponentIDAllocator previous = ComponentIDAllocator.bind(gameState.componentIDs);
+        try {
+            // If there is an action in progress (see IExtendedSequence), then delegate to that
+            if (gameState.isActionInProgress()) {
+                return gameState.actionsInProgress.peek()._computeAvailableActions(gameState);
+            }
+            return _computeAvailableActions(gameState);
+        } finally {
+            ComponentIDAllocator.bind(previous);
         }
-        return _computeAvailableActions(gameState);
     }
 
     /**
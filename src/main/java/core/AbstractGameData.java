@@ -17,7 +17,27 @@ public class AbstractGameData {
     private List<Counter> counters = new ArrayList<>();
     private List<Token> tokens = new ArrayList<>();
 
+    /**
+     * Loads the components defined in the JSON files in the given directory. The files are only read once per
+     * process; after that the parsed components are taken from the GameDataCache. These are shared prototypes, and
+     * the findX() methods always return copies of them.
+     *
+     * @param dataPath - directory with the data files.
+     */
     public void load(String dataPath) {
+        AbstractGameData prototypes = GameDataCache.get("AbstractGameData:" + dataPath, () -> {
+            AbstractGameData data = new AbstractGameData();
+            data.parse(dataPath);
+            return data;
+        });
+        graphBoards = prototypes.graphBoards;
+        gridBoards = prototypes.gridBoards;
+        decks = prototypes.decks;
+        counters = prototypes.counters;
+        tokens = prototypes.tokens;
+    }
+
+    private void parse(String dataPath) {
         File dir = new File(dataPath);
         if (dir.isDirectory()) {
             List<String> files = Arrays.asList(Objects.requireNonNull(dir.list()));
@@ -4,6 +4,7 @@ import core.actions.AbstractAction;
 import core.actions.LogEvent;
 import core.components.Area;
 import core.components.Component;
+import core.components.ComponentIDAllocator;
 import core.components.PartialObservableDeck;
 import core.interfaces.IComponentContainer;
 import core.interfaces.IExtendedSequence;
@@ -12,6 +13,7 @@ import evaluation.listeners.GameListener;
 import evaluation.metrics.Event;
 import games.GameType;
 import utilities.ElapsedCpuChessTimer;
+import utilities.ZobristHash;
 
 import java.util.*;
 import java.util.function.BiFunction;
@@ -38,6 +40,8 @@ public abstract class AbstractGameState {
     // Game being played
     protected final GameType gameType = _getGameType();
     private Area allComponents;
+    // Source of IDs for components created in this state, see ComponentIDAllocator
+    ComponentIDAllocator componentIDs = new ComponentIDAllocator();
 
     // Game tick, number of iterations of game loop
     private int tick = 0;
@@ -50,9 +54,9 @@ public abstract class AbstractGameState {
     // Timers for all players
     protected ElapsedCpuChessTimer[] playerTimer;
 
-    // A record of all actions taken to reach this game state
-    private List<AbstractAction> history = new ArrayList<>();
-    private List<String> historyText = new ArrayList<>();
+    // A record of all actions taken to reach this game state, and any events logged as text (the most recent entry,
+    // or null if there are none). This is shared with copies of the state
+    private HistoryEntry history;
 
     // Status of the game, and status for each player (in cooperative games, the game status is also each player's status)
     protected CoreConstants.GameResult gameStatus;
@@ -79,12 +83,17 @@ public abstract class AbstractGameState {
      * Resets variables initialised for this game state.
      */
     void reset() {
-        allComponents = new Area(-1, "All Components");
+        componentIDs = new ComponentIDAllocator();
+        ComponentIDAllocator previous = ComponentIDAllocator.bind(componentIDs);
+        try {
+            allComponents = new Area(-1, "All Components");
+        } finally {
+            ComponentIDAllocator.bind(previous);
+        }
         gameStatus = GAME_ONGOING;
         playerResults = new CoreConstants.GameResult[getNPlayers()];
         Arrays.fill(playerResults, GAME_ONGOING);
-        history = new ArrayList<>();
-        historyText = new ArrayList<>();
+        history = null;
         playerTimer = new ElapsedCpuChessTimer[getNPlayers()];
         tick = 0;
         turnOwner = 0;
@@ -134,10 +143,14 @@ public abstract class AbstractGameState {
     /**
      * @return All actions that have been executed on this state since reset()/initialisation
      */
-    public List<AbstractAction> getHistory() { return new ArrayList<>(history);}
+    public List<AbstractAction> getHistory() { return HistoryEntry.actions(history);}
     public List<String> getHistoryAsText() {
-        return new ArrayList<>(historyText);
+        return HistoryEntry.text(history);
     }
+    /**
+     * @return The number of actions in getHistory(), without building the list
+     */
+    public int getHistorySize() {return HistoryEntry.nActions(history);}
     public int getGameID() {
         return gameID;
     }
@@ -163,6 +176,27 @@ public abstract class AbstractGameState {
         gameID = id;
     } // package level deliberately
     void advanceGameTick() {tick++;}
+    HistoryEntry historyEntry() {return history;}
+
+    /**
+     * Puts back the core state saved in the token, and drops any history recorded since it was created.
+     * Used by AbstractForwardModel.rewind().
+     *
+     * @param token - token from AbstractForwardModel.nextWithUndo()
+     */
+    final void rewind(UndoToken token) {
+        tick = token.tick;
+        roundCounter = token.roundCounter;
+        turnCounter = token.turnCounter;
+        turnOwner = token.turnOwner;
+        firstPlayer = token.firstPlayer;
+        gameStatus = token.gameStatus;
+        System.arraycopy(token.playerResults, 0, playerResults, 0, playerResults.length);
+        gamePhase = token.gamePhase;
+        history = token.history;
+        // nextWithUndo() is only allowed with no action in progress, so any there now were started by the action
+        actionsInProgress.clear();
+    }
 
     public void setTurnOwner(int newTurnOwner) {turnOwner = newTurnOwner;}
     public void setFirstPlayer(int newFirstPlayer) {
@@ -243,7 +277,19 @@ public abstract class AbstractGameState {
      * @return - reduced copy of the game state.
      */
     public final AbstractGameState copy(int playerId) {
+        // Components created while copying take their IDs from the copy's allocator
+        ComponentIDAllocator copyIDs = componentIDs.copy();
+        ComponentIDAllocator previous = ComponentIDAllocator.bind(copyIDs);
+        try {
+            return copy(playerId, copyIDs);
+        } finally {
+            ComponentIDAllocator.bind(previous);
+        }
+    }
+
+    private AbstractGameState copy(int playerId, ComponentIDAllocator copyIDs) {
         AbstractGameState s = _copy(playerId);
+        s.componentIDs = copyIDs;
         // Copy super class things
         s.allComponents = allComponents.emptyCopy();
         s.gameStatus = gameStatus;
@@ -258,9 +304,9 @@ public abstract class AbstractGameState {
         s.firstPlayer = firstPlayer;
 
         if (!coreGameParameters.competitionMode) {
-            s.history = new ArrayList<>(history);
-            s.historyText = new ArrayList<>(historyText);
-            // we do not copy individual actions in history, as these are now dead and should not change
+            s.history = history;
+            // the history is shared, as entries are never changed, and we do not copy individual actions in history,
+            // as these are now dead and should not change
             // History is for debugging and spectation of games. There is a risk that History might contain information
             // formally hidden to some participants. For this reason, in COMPETITION_MODE we explicitly do not copy
             // any history over in case a sneaky agent tries to take advantage of it.
@@ -289,8 +335,7 @@ public abstract class AbstractGameState {
      * @param action The action that has just been applied (or is about to be applied) to the game state
      */
     protected final void recordAction(AbstractAction action, int player) {
-        history.add(action);
-        historyText.add("Player " + player + " : " + action.getString(this));
+        history = HistoryEntry.action(history, action, "Player " + player + " : " + action.getString(this));
     }
 
 
@@ -310,7 +355,7 @@ public abstract class AbstractGameState {
     }
 
     public void recordHistory(String history) {
-        historyText.add(history);
+        this.history = HistoryEntry.text(this.history, history);
     }
 
     /* Methods dealing with ExtendedActions and the actionStack */
@@ -596,4 +641,43 @@ public abstract class AbstractGameState {
         result = 31 * result + Arrays.hashCode(playerResults);
         return result;
     }
+
+    /**
+     * Returns a 64-bit hash of the state, for use in transposition tables and other caches during search.
+     * Unlike hashCode() this leaves out the parameters and game tick, so that the same position reached by different
+     * sequences of actions hashes the same. The turn counters are hashed here, and the components by _longHash().
+     *
+     * @return - 64-bit hash of the state.
+     */
+    public final long longHash() {
+        long hash = ZobristHash.mix(turnOwner);
+        hash = ZobristHash.combine(hash, turnCounter);
+        hash = ZobristHash.combine(hash, roundCounter);
+        hash = ZobristHash.combine(hash, firstPlayer);
+        hash = ZobristHash.combine(hash, Objects.hashCode(gameStatus));
+        hash = ZobristHash.combine(hash, Objects.hashCode(gamePhase));
+        hash = ZobristHash.combine(hash, Arrays.hashCode(playerResults));
+        if (!actionsInProgress.isEmpty())
+            hash = ZobristHash.combine(hash, actionsInProgress.hashCode());
+        return ZobristHash.combine(hash, _longHash());
+    }
+
+    /**
+     * Hashes the game-specific part of the state for longHash(). Games should override this to combine the
+     * longHash() of their components (and any other fields), which Deck, GridBoard and Counter keep up to date
+     * as they change, so that the hash is cheap enough to compute after every action.
+     * The default combines hashCode() with the longHash() of every component, which rehashes the whole state each
+     * time. As hashCode() includes the game tick, states reached by different sequences of actions then rarely hash
+     * the same.
+     *
+     * @return - 64-bit hash of the game-specific state.
+     */
+    protected long _longHash() {
+        long hash = ZobristHash.mix(hashCode());
+        for (Component c : _getAllComponents()) {
+            if (c != null)
+                hash = ZobristHash.combine(hash, c.longHash());
+        }
+        return hash;
+    }
 }
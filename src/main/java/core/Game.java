@@ -2,6 +2,7 @@ package core;
 
 import core.actions.AbstractAction;
 import core.actions.DoNothing;
+import core.interfaces.IActionCodec;
 import core.interfaces.IPrintable;
 import core.turnorders.ReactiveTurnOrder;
 import evaluation.listeners.GameListener;
@@ -543,7 +544,7 @@ public class Game {
                 agentTime += (System.nanoTime() - s);
                 nDecisions++;
             }
-            if (gameState.coreGameParameters.competitionMode && action != null && !observedActions.contains(action)) {
+            if (gameState.coreGameParameters.competitionMode && action != null && !isAvailable(action, observedActions)) {
                 System.out.printf("Action played that was not in the list of available actions: %s%n", action.getString(gameState));
                 action = null;
             }
@@ -585,6 +586,21 @@ public class Game {
         return action;
     }
 
+    /**
+     * Checks the action is one of those available, comparing codes if the game has an IActionCodec.
+     */
+    private boolean isAvailable(AbstractAction action, List<AbstractAction> availableActions) {
+        IActionCodec codec = forwardModel.getActionCodec();
+        long code = codec == null ? -1 : codec.encode(action);
+        if (code < 0)
+            return availableActions.contains(action);
+        for (AbstractAction available : availableActions) {
+            if (codec.encode(available) == code)
+                return true;
+        }
+        return false;
+    }
+
     /**
      * Called at the end of game loop execution, when the game is over.
      */
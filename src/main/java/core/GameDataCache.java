@@ -0,0 +1,97 @@
+package core;
+
+import core.components.ComponentIDAllocator;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Process-wide cache of game data loaded from the files in the data folder, so that these are only read and parsed
+ * once however many games are run. Values are keyed by a string that should include the path they were loaded from.
+ * <p>
+ * Cached values are shared by all games, on all threads, and must never be changed. Components should be copied
+ * from them (as AbstractGameData.findX() do). Loading happens with no ComponentIDAllocator bound, so any components
+ * created take their IDs from the shared range, and never clash with the IDs of components created within a game.
+ */
+public final class GameDataCache {
+
+    private static final Map<String, Object> cache = new ConcurrentHashMap<>();
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+
+    private GameDataCache() {
+    }
+
+    /**
+     * Returns the value cached under the given key, using the loader to create it if it is not there yet.
+     * If two threads miss at the same time both may load, but only the first value stored is ever returned.
+     *
+     * @param key    - key for the data, including the path it is loaded from.
+     * @param loader - creates the data. If this returns null then nothing is cached.
+     * @return - the cached data (shared, so not to be modified).
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T get(String key, Supplier<T> loader) {
+        Object value = cache.get(key);
+        if (value != null) {
+            hits.incrementAndGet();
+            return (T) value;
+        }
+        misses.incrementAndGet();
+        value = ComponentIDAllocator.unbound(loader);
+        if (value == null)
+            return null;
+        Object existing = cache.putIfAbsent(key, value);
+        return (T) (existing != null ? existing : value);
+    }
+
+    /**
+     * Returns the parsed contents of a JSON file (a JSONObject or JSONArray), which must not be modified.
+     *
+     * @param filename - path to file.
+     * @return - the parsed JSON.
+     */
+    public static Object getJSON(String filename) throws IOException, ParseException {
+        String key = "json:" + filename;
+        Object value = cache.get(key);
+        if (value != null) {
+            hits.incrementAndGet();
+            return value;
+        }
+        misses.incrementAndGet();
+        try (FileReader reader = new FileReader(filename)) {
+            value = new JSONParser().parse(reader);
+        }
+        Object existing = cache.putIfAbsent(key, value);
+        return existing != null ? existing : value;
+    }
+
+    /**
+     * @return - the number of requests answered from the cache.
+     */
+    public static long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return - the number of requests that had to load the data.
+     */
+    public static long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Empties the cache (for example if the data files have changed), and resets the counters.
+     */
+    public static void clear() {
+        cache.clear();
+        hits.set(0);
+        misses.set(0);
+    }
+}
@@ -0,0 +1,75 @@
+package core;
+
+import core.actions.AbstractAction;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One entry in the history of a game state, linked to all the entries before it.
+ * <p>
+ * Entries are never changed once created, so a copy of a state shares the history of the original and just adds its
+ * own entries after it. This makes copying the history O(1) however long the game.
+ * <p>
+ * An entry is either an action taken by a player, or a line of text logged by the game. The text for an action is
+ * built when it is recorded, from the state it is applied to, as later states (and copies of them with hidden
+ * information redeterminised) may describe the action differently.
+ */
+final class HistoryEntry {
+
+    final HistoryEntry previous;
+    final AbstractAction action;  // null for text entries
+    final int nActions, nEntries;  // including this one
+    final String text;
+
+    private HistoryEntry(HistoryEntry previous, AbstractAction action, String text) {
+        this.previous = previous;
+        this.action = action;
+        this.text = text;
+        this.nActions = (previous == null ? 0 : previous.nActions) + (action == null ? 0 : 1);
+        this.nEntries = (previous == null ? 0 : previous.nEntries) + 1;
+    }
+
+    static HistoryEntry action(HistoryEntry previous, AbstractAction action, String text) {
+        return new HistoryEntry(previous, action, text);
+    }
+
+    static HistoryEntry text(HistoryEntry previous, String text) {
+        return new HistoryEntry(previous, null, text);
+    }
+
+    static int nActions(HistoryEntry last) {
+        return last == null ? 0 : last.nActions;
+    }
+
+    static int nEntries(HistoryEntry last) {
+        return last == null ? 0 : last.nEntries;
+    }
+
+    /**
+     * @param last - the most recent entry (or null for an empty history)
+     * @return - all the actions in the history, oldest first
+     */
+    static List<AbstractAction> actions(HistoryEntry last) {
+        List<AbstractAction> retValue = new ArrayList<>(nActions(last));
+        for (HistoryEntry e = last; e != null; e = e.previous) {
+            if (e.action != null)
+                retValue.add(e.action);
+        }
+        Collections.reverse(retValue);
+        return retValue;
+    }
+
+    /**
+     * @param last - the most recent entry (or null for an empty history)
+     * @return - the text of all entries, oldest first
+     */
+    static List<String> text(HistoryEntry last) {
+        List<String> retValue = new ArrayList<>(nEntries(last));
+        for (HistoryEntry e = last; e != null; e = e.previous)
+            retValue.add(e.text);
+        Collections.reverse(retValue);
+        return retValue;
+    }
+}
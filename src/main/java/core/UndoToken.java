@@ -0,0 +1,43 @@
+package core;
+
+import core.actions.AbstractAction;
+import core.interfaces.IGamePhase;
+
+/**
+ * Returned by AbstractForwardModel.nextWithUndo(), and holds what is needed to put the state back as it was before
+ * the action with AbstractForwardModel.rewind().
+ * <p>
+ * The core state (counters, game status, results, phase and history) is saved here directly, while the
+ * game-specific changes are saved by the forward model in gameData.
+ */
+public final class UndoToken {
+
+    final AbstractAction action;
+    final Object gameData;
+    final int tick, roundCounter, turnCounter, turnOwner, firstPlayer;
+    final CoreConstants.GameResult gameStatus;
+    final CoreConstants.GameResult[] playerResults;
+    final IGamePhase gamePhase;
+    final HistoryEntry history;
+
+    UndoToken(AbstractGameState state, AbstractAction action, Object gameData) {
+        this.action = action;
+        this.gameData = gameData;
+        this.tick = state.getGameTick();
+        this.roundCounter = state.roundCounter;
+        this.turnCounter = state.turnCounter;
+        this.turnOwner = state.turnOwner;
+        this.firstPlayer = state.firstPlayer;
+        this.gameStatus = state.gameStatus;
+        this.playerResults = state.playerResults.clone();
+        this.gamePhase = state.gamePhase;
+        this.history = state.historyEntry();
+    }
+
+    /**
+     * @return - the action that was taken.
+     */
+    public AbstractAction getAction() {
+        return action;
+    }
+}
@@ -0,0 +1,141 @@
+package core.actions;
+
+import core.interfaces.IActionCodec;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gives each distinct action a dense int ID (0, 1, 2...) in the order they are first seen, and keeps one instance of
+ * each, so that equal actions can share that instance. Statistics for actions can then be kept in arrays indexed by
+ * ID rather than in maps keyed on actions, and maps keyed on the shared instances find them by reference without
+ * calling equals().
+ * <p>
+ * If an IActionCodec is given, actions are looked up by their code, so their equals() and hashCode() are not called.
+ * Actions the codec cannot encode (and all actions if there is no codec) are looked up with equals() and hashCode().
+ * <p>
+ * The shared instances must not be changed; copy them before they are executed, as is normal.
+ * This is not thread-safe.
+ */
+public class ActionTable {
+
+    private final IActionCodec codec;
+    private final List<AbstractAction> actions = new ArrayList<>();
+    private final Map<AbstractAction, Integer> byAction = new HashMap<>();
+    // Open addressing table from codes to IDs, with linear probing. Empty slots have an ID of -1
+    private long[] codes = new long[64];
+    private int[] codeIDs = new int[64];
+    private int nCodes;
+
+    public ActionTable(IActionCodec codec) {
+        this.codec = codec;
+        Arrays.fill(codeIDs, -1);
+    }
+
+    /**
+     * @param action - an action
+     * @return - the ID of the action, which is given a new ID if it has not been seen before.
+     */
+    public int id(AbstractAction action) {
+        long code = codec == null ? -1 : codec.encode(action);
+        if (code < 0) {
+            Integer id = byAction.get(action);
+            if (id == null) {
+                id = actions.size();
+                actions.add(action);
+                byAction.put(action, id);
+            }
+            return id;
+        }
+        int slot = slot(code);
+        if (codeIDs[slot] == -1) {
+            codes[slot] = code;
+            codeIDs[slot] = actions.size();
+            actions.add(action);
+            if (++nCodes * 2 > codes.length)
+                resize();
+            return actions.size() - 1;
+        }
+        return codeIDs[slot];
+    }
+
+    /**
+     * @param action - an action
+     * @return - the ID of the action, or -1 if it has not been seen before (it is not given an ID).
+     */
+    public int indexOf(AbstractAction action) {
+        long code = codec == null ? -1 : codec.encode(action);
+        if (code < 0) {
+            Integer id = byAction.get(action);
+            return id == null ? -1 : id;
+        }
+        return codeIDs[slot(code)];
+    }
+
+    /**
+     * @param action - an action
+     * @return - the shared instance of this action (the first one seen that is equal to it).
+     */
+    public AbstractAction intern(AbstractAction action) {
+        return actions.get(id(action));
+    }
+
+    /**
+     * Replaces each action in the list with its shared instance, in place, and records the IDs of the actions.
+     *
+     * @param actionList - list of actions (e.g. from AbstractForwardModel.computeAvailableActions()), which is changed.
+     * @param ids        - array for the IDs, which may be null or too short, in which case a new one is created.
+     * @return - the array holding the ID of each action, in the same order as the list.
+     */
+    public int[] internAll(List<AbstractAction> actionList, int[] ids) {
+        if (ids == null || ids.length < actionList.size())
+            ids = new int[Math.max(actionList.size(), ids == null ? 0 : ids.length * 2)];
+        for (int i = 0; i < actionList.size(); i++) {
+            int id = id(actionList.get(i));
+            ids[i] = id;
+            actionList.set(i, actions.get(id));
+        }
+        return ids;
+    }
+
+    /**
+     * @param id - ID from id()
+     * @return - the shared instance of the action with that ID
+     */
+    public AbstractAction get(int id) {
+        return actions.get(id);
+    }
+
+    /**
+     * @return - the number of distinct actions seen so far (and so one more than the highest ID)
+     */
+    public int size() {
+        return actions.size();
+    }
+
+    private int slot(long code) {
+        int mask = codes.length - 1;
+        int slot = (int) ((code * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+        while (codeIDs[slot] != -1 && codes[slot] != code)
+            slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    private void resize() {
+        long[] oldCodes = codes;
+        int[] oldIDs = codeIDs;
+        codes = new long[oldCodes.length * 2];
+        codeIDs = new int[oldCodes.length * 2];
+        Arrays.fill(codeIDs, -1);
+        for (int i = 0; i < oldCodes.length; i++) {
+            if (oldIDs[i] != -1) {
+                int slot = slot(oldCodes[i]);
+                codes[slot] = oldCodes[i];
+                codeIDs[slot] = oldIDs[i];
+            }
+        }
+    }
+}
@@ -2,13 +2,37 @@ package core.actions;
 
 import core.AbstractGameState;
 import core.components.Component;
+import core.interfaces.IActionCodec;
 import core.interfaces.IPrintable;
 import core.components.GridBoard;
 
+import java.util.List;
 import java.util.Objects;
 
 public class SetGridValueAction<T extends Component> extends AbstractAction implements IPrintable {
 
+    /**
+     * Creates a codec for games where actions set a grid position to one of a fixed list of values (such as one token
+     * per player). The code packs the board ID, position and index of the value in the list, so it does not depend on
+     * the values' component IDs. Positions must be below 4096, and there can be at most 256 values.
+     *
+     * @param values - the values that actions can set, which must all be different.
+     * @return - the codec, which encodes actions with any other value as -1.
+     */
+    public static IActionCodec codec(List<? extends Component> values) {
+        if (values.size() > 1 << 8)
+            throw new IllegalArgumentException("Too many values to encode: " + values.size());
+        return action -> {
+            if (!(action instanceof SetGridValueAction))
+                return -1;
+            SetGridValueAction<?> a = (SetGridValueAction<?>) action;
+            int value = values.indexOf(a.value);
+            if (value < 0 || a.x < 0 || a.x >= 1 << 12 || a.y < 0 || a.y >= 1 << 12 || a.gridBoard < 0)
+                return -1;
+            return ((long) a.gridBoard << 32) | ((long) value << 24) | ((long) a.y << 12) | a.x;
+        };
+    }
+
     private final int gridBoard;
     private final int x;
     private final int y;
@@ -12,6 +12,9 @@ public class Area extends Component implements IComponentContainer<Component> {
 
     // Collection of components stored in this area, mapping to their IDs
     protected HashMap<Integer, Component> components;
+    // True if the map of components is shared with another area (see copyOnWrite()), and so must be copied
+    // before this area changes it
+    private boolean componentsShared;
 
     public Area(int owner, String name) {
         super(CoreConstants.ComponentType.AREA, "");
@@ -35,6 +38,33 @@ public class Area extends Component implements IComponentContainer<Component> {
         return new_area;
     }
 
+    /**
+     * Creates a copy of this area that shares the map of components with this one, until either area changes it.
+     * The components themselves are always shared, not copied, so this is only suitable for areas of components
+     * that are never changed once created.
+     *
+     * @return - a new Area with the same components.
+     */
+    public Area copyOnWrite() {
+        Area new_area = new Area(ownerId, componentName, componentID);
+        new_area.components = components;
+        new_area.componentsShared = true;
+        componentsShared = true;
+        copyComponentTo(new_area);
+        return new_area;
+    }
+
+    /**
+     * Called before the map of components is changed (or handed out). If this is shared with another area then
+     * this area takes its own copy of the map first.
+     */
+    private void ownComponents() {
+        if (componentsShared) {
+            components = new HashMap<>(components);
+            componentsShared = false;
+        }
+    }
+
     /**
      * This is used to avoid a full recursive copy of all the contents of an area
      * This can be useful when we need for other reasons to copy those locally, and it
@@ -52,7 +82,12 @@ public class Area extends Component implements IComponentContainer<Component> {
      * Clears the collection of components.
      */
     public void clear() {
-        components.clear();
+        if (componentsShared) {
+            components = new HashMap<>();
+            componentsShared = false;
+        } else {
+            components.clear();
+        }
     }
 
     /**
@@ -60,6 +95,7 @@ public class Area extends Component implements IComponentContainer<Component> {
      * @return - HashMap, components mapped to their IDs
      */
     public HashMap<Integer, Component> getComponentsMap() {
+        ownComponents();
         return this.components;
     }
 
@@ -88,6 +124,7 @@ public class Area extends Component implements IComponentContainer<Component> {
      * @param component - component to add to the collection.
      */
     public void putComponent(Integer key, Component component) {
+        ownComponents();
         this.components.put(key, component);
     }
 
@@ -96,6 +133,7 @@ public class Area extends Component implements IComponentContainer<Component> {
      * @param component - component to add to the collection.
      */
     public void putComponent(Component component) {
+        ownComponents();
         this.components.put(component.getComponentID(), component);
         if (component instanceof IComponentContainer) {
             for (Component nestedC : ((IComponentContainer<?>) component).getComponents()) {
@@ -110,6 +148,7 @@ public class Area extends Component implements IComponentContainer<Component> {
         if (component instanceof Deck || component instanceof Area)
             throw new IllegalArgumentException("Not yet implemented for Decks or Areas");
         if (components.containsKey(component.componentID)) {
+            ownComponents();
             this.components.remove(component.componentID);
         } else {
             throw new IllegalArgumentException("Cannot remove Component as it is not here : " + component.componentID);
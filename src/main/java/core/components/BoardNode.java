@@ -5,14 +5,20 @@ import core.properties.Property;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.*;
 
 public class BoardNode extends Component {
 
     private HashSet<BoardNode> neighbours;  // Neighbours of this board node
     private HashMap<BoardNode, Integer> neighbourSideMapping;  // Neighbours mapping to a side of this board node
     private int maxNeighbours;  // Maximum number of neighbours for this board node
+    // Board with the shared topology this node belongs to, and the index of this node in it. For copies, the
+    // neighbour collections above are only created from the topology when first asked for.
+    private GraphBoard board;
+    private int boardIndex = -1;
+    // Read-only views of the neighbours, created when first asked for
+    private Set<BoardNode> neighboursView;
+    private Map<BoardNode, Integer> neighbourSideMappingView;
 
     public BoardNode(int maxNeighbours, String name) {
         super(CoreConstants.ComponentType.BOARD_NODE, name);
@@ -32,11 +38,68 @@ public class BoardNode extends Component {
         this.neighbourSideMapping = new HashMap<>();
     }
 
+    /**
+     * Creates a node that is part of the given board copy, with its neighbours defined by the board topology.
+     */
+    BoardNode(int maxNeighbours, int ID, GraphBoard board, int boardIndex) {
+        super(CoreConstants.ComponentType.BOARD_NODE, "", ID);
+        this.maxNeighbours = maxNeighbours;
+        this.board = board;
+        this.boardIndex = boardIndex;
+    }
+
+    /**
+     * Creates the neighbour collections of this node from the topology of its board, if not done already. This is
+     * only needed before the neighbours are changed; until then they are read from the topology.
+     */
+    void materialiseNeighbours() {
+        if (neighbours != null)
+            return;
+        neighbours = new HashSet<>();
+        neighbourSideMapping = new HashMap<>();
+        GraphBoard.Topology topology = board.getTopology();
+        List<BoardNode> nodes = board.getBoardNodes();
+        int[] neighbourIndices = topology.neighbours[boardIndex];
+        int[] sides = topology.sides[boardIndex];
+        for (int i = 0; i < neighbourIndices.length; i++) {
+            BoardNode neighbour = nodes.get(neighbourIndices[i]);
+            neighbours.add(neighbour);
+            if (sides[i] != -1)
+                neighbourSideMapping.put(neighbour, sides[i]);
+        }
+    }
+
+    /**
+     * Any change to the neighbours of this node means its board can no longer share its topology with other copies.
+     */
+    private void neighboursChanged() {
+        if (board != null)
+            board.topologyChanged();
+    }
+
+    /**
+     * Links this node to the topology of a board, at the given index.
+     */
+    void attachToBoard(GraphBoard board, int boardIndex) {
+        this.board = board;
+        this.boardIndex = boardIndex;
+    }
+
+    /**
+     * Unlinks this node from the topology of its board, after which it keeps its own neighbour collections.
+     */
+    void detachFromBoard() {
+        materialiseNeighbours();
+        board = null;
+        boardIndex = -1;
+    }
+
     /**
      * Adds a neighbour for this node.
      * @param neighbour - new neighbour of this node.
      */
     public void addNeighbour(BoardNode neighbour) {
+        neighboursChanged();
         if (neighbours.size() <= maxNeighbours || maxNeighbours == -1) {
             neighbours.add(neighbour);
         }
@@ -48,6 +111,7 @@ public class BoardNode extends Component {
      * @return - true if removed successfully, false otherwise. may fail if neighbour didn't exist in the first place.
      */
     public boolean removeNeighbour(BoardNode neighbour) {
+        neighboursChanged();
         if (neighbours.contains(neighbour)) {
             neighbours.remove(neighbour);
             neighbourSideMapping.remove(neighbour);
@@ -63,6 +127,7 @@ public class BoardNode extends Component {
      * @return - true if added successfully, false otherwise. may fail if too many neighbours added already.
      */
     public boolean addNeighbour(BoardNode neighbour, int side) {
+        neighboursChanged();
         if (neighbours.size() <= maxNeighbours && side <= maxNeighbours || maxNeighbours == -1) {
             if (!(neighbours.contains(neighbour)) && !(neighbourSideMapping.containsKey(neighbour))) {
                 neighbours.add(neighbour);
@@ -84,17 +149,127 @@ public class BoardNode extends Component {
     }
 
     /**
-     * @return the neighbours of this node.
+     * @return the neighbours of this node, as a read-only view (use the GraphBoard or this node to change them).
      */
-    public HashSet<BoardNode> getNeighbours() {
-        return neighbours;
+    public Set<BoardNode> getNeighbours() {
+        if (neighboursView == null)
+            neighboursView = new NeighbourView();
+        return neighboursView;
     }
 
     /**
-     * @return the neighbours mapping to sides of this node.
+     * @return the neighbours mapping to sides of this node, as a read-only view.
      */
-    public HashMap<BoardNode, Integer> getNeighbourSideMapping() {
-        return neighbourSideMapping;
+    public Map<BoardNode, Integer> getNeighbourSideMapping() {
+        if (neighbourSideMappingView == null)
+            neighbourSideMappingView = new SideMappingView();
+        return neighbourSideMappingView;
+    }
+
+    /**
+     * @return the indices (in the board's node list) of the neighbours of this node from the shared topology of its
+     * board, or null if it has its own neighbour collections
+     */
+    private int[] topologyNeighbours() {
+        return neighbours == null ? board.getTopology().neighbours[boardIndex] : null;
+    }
+
+    /**
+     * The neighbours of this node, read from its own set if it has one, and otherwise from the topology of its board.
+     */
+    private class NeighbourView extends AbstractSet<BoardNode> {
+        @Override
+        public Iterator<BoardNode> iterator() {
+            int[] indices = topologyNeighbours();
+            if (indices == null)
+                return Collections.unmodifiableSet(neighbours).iterator();
+            List<BoardNode> nodes = board.getBoardNodes();
+            return new Iterator<BoardNode>() {
+                int next = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return next < indices.length;
+                }
+
+                @Override
+                public BoardNode next() {
+                    if (next == indices.length)
+                        throw new NoSuchElementException();
+                    return nodes.get(indices[next++]);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            int[] indices = topologyNeighbours();
+            return indices == null ? neighbours.size() : indices.length;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            int[] indices = topologyNeighbours();
+            if (indices == null)
+                return neighbours.contains(o);
+            List<BoardNode> nodes = board.getBoardNodes();
+            for (int index : indices) {
+                if (nodes.get(index).equals(o))
+                    return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * The sides of the neighbours of this node, read from its own map if it has one, and otherwise from the topology
+     * of its board.
+     */
+    private class SideMappingView extends AbstractMap<BoardNode, Integer> {
+        @Override
+        public Set<Entry<BoardNode, Integer>> entrySet() {
+            if (neighbours != null)
+                return Collections.unmodifiableMap(neighbourSideMapping).entrySet();
+            GraphBoard.Topology topology = board.getTopology();
+            List<BoardNode> nodes = board.getBoardNodes();
+            int[] indices = topology.neighbours[boardIndex];
+            int[] sides = topology.sides[boardIndex];
+            List<Entry<BoardNode, Integer>> entries = new ArrayList<>(indices.length);
+            for (int i = 0; i < indices.length; i++) {
+                if (sides[i] != -1)
+                    entries.add(new SimpleImmutableEntry<>(nodes.get(indices[i]), sides[i]));
+            }
+            return new AbstractSet<Entry<BoardNode, Integer>>() {
+                @Override
+                public Iterator<Entry<BoardNode, Integer>> iterator() {
+                    return Collections.unmodifiableList(entries).iterator();
+                }
+
+                @Override
+                public int size() {
+                    return entries.size();
+                }
+            };
+        }
+
+        @Override
+        public Integer get(Object key) {
+            if (neighbours != null)
+                return neighbourSideMapping.get(key);
+            GraphBoard.Topology topology = board.getTopology();
+            List<BoardNode> nodes = board.getBoardNodes();
+            int[] indices = topology.neighbours[boardIndex];
+            for (int i = 0; i < indices.length; i++) {
+                if (topology.sides[boardIndex][i] != -1 && nodes.get(indices[i]).equals(key))
+                    return topology.sides[boardIndex][i];
+            }
+            return null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
     }
 
     /**
@@ -4,27 +4,26 @@ import core.properties.*;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 import core.CoreConstants.ComponentType;
+import utilities.ZobristHash;
 
 import java.util.*;
 
 public abstract class Component {
-    private static int ID = 0;  // All components receive a unique and final ID from this always increasing counter
-
-    protected transient final int componentID;  // Unique ID of this component
+    protected transient final int componentID;  // Unique ID of this component within its game, see ComponentIDAllocator
     protected final ComponentType type;  // Type of this component
     protected HashMap<Integer, Property> properties;  // Maps between integer key for the property and the property object
     protected transient int ownerId = -1;  // By default belongs to the game
     protected String componentName;  // Name of this component
 
     public Component(ComponentType type, String name) {
-        this.componentID = ID++;
+        this.componentID = ComponentIDAllocator.nextID();
         this.type = type;
         this.componentName = name;
         this.properties = new HashMap<>();
     }
 
     public Component(ComponentType type) {
-        this.componentID = ID++;
+        this.componentID = ComponentIDAllocator.nextID();
         this.type = type;
         this.componentName = type.toString();
         this.properties = new HashMap<>();
@@ -236,4 +235,14 @@ public abstract class Component {
     public int hashCode() {
         return componentID;
     }
+
+    /**
+     * Returns a 64-bit hash of this component, for use in AbstractGameState.longHash(). By default this mixes
+     * hashCode(); containers whose contents change often (Deck, GridBoard, Counter) override it with cheaper or
+     * incrementally maintained versions.
+     * @return - 64-bit hash of this component.
+     */
+    public long longHash() {
+        return ZobristHash.mix(hashCode());
+    }
 }
@@ -0,0 +1,97 @@
+package core.components;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Hands out the IDs of components created for one game. Each AbstractGameState owns an allocator, which is
+ * created when the state is reset, and copied along with the state - so copies keep the IDs of existing
+ * components, and any new components get IDs that are unique within that line of states.
+ * <p>
+ * The state's allocator is bound to the current thread by the framework while the game is set up, while the
+ * forward model is applied to it, and while it is copied. Any Component created during that time takes its ID
+ * from the bound allocator. This means games running in parallel on different threads never share a counter.
+ * <p>
+ * Components created while no allocator is bound (for example GUI code) take their IDs from a shared, thread-safe
+ * counter. This starts well above the range used within games, so such components never clash with those of a game.
+ * Static constants must be created with unbound(), as their class may first be initialised (and the constants
+ * created) while some game's allocator is bound - they would then take IDs from that game.
+ * <p>
+ * Binding is done on every forward model call, so it is kept cheap: each thread has one Binding object, found with a
+ * single ThreadLocal lookup, and only its field changes. (Setting and removing the ThreadLocal itself cost about 55ns
+ * per call, against about 6ns for this.)
+ */
+public final class ComponentIDAllocator {
+
+    private static final int FIRST_UNBOUND_ID = 1 << 30;
+    private static final AtomicInteger unboundID = new AtomicInteger(FIRST_UNBOUND_ID);
+    private static final ThreadLocal<Binding> current = ThreadLocal.withInitial(Binding::new);
+
+    private static final class Binding {
+        ComponentIDAllocator allocator;
+    }
+
+    private int nextID;
+
+    public ComponentIDAllocator() {
+        this(0);
+    }
+
+    private ComponentIDAllocator(int nextID) {
+        this.nextID = nextID;
+    }
+
+    /**
+     * @return - a copy of this allocator, which will continue from the same ID.
+     */
+    public ComponentIDAllocator copy() {
+        return new ComponentIDAllocator(nextID);
+    }
+
+    /**
+     * Binds the allocator to the current thread, so that all components created on this thread take their IDs from it.
+     * The previously bound allocator is returned, and should be restored afterwards:
+     * <pre>
+     *     ComponentIDAllocator previous = ComponentIDAllocator.bind(allocator);
+     *     try { ... } finally { ComponentIDAllocator.bind(previous); }
+     * </pre>
+     *
+     * @param allocator - allocator to use, or null to go back to the shared counter.
+     * @return - the allocator that was bound before (may be null).
+     */
+    public static ComponentIDAllocator bind(ComponentIDAllocator allocator) {
+        Binding binding = current.get();
+        ComponentIDAllocator previous = binding.allocator;
+        binding.allocator = allocator;
+        return previous;
+    }
+
+    /**
+     * Creates objects with no allocator bound, so that any components created take their IDs from the shared counter.
+     * This must be used for static constants that hold components, for example:
+     * <pre>
+     *     public static final Token X = ComponentIDAllocator.unbound(() -> new Token("x"));
+     * </pre>
+     *
+     * @param supplier - creates the object.
+     * @return - the object created.
+     */
+    public static <T> T unbound(Supplier<T> supplier) {
+        ComponentIDAllocator previous = bind(null);
+        try {
+            return supplier.get();
+        } finally {
+            bind(previous);
+        }
+    }
+
+    /**
+     * @return - the next ID, from the allocator bound to this thread if there is one.
+     */
+    static int nextID() {
+        ComponentIDAllocator allocator = current.get().allocator;
+        if (allocator == null)
+            return unboundID.getAndIncrement();
+        return allocator.nextID++;
+    }
+}
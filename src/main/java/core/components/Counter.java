@@ -5,6 +5,7 @@ import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 import org.json.simple.parser.JSONParser;
 import org.json.simple.parser.ParseException;
+import utilities.ZobristHash;
 
 import java.io.FileReader;
 import java.io.IOException;
@@ -50,6 +51,19 @@ public class Counter extends Component {
         return copy;
     }
 
+    /**
+     * Creates a copy of this counter that shares the array of values with this one, rather than cloning it. The
+     * array is never changed by the counter, so this is safe as long as callers do not change the array returned
+     * by getValues().
+     *
+     * @return - a new Counter with the same value.
+     */
+    public Counter copyOnWrite() {
+        Counter copy = new Counter(values, valueIdx, minimum, maximum, componentName, componentID);
+        copyComponentTo(copy);
+        return copy;
+    }
+
     /**
      * Increment the value of this counter by the specified value.
      * @param amount - how much to add to this counter.
@@ -134,7 +148,7 @@ public class Counter extends Component {
     }
 
     /**
-     * @return the value array of this counter.
+     * @return the value array of this counter. This may be shared with copies (see copyOnWrite()), so must not be changed.
      */
     public int[] getValues() {
         return values;
@@ -225,6 +239,14 @@ public class Counter extends Component {
         return result;
     }
 
+    /**
+     * The values array and name are fixed for a counter with a given ID, so only the index and bounds are hashed.
+     */
+    @Override
+    public long longHash() {
+        return ZobristHash.combine(ZobristHash.key(componentID, valueIdx), ((long) minimum << 32) ^ maximum);
+    }
+
     @Override
     public String toString() {
         return "" + getValue();
@@ -6,6 +6,7 @@ import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 import org.json.simple.parser.JSONParser;
 import org.json.simple.parser.ParseException;
+import utilities.ZobristHash;
 
 import java.io.FileReader;
 import java.io.IOException;
@@ -26,6 +27,18 @@ public class Deck<T extends Component> extends Component implements IComponentCo
     protected int capacity;  // Capacity of the deck (maximum number of elements)
     protected List<T> components;  // List of components in this deck
     protected VisibilityMode visibility;
+    // True if the list of components is shared with another deck (see copyOnWrite()), and so must be copied
+    // before this deck changes it
+    private boolean componentsShared;
+    // Hash of the components in this deck (see longHash()). Once computed this is updated as the deck changes,
+    // until a shuffle or other wholesale change means it has to be computed again
+    private long componentsHash;
+    private boolean componentsHashValid;
+    // Base of the polynomial hash of the components, and its inverse (mod 2^64)
+    private static final long HASH_BASE = 0x100000001B3L;
+    private static final long HASH_BASE_INVERSE = inverse(HASH_BASE);
+    // View of the components handed out by getComponents(), created when first asked for
+    private ComponentsView componentsView;
 
     public Deck(String name, VisibilityMode visibility) {
         this(name, -1, visibility);
@@ -71,6 +84,8 @@ public class Deck<T extends Component> extends Component implements IComponentCo
      */
     public T pick(int idx) {
         if(components.size() > 0 && idx < components.size() && idx >= 0) {
+            unshareComponents();
+            hashRemove(idx, 1);
             T c = components.get(idx);
             components.remove(idx);
             return c;
@@ -145,7 +160,9 @@ public class Deck<T extends Component> extends Component implements IComponentCo
         if (c==null)
             throw new IllegalArgumentException("null cannot be added to a Deck");
         c.setOwnerId(ownerId);
+        unshareComponents();
         components.add(index, c);
+        hashInsert(index, 1);
         return capacity == -1 || components.size() <= capacity;
     }
 
@@ -165,7 +182,10 @@ public class Deck<T extends Component> extends Component implements IComponentCo
      * @return true if not over capacity, false otherwise.
      */
     public boolean add(Deck<T> d, int index){
+        unshareComponents();
+        int nAdded = d.components.size();
         components.addAll(index, d.components);
+        hashInsert(index, nAdded);
         for (T comp: d.components) {
             comp.setOwnerId(ownerId);
         }
@@ -177,7 +197,10 @@ public class Deck<T extends Component> extends Component implements IComponentCo
     }
 
     public boolean add(Collection<T> d, int index){
+        unshareComponents();
+        int nAdded = d.size();
         components.addAll(index, d);
+        hashInsert(index, nAdded);
         for (T comp: d) {
             comp.setOwnerId(ownerId);
         }
@@ -206,6 +229,8 @@ public class Deck<T extends Component> extends Component implements IComponentCo
      */
     public boolean remove(int idx) {
         if (idx >= 0 && idx < components.size()) {
+            unshareComponents();
+            hashRemove(idx, 1);
             components.get(idx).setOwnerId(-1);
             components.remove(idx);
             return true;
@@ -220,13 +245,21 @@ public class Deck<T extends Component> extends Component implements IComponentCo
         for (T comp: components) {
             comp.setOwnerId(-1);
         }
-        components.clear();
+        if (componentsShared) {
+            components = new ArrayList<>();
+            componentsShared = false;
+        } else {
+            components.clear();
+        }
+        componentsHash = 0;
+        componentsHashValid = true;
     }
     
     /**
      * Shuffles the deck with a specific random object.
      */
     public void shuffle(Random rnd) {
+        ownComponents();
         Collections.shuffle(components, rnd);
     }
 
@@ -237,6 +270,7 @@ public class Deck<T extends Component> extends Component implements IComponentCo
      * @param rnd - random number generator used for shuffling
      */
     public void shuffle(int fromIndex, int toIndex, Random rnd) {
+        ownComponents();
         List<T> subList = components.subList(fromIndex, toIndex);
         Collections.shuffle(subList, rnd);
         int i = 0;
@@ -249,11 +283,14 @@ public class Deck<T extends Component> extends Component implements IComponentCo
     // Getters, Setters
 
     /**
-     * @return all the components in this deck.
+     * @return all the components in this deck. This is a view of the list used by the deck, so changes to it
+     * change the deck. Reading it never copies the list, even if it is shared with another deck.
      */
     @Override
     public List<T> getComponents() {
-        return components;
+        if (componentsView == null)
+            componentsView = new ComponentsView();
+        return componentsView;
     }
     
     /**
@@ -284,6 +321,8 @@ public class Deck<T extends Component> extends Component implements IComponentCo
      */
     public void setComponents(ArrayList<T> components) {
         this.components = components;
+        componentsShared = false;
+        componentsHashValid = false;
         for (T comp: components) {
             comp.setOwnerId(ownerId);
         }
@@ -296,6 +335,8 @@ public class Deck<T extends Component> extends Component implements IComponentCo
      */
     public void setComponent(int idx, T component) {
         component.setOwnerId(ownerId);
+        unshareComponents();
+        hashSet(idx, component);
         components.set(idx, component);
     }
 
@@ -328,6 +369,98 @@ public class Deck<T extends Component> extends Component implements IComponentCo
         return dp;
     }
 
+    /**
+     * Creates a copy of this deck that shares the list of components with this one, until either deck changes it.
+     * The components themselves are always shared, not copied. This is only suitable for decks of components
+     * that are never changed once created (as is the case for components whose copy() returns themselves). A
+     * game's _copy() can use this instead of copy() for such decks, to avoid copying decks that are not changed.
+     *
+     * @return - a new Deck with the same properties and components.
+     */
+    public Deck<T> copyOnWrite() {
+        Deck<T> dp = new Deck<>(componentName, ownerId, componentID, visibility);
+        dp.components = components;
+        dp.componentsShared = true;
+        componentsShared = true;
+        dp.capacity = capacity;
+        dp.componentsHash = componentsHash;
+        dp.componentsHashValid = componentsHashValid;
+        copyComponentTo(dp);
+        return dp;
+    }
+
+    /**
+     * Called before the list of components is changed in a way that the hash is not updated for (such as a
+     * shuffle). If this is shared with another deck then this deck takes its own copy of the list first.
+     */
+    protected void ownComponents() {
+        componentsHashValid = false;
+        unshareComponents();
+    }
+
+    /**
+     * Called before a change to the list of components that updates the hash itself. If this is shared with another
+     * deck then this deck takes its own copy of the list first.
+     */
+    private void unshareComponents() {
+        if (componentsShared) {
+            components = new ArrayList<>(components);
+            componentsShared = false;
+        }
+    }
+
+    /**
+     * The list returned by getComponents(). Reads go straight to the current list of components, and changes
+     * first take this deck's own copy of it (see ownComponents()).
+     */
+    private class ComponentsView extends AbstractList<T> implements RandomAccess {
+        @Override
+        public T get(int index) {
+            return components.get(index);
+        }
+
+        @Override
+        public int size() {
+            return components.size();
+        }
+
+        @Override
+        public T set(int index, T element) {
+            unshareComponents();
+            hashSet(index, element);
+            return components.set(index, element);
+        }
+
+        @Override
+        public void add(int index, T element) {
+            unshareComponents();
+            components.add(index, element);
+            hashInsert(index, 1);
+            modCount++;
+        }
+
+        @Override
+        public T remove(int index) {
+            unshareComponents();
+            hashRemove(index, 1);
+            modCount++;
+            return components.remove(index);
+        }
+
+        @Override
+        public void clear() {
+            modCount++;
+            if (componentsShared) {
+                components = new ArrayList<>();
+                componentsShared = false;
+            } else {
+                components.clear();
+            }
+            componentsHash = 0;
+            componentsHashValid = true;
+        }
+    }
+
     protected void copyTo(Deck<T> deck) {
         List<T> newComponents = new ArrayList<>();
         for (T c : components)
@@ -336,6 +469,8 @@ public class Deck<T extends Component> extends Component implements IComponentCo
         }
         deck.components = newComponents;
         deck.capacity = capacity;
+        deck.componentsHash = componentsHash;
+        deck.componentsHashValid = componentsHashValid;
 
         //copy type and component.
         copyComponentTo(deck);
@@ -410,6 +545,97 @@ public class Deck<T extends Component> extends Component implements IComponentCo
                 Objects.equals(components, deck.components);
     }
 
+    /**
+     * Hashes the IDs of the components in order. The components are hashed as a polynomial in HASH_BASE, with the
+     * last component in the deck having the lowest power, so that components can be added to or removed from either
+     * end of the deck (the usual case) in O(1), and anywhere else in O(n) at worst. The hash is only computed in full
+     * the first time it is asked for, or after a shuffle.
+     */
+    @Override
+    public long longHash() {
+        if (!componentsHashValid) {
+            componentsHash = partHash(0, components.size(), 0);
+            componentsHashValid = true;
+        }
+        return ZobristHash.combine(ZobristHash.combine(ZobristHash.mix(componentID), componentsHash), ownerId);
+    }
+
+    /**
+     * Updates the hash after nAdded components have been inserted at the given index.
+     */
+    private void hashInsert(int index, int nAdded) {
+        if (!componentsHashValid || nAdded == 0) return;
+        int below = components.size() - index - nAdded;
+        long added = partHash(index, index + nAdded, below);
+        if (index <= below) {
+            // The components above the new ones move up by nAdded powers
+            long above = partHash(0, index, below);
+            componentsHash += above * (power(HASH_BASE, nAdded) - 1) + added;
+        } else {
+            long beneath = partHash(index + nAdded, components.size(), 0);
+            componentsHash = (componentsHash - beneath) * power(HASH_BASE, nAdded) + added + beneath;
+        }
+    }
+
+    /**
+     * Updates the hash before nRemoved components are removed from the given index.
+     */
+    private void hashRemove(int index, int nRemoved) {
+        if (!componentsHashValid || nRemoved == 0) return;
+        int below = components.size() - index - nRemoved;
+        long removed = partHash(index, index + nRemoved, below);
+        if (index <= below) {
+            // The components above the removed ones move down by nRemoved powers
+            long above = partHash(0, index, below + nRemoved);
+            componentsHash += above * power(HASH_BASE_INVERSE, nRemoved) - above - removed;
+        } else {
+            long beneath = partHash(index + nRemoved, components.size(), 0);
+            componentsHash = (componentsHash - removed - beneath) * power(HASH_BASE_INVERSE, nRemoved) + beneath;
+        }
+    }
+
+    /**
+     * Updates the hash before the component at the given index is replaced.
+     */
+    private void hashSet(int index, T component) {
+        if (!componentsHashValid) return;
+        long change = ZobristHash.mix(component.getComponentID()) - ZobristHash.mix(components.get(index).getComponentID());
+        componentsHash += change * power(HASH_BASE, components.size() - 1 - index);
+    }
+
+    /**
+     * @return the hash of the components in [from, to), where the component at to - 1 is multiplied by HASH_BASE^lowest.
+     */
+    private long partHash(int from, int to, int lowest) {
+        long hash = 0;
+        long multiplier = power(HASH_BASE, lowest);
+        for (int i = to - 1; i >= from; i--) {
+            hash += ZobristHash.mix(components.get(i).getComponentID()) * multiplier;
+            multiplier *= HASH_BASE;
+        }
+        return hash;
+    }
+
+    private static long power(long base, int exponent) {
+        long result = 1;
+        while (exponent > 0) {
+            if ((exponent & 1) != 0) result *= base;
+            base *= base;
+            exponent >>= 1;
+        }
+        return result;
+    }
+
+    /**
+     * @return the inverse of an odd number mod 2^64, by Newton's method (each step doubles the correct low bits).
+     */
+    private static long inverse(long odd) {
+        long x = odd;
+        for (int i = 0; i < 5; i++)
+            x *= 2 - odd * x;
+        return x;
+    }
+
     @Override
     public final int hashCode() {
         return Objects.hash(capacity, ownerId, componentID, components);
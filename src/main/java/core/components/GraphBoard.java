@@ -20,6 +20,40 @@ public class GraphBoard extends Component implements IComponentContainer<BoardNo
 
     // List of nodes in the board graph
     protected List<BoardNode> boardNodes;
+    // Connections between the nodes, shared by all copies of this board. Built on the first copy, and discarded if
+    // the connections (or the list of nodes) are changed.
+    private Topology topology;
+
+    /**
+     * Immutable description of the connections between the nodes of a board, by the index of each node in the
+     * board's node list. This is shared by all copies, so these only need to copy the properties of each node.
+     */
+    static final class Topology {
+        // Indices of the neighbours of each node
+        final int[][] neighbours;
+        // Side of the node that each neighbour is on (matching neighbours), or -1 if not mapped to a side
+        final int[][] sides;
+
+        Topology(List<BoardNode> nodes) {
+            Map<BoardNode, Integer> indices = new HashMap<>();
+            for (int i = 0; i < nodes.size(); i++)
+                indices.put(nodes.get(i), i);
+            neighbours = new int[nodes.size()][];
+            sides = new int[nodes.size()][];
+            for (int i = 0; i < nodes.size(); i++) {
+                BoardNode bn = nodes.get(i);
+                Map<BoardNode, Integer> sideMapping = bn.getNeighbourSideMapping();
+                // neighbours that are not on this board cannot be reached in a copy
+                int[] nodeNeighbours = bn.getNeighbours().stream().filter(indices::containsKey)
+                        .mapToInt(indices::get).toArray();
+                int[] nodeSides = new int[nodeNeighbours.length];
+                for (int j = 0; j < nodeNeighbours.length; j++)
+                    nodeSides[j] = sideMapping.getOrDefault(nodes.get(nodeNeighbours[j]), -1);
+                neighbours[i] = nodeNeighbours;
+                sides[i] = nodeSides;
+            }
+        }
+    }
 
     public GraphBoard(String name)
     {
@@ -46,37 +80,67 @@ public class GraphBoard extends Component implements IComponentContainer<BoardNo
     }
 
     /**
-     * Copy method, to be implemented by all subclasses.
+     * Copy method, to be implemented by all subclasses. The board nodes are copied, but the connections between
+     * them are shared with this board (see Topology).
      * @return - a new instance of this Board, deep copy.
      */
     @Override
     public GraphBoard copy()
     {
         GraphBoard b = new GraphBoard(componentName, componentID);
-        HashMap<Integer, BoardNode> nodeCopies = new HashMap<>();
-        // Copy board nodes
-        for (BoardNode bn: boardNodes) {
-            BoardNode bnCopy = new BoardNode(bn.getMaxNeighbours(), "", bn.getComponentID());
+        b.topology = getTopology();
+        // Copy board nodes, which pick up their neighbours from the shared topology when needed
+        List<BoardNode> nodeCopies = new ArrayList<>(boardNodes.size());
+        for (int i = 0; i < boardNodes.size(); i++) {
+            BoardNode bn = boardNodes.get(i);
+            BoardNode bnCopy = new BoardNode(bn.getMaxNeighbours(), bn.getComponentID(), b, i);
             bn.copyComponentTo(bnCopy);
-            nodeCopies.put(bn.getComponentID(), bnCopy);
+            nodeCopies.add(bnCopy);
         }
-        // Assign neighbours
-        for (BoardNode bn: boardNodes) {
-            BoardNode bnCopy = nodeCopies.get(bn.getComponentID());
-            for (BoardNode neighbour: bn.getNeighbours()) {
-                bnCopy.addNeighbour(nodeCopies.get(neighbour.getComponentID()));
-            }
-            for (Map.Entry<BoardNode, Integer> e: bn.getNeighbourSideMapping().entrySet()) {
-                bnCopy.addNeighbour(nodeCopies.get(e.getKey().componentID), e.getValue());
-            }
-        }
-        // Assign new neighbours
-        b.setBoardNodes(new ArrayList<>(nodeCopies.values()));
+        b.boardNodes = nodeCopies;
         // Copy properties
         copyComponentTo(b);
         return b;
     }
 
+    /**
+     * Synchronized, as boards cached in GameDataCache may be copied from several threads at once.
+     * @return - the topology of this board, building it from the current connections if needed.
+     */
+    synchronized Topology getTopology() {
+        if (topology == null) {
+            topology = new Topology(boardNodes);
+            for (int i = 0; i < boardNodes.size(); i++)
+                boardNodes.get(i).attachToBoard(this, i);
+        }
+        return topology;
+    }
+
+    /**
+     * The neighbours of a node by index, for code that does not need the BoardNode objects (or wants to avoid the
+     * views that BoardNode.getNeighbours() gives).
+     * @param nodeIndex - index of a node in getBoardNodes()
+     * @return - the indices in getBoardNodes() of the neighbours of the node. This array is shared by all copies of
+     * this board, and must not be changed.
+     */
+    public int[] getNeighbourIndices(int nodeIndex) {
+        // the fields of a Topology are final, so once set it can be read without the lock
+        Topology t = topology;
+        return (t != null ? t : getTopology()).neighbours[nodeIndex];
+    }
+
+    /**
+     * Called before the connections or the nodes of this board are changed. All nodes take their own copy of
+     * their neighbours, and the shared topology is no longer used by this board.
+     */
+    void topologyChanged() {
+        if (topology == null)
+            return;
+        for (BoardNode bn : boardNodes)
+            bn.detachFromBoard();
+        topology = null;
+    }
+
     /**
      * Returns the node in the list which matches the given property
      * @param prop_id - ID of the property to look for.
@@ -130,18 +194,22 @@ public class GraphBoard extends Component implements IComponentContainer<BoardNo
      * @param boardNodes - new list of board nodes.
      */
     public void setBoardNodes(List<BoardNode> boardNodes) {
+        topologyChanged();
         this.boardNodes = boardNodes;
     }
 
     public void addBoardNode(BoardNode bn) {
+        topologyChanged();
         this.boardNodes.add(bn);
     }
 
     public void removeBoardNode(BoardNode bn) {
+        topologyChanged();
         this.boardNodes.remove(bn);
     }
 
     public void breakConnection(BoardNode bn1, BoardNode bn2) {
+        topologyChanged();
         bn1.removeNeighbour(bn2);
         bn2.removeNeighbour(bn1);
 
@@ -166,6 +234,7 @@ public class GraphBoard extends Component implements IComponentContainer<BoardNo
     }
 
     public void addConnection(BoardNode bn1, BoardNode bn2) {
+        topologyChanged();
         bn1.addNeighbour(bn2);
         bn2.addNeighbour(bn1);
         if (!boardNodes.contains(bn1)) {
@@ -207,6 +276,7 @@ public class GraphBoard extends Component implements IComponentContainer<BoardNo
      * @param board - board to load in JSON format
      */
     public void loadBoard(JSONObject board) {
+        topologyChanged();
         componentName = (String) board.get("id");
         String boardType = (String) board.get("type");
         String verticesKey = (String) board.get("verticesKey");
@@ -10,6 +10,7 @@ import org.json.simple.parser.JSONParser;
 import org.json.simple.parser.ParseException;
 import utilities.Pair;
 import utilities.Vector2D;
+import utilities.ZobristHash;
 
 import java.io.FileReader;
 import java.io.IOException;
@@ -25,6 +26,12 @@ public class GridBoard<T extends Component> extends Component implements ICompon
     private int height;  // Height of the board
 
     private Component[][] grid;  // 2D grid representation of this board
+    // Rows of the grid that are shared with another board (see copyOnWrite()), and so must be copied before this
+    // board changes them. Null if no rows are shared.
+    private boolean[] sharedRows;
+    // Zobrist hash of the grid contents (see longHash()), updated by setElement() while valid
+    private long gridHash;
+    private boolean gridHashValid;
 
     protected GridBoard() {
         super(CoreConstants.ComponentType.BOARD);
@@ -122,6 +129,8 @@ public class GridBoard<T extends Component> extends Component implements ICompon
             if (w >= 0) System.arraycopy(this.grid[i], 0, grid[i + offsetY], offsetX, w);
         }
         this.grid = grid;
+        sharedRows = null;
+        gridHashValid = false;
     }
 
     /**
@@ -134,6 +143,12 @@ public class GridBoard<T extends Component> extends Component implements ICompon
      */
     public boolean setElement(int x, int y, T value) {
         if (x >= 0 && x < width && y >= 0 && y < height) {
+            if (sharedRows != null && sharedRows[y]) {
+                grid[y] = grid[y].clone();
+                sharedRows[y] = false;
+            }
+            if (gridHashValid)
+                gridHash ^= cellKey(y * width + x, grid[y][x]) ^ cellKey(y * width + x, value);
             grid[y][x] = value;
             return true;
         } else
@@ -159,6 +174,15 @@ public class GridBoard<T extends Component> extends Component implements ICompon
      * @return - 2D grid.
      */
     public Component[][] getGridValues() {
+        // The caller may change the grid directly
+        gridHashValid = false;
+        if (sharedRows != null) {
+            for (int y = 0; y < height; y++) {
+                if (sharedRows[y])
+                    grid[y] = grid[y].clone();
+            }
+            sharedRows = null;
+        }
         return grid;
     }
 
@@ -228,6 +252,26 @@ public class GridBoard<T extends Component> extends Component implements ICompon
             if (width >= 0) System.arraycopy(grid[i], 0, gridCopy[i], 0, width);
         }
         GridBoard<T> g = new GridBoard<>(gridCopy, componentID);
+        g.gridHash = gridHash;
+        g.gridHashValid = gridHashValid;
+        copyComponentTo(g);
+        return g;
+    }
+
+    /**
+     * Creates a copy of this board that shares each row of the grid with this one, until either board changes
+     * that row. As with copy(), the elements themselves are shared rather than copied. A game's _copy() can use
+     * this instead of copy(), so that copying the board only costs as much as the rows that are then changed.
+     *
+     * @return - a new GridBoard with the same elements.
+     */
+    public GridBoard<T> copyOnWrite() {
+        GridBoard<T> g = new GridBoard<>(grid.clone(), componentID);
+        sharedRows = new boolean[height];
+        Arrays.fill(sharedRows, true);
+        g.sharedRows = sharedRows.clone();
+        g.gridHash = gridHash;
+        g.gridHashValid = gridHashValid;
         copyComponentTo(g);
         return g;
     }
@@ -294,6 +338,8 @@ public class GridBoard<T extends Component> extends Component implements ICompon
         }
 
         this.grid = new Component[height][width];
+        sharedRows = null;
+        gridHashValid = false;
 
         JSONArray grids = (JSONArray) board.get("grid");
         int y = 0;
@@ -397,6 +443,30 @@ public class GridBoard<T extends Component> extends Component implements ICompon
         return false;
     }
 
+    /**
+     * Zobrist hash of the grid: the XOR of one key per occupied cell, from the cell and the ID of the element in it.
+     * This is kept up to date by setElement(), so only costs a full pass over the grid the first time it is called,
+     * or after the grid is resized or handed out by getGridValues().
+     */
+    @Override
+    public long longHash() {
+        if (!gridHashValid) {
+            long hash = 0;
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    hash ^= cellKey(y * width + x, grid[y][x]);
+                }
+            }
+            gridHash = hash;
+            gridHashValid = true;
+        }
+        return ZobristHash.mix(componentID) ^ gridHash;
+    }
+
+    private static long cellKey(int cell, Component element) {
+        return element == null ? 0 : ZobristHash.key(cell, element.getComponentID());
+    }
+
     @Override
     public final int hashCode() {
         return Objects.hash(componentID) + 5 * Arrays.hashCode(flattenGrid());
@@ -259,6 +259,7 @@ public class PartialObservableDeck<T extends Component> extends Deck<T> {
 
     @Override
     public void shuffle(Random rnd) {
+        ownComponents();
         Pair<List<T>, List<boolean[]>> shuffled = shuffleLists(components, elementVisibility, rnd);
         components = shuffled.a;
         elementVisibility = shuffled.b;
@@ -298,6 +299,7 @@ public class PartialObservableDeck<T extends Component> extends Deck<T> {
      * @param visible  - if true, shuffles only visible cards; otherwise, shuffles only hidden cards.
      */
     public void shuffleVisible(Random rnd, int playerId, boolean visible) {
+        ownComponents();
         ArrayList<T> visibleComponents = new ArrayList<>();
         ArrayList<boolean[]> visibility = new ArrayList<>();
         for (int i = 0; i < components.size(); i++) {
@@ -331,6 +333,15 @@ public class PartialObservableDeck<T extends Component> extends Deck<T> {
         return deckVisibility;
     }
 
+    /**
+     * Visibility is tracked for each position in the deck, alongside the list of components, so this is not shared.
+     * @return - a full copy of this deck.
+     */
+    @Override
+    public PartialObservableDeck<T> copyOnWrite() {
+        return copy();
+    }
+
     @Override
     public PartialObservableDeck<T> copy() {
         PartialObservableDeck<T> dp = new PartialObservableDeck<>(componentName, ownerId, deckVisibility, componentID);
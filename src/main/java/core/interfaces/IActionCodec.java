@@ -0,0 +1,19 @@
+package core.interfaces;
+
+import core.actions.AbstractAction;
+
+/**
+ * Maps actions to numbers, so that they can be compared and looked up without calling their equals() and hashCode().
+ * Games can provide one with AbstractForwardModel.getActionCodec().
+ */
+public interface IActionCodec {
+
+    /**
+     * Encodes the action as a non-negative number. Two actions must have the same code if, and only if, they are
+     * equal. The code must only depend on the action (not on the state), so that it stays the same for the whole game.
+     *
+     * @param action - action to encode.
+     * @return - the code, or -1 if this action cannot be encoded (it is then compared with equals() instead).
+     */
+    long encode(AbstractAction action);
+}
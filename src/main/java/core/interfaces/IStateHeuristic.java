@@ -3,6 +3,11 @@ package core.interfaces;
 
 import core.AbstractGameState;
 
+/**
+ * An MCTSPlayer searching on several threads (MCTSParams.nThreads > 1) gives each thread its own copy of a heuristic
+ * that is also TunableParameters. Any other heuristic is shared by all the threads, so its evaluateState() must be safe
+ * to call on several threads at once (as it is if it only reads the state it is given).
+ */
 public interface IStateHeuristic {
 
     /**
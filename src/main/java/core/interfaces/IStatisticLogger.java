@@ -15,6 +15,21 @@ public interface IStatisticLogger {
      */
     void record(Map<String, ?> data);
 
+    /**
+     * Use to register a row of numbers in one go, with the same result as record(Map) with these keys in this order.
+     * Loggers that write many rows of numbers (e.g. feature vectors) can override this to avoid building a Map
+     * of boxed values for each row.
+     *
+     * @param keys   names of the values
+     * @param values one value for each key
+     */
+    default void record(String[] keys, double[] values) {
+        Map<String, Double> data = new LinkedHashMap<>();
+        for (int i = 0; i < keys.length; i++)
+            data.put(keys[i], values[i]);
+        record(data);
+    }
+
     /**
      * Use to record a single datum. For example
      *
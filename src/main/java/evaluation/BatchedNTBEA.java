@@ -0,0 +1,148 @@
+package evaluation;
+
+import evodef.SearchSpace;
+import ntbea.NTupleSystem;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * A version of the NTBEA search loop that proposes a batch of settings on each step, so that the games for all of
+ * them can be played at the same time by GameEvaluator.evaluateBatch(). All the results are then added to the
+ * landscape model before the next batch is proposed.
+ * <p>
+ * As in NTupleBanditEA, the neighbourhood of the current point is sampled by mutating it, and each neighbour is
+ * scored by the model's mean estimate plus kExplore times its exploration estimate. The batch is the top batchSize
+ * neighbours by this score, and the best of these becomes the current point for the next step.
+ * With a batchSize of 1 this follows the same steps as NTupleBanditEA, but draws its random numbers differently, so
+ * does not give the same results for a given seed (ParameterSearch uses NTupleBanditEA itself for a batch of 1).
+ * Larger batches give each step less information to work with, so may need more iterations in total for the same
+ * quality of recommendation.
+ * <p>
+ * The proposals only depend on the seed and the results, so a given seed and batchSize gives the same
+ * recommendation for any number of threads.
+ */
+public class BatchedNTBEA {
+
+    private final NTupleSystem model;
+    private final SearchSpace searchSpace;
+    private final double kExplore;
+    private final int neighbourhoodSize;
+    private final int batchSize;
+    private final Random rnd;
+
+    /**
+     * @param model             The landscape model, which is updated with the result of every game.
+     * @param kExplore          The weight of the exploration estimate.
+     * @param neighbourhoodSize The number of neighbours of the current point to consider on each step. This is
+     *                          increased to batchSize if it is smaller.
+     * @param batchSize         The number of settings to evaluate on each step.
+     * @param seed              Random seed for the proposals.
+     */
+    public BatchedNTBEA(NTupleSystem model, double kExplore, int neighbourhoodSize, int batchSize, long seed) {
+        if (batchSize < 1)
+            throw new IllegalArgumentException("batchSize must be at least 1");
+        this.model = model;
+        this.searchSpace = model.getSearchSpace();
+        this.kExplore = kExplore;
+        this.neighbourhoodSize = Math.max(neighbourhoodSize, batchSize);
+        this.batchSize = batchSize;
+        this.rnd = new Random(seed);
+    }
+
+    public NTupleSystem getModel() {
+        return model;
+    }
+
+    /**
+     * Runs NTBEA for the given number of evaluations, starting from a random point.
+     *
+     * @param evaluator The evaluator that plays the games for each batch.
+     * @param nEvals    The total number of settings to evaluate.
+     */
+    public void runTrial(GameEvaluator evaluator, int nEvals) {
+        int[] current = randomPoint();
+        int evals = 0;
+        while (evals < nEvals) {
+            int n = Math.min(batchSize, nEvals - evals);
+            List<int[]> batch = evals == 0 ? firstBatch(current, n) : nextBatch(current, n);
+            double[] results = evaluator.evaluateBatch(batch);
+            // results are added in the order of the batch, whichever game finished first
+            for (int i = 0; i < n; i++)
+                model.addPoint(batch.get(i), results[i]);
+            evals += n;
+            current = batch.get(0);
+        }
+    }
+
+    private List<int[]> firstBatch(int[] start, int n) {
+        List<int[]> batch = new ArrayList<>(n);
+        batch.add(start);
+        while (batch.size() < n)
+            batch.add(randomPoint());
+        return batch;
+    }
+
+    private List<int[]> nextBatch(int[] current, int n) {
+        List<int[]> neighbours = new ArrayList<>(neighbourhoodSize);
+        // small search spaces may not have enough distinct neighbours, so we limit the attempts
+        for (int attempt = 0; attempt < neighbourhoodSize * 10 && neighbours.size() < neighbourhoodSize; attempt++) {
+            int[] neighbour = mutate(current);
+            if (neighbours.stream().noneMatch(x -> Arrays.equals(x, neighbour)))
+                neighbours.add(neighbour);
+        }
+        double[] value = new double[neighbours.size()];
+        for (int i = 0; i < value.length; i++)
+            value[i] = model.getMeanEstimate(neighbours.get(i)) + kExplore * model.getExplorationEstimate(neighbours.get(i));
+        // stable sort, so that ties are broken by the order the neighbours were generated in
+        List<Integer> order = new ArrayList<>(neighbours.size());
+        for (int i = 0; i < value.length; i++)
+            order.add(i);
+        order.sort(Comparator.comparingDouble(i -> -value[i]));
+
+        List<int[]> batch = new ArrayList<>(n);
+        for (int i = 0; i < n; i++)
+            batch.add(neighbours.get(order.get(i % order.size())));
+        return batch;
+    }
+
+    private int[] randomPoint() {
+        int[] point = new int[searchSpace.nDims()];
+        for (int i = 0; i < point.length; i++)
+            point[i] = rnd.nextInt(searchSpace.nValues(i));
+        return point;
+    }
+
+    /**
+     * Changes each dimension with probability 1/nDims, and always at least one (if any have more than one value).
+     */
+    private int[] mutate(int[] point) {
+        int[] retValue = point.clone();
+        int nDims = searchSpace.nDims();
+        boolean changed = false;
+        for (int i = 0; i < nDims; i++) {
+            if (searchSpace.nValues(i) > 1 && rnd.nextDouble() < 1.0 / nDims) {
+                retValue[i] = otherValue(i, point[i]);
+                changed = true;
+            }
+        }
+        if (!changed) {
+            int[] options = IntStream.range(0, nDims).filter(i -> searchSpace.nValues(i) > 1).toArray();
+            if (options.length > 0) {
+                int i = options[rnd.nextInt(options.length)];
+                retValue[i] = otherValue(i, point[i]);
+            }
+        }
+        return retValue;
+    }
+
+    private int otherValue(int dim, int value) {
+        // pick uniformly from the nValues - 1 values that are not the current one
+        int newValue = rnd.nextInt(searchSpace.nValues(dim) - 1);
+        return newValue >= value ? newValue + 1 : newValue;
+    }
+}
@@ -6,6 +6,7 @@ import core.interfaces.IStateHeuristic;
 import core.interfaces.IStatisticLogger;
 import games.GameType;
 import evaluation.loggers.SummaryLogger;
+import evaluation.loggers.SynchronizedLogger;
 
 import core.AbstractPlayer;
 import core.Game;
@@ -17,6 +18,10 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.IntStream;
 
 import static java.util.stream.Collectors.toList;
@@ -43,6 +48,7 @@ public class GameEvaluator implements SolutionEvaluator {
     boolean fullyCoop;
     IStateHeuristic stateHeuristic;
     IGameHeuristic gameHeuristic;
+    int nThreads = 1;
 
     /**
      * GameEvaluator
@@ -100,6 +106,51 @@ public class GameEvaluator implements SolutionEvaluator {
      */
     @Override
     public double evaluate(int[] settings) {
+        return prepareTrial(settings, statsLogger).play();
+    }
+
+    /**
+     * Evaluates a batch of settings, playing up to nThreads of the games at once (see setNThreads()).
+     * Everything random about each game (the seat of the tuned agent, the opponents, and the game seed) is decided
+     * on the calling thread in the order of the batch, so the results are the same for any number of threads.
+     *
+     * @param batch The settings to evaluate, as for evaluate(int[])
+     * @return The game score for the agent being optimised for each entry in batch, in the same order
+     */
+    public double[] evaluateBatch(List<int[]> batch) {
+        double[] results = new double[batch.size()];
+        if (nThreads == 1 || batch.size() <= 1) {
+            for (int i = 0; i < batch.size(); i++)
+                results[i] = evaluate(batch.get(i));
+            return results;
+        }
+        // the threads only live as long as the batch, as the games take much longer to play than they do to start
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(nThreads, batch.size()), r -> {
+            Thread thread = new Thread(r, "NTBEA-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // the agents record statistics during the game, so these need to share a thread-safe logger
+        IStatisticLogger logger = reportStatistics ? new SynchronizedLogger(statsLogger) : statsLogger;
+        List<Future<Double>> futures = new ArrayList<>(batch.size());
+        try {
+            for (int[] settings : batch)
+                futures.add(executor.submit(prepareTrial(settings, logger)::play));
+            for (int i = 0; i < batch.size(); i++)
+                results[i] = futures.get(i).get();
+        } catch (InterruptedException | ExecutionException e) {
+            throw new AssertionError("Error evaluating settings in parallel: " + e.getMessage(), e);
+        } finally {
+            executor.shutdownNow();
+        }
+        return results;
+    }
+
+    /**
+     * Sets up a single game with the tuned agent (or game) and its opponents. This uses the shared searchSpace and
+     * random number generator, so must be called on the thread that owns this evaluator.
+     */
+    private Trial prepareTrial(int[] settings, IStatisticLogger logger) {
         if (debug)
             System.out.printf("Starting evaluation %d of %s at %tT%n", nEvals,
                     Arrays.toString(settings), System.currentTimeMillis());
@@ -125,19 +176,55 @@ public class GameEvaluator implements SolutionEvaluator {
                 allPlayers.add(opponents.get(oppIndex).copy());
             } else {
                 AbstractPlayer tunedPlayer = (AbstractPlayer) searchSpace.getAgent(settings); // we create for each, in case this is coop
-                if (reportStatistics) tunedPlayer.setStatsLogger(statsLogger);
+                if (reportStatistics) tunedPlayer.setStatsLogger(logger);
                 allPlayers.add(tunedPlayer);
             }
         }
 
-        Game newGame = tuningGame ? (Game) configuredThing : game.createGameInstance(nPlayers, gameParams);
+        // each game has its own copy of the parameters, as games in a batch may be played at the same time
+        AbstractParameters params = gameParams == null ? null : gameParams.copy();
+        Game newGame = tuningGame ? (Game) configuredThing : game.createGameInstance(nPlayers, params);
         // always reset the random seed for each new game
         newGame.reset(allPlayers, rnd.nextLong());
 
-        newGame.run();
-
         nEvals++;
-        return tuningGame ? gameHeuristic.evaluateGame(newGame) : stateHeuristic.evaluateState(newGame.getGameState(), playerIndex);
+        return new Trial(newGame, tuningGame, playerIndex);
+    }
+
+    /**
+     * A game that is ready to be played, and then scored. Playing it only touches objects owned by this trial.
+     */
+    private class Trial {
+        final Game game;
+        final boolean tuningGame;
+        final int playerIndex;
+
+        Trial(Game game, boolean tuningGame, int playerIndex) {
+            this.game = game;
+            this.tuningGame = tuningGame;
+            this.playerIndex = playerIndex;
+        }
+
+        double play() {
+            game.run();
+            return tuningGame ? gameHeuristic.evaluateGame(game) : stateHeuristic.evaluateState(game.getGameState(), playerIndex);
+        }
+    }
+
+    /**
+     * Sets the number of games that evaluateBatch() plays concurrently. Each game has its own Game instance and
+     * copies of the agents.
+     *
+     * @param nThreads - number of worker threads to use
+     */
+    public void setNThreads(int nThreads) {
+        if (nThreads < 1)
+            throw new IllegalArgumentException("nThreads must be at least 1");
+        this.nThreads = nThreads;
+    }
+
+    public int getNThreads() {
+        return nThreads;
     }
 
     /**
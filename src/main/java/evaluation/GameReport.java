@@ -4,7 +4,9 @@ import core.AbstractParameters;
 import core.AbstractPlayer;
 import core.Game;
 import core.interfaces.IStatisticLogger;
+import evaluation.listeners.AsyncGameListener;
 import evaluation.listeners.GameListener;
+import evaluation.loggers.SummaryLogger;
 import games.GameType;
 import players.PlayerFactory;
 import utilities.Pair;
@@ -60,9 +62,11 @@ public class GameReport {
                             "\tlogger=        The full class name of an IStatisticsLogger implementation.\n" +
                             "\t               This is ignored if a json file is provided for the listener.\n" +
                             "\t               Defaults to utilities.SummaryLogger. \n" +
-                            "\tlogFile=       Will be used as the IStatisticsLogger log file (FileStatsLogger only)\n" +
+                            "\tlogFile=       Will be used as the IStatisticsLogger log file (FileStatsLogger or BinaryStatsLogger only)\n" +
                             "\t               A pipe-delimited list should be provided if each distinct listener should\n" +
                             "\t               use a different log file.\n" +
+                            "\tlistenerBuffer= (Optional) If greater than zero, then listeners process events on a background\n" +
+                            "\t               thread, with up to this many events waiting. Defaults to 0 (same thread as the game).\n" +
                             "\tstatsLog=      (Optional) If specified this file will be used to log statistics generated by the\n" +
                             "\t               agent's decision making process (e.g. MCTS node count, depth, etc).\n" +
                             "\trandomGameParams= (Optional) If specified, parameters for the game will be randomized for each game, and printed before the run"
@@ -80,6 +84,7 @@ public class GameReport {
         List<String> metricsClasses = new ArrayList<>(Arrays.asList(getArg(args, "metrics", "evaluation.metrics.GameMetrics").split("\\|")));
         List<String> logFiles = new ArrayList<>(Arrays.asList(getArg(args, "logFile", "GameReport.txt").split("\\|")));
         boolean randomGameParams = getArg(args, "randomGameParams", false);
+        int listenerBuffer = getArg(args, "listenerBuffer", 0);
 
         if (listenerClasses.size() > 1 && logFiles.size() > 1 && listenerClasses.size() != logFiles.size())
             throw new IllegalArgumentException("Lists of log files and listeners must be the same length");
@@ -120,7 +125,13 @@ public class GameReport {
             String metricsClass = metricsClasses.size() == 1 ? metricsClasses.get(0) : metricsClasses.get(i);
             String listenerClass = listenerClasses.get(i);
             IStatisticLogger logger = IStatisticLogger.createLogger(loggerClass, logFile);
+            // the visualisers plot the values recorded (see StatsVisualiser.visualiseMetricAsDotPlot), so opt in to
+            // keeping them when one will be shown; otherwise just their statistics are kept
+            if (logger instanceof SummaryLogger)
+                ((SummaryLogger) logger).keepElements = games.stream().anyMatch(g -> StatsVisualiser.hasVisualiser(GameType.valueOf(g)));
             GameListener gameTracker = GameListener.createListener(listenerClass, logger, metricsClass);
+            if (listenerBuffer > 0)
+                gameTracker = new AsyncGameListener(gameTracker, listenerBuffer);
             gameTrackers.add(gameTracker);
         }
 
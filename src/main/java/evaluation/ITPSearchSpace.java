@@ -167,6 +167,13 @@ public class ITPSearchSpace extends AgentSearchSpace<Object> {
             //   Object value = itp.getPossibleValues(pName).get(settings[i]);
             itp.setParameterValue(pName, value);
         }
+        // Agents keep a reference to the parameters they are created from, so we instantiate from a copy (with the
+        // same seed) to stop later calls changing agents that are still playing
+        if (itp instanceof TunableParameters) {
+            TunableParameters copy = ((TunableParameters) itp).copy();
+            copy.setRandomSeed(((TunableParameters) itp).getRandomSeed());
+            return copy.instantiate();
+        }
         return itp.instantiate();
     }
 
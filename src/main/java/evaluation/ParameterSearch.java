@@ -67,6 +67,11 @@ public class ParameterSearch {
                         "\trepeat=        The number of times NTBEA should be re-run, to find a single best recommendation \n" +
                         "\tverbose        Will log the results marginalised to each dimension, and the Top 10 best tuples for each run \n" +
                         "\tseed=          Random seed for Game use (not used by NTBEA itself). Defaults to System.currentTimeMillis()\n" +
+                        "\tbatch=         The number of settings NTBEA proposes (and evaluates) on each step. Defaults to 1.\n" +
+                        "\t               Larger batches can be evaluated in parallel, but give NTBEA less information per step.\n" +
+                        "\t               This is not supported with MultiNTBEA (i.e. when no opponent is given).\n" +
+                        "\tnThreads=      The number of games to run in parallel, for each batch and for the evalGames. Defaults to 1.\n" +
+                        "\t               For a given seed and batch size the recommendation does not depend on nThreads.\n" +
                         "\tlogFile=       Output file with results of each run for easier statistical analysis\n"
         );
 
@@ -158,13 +163,17 @@ public class ParameterSearch {
         String logfile = getArg(args, "logFile", "");
         String evalMethod = getArg(args, "eval", "Win");
         String paramFile = getArg(args, "gameParam", "");
+        int batchSize = getArg(args, "batch", 1);
+        int nThreads = getArg(args, "nThreads", 1);
         AbstractParameters gameParams = AbstractParameters.createFromFile(game, paramFile);
 
         ITPSearchSpace searchSpace = (ITPSearchSpace) landscapeModel.getSearchSpace();
         int searchSpaceSize = IntStream.range(0, searchSpace.nDims()).reduce(1, (acc, i) -> acc * searchSpace.nValues(i));
         int hood = getArg(args, "hood", Math.min(50, searchSpaceSize / 100));
 
-        NTupleBanditEA searchFramework = new NTupleBanditEA(landscapeModel, kExplore, hood);
+        // the NTBEA library evaluates one setting at a time, so batches use our own version of the search loop
+        NTupleBanditEA searchFramework = batchSize == 1 ? new NTupleBanditEA(landscapeModel, kExplore, hood) : null;
+        BatchedNTBEA batchedFramework = batchSize > 1 ? new BatchedNTBEA(landscapeModel, kExplore, hood, batchSize, seed) : null;
 
         // Set up opponents
         List<AbstractPlayer> opponents = new ArrayList<>();
@@ -220,6 +229,7 @@ public class ParameterSearch {
                 gameHeuristic,
                 !allowDupes
         );
+        evaluator.setNThreads(nThreads);
 
         // Get the results. And then log them.
         // This loops once for each complete repetition of NTBEA specified.
@@ -229,7 +239,7 @@ public class ParameterSearch {
         for (int mainLoop = 0; mainLoop < repeats; mainLoop++) {
             landscapeModel.reset();
             evaluator.statsLogger = IStatisticLogger.createLogger("utilities.SummaryLogger", "Agent_" + String.format("%2d", repeats+1) + "_" + logfile);
-            Pair<Double, Double> r = runNTBEA(evaluator, null, searchFramework, iterationsPerRun, iterationsPerRun, evalGames, verbose);
+            Pair<Double, Double> r = runNTBEA(evaluator, null, searchFramework, batchedFramework, iterationsPerRun, iterationsPerRun, evalGames, verbose);
             Pair<Pair<Double, Double>, double[]> retValue = new Pair<>(r, landscapeModel.getBestOfSampled());
             printDetailsOfRun(retValue, searchSpace, logfile, verbose, evaluator.statsLogger);
             if (retValue.a.a > bestResult.a.a)
@@ -252,6 +262,8 @@ public class ParameterSearch {
         int nPlayers = getArg(args, "nPlayers", game.getMinPlayers());
         long seed = getArg(args, "seed", System.currentTimeMillis());
         String logfile = getArg(args, "logFile", "");
+        if (getArg(args, "batch", 1) > 1 || getArg(args, "nThreads", 1) > 1)
+            System.out.println("batch and nThreads are not supported with MultiNTBEA, so all games are run one at a time");
 
         String evalMethod = getArg(args, "eval", "Win");
         IStateHeuristic stateHeuristic = null;
@@ -487,14 +499,30 @@ public class ParameterSearch {
                                                 EvoAlg searchFramework,
                                                 int totalRuns, int reportEvery,
                                                 int evalGames, boolean logResults) {
+        return runNTBEA(evaluator, multiPlayerEvaluator, searchFramework, null, totalRuns, reportEvery, evalGames, logResults);
+    }
+
+    /**
+     * As above, but if batchedFramework is not null then this is used instead of searchFramework to run the trials,
+     * with evaluator (which must then be a GameEvaluator) playing each batch of games.
+     */
+    public static Pair<Double, Double> runNTBEA(SolutionEvaluator evaluator,
+                                                GameMultiPlayerEvaluator multiPlayerEvaluator,
+                                                EvoAlg searchFramework,
+                                                BatchedNTBEA batchedFramework,
+                                                int totalRuns, int reportEvery,
+                                                int evalGames, boolean logResults) {
 
-        NTupleSystem landscapeModel = (NTupleSystem) searchFramework.getModel();
+        NTupleSystem landscapeModel = batchedFramework != null ? batchedFramework.getModel() : (NTupleSystem) searchFramework.getModel();
         SearchSpace searchSpace = landscapeModel.getSearchSpace();
 
         // If reportEvery == totalRuns, then this will just loop once
         // (Which is the usual default)
         for (int iter = 0; iter < totalRuns / reportEvery; iter++) {
-            if (evaluator != null) {
+            if (batchedFramework != null) {
+                evaluator.reset();
+                batchedFramework.runTrial((GameEvaluator) evaluator, reportEvery);
+            } else if (evaluator != null) {
                 evaluator.reset();
                 searchFramework.runTrial(evaluator, reportEvery);
             } else {
@@ -543,13 +571,11 @@ public class ParameterSearch {
         // now run the evaluation games on the final recommendation
         if (evaluator instanceof GameEvaluator && evalGames > 0) {
             ((GameEvaluator) evaluator).reportStatistics = true;
-            double[] results = IntStream.range(0, evalGames)
-                    .mapToDouble(answer -> {
-                        int[] settings = Arrays.stream(landscapeModel.getBestOfSampled())
-                                .mapToInt(d -> (int) d)
-                                .toArray();
-                        return evaluator.evaluate(settings);
-                    }).toArray();
+            int[] settings = Arrays.stream(landscapeModel.getBestOfSampled())
+                    .mapToInt(d -> (int) d)
+                    .toArray();
+            // these are all run as one batch, so are played in parallel if the evaluator has more than one thread
+            double[] results = ((GameEvaluator) evaluator).evaluateBatch(Collections.nCopies(evalGames, settings));
 
             double avg = Arrays.stream(results).average().orElse(0.0);
             double stdErr = Math.sqrt(Arrays.stream(results)
@@ -222,6 +222,14 @@ public abstract class StatsVisualiser extends JFrame {
         piePlot.setMaxHeight(200);
     }
 
+    /**
+     * @return true if getVisualiserForGame() has a visualiser for this game. Its loggers then need to keep all
+     * the values recorded, for the plots.
+     */
+    static boolean hasVisualiser(GameType gameType) {
+        return gameType == GameType.TerraformingMars;
+    }
+
     static StatsVisualiser getVisualiserForGame(GameType gameType, List<GameListener> listeners) {
         switch (gameType) {
             case TerraformingMars: return new TMStatsVisualiser(listeners);
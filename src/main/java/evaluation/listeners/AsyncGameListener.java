@@ -0,0 +1,187 @@
+package evaluation.listeners;
+
+import core.Game;
+import evaluation.metrics.Event;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Runs another GameListener on a background thread, so that computing and logging metrics does not slow down the
+ * game itself.
+ * ---
+ * Events are put in a bounded buffer, and the background thread takes them out in batches and passes them on to the
+ * wrapped listener in the order they happened. If the buffer is full, the game waits until there is room (so memory
+ * use is bounded however slow the metrics are). At GAME_OVER, and in allGamesFinished(), the game waits until all
+ * events so far have been processed, so the loggers are up to date when a game ends.
+ * <p>
+ * By default each event is given a copy of the game state (and action), as the game will have moved on by the time
+ * the metrics look at it. Without snapshots the metrics see the live state, which is only safe for metrics that
+ * do not read the state (or game) at all. Note that metrics that use getGame() see the live game in either case.
+ * The wrapped listener is only told about a new game (setGame()) on the background thread, through the buffer,
+ * so that it changes between the last event of one game and the first of the next.
+ * <p>
+ * Any exception thrown by the wrapped listener is thrown again (as an AssertionError) on the game thread at the next
+ * GAME_OVER or allGamesFinished(). Events after the exception, up to that point, are discarded.
+ */
+public class AsyncGameListener extends GameListener {
+
+    private final GameListener delegate;
+    private final boolean snapshot;
+    private final int batchSize;
+    private final BlockingQueue<Object> queue;
+    private Thread consumer;
+    // The last game passed on to the background thread (only used on the game thread)
+    private Game sentGame;
+    private volatile Throwable error;
+
+    // Marker put in the queue after the last event to stop the background thread
+    private static final Object STOP = new Object();
+
+    // Put in the queue when the game changes, for the background thread to pass on to the wrapped listener
+    private static class GameChange {
+        final Game game;
+
+        GameChange(Game game) {
+            this.game = game;
+        }
+    }
+
+    /**
+     * @param delegate - the listener that will process the events
+     * @param capacity - the maximum number of events waiting to be processed
+     */
+    public AsyncGameListener(GameListener delegate, int capacity) {
+        this(delegate, capacity, true);
+    }
+
+    /**
+     * @param delegate - the listener that will process the events
+     * @param capacity - the maximum number of events waiting to be processed
+     * @param snapshot - if true, then events are given copies of the state and action
+     */
+    public AsyncGameListener(GameListener delegate, int capacity, boolean snapshot) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("Capacity must be at least 1 : " + capacity);
+        this.delegate = delegate;
+        this.snapshot = snapshot;
+        this.batchSize = Math.max(1, Math.min(capacity, 64));
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        // The loggers and metrics are those of the wrapped listener, so anything that reads them from this one
+        // (e.g. a StatsVisualiser) sees the same data
+        this.loggers = delegate.loggers;
+        this.metrics = delegate.metrics;
+    }
+
+    @Override
+    public void onEvent(Event event) {
+        Event toSend = event;
+        if (snapshot)
+            toSend = Event.createEvent(event.type,
+                    event.state == null ? null : event.state.copy(),
+                    event.action == null ? null : event.action.copy(),
+                    event.playerID);
+        startConsumer();
+        if (getGame() != sentGame) {
+            sentGame = getGame();
+            put(new GameChange(sentGame));
+        }
+        put(toSend);
+        if (event.type == Event.GameEvent.GAME_OVER)
+            flush();
+    }
+
+    /**
+     * Waits until all events so far have been processed by the wrapped listener.
+     */
+    public void flush() {
+        if (consumer == null) {
+            checkError();
+            return;
+        }
+        CountDownLatch latch = new CountDownLatch(1);
+        put(latch);
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AssertionError("Interrupted while waiting for asynchronous listener", e);
+        }
+        checkError();
+    }
+
+    @Override
+    public void allGamesFinished() {
+        flush();
+        if (consumer != null) {
+            put(STOP);
+            try {
+                consumer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            consumer = null;
+        }
+        delegate.allGamesFinished();
+    }
+
+    public GameListener getDelegate() {
+        return delegate;
+    }
+
+    private void startConsumer() {
+        if (consumer == null) {
+            consumer = new Thread(this::consume, "GameListener-async");
+            consumer.setDaemon(true);
+            consumer.start();
+        }
+    }
+
+    private void put(Object item) {
+        try {
+            queue.put(item);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AssertionError("Interrupted while waiting for asynchronous listener", e);
+        }
+    }
+
+    private void checkError() {
+        Throwable e = error;
+        if (e != null) {
+            error = null;
+            throw new AssertionError("Error in asynchronous listener: " + e.getMessage(), e);
+        }
+    }
+
+    private void consume() {
+        List<Object> batch = new ArrayList<>(batchSize);
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch, batchSize - 1);
+                for (Object item : batch) {
+                    if (item == STOP)
+                        return;
+                    if (item instanceof CountDownLatch) {
+                        ((CountDownLatch) item).countDown();
+                    } else if (item instanceof GameChange) {
+                        delegate.setGame(((GameChange) item).game);
+                    } else if (error == null) {
+                        try {
+                            delegate.onEvent((Event) item);
+                        } catch (Throwable e) {
+                            error = e;
+                        }
+                    }
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            // Only happens if someone else interrupts us; just stop
+        }
+    }
+}
@@ -20,6 +20,7 @@ public abstract class FeatureListener extends GameListener {
     List<StateFeatureListener.LocalDataWrapper> currentData = new ArrayList<>();
     Event.GameEvent frequency;
     boolean currentPlayerOnly = false;
+    private String[] columns;
 
     protected FeatureListener(IStatisticLogger logger, Event.GameEvent frequency, boolean currentPlayerOnly) {
         super(logger, new AbstractMetric[]{});
@@ -51,24 +52,24 @@ public abstract class FeatureListener extends GameListener {
             }).toArray();
             double[] ordinal = IntStream.range(0, totP).mapToDouble(event.state::getOrdinalPosition).toArray();
             double finalRound = event.state.getRoundCounter();
+            // Columns are in the same order for every record, for human viewing of the file
+            String[] columns = columns();
+            double[] row = new double[columns.length];
+            IStatisticLogger logger = loggers.get(event.type);
             for (StateFeatureListener.LocalDataWrapper record : currentData) {
-                // we use a LinkedHashMap so that the order of the keys is preserved, and hence the
-                // data is written to file in a sensible order for human viewing
-                Map<String, Double> data = new LinkedHashMap<>();
-                data.put("GameID", (double) event.state.getGameID());
-                data.put("Player", (double) record.player);
-                data.put("Round", (double) record.gameRound);
-                data.put("Turn", (double) record.gameTurn);
-                data.put("CurrentScore", record.currentScore);
-                for (int i = 0; i < record.array.length; i++) {
-                    data.put(names()[i], record.array[i]);
-                }
-                data.put("PlayerCount", (double) game.getPlayers().size());
-                data.put("TotalRounds", finalRound);
-                data.put("Win", winLoss[record.player]);
-                data.put("Ordinal", ordinal[record.player]);
-                data.put("FinalScore", finalScores[record.player]);
-                loggers.get(event.type).record(data);
+                row[0] = event.state.getGameID();
+                row[1] = record.player;
+                row[2] = record.gameRound;
+                row[3] = record.gameTurn;
+                row[4] = record.currentScore;
+                System.arraycopy(record.array, 0, row, 5, record.array.length);
+                int next = 5 + record.array.length;
+                row[next++] = game.getPlayers().size();
+                row[next++] = finalRound;
+                row[next++] = winLoss[record.player];
+                row[next++] = ordinal[record.player];
+                row[next] = finalScores[record.player];
+                logger.record(columns, row);
             }
             loggers.get(event.type).processDataAndNotFinish();
             currentData = new ArrayList<>();
@@ -78,6 +79,16 @@ public abstract class FeatureListener extends GameListener {
 
     public abstract String[] names();
 
+    private String[] columns() {
+        if (columns == null) {
+            List<String> retValue = new ArrayList<>(Arrays.asList("GameID", "Player", "Round", "Turn", "CurrentScore"));
+            retValue.addAll(Arrays.asList(names()));
+            retValue.addAll(Arrays.asList("PlayerCount", "TotalRounds", "Win", "Ordinal", "FinalScore"));
+            columns = retValue.toArray(new String[0]);
+        }
+        return columns;
+    }
+
     public abstract double[] extractFeatureVector(AbstractAction action, AbstractGameState state, int perspectivePlayer);
 
     public void setLogger(IStatisticLogger newLogger) {
@@ -6,9 +6,6 @@ import evaluation.metrics.AbstractMetric;
 import evaluation.metrics.Event;
 import evaluation.metrics.GameMetrics;
 import evaluation.metrics.IMetricsCollection;
-import evaluation.summarisers.TAGNumericStatSummary;
-import evaluation.summarisers.TAGOccurrenceStatSummary;
-import evaluation.summarisers.TAGTimeSeriesSummary;
 import utilities.TimeStamp;
 import utilities.Utils;
 import evaluation.summarisers.TAGStatSummary;
@@ -16,6 +13,7 @@ import evaluation.summarisers.TAGStatSummary;
 import java.io.File;
 import java.lang.reflect.Constructor;
 import java.util.*;
+import java.util.stream.IntStream;
 
 /**
  * Main Game Listener class. An instance can be attached to a game, which will then cause registered metrics in this
@@ -37,6 +35,11 @@ public class GameListener {
     // Game this listener listens to
     protected Game game;
 
+    // Metrics that listen to each event type, worked out from the metrics the first time they are needed
+    private final Map<Event.GameEvent, MetricDispatch> dispatch = new EnumMap<>(Event.GameEvent.class);
+    private Map<String, AbstractMetric> dispatchSource;
+    private int dispatchSize;
+
     public GameListener() {}
     public GameListener(IStatisticLogger logger, AbstractMetric[] metrics) {
         setup(logger);
@@ -63,62 +66,40 @@ public class GameListener {
      *               It's not guaranteed that the data fields are different to null, so a check is necessary.
      */
     public void onEvent(Event event) {
-        Map<String, Object> data = new TreeMap<>();
-        Map<String, TAGStatSummary> aggregators = new HashMap<>();
+        int nPlayers = event.state == null ? 0 : event.state.getNPlayers();
+        MetricDispatch dispatch = getDispatch(event.type, nPlayers);
+        Object[] values = dispatch.values;
+        AbstractMetric[] eventMetrics = dispatch.metrics;
 
-        for (String attrStr : metrics.keySet()) {
-            AbstractMetric metric = metrics.get(attrStr);
-            if (metric.listens(event.type)) {
-                // Apply metric
-                if (metric.isRecordedPerPlayer()) {
-                    ArrayList<Object> metricResults = new ArrayList<>();
-                    for (int i = 0; i < event.state.getNPlayers(); i++) {
-                        event.playerID = i;
-                        Object metricResult = metric.run(this, event);
-                        if(metricResult != null){
-                            metricResults.add(metricResult);
-                            data.put(attrStr + ":" + i + ":" + event.type, metricResult);
-                        }
-                    }
-                    //Aggregates per-player metrics for all players.
-                    if(metric.isAggregate())
-                        aggregators.put(attrStr + ":All:" + event.type, aggregate(metricResults));
-                }
-                else
-                {
-                    Object metricResult = metric.run(this, event);
-                    if(metricResult != null) data.put(attrStr + ":" + event.type, metricResult);
+        for (int m = 0; m < eventMetrics.length; m++) {
+            AbstractMetric metric = eventMetrics[m];
+            int column = dispatch.firstColumn[m];
+            // Apply metric
+            if (metric.isRecordedPerPlayer()) {
+                for (int i = 0; i < nPlayers; i++) {
+                    event.playerID = i;
+                    values[column + i] = metric.run(this, event);
                 }
+            } else {
+                values[column] = metric.run(this, event);
             }
         }
 
-        // Record data!
-        loggers.get(event.type).record(data);
+        // Record data! (in key order, as the columns of file loggers follow it)
+        Map<String, Object> data = new LinkedHashMap<>();
+        for (int column : dispatch.order) {
+            if (values[column] != null)
+                data.put(dispatch.columns[column], values[column]);
+        }
+        IStatisticLogger eventLogger = loggers.get(event.type);
+        eventLogger.record(data);
 
-        // Record aggregated data!
-        if(aggregators.size() > 0)
-        {
-            for(String k : aggregators.keySet())
-            {
-                TAGStatSummary ss = aggregators.get(k);
-                if(ss.type == TAGStatSummary.StatType.Numeric)
-                {
-                    ArrayList<Double> aggData = ((TAGNumericStatSummary) ss).getElements();
-                    for(Double d : aggData)
-                        loggers.get(event.type).record(k, d);
-                }else if(ss.type == TAGStatSummary.StatType.Occurrence)
-                {
-                    HashMap<Object, Integer> aggData = ((TAGOccurrenceStatSummary) ss).getElements();
-                    for(Object o : aggData.keySet())
-                        loggers.get(event.type).record(k, o);
-                }else if(ss.type == TAGStatSummary.StatType.Time)
-                {
-                    ArrayList<TimeStamp> aggData = (ArrayList<TimeStamp>) ss.getElements();
-                    for(TimeStamp t : aggData)
-                        loggers.get(event.type).record(k, t);
-                }
-            }
+        // Record aggregated data for per-player metrics, for all players
+        for (int m = 0; m < eventMetrics.length; m++) {
+            if (dispatch.aggregateKeys[m] != null)
+                recordAggregate(eventLogger, dispatch.aggregateKeys[m], values, dispatch.firstColumn[m], nPlayers, dispatch.numbers);
         }
+        Arrays.fill(values, null);
 
         // Process data from events recorded multiple times during game
         if (event.type == Event.GameEvent.GAME_OVER) {
@@ -167,32 +148,103 @@ public class GameListener {
         gameOverLogger.record(toRecord);
     }
 
-    private TAGStatSummary aggregate(ArrayList<Object> metricsData)
-    {
-        if(metricsData.size() > 0) {
-            if (metricsData.get(0) instanceof Number) {  // TODO might want this as occurrence stat summary instead
-                TAGNumericStatSummary ss = new TAGNumericStatSummary();
-                for (Object metricsDatum : metricsData) {
-                    if (metricsDatum instanceof Integer) ss.add((Integer) metricsDatum);
-                    if (metricsDatum instanceof Double) ss.add((Double) metricsDatum);
-                }
-                return ss;
-            }else if (metricsData.get(0) instanceof TimeStamp) {
-                //This is a time series.
-                TAGTimeSeriesSummary ss = new TAGTimeSeriesSummary();
-                for (Object metricsDatum : metricsData) {
-                    TimeStamp timeStamp = (TimeStamp) metricsDatum;
-                    ss.append(timeStamp.x, timeStamp.v);
+    /**
+     * Records the results of one per-player metric under a single key, for all players. Numbers are all recorded,
+     * as are time stamps; other values are recorded once for each distinct value.
+     * @param numbers - buffer with room for one number per player
+     */
+    private static void recordAggregate(IStatisticLogger logger, String key, Object[] values, int from, int nPlayers, double[] numbers) {
+        Object first = null;
+        for (int i = from; i < from + nPlayers && first == null; i++)
+            first = values[i];
+        if (first == null) return;
+        if (first instanceof Number) {  // TODO might want this as occurrence stat summary instead
+            int n = 0;
+            for (int i = from; i < from + nPlayers; i++) {
+                if (values[i] instanceof Integer) numbers[n++] = (Integer) values[i];
+                if (values[i] instanceof Double) numbers[n++] = (Double) values[i];
+            }
+            for (int i = 0; i < n; i++)
+                logger.record(key, numbers[i]);
+        } else if (first instanceof TimeStamp) {
+            //This is a time series.
+            for (int i = from; i < from + nPlayers; i++)
+                if (values[i] != null)
+                    logger.record(key, values[i]);
+        } else {
+            for (int i = from; i < from + nPlayers; i++) {
+                if (values[i] == null) continue;
+                boolean seen = false;
+                for (int j = from; j < i && !seen; j++)
+                    seen = values[i].equals(values[j]);
+                if (!seen)
+                    logger.record(key, values[i]);
+            }
+        }
+    }
+
+    /**
+     * @return the metrics that listen to this event type, with their keys for the given number of players. This is
+     * worked out once, and again only if the metrics change.
+     */
+    private MetricDispatch getDispatch(Event.GameEvent type, int nPlayers) {
+        if (dispatchSource != metrics || dispatchSize != metrics.size()) {
+            dispatch.clear();
+            dispatchSource = metrics;
+            dispatchSize = metrics.size();
+        }
+        MetricDispatch retValue = dispatch.get(type);
+        if (retValue == null || retValue.nPlayers != nPlayers) {
+            retValue = new MetricDispatch(metrics, type, nPlayers);
+            dispatch.put(type, retValue);
+        }
+        return retValue;
+    }
+
+    /**
+     * The metrics that listen to one event type, and the keys they record their values under. Each metric has one
+     * column (or one per player), and the values of all columns are collected in a reused array.
+     */
+    private static class MetricDispatch {
+        final int nPlayers;
+        final AbstractMetric[] metrics;
+        final int[] firstColumn;
+        final String[] aggregateKeys;  // null if the metric is not aggregated over players
+        final String[] columns;
+        final int[] order;  // columns sorted by key
+        final Object[] values;
+        final double[] numbers;
+
+        MetricDispatch(Map<String, AbstractMetric> allMetrics, Event.GameEvent type, int nPlayers) {
+            this.nPlayers = nPlayers;
+            List<String> names = new ArrayList<>();
+            for (String name : allMetrics.keySet())
+                if (allMetrics.get(name).listens(type))
+                    names.add(name);
+            metrics = new AbstractMetric[names.size()];
+            firstColumn = new int[names.size()];
+            aggregateKeys = new String[names.size()];
+            List<String> keys = new ArrayList<>();
+            for (int m = 0; m < metrics.length; m++) {
+                String name = names.get(m);
+                metrics[m] = allMetrics.get(name);
+                firstColumn[m] = keys.size();
+                if (metrics[m].isRecordedPerPlayer()) {
+                    for (int i = 0; i < nPlayers; i++)
+                        keys.add(name + ":" + i + ":" + type);
+                    if (metrics[m].isAggregate())
+                        aggregateKeys[m] = name + ":All:" + type;
+                } else {
+                    keys.add(name + ":" + type);
                 }
-                return ss;
-            } else {
-                TAGOccurrenceStatSummary ss = new TAGOccurrenceStatSummary();
-                for (Object metricsDatum : metricsData)
-                    ss.add(metricsDatum);
-                return ss;
             }
+            columns = keys.toArray(new String[0]);
+            order = IntStream.range(0, columns.length).boxed()
+                    .sorted(Comparator.comparing(c -> columns[c]))
+                    .mapToInt(Integer::intValue).toArray();
+            values = new Object[columns.length];
+            numbers = new double[nPlayers];
         }
-        return null;
     }
 
     /**
@@ -0,0 +1,367 @@
+package evaluation.loggers;
+
+import core.interfaces.IStatisticLogger;
+import evaluation.summarisers.TAGStatSummary;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.Deflater;
+
+/**
+ * A logger that writes rows of data to a compact binary file, for data sets too large to write quickly as text
+ * (such as the feature vectors from {@link evaluation.listeners.FeatureListener}). The file can be read with
+ * {@link BinaryStatsReader}, which can also write it out as text.
+ * ---
+ * As with {@link FileStatsLogger}, the columns are the keys of the first row recorded. Each column has a type,
+ * also taken from the first row: DOUBLE for Double and Float, LONG for other whole numbers, and STRING for anything
+ * else (recorded with toString()). Missing values are NaN, Long.MIN_VALUE or null respectively; a NaN given for a
+ * LONG column is recorded as missing.
+ * <p>
+ * Rows are buffered, and written in blocks of up to blockSize rows, column by column (so each column is stored as
+ * one array per block). Blocks may be compressed with Deflater.
+ * <p>
+ * File format (all numbers big-endian, as written by DataOutputStream). The file is a sequence of chunks:
+ * <ul>
+ *     <li>Header: 'H', int MAGIC, byte VERSION, long schema ID, int number of columns, then for each column its
+ *     name (writeUTF) and type (byte, the ordinal of ColumnType).</li>
+ *     <li>Block: 'B', long schema ID, boolean compressed, int raw length, int stored length, then the stored bytes.
+ *     Uncompressed, these are: int number of rows, then for each column all its values for these rows (doubles,
+ *     longs, or for strings an int length in bytes, or -1 for no value, followed by the UTF-8 bytes).</li>
+ * </ul>
+ * A header is written before the first block of each logger, and each chunk is written with a single call in
+ * append mode. Several loggers (e.g. from emptyCopy()) can therefore write to the same file, with different schemas.
+ */
+public class BinaryStatsLogger implements IStatisticLogger {
+
+    public enum ColumnType {DOUBLE, LONG, STRING}
+
+    static final int MAGIC = 0x54414742;  // "TAGB"
+    static final byte VERSION = 1;
+
+    private final String fileName;
+    private final boolean compress;
+    private final int blockSize;
+    private OutputStream out;
+    private ByteBuffer buffer;
+    private boolean headerWritten;
+
+    private String[] names;
+    private ColumnType[] types;
+    private Map<String, Integer> columnIndex;
+    private long schemaID;
+    private double[][] doubles;
+    private long[][] longs;
+    private String[][] strings;
+    private int nRows;
+
+    // The keys last given to record(String[], double[]), the column for each of them, and whether they cover every
+    // column
+    private String[] lastKeys;
+    private int[] keyColumns;
+    private boolean keysCoverAllColumns;
+
+    public BinaryStatsLogger(String fileName) {
+        this(fileName, true, false);
+    }
+
+    /**
+     * @param append   - if false, then any existing file is replaced. Otherwise rows are added to the end.
+     * @param compress - if true, then each block of rows is compressed.
+     */
+    public BinaryStatsLogger(String fileName, boolean append, boolean compress) {
+        this(fileName, append, compress, 4096);
+    }
+
+    /**
+     * @param blockSize - maximum number of rows held in memory before they are written.
+     */
+    public BinaryStatsLogger(String fileName, boolean append, boolean compress, int blockSize) {
+        if (blockSize < 1)
+            throw new IllegalArgumentException("blockSize must be at least 1 : " + blockSize);
+        this.fileName = fileName;
+        this.compress = compress;
+        this.blockSize = blockSize;
+        if (!append) {
+            // Start a new file now; it is later opened in append mode, in case copies of this logger share it
+            try {
+                new FileOutputStream(fileName).close();
+            } catch (IOException e) {
+                throw new AssertionError("Problem opening file " + fileName + " : " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void record(Map<String, ?> data) {
+        if (names == null) {
+            String[] keys = data.keySet().toArray(new String[0]);
+            ColumnType[] columnTypes = new ColumnType[keys.length];
+            for (int i = 0; i < keys.length; i++)
+                columnTypes[i] = typeOf(data.get(keys[i]));
+            setSchema(keys, columnTypes);
+        } else {
+            for (String key : data.keySet())
+                if (!columnIndex.containsKey(key))
+                    System.out.println("Unknown key in BinaryStatsLogger : " + key);
+        }
+        for (int c = 0; c < names.length; c++)
+            set(c, data.get(names[c]));
+        endRow();
+    }
+
+    @Override
+    public void record(String[] keys, double[] values) {
+        if (names == null) {
+            ColumnType[] columnTypes = new ColumnType[keys.length];
+            Arrays.fill(columnTypes, ColumnType.DOUBLE);
+            setSchema(keys, columnTypes);
+        }
+        // (callers usually pass the same array each time, but may have changed its contents)
+        if (!Arrays.equals(keys, lastKeys)) {
+            keyColumns = new int[keys.length];
+            boolean[] covered = new boolean[names.length];
+            for (int i = 0; i < keys.length; i++) {
+                Integer column = columnIndex.get(keys[i]);
+                if (column == null)
+                    System.out.println("Unknown key in BinaryStatsLogger : " + keys[i]);
+                else
+                    covered[column] = true;
+                keyColumns[i] = column == null ? -1 : column;
+            }
+            keysCoverAllColumns = true;
+            for (boolean b : covered)
+                keysCoverAllColumns &= b;
+            lastKeys = keys.clone();
+        }
+        if (!keysCoverAllColumns)
+            for (int c = 0; c < names.length; c++)
+                set(c, null);  // as some columns are not in keys
+        for (int i = 0; i < keys.length; i++) {
+            int c = keyColumns[i];
+            if (c < 0) continue;
+            switch (types[c]) {
+                case DOUBLE:
+                    doubles[c][nRows] = values[i];
+                    break;
+                case LONG:
+                    set(c, values[i]);
+                    break;
+                default:
+                    strings[c][nRows] = String.valueOf(values[i]);
+            }
+        }
+        endRow();
+    }
+
+    @Override
+    public void record(String key, Object datum) {
+        System.out.println("Datum ignored - BinaryStatsLogger only to be used with other record()");
+    }
+
+    @Override
+    public void processDataAndFinish() {
+        processDataAndNotFinish();
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException e) {
+                throw new AssertionError("Problem closing file " + fileName + " : " + e.getMessage());
+            }
+            out = null;
+        }
+    }
+
+    @Override
+    public void processDataAndNotFinish() {
+        if (nRows > 0)
+            writeBlock();
+    }
+
+    /**
+     * This always returns an empty Map
+     */
+    @Override
+    public Map<String, TAGStatSummary> summary() {
+        return new HashMap<>();
+    }
+
+    @Override
+    public BinaryStatsLogger emptyCopy(String id) {
+        // Copies always append, so that they do not remove what this logger has written
+        return new BinaryStatsLogger(fileName, true, compress, blockSize);
+    }
+
+    private static ColumnType typeOf(Object value) {
+        if (value instanceof Double || value instanceof Float)
+            return ColumnType.DOUBLE;
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte)
+            return ColumnType.LONG;
+        return ColumnType.STRING;
+    }
+
+    private void setSchema(String[] keys, ColumnType[] columnTypes) {
+        names = keys.clone();
+        types = columnTypes;
+        columnIndex = new HashMap<>();
+        for (int c = 0; c < names.length; c++)
+            columnIndex.put(names[c], c);
+        doubles = new double[names.length][];
+        longs = new long[names.length][];
+        strings = new String[names.length][];
+        for (int c = 0; c < names.length; c++) {
+            switch (types[c]) {
+                case DOUBLE:
+                    doubles[c] = new double[blockSize];
+                    break;
+                case LONG:
+                    longs[c] = new long[blockSize];
+                    break;
+                default:
+                    strings[c] = new String[blockSize];
+            }
+        }
+        schemaID = schemaID(names, types);
+    }
+
+    static long schemaID(String[] names, ColumnType[] types) {
+        // FNV-1a
+        long hash = 0xcbf29ce484222325L;
+        for (int c = 0; c < names.length; c++) {
+            for (char ch : (names[c] + '\u0000' + types[c].ordinal() + '\u0000').toCharArray()) {
+                hash ^= ch;
+                hash *= 0x100000001b3L;
+            }
+        }
+        return hash;
+    }
+
+    private void set(int c, Object value) {
+        switch (types[c]) {
+            case DOUBLE:
+                if (value != null && !(value instanceof Number))
+                    throw new AssertionError("Column " + names[c] + " is numeric, but given " + value);
+                doubles[c][nRows] = value == null ? Double.NaN : ((Number) value).doubleValue();
+                break;
+            case LONG:
+                if (value == null) {
+                    longs[c][nRows] = Long.MIN_VALUE;
+                } else {
+                    if (!(value instanceof Number))
+                        throw new AssertionError("Column " + names[c] + " is numeric, but given " + value);
+                    double d = ((Number) value).doubleValue();
+                    if (Double.isNaN(d))
+                        longs[c][nRows] = Long.MIN_VALUE;  // missing
+                    else if ((value instanceof Double || value instanceof Float) && d != Math.rint(d))
+                        throw new AssertionError("Column " + names[c] + " holds whole numbers, but given " + value);
+                    else
+                        longs[c][nRows] = (value instanceof Double || value instanceof Float) ? (long) d : ((Number) value).longValue();
+                }
+                break;
+            default:
+                strings[c][nRows] = value == null ? null : value.toString();
+        }
+    }
+
+    private void endRow() {
+        nRows++;
+        if (nRows == blockSize)
+            writeBlock();
+    }
+
+    private void writeBlock() {
+        try {
+            // The payload: the number of rows, then each column in turn
+            int size = 4;
+            byte[][][] utf8 = new byte[names.length][][];
+            for (int c = 0; c < names.length; c++) {
+                if (types[c] == ColumnType.STRING) {
+                    utf8[c] = new byte[nRows][];
+                    for (int r = 0; r < nRows; r++) {
+                        if (strings[c][r] != null)
+                            utf8[c][r] = strings[c][r].getBytes(StandardCharsets.UTF_8);
+                        size += 4 + (utf8[c][r] == null ? 0 : utf8[c][r].length);
+                        strings[c][r] = null;
+                    }
+                } else {
+                    size += 8 * nRows;
+                }
+            }
+            if (buffer == null || buffer.capacity() < size)
+                buffer = ByteBuffer.allocate(Math.max(size, buffer == null ? 0 : buffer.capacity() * 2));
+            buffer.clear();
+            buffer.putInt(nRows);
+            for (int c = 0; c < names.length; c++) {
+                switch (types[c]) {
+                    case DOUBLE:
+                        buffer.asDoubleBuffer().put(doubles[c], 0, nRows);
+                        buffer.position(buffer.position() + 8 * nRows);
+                        break;
+                    case LONG:
+                        buffer.asLongBuffer().put(longs[c], 0, nRows);
+                        buffer.position(buffer.position() + 8 * nRows);
+                        break;
+                    default:
+                        for (int r = 0; r < nRows; r++) {
+                            byte[] bytes = utf8[c][r];
+                            buffer.putInt(bytes == null ? -1 : bytes.length);
+                            if (bytes != null)
+                                buffer.put(bytes);
+                        }
+                }
+            }
+            byte[] payload = buffer.array();
+            int payloadLength = size;
+            if (compress) {
+                payload = deflate(payload, size);
+                payloadLength = payload.length;
+            }
+
+            ByteArrayOutputStream chunk = new ByteArrayOutputStream(payloadLength + 256);
+            DataOutputStream chunkData = new DataOutputStream(chunk);
+            if (!headerWritten) {
+                chunkData.writeByte('H');
+                chunkData.writeInt(MAGIC);
+                chunkData.writeByte(VERSION);
+                chunkData.writeLong(schemaID);
+                chunkData.writeInt(names.length);
+                for (int c = 0; c < names.length; c++) {
+                    chunkData.writeUTF(names[c]);
+                    chunkData.writeByte(types[c].ordinal());
+                }
+            }
+            chunkData.writeByte('B');
+            chunkData.writeLong(schemaID);
+            chunkData.writeBoolean(compress);
+            chunkData.writeInt(size);
+            chunkData.writeInt(payloadLength);
+            chunkData.write(payload, 0, payloadLength);
+            chunkData.flush();
+
+            if (out == null)
+                out = new FileOutputStream(fileName, true);
+            // One write per chunk, so that chunks from other loggers appending to the file are not interleaved with it
+            chunk.writeTo(out);
+            out.flush();
+            headerWritten = true;
+            nRows = 0;
+        } catch (IOException e) {
+            throw new AssertionError("Problem writing to file " + fileName + " : " + e.getMessage());
+        }
+    }
+
+    private static byte[] deflate(byte[] input, int length) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        deflater.setInput(input, 0, length);
+        deflater.finish();
+        ByteArrayOutputStream retValue = new ByteArrayOutputStream(length / 2 + 64);
+        byte[] buffer = new byte[1 << 16];
+        while (!deflater.finished()) {
+            int n = deflater.deflate(buffer);
+            retValue.write(buffer, 0, n);
+        }
+        deflater.end();
+        return retValue.toByteArray();
+    }
+}
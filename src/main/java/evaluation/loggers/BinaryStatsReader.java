@@ -0,0 +1,247 @@
+package evaluation.loggers;
+
+import evaluation.loggers.BinaryStatsLogger.ColumnType;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads files written by {@link BinaryStatsLogger}. Each distinct set of columns in the file is returned as one
+ * Table, with all the rows for those columns in the order they were written.
+ * <p>
+ * This can also be run from the command line to convert a file to tab-delimited text (as FileStatsLogger writes):
+ * BinaryStatsReader inputFile [outputFile]. If there is more than one table, they are written one after the other,
+ * each with its own header line.
+ */
+public class BinaryStatsReader {
+
+    public static class Table {
+        public final String[] names;
+        public final ColumnType[] types;
+        private final Map<String, Integer> columnIndex = new HashMap<>();
+        private final double[][] doubles;
+        private final long[][] longs;
+        private final String[][] strings;
+        private int nRows;
+
+        Table(String[] names, ColumnType[] types) {
+            this.names = names;
+            this.types = types;
+            doubles = new double[names.length][];
+            longs = new long[names.length][];
+            strings = new String[names.length][];
+            for (int c = 0; c < names.length; c++) {
+                columnIndex.put(names[c], c);
+                switch (types[c]) {
+                    case DOUBLE:
+                        doubles[c] = new double[16];
+                        break;
+                    case LONG:
+                        longs[c] = new long[16];
+                        break;
+                    default:
+                        strings[c] = new String[16];
+                }
+            }
+        }
+
+        public int getRowCount() {
+            return nRows;
+        }
+
+        /**
+         * @return the values of a DOUBLE column, or of a LONG column converted to doubles (with NaN for no value).
+         */
+        public double[] getDoubles(String name) {
+            int c = column(name);
+            if (types[c] == ColumnType.DOUBLE)
+                return Arrays.copyOf(doubles[c], nRows);
+            if (types[c] == ColumnType.LONG)
+                return Arrays.stream(longs[c], 0, nRows).mapToDouble(l -> l == Long.MIN_VALUE ? Double.NaN : l).toArray();
+            throw new IllegalArgumentException("Column " + name + " is not numeric");
+        }
+
+        public long[] getLongs(String name) {
+            int c = column(name);
+            if (types[c] != ColumnType.LONG)
+                throw new IllegalArgumentException("Column " + name + " is not of type LONG");
+            return Arrays.copyOf(longs[c], nRows);
+        }
+
+        public String[] getStrings(String name) {
+            int c = column(name);
+            if (types[c] != ColumnType.STRING)
+                throw new IllegalArgumentException("Column " + name + " is not of type STRING");
+            return Arrays.copyOf(strings[c], nRows);
+        }
+
+        /**
+         * @return the value in the given row and column, as a Double, Long or String (or null if there is none).
+         */
+        public Object get(int row, String name) {
+            int c = column(name);
+            switch (types[c]) {
+                case DOUBLE:
+                    return Double.isNaN(doubles[c][row]) ? null : doubles[c][row];
+                case LONG:
+                    return longs[c][row] == Long.MIN_VALUE ? null : longs[c][row];
+                default:
+                    return strings[c][row];
+            }
+        }
+
+        /**
+         * Writes the table as delimited text, with a header line, in the same format as FileStatsLogger.
+         */
+        public void writeText(Writer writer, String delimiter, String doubleFormat) throws IOException {
+            writer.write(String.join(delimiter, names) + "\n");
+            StringBuilder line = new StringBuilder();
+            for (int r = 0; r < nRows; r++) {
+                line.setLength(0);
+                for (int c = 0; c < names.length; c++) {
+                    if (c > 0) line.append(delimiter);
+                    switch (types[c]) {
+                        case DOUBLE:
+                            if (!Double.isNaN(doubles[c][r]))
+                                line.append(String.format(doubleFormat, doubles[c][r]));
+                            break;
+                        case LONG:
+                            if (longs[c][r] != Long.MIN_VALUE)
+                                line.append(longs[c][r]);
+                            break;
+                        default:
+                            if (strings[c][r] != null)
+                                line.append(strings[c][r]);
+                    }
+                }
+                line.append('\n');
+                writer.append(line);
+            }
+        }
+
+        private int column(String name) {
+            Integer c = columnIndex.get(name);
+            if (c == null)
+                throw new IllegalArgumentException("No column " + name);
+            return c;
+        }
+
+        private void readBlock(ByteBuffer data) {
+            int rows = data.getInt();
+            ensureCapacity(nRows + rows);
+            for (int c = 0; c < names.length; c++) {
+                switch (types[c]) {
+                    case DOUBLE:
+                        data.asDoubleBuffer().get(doubles[c], nRows, rows);
+                        data.position(data.position() + 8 * rows);
+                        break;
+                    case LONG:
+                        data.asLongBuffer().get(longs[c], nRows, rows);
+                        data.position(data.position() + 8 * rows);
+                        break;
+                    default:
+                        for (int r = 0; r < rows; r++) {
+                            int length = data.getInt();
+                            if (length >= 0) {
+                                strings[c][nRows + r] = new String(data.array(), data.arrayOffset() + data.position(), length, StandardCharsets.UTF_8);
+                                data.position(data.position() + length);
+                            }
+                        }
+                }
+            }
+            nRows += rows;
+        }
+
+        private void ensureCapacity(int rows) {
+            for (int c = 0; c < names.length; c++) {
+                if (doubles[c] != null && doubles[c].length < rows)
+                    doubles[c] = Arrays.copyOf(doubles[c], Math.max(rows, doubles[c].length * 2));
+                if (longs[c] != null && longs[c].length < rows)
+                    longs[c] = Arrays.copyOf(longs[c], Math.max(rows, longs[c].length * 2));
+                if (strings[c] != null && strings[c].length < rows)
+                    strings[c] = Arrays.copyOf(strings[c], Math.max(rows, strings[c].length * 2));
+            }
+        }
+    }
+
+    /**
+     * @return all the tables in the file, in the order their first rows were written.
+     */
+    public static List<Table> read(String fileName) {
+        Map<Long, Table> tables = new LinkedHashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(fileName), 1 << 16))) {
+            int tag;
+            while ((tag = in.read()) != -1) {
+                if (tag == 'H') {
+                    if (in.readInt() != BinaryStatsLogger.MAGIC)
+                        throw new AssertionError("Not a BinaryStatsLogger file : " + fileName);
+                    byte version = in.readByte();
+                    if (version != BinaryStatsLogger.VERSION)
+                        throw new AssertionError("Unsupported version " + version + " in file " + fileName);
+                    long schemaID = in.readLong();
+                    int nColumns = in.readInt();
+                    String[] names = new String[nColumns];
+                    ColumnType[] types = new ColumnType[nColumns];
+                    for (int c = 0; c < nColumns; c++) {
+                        names[c] = in.readUTF();
+                        types[c] = ColumnType.values()[in.readByte()];
+                    }
+                    tables.putIfAbsent(schemaID, new Table(names, types));
+                } else if (tag == 'B') {
+                    long schemaID = in.readLong();
+                    boolean compressed = in.readBoolean();
+                    int rawLength = in.readInt();
+                    byte[] stored = new byte[in.readInt()];
+                    in.readFully(stored);
+                    Table table = tables.get(schemaID);
+                    if (table == null)
+                        throw new AssertionError("Block before its header in file " + fileName);
+                    table.readBlock(ByteBuffer.wrap(compressed ? inflate(stored, rawLength) : stored));
+                } else {
+                    throw new AssertionError("Corrupt file " + fileName + " : unexpected chunk type " + tag);
+                }
+            }
+        } catch (IOException | DataFormatException e) {
+            throw new AssertionError("Problem reading file " + fileName + " : " + e.getMessage());
+        }
+        return new ArrayList<>(tables.values());
+    }
+
+    /**
+     * @return the only table in the file (an exception is thrown if there is more than one).
+     */
+    public static Table readTable(String fileName) {
+        List<Table> tables = read(fileName);
+        if (tables.size() != 1)
+            throw new AssertionError("Expected one table in " + fileName + ", but found " + tables.size());
+        return tables.get(0);
+    }
+
+    private static byte[] inflate(byte[] input, int rawLength) throws DataFormatException {
+        Inflater inflater = new Inflater();
+        inflater.setInput(input);
+        byte[] retValue = new byte[rawLength];
+        int n = 0;
+        while (n < rawLength && !inflater.finished())
+            n += inflater.inflate(retValue, n, rawLength - n);
+        inflater.end();
+        return retValue;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: BinaryStatsReader inputFile [outputFile]");
+            return;
+        }
+        Writer writer = args.length > 1 ? new BufferedWriter(new FileWriter(args[1])) : new BufferedWriter(new OutputStreamWriter(System.out));
+        for (Table table : read(args[0]))
+            table.writeText(writer, "\t", "%.3g");
+        writer.flush();
+        if (args.length > 1)
+            writer.close();
+    }
+}
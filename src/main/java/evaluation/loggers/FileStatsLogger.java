@@ -3,27 +3,51 @@ package evaluation.loggers;
 import core.interfaces.IStatisticLogger;
 import evaluation.summarisers.TAGStatSummary;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Writer;
 import java.util.*;
 
 import static java.util.stream.Collectors.toList;
 
 /**
- * A Class to log details to file for later analysis
+ * A Class to log details to file for later analysis, as delimited text with a header line.
+ * Output is buffered, and only guaranteed to be in the file after processDataAndNotFinish() or
+ * processDataAndFinish(). For large amounts of data, {@link BinaryStatsLogger} is much faster.
+ * <p>
+ * Copies made with emptyCopy() write to the same file through the same buffer, and each line is written whole while
+ * holding its lock, so the original and its copies can be used on different threads without splitting each other's
+ * lines. The file is closed when the original and all its copies have finished.
  */
 public class FileStatsLogger implements IStatisticLogger {
 
+    // The file, shared by a logger and its copies
+    private static class SharedWriter {
+        final Writer writer;
+        final boolean newFile;  // if true, then each different header line is written once
+        final Set<String> headersWritten = new HashSet<>();
+        int users = 1;
+
+        SharedWriter(Writer writer, boolean newFile) {
+            this.writer = writer;
+            this.newFile = newFile;
+        }
+    }
+
     private String fileName;
     private boolean append;
     private String delimiter;
-    private FileWriter writer;
+    private final SharedWriter shared;
+    private boolean finished;
     public String doubleFormat = "%.3g";
     public String intFormat = "%d";
-    private boolean headerNeeded = true;
 
     private Set<String> allKeys = new LinkedHashSet<>();
+    // The keys last given to record(String[], double[]), and the index in them of the value for each column
+    private String[] lastKeys;
+    private int[] columnOrder;
 
     /**
      * Note that one line will be output to the file per {@code Map<String, ?>}
@@ -38,15 +62,25 @@ public class FileStatsLogger implements IStatisticLogger {
         this.append = append;
         try {
             File file = new File(fileName);
-            if (file.exists() && append)
-                headerNeeded = false;
-            writer = new FileWriter(fileName, append);
+            boolean newFile = !(file.exists() && append);
+            shared = new SharedWriter(new BufferedWriter(new FileWriter(fileName, append), 1 << 16), newFile);
         } catch (Exception e) {
             e.printStackTrace();
             throw new AssertionError("Problem opening file " + fileName + " : " + e.getMessage());
         }
     }
 
+    // A copy, writing to the same file
+    private FileStatsLogger(FileStatsLogger original) {
+        this.fileName = original.fileName;
+        this.delimiter = original.delimiter;
+        this.append = original.append;
+        this.shared = original.shared;
+        synchronized (shared) {
+            shared.users++;
+        }
+    }
+
     public FileStatsLogger(String fileName) {
         this(fileName, "\t", true);
     }
@@ -63,9 +97,10 @@ public class FileStatsLogger implements IStatisticLogger {
             if (allKeys.isEmpty()) {
                 allKeys = data.keySet();
                 // then write a header line to the file
-                if (headerNeeded) {
-                    String outputLine = String.join(delimiter, allKeys) + "\n";
-                    writer.write(outputLine);
+                String header = String.join(delimiter, allKeys);
+                synchronized (shared) {
+                    if (shared.newFile && shared.headersWritten.add(header))
+                        shared.writer.write(header + "\n");
                 }
             } else {
                 data.keySet().forEach(s -> {
@@ -83,12 +118,43 @@ public class FileStatsLogger implements IStatisticLogger {
                 return datum.toString();
             }).collect(toList());
 
-            String outputLine = String.join(delimiter, outputData) + "\n";
+            write(String.join(delimiter, outputData) + "\n");
+        } catch (IOException e) {
+            e.printStackTrace();
+            throw new AssertionError("Problem writing to file " + fileName + " : " + e.getMessage());
+        }
+    }
 
-            writer.write(outputLine);
+    @Override
+    public void record(String[] keys, double[] values) {
+        if (allKeys.isEmpty()) {
+            IStatisticLogger.super.record(keys, values);
+            return;
+        }
+        // matched by name, as callers may reuse one array for different keys
+        if (!Arrays.equals(keys, lastKeys)) {
+            if (keys.length != allKeys.size() || !allKeys.containsAll(Arrays.asList(keys))) {
+                IStatisticLogger.super.record(keys, values);
+                return;
+            }
+            // Work out once which value goes in each column
+            Map<String, Integer> index = new HashMap<>();
+            for (int i = 0; i < keys.length; i++)
+                index.put(keys[i], i);
+            columnOrder = allKeys.stream().mapToInt(index::get).toArray();
+            lastKeys = keys.clone();
+        }
+        try {
+            StringBuilder outputLine = new StringBuilder();
+            for (int i = 0; i < columnOrder.length; i++) {
+                if (i > 0) outputLine.append(delimiter);
+                outputLine.append(String.format(doubleFormat, values[columnOrder[i]]));
+            }
+            outputLine.append('\n');
+            write(outputLine.toString());
         } catch (IOException e) {
             e.printStackTrace();
-            throw new AssertionError("Problem writing to file " + writer.toString() + " : " + e.getMessage());
+            throw new AssertionError("Problem writing to file " + fileName + " : " + e.getMessage());
         }
     }
 
@@ -97,35 +163,51 @@ public class FileStatsLogger implements IStatisticLogger {
         System.out.println("Datum ignored - FileStatsLogger only to be used with other record()");
     }
 
+    private void write(String line) throws IOException {
+        synchronized (shared) {
+            shared.writer.write(line);
+        }
+    }
+
     public void flush() {
         try {
-            writer.flush();
+            synchronized (shared) {
+                shared.writer.flush();
+            }
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
     /**
-     * This just closes the file
+     * This just closes the file (once this logger and all copies of it have finished)
      */
     @Override
     public void processDataAndFinish() {
         try {
-            writer.flush();
-            writer.close();
+            synchronized (shared) {
+                shared.writer.flush();
+                if (!finished) {
+                    finished = true;
+                    if (--shared.users == 0)
+                        shared.writer.close();
+                }
+            }
         } catch (Exception e) {
             e.printStackTrace();
-            throw new AssertionError("Problem closing file " + writer.toString() + " : " + e.getMessage());
+            throw new AssertionError("Problem closing file " + fileName + " : " + e.getMessage());
         }
     }
 
     @Override
     public void processDataAndNotFinish() {
         try {
-            writer.flush();
+            synchronized (shared) {
+                shared.writer.flush();
+            }
         } catch (Exception e) {
             e.printStackTrace();
-            throw new AssertionError("Problem flushing file " + writer.toString() + " : " + e.getMessage());
+            throw new AssertionError("Problem flushing file " + fileName + " : " + e.getMessage());
         }
     }
 
@@ -141,6 +223,6 @@ public class FileStatsLogger implements IStatisticLogger {
 
     @Override
     public FileStatsLogger emptyCopy(String id) {
-        return new FileStatsLogger(fileName, delimiter, append);
+        return new FileStatsLogger(this);
     }  // todo include id in filename
 }
@@ -23,6 +23,9 @@ public class SummaryLogger implements IStatisticLogger {
 
     File logFile;
     public boolean printToConsole = true;
+    // If true, numeric summaries keep the values recorded as well as their statistics (the values are needed for plots,
+    // for example)
+    public boolean keepElements = false;
     Map<String, TAGStatSummary> data = new HashMap<>();
 
     public SummaryLogger() {}
@@ -37,7 +40,7 @@ public class SummaryLogger implements IStatisticLogger {
         if (value instanceof Number) {
             // A number, record details numeric statistics
             if (!data.containsKey(key)) {
-                summary = new TAGNumericStatSummary(key);
+                summary = new TAGNumericStatSummary(key, keepElements);
                 data.put(key, summary);
             }
             ((TAGNumericStatSummary) summary).add((Number) value);
@@ -94,8 +97,9 @@ public class SummaryLogger implements IStatisticLogger {
 
     @Override
     public SummaryLogger emptyCopy(String id) {
-        if (logFile == null) return new SummaryLogger();
-        return new SummaryLogger(logFile.getPath()); // TODO include id in filename
+        SummaryLogger retValue = logFile == null ? new SummaryLogger() : new SummaryLogger(logFile.getPath()); // TODO include id in filename
+        retValue.keepElements = keepElements;
+        return retValue;
     }
 
     @Override
@@ -0,0 +1,75 @@
+package evaluation.loggers;
+
+import core.interfaces.IStatisticLogger;
+import evaluation.summarisers.TAGStatSummary;
+
+import java.util.Map;
+
+/**
+ * Wraps another Statistics Logger so that it can be shared by agents (or listeners) of games on different threads.
+ * All calls are passed on to the wrapped logger while holding its lock.
+ */
+public class SynchronizedLogger implements IStatisticLogger {
+
+    private final IStatisticLogger logger;
+
+    public SynchronizedLogger(IStatisticLogger logger) {
+        this.logger = logger;
+    }
+
+    @Override
+    public void record(Map<String, ?> data) {
+        synchronized (logger) {
+            logger.record(data);
+        }
+    }
+
+    @Override
+    public void record(String[] keys, double[] values) {
+        synchronized (logger) {
+            logger.record(keys, values);
+        }
+    }
+
+    @Override
+    public void record(String key, Object datum) {
+        synchronized (logger) {
+            logger.record(key, datum);
+        }
+    }
+
+    @Override
+    public void processDataAndFinish() {
+        synchronized (logger) {
+            logger.processDataAndFinish();
+        }
+    }
+
+    @Override
+    public void processDataAndNotFinish() {
+        synchronized (logger) {
+            logger.processDataAndNotFinish();
+        }
+    }
+
+    @Override
+    public Map<String, TAGStatSummary> summary() {
+        synchronized (logger) {
+            return logger.summary();
+        }
+    }
+
+    @Override
+    public IStatisticLogger emptyCopy(String id) {
+        synchronized (logger) {
+            return new SynchronizedLogger(logger.emptyCopy(id));
+        }
+    }
+
+    @Override
+    public String toString() {
+        synchronized (logger) {
+            return logger.toString();
+        }
+    }
+}
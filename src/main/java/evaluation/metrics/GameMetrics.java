@@ -74,7 +74,7 @@ public class GameMetrics implements IMetricsCollection
         public Object run(GameListener listener, Event e) {
             Game g = listener.getGame();
             AbstractForwardModel fm = g.getForwardModel();
-            return fm.computeAvailableActions(g.getGameState()).size();
+            return fm.computeAvailableActions(e.state).size();
         }
         @Override
         public Set<Event.GameEvent> getEventTypes() {
@@ -1,27 +1,36 @@
 package evaluation.summarisers;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.stream.IntStream;
 
 import static evaluation.summarisers.TAGStatSummary.StatType.Numeric;
 
 /**
  * This class is used to model the statistics of several numbers.  For the statistics
- * we choose here it is not necessary to store all the numbers - just keeping a running total
- * of how many, the sum and the sum of the squares is sufficient (plus max and min, for max and min).
+ * we choose here it is not necessary to store all the numbers - just keeping a running count, mean and the sums of
+ * powers of the differences from the mean (updated as each number is added, Welford-style) is sufficient for mean,
+ * variance, skew and kurtosis (plus max and min, for max and min). Medians and other quantiles are estimated with a
+ * {@link TAGQuantileSketch}, which is exact for small numbers of values.
+ * <p>
+ * The values themselves are not kept, so memory use does not grow with the number of values added. Where they are
+ * needed (for plots, for example), a summary created with {@link #TAGNumericStatSummary(String, boolean)} keeps them
+ * for getElements(). Two summaries can be merged with add(), for example when statistics are gathered on several
+ * threads.
  */
 
 public class TAGNumericStatSummary extends TAGStatSummary {
 
     private double sum, sumsq;
     private double min, max;
-    private double mean, median, sd;
-    private double lastAdded;
+    private double mean, m2, m3, m4;  // running mean, and sums of 2nd, 3rd and 4th powers of differences from it
+    private double median;
+    private double first, lastAdded;
+    private int changes;  // number of times a value was different to the one before it
     private boolean valid;
 
+    private TAGQuantileSketch quantiles;
+    private final boolean keepElements;
     private ArrayList<Double> elements;
 
     public TAGNumericStatSummary() {
@@ -29,90 +38,87 @@ public class TAGNumericStatSummary extends TAGStatSummary {
     }
 
     public TAGNumericStatSummary(String name) {
+        this(name, false);
+    }
+
+    /**
+     * @param keepElements - if true, then all the values added are kept, and can be retrieved with
+     *                     getElements(). This uses memory in proportion to the number of values.
+     */
+    public TAGNumericStatSummary(String name, boolean keepElements) {
         super(name, Numeric);
+        this.keepElements = keepElements;
+        if (keepElements)
+            elements = new ArrayList<>();
     }
 
     public void reset() {
         super.reset();
         sum = 0;
         sumsq = 0;
+        mean = 0;
+        m2 = 0;
+        m3 = 0;
+        m4 = 0;
+        changes = 0;
         // Ensure that the first number to be added will fix up min and max to be that number
         min = Double.POSITIVE_INFINITY;
         max = Double.NEGATIVE_INFINITY;
         valid = false;
-        elements = new ArrayList<>();
+        quantiles = new TAGQuantileSketch();
+        if (elements != null)
+            elements = new ArrayList<>();
     }
 
     public double max() {
-        if (!valid)
-            computeStats();
         return max;
     }
 
     public double min() {
-        if (!valid)
-            computeStats();
         return min;
     }
 
     public double mean() {
-        if (!valid)
-            computeStats();
-        return mean;
+        return n == 0 ? Double.NaN : mean;
     }
 
     public double median() {
-        if (!valid)
-            computeStats();
+        if (!valid) {
+            median = quantiles.quantile(0.5);
+            valid = true;
+        }
         return median;
     }
 
+    /**
+     * @param q - from 0 to 1
+     * @return the value below which this fraction of the values lie (estimated if there are many values)
+     */
+    public double quantile(double q) {
+        return quantiles.quantile(q);
+    }
+
     public double kurtosis() {
+        double sd = sd();
         if (n < 4 || sd < 0.001) return 0.0;
-        if (!valid)
-            computeStats();
-        double sumQuarticDiffs = elements.stream().mapToDouble(d -> Math.pow(d - mean, 4)).sum();
-        return sumQuarticDiffs / Math.pow(sd, 4) * n * (n + 1) / (n - 1) / (n - 2) / (n - 3);
+        return m4 / Math.pow(sd, 4) * n * (n + 1) / (n - 1) / (n - 2) / (n - 3);
     }
 
     public double skew() {
+        double sd = sd();
         if (n < 3 || sd < 0.001) return 0.0;
-        if (!valid)
-            computeStats();
-        double sumCubeDiffs = elements.stream().mapToDouble(d -> Math.pow(d - mean, 3)).sum();
-        return sumCubeDiffs / Math.pow(sd, 3) * n / (n - 1) / (n - 2);
+        return m3 / Math.pow(sd, 3) * n / (n - 1) / (n - 2);
     }
 
     /**
      * @return the sum of the squares of the differences between the mean and the ith values
      */
     public double sumSquareDiff() {
-        return sumsq - n * mean() * mean();
-    }
-
-    private void computeStats() {
-        if (!valid) {
-            if (!elements.isEmpty()) {
-                max = elements.stream().mapToDouble(i -> i).max().getAsDouble();
-                min = elements.stream().mapToDouble(i -> i).min().getAsDouble();
-            }
-            mean = sum / n;
-            double num = sumsq - (n * mean * mean);
-            if (num < 0) {
-                // Avoids tiny negative numbers possible through imprecision
-                num = 0;
-            }
-            sd = Math.sqrt(num / (n - 1));
-            Collections.sort(elements);
-            median = elements.get(elements.size() / 2);
-            valid = true;
-        }
+        return m2;
     }
 
     public double sd() {
-        if (!valid)
-            computeStats();
-        return sd;
+        return Math.sqrt(m2 / (n - 1));
     }
 
     public double stdErr() {
@@ -120,21 +126,59 @@ public class TAGNumericStatSummary extends TAGStatSummary {
     }
 
     public void add(TAGNumericStatSummary ss) {
+        if (ss.n == 0) return;
+        if (n == 0) {
+            first = ss.first;
+        } else if (Double.compare(lastAdded, ss.first) != 0) {
+            changes++;
+        }
+        // Combine the moments of the two sets of values (Chan et al. and Pebay)
+        double nA = n, nB = ss.n, nAB = nA + nB;
+        double delta = ss.mean - mean, delta2 = delta * delta;
+        m4 += ss.m4 + delta2 * delta2 * nA * nB * (nA * nA - nA * nB + nB * nB) / (nAB * nAB * nAB)
+                + 6 * delta2 * (nA * nA * ss.m2 + nB * nB * m2) / (nAB * nAB)
+                + 4 * delta * (nA * ss.m3 - nB * m3) / nAB;
+        m3 += ss.m3 + delta2 * delta * nA * nB * (nA - nB) / (nAB * nAB)
+                + 3 * delta * (nA * ss.m2 - nB * m2) / nAB;
+        m2 += ss.m2 + delta2 * nA * nB / nAB;
+        mean += delta * nB / nAB;
         super.add(ss);
         sum += ss.sum;
         sumsq += ss.sumsq;
+        min = Math.min(min, ss.min);
+        max = Math.max(max, ss.max);
+        changes += ss.changes;
         lastAdded = ss.lastAdded;
         valid = false;
-        elements.addAll(ss.getElements());
+        quantiles.add(ss.quantiles);
+        if (elements != null) {
+            if (ss.elements == null)
+                throw new AssertionError("Cannot keep elements when adding a summary that has not kept them : " + ss.name);
+            elements.addAll(ss.elements);
+        }
     }
 
     public void add(double d) {
         n++;
+        // Welford's update of the mean and of the sums of powers of differences from it
+        double delta = d - mean, deltaN = delta / n, deltaN2 = deltaN * deltaN, term = delta * deltaN * (n - 1);
+        mean += deltaN;
+        m4 += term * deltaN2 * ((double) n * n - 3 * n + 3) + 6 * deltaN2 * m2 - 4 * deltaN * m3;
+        m3 += term * deltaN * (n - 2) - 3 * deltaN * m2;
+        m2 += term;
         sum += d;
         sumsq += d * d;
+        if (d < min) min = d;
+        if (d > max) max = d;
+        if (n == 1)
+            first = d;
+        else if (Double.compare(d, lastAdded) != 0)
+            changes++;
         lastAdded = d;
         valid = false;
-        elements.add(d);
+        quantiles.add(d);
+        if (elements != null)
+            elements.add(d);
     }
 
     public void add(Number n) {
@@ -185,14 +229,22 @@ public class TAGNumericStatSummary extends TAGStatSummary {
                 ;
     }
 
+    /**
+     * @return all the values added, in order. This is not available if the summary was created not to keep them.
+     */
     public ArrayList<Double> getElements() {
+        if (elements == null)
+            throw new AssertionError("Elements are not kept for summary " + name + " - see TAGNumericStatSummary(String, boolean)");
         return elements;
     }
 
+    public boolean keepsElements() {
+        return keepElements;
+    }
+
     public TAGNumericStatSummary copy() {
-        TAGNumericStatSummary ss = new TAGNumericStatSummary();
+        TAGNumericStatSummary ss = new TAGNumericStatSummary(name, keepElements);
 
-        ss.name = this.name;
         ss.n = this.n;
         ss.type = this.type;
 
@@ -201,9 +253,17 @@ public class TAGNumericStatSummary extends TAGStatSummary {
         ss.min = this.min;
         ss.max = this.max;
         ss.mean = this.mean;
-        ss.sd = this.sd;
+        ss.m2 = this.m2;
+        ss.m3 = this.m3;
+        ss.m4 = this.m4;
+        ss.median = this.median;
         ss.valid = this.valid;
+        ss.first = this.first;
         ss.lastAdded = this.lastAdded;
+        ss.changes = this.changes;
+        ss.quantiles = this.quantiles.copy();
+        if (elements != null)
+            ss.elements = new ArrayList<>(elements);
 
         return ss;
     }
@@ -238,12 +298,7 @@ public class TAGNumericStatSummary extends TAGStatSummary {
         data.put("Skew", skew());
         data.put("Kurtosis", kurtosis());
 
-        TAGNumericStatSummary delta = elements.size() > 1 ?
-                IntStream.range(0, elements.size() - 1)
-                        .mapToObj(i -> !elements.get(i + 1).equals(elements.get(i)) ? 1.0 : 0.0)
-                        .collect(new TAGSummariser())
-                : new TAGNumericStatSummary();
-        data.put("Delta", delta.mean()); // percentage of times this value changed consecutively
+        data.put("Delta", n > 1 ? changes / (double) (n - 1) : Double.NaN); // percentage of times this value changed consecutively
         return data;
     }
 }
\ No newline at end of file
@@ -0,0 +1,144 @@
+package evaluation.summarisers;
+
+import java.util.Arrays;
+
+/**
+ * Estimates quantiles (median, percentiles...) of a stream of numbers in bounded memory.
+ * ---
+ * Numbers are kept in levels of buffers. A number at level h stands for 2^h of the numbers added. When a buffer
+ * holds k numbers it is compacted: it is sorted, and every other number is moved up to the next level (starting
+ * from the first or second number in turn, so that neither end is favoured). Memory use therefore grows only with
+ * the log of the number of values added, and the rank of any quantile is out by at most a few percent of n.
+ * Until more than k numbers have been added, no compaction takes place and all quantiles are exact.
+ * <p>
+ * Two sketches can be merged (for example from different threads), giving the same accuracy as a single sketch of
+ * all the numbers.
+ */
+public class TAGQuantileSketch {
+
+    public static final int DEFAULT_K = 256;
+
+    private final int k;
+    private double[][] levels = new double[0][];
+    private int[] sizes = new int[0];
+    private long n;
+    private boolean oddOffset;
+
+    public TAGQuantileSketch() {
+        this(DEFAULT_K);
+    }
+
+    /**
+     * @param k - number of values held in each level before it is compacted. Higher is more accurate.
+     */
+    public TAGQuantileSketch(int k) {
+        if (k < 2 || k % 2 != 0)
+            throw new IllegalArgumentException("k must be even and at least 2 : " + k);
+        this.k = k;
+    }
+
+    public void add(double x) {
+        if (levels.length > 0 && sizes[0] >= k)
+            compact(0);
+        append(0, x);
+        n++;
+    }
+
+    /**
+     * Adds all the numbers summarised by the other sketch to this one. The other sketch is not changed.
+     */
+    public void add(TAGQuantileSketch other) {
+        for (int h = 0; h < other.levels.length; h++) {
+            for (int i = 0; i < other.sizes[h]; i++)
+                append(h, other.levels[h][i]);
+        }
+        n += other.n;
+        for (int h = 0; h < levels.length; h++) {
+            if (sizes[h] >= k)
+                compact(h);
+        }
+    }
+
+    /**
+     * @param q - quantile, from 0 to 1 (0.5 for the median)
+     * @return - estimate of the number with rank floor(q * n) in sorted order (counting from 0), or NaN if nothing
+     * has been added. This is exact if there has been no compaction.
+     */
+    public double quantile(double q) {
+        if (n == 0)
+            return Double.NaN;
+        int total = 0;
+        for (int size : sizes)
+            total += size;
+        double[] values = new double[total];
+        long[] weights = new long[total];
+        int next = 0;
+        for (int h = 0; h < levels.length; h++) {
+            for (int i = 0; i < sizes[h]; i++) {
+                values[next] = levels[h][i];
+                weights[next] = 1L << h;
+                next++;
+            }
+        }
+        Integer[] order = new Integer[total];
+        for (int i = 0; i < total; i++)
+            order[i] = i;
+        Arrays.sort(order, (a, b) -> Double.compare(values[a], values[b]));
+        long rank = Math.min(n - 1, Math.max(0, (long) Math.floor(q * n)));
+        long cumulative = 0;
+        for (int i : order) {
+            cumulative += weights[i];
+            if (cumulative > rank)
+                return values[i];
+        }
+        return values[order[total - 1]];
+    }
+
+    public long n() {
+        return n;
+    }
+
+    public TAGQuantileSketch copy() {
+        TAGQuantileSketch retValue = new TAGQuantileSketch(k);
+        retValue.levels = new double[levels.length][];
+        for (int h = 0; h < levels.length; h++)
+            retValue.levels[h] = levels[h].clone();
+        retValue.sizes = sizes.clone();
+        retValue.n = n;
+        retValue.oddOffset = oddOffset;
+        return retValue;
+    }
+
+    private void append(int h, double x) {
+        if (h >= levels.length) {
+            int old = levels.length;
+            levels = Arrays.copyOf(levels, h + 1);
+            sizes = Arrays.copyOf(sizes, h + 1);
+            for (int i = old; i <= h; i++)
+                levels[i] = new double[k];
+        }
+        if (sizes[h] == levels[h].length)
+            levels[h] = Arrays.copyOf(levels[h], levels[h].length * 2);
+        levels[h][sizes[h]++] = x;
+    }
+
+    /**
+     * Moves every other number in level h up to level h + 1 (and so on up, if that level becomes full). If the
+     * level has an odd number of values, the largest stays behind.
+     */
+    private void compact(int h) {
+        double[] level = levels[h];
+        int size = sizes[h];
+        Arrays.sort(level, 0, size);
+        int pairs = size / 2;
+        int offset = oddOffset ? 1 : 0;
+        oddOffset = !oddOffset;
+        for (int i = 0; i < pairs; i++)
+            append(h + 1, level[2 * i + offset]);
+        if (size % 2 == 1)
+            level[0] = level[size - 1];
+        sizes[h] = size % 2;
+        if (sizes[h + 1] >= k)
+            compact(h + 1);
+    }
+}
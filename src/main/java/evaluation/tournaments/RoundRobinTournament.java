@@ -2,7 +2,9 @@ package evaluation.tournaments;
 
 import core.AbstractParameters;
 import core.AbstractPlayer;
+import core.Game;
 import core.interfaces.IStatisticLogger;
+import evaluation.listeners.AsyncGameListener;
 import evaluation.listeners.GameListener;
 import games.GameType;
 import players.PlayerFactory;
@@ -12,10 +14,18 @@ import players.rmhc.RMHCPlayer;
 import players.simple.OSLAPlayer;
 import players.simple.RandomPlayer;
 import evaluation.loggers.FileStatsLogger;
+import evaluation.loggers.SynchronizedLogger;
+import evaluation.summarisers.TAGStatSummary;
 
 import java.io.FileWriter;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static core.CoreConstants.GameResult;
 import static utilities.Utils.getArg;
@@ -25,13 +35,20 @@ public class RoundRobinTournament extends AbstractTournament {
     private static boolean debug = false;
     public final boolean selfPlay;
     private final int gamesPerMatchUp;
-    protected List<GameListener> listeners;
+    protected List<GameListener> listeners = new ArrayList<>();
+    // Create new listeners for each match-up, so that match-ups can be run in parallel (see setListenerFactories())
+    protected List<Supplier<GameListener>> listenerFactories = new ArrayList<>();
     public boolean verbose = true;
     double[] pointsPerPlayer;
     protected LinkedHashMap<Integer, Double> finalRanking; // contains index of agent in agents
     LinkedList<Integer> agentIDs;
     private int matchUpsRun;
     private boolean randomGameParams;
+    // Number of match-ups to run concurrently. With 1 (the default) everything runs on the calling thread.
+    private int nThreads = 1;
+    private ExecutorService executor;
+    // Match-ups waiting to be run in parallel, in the order in which they were created
+    private final List<List<Integer>> pendingMatchUps = new ArrayList<>();
 
     /**
      * Create a round robin tournament, which plays all agents against all others.
@@ -95,10 +112,15 @@ public class RoundRobinTournament extends AbstractTournament {
                             "\t               Defaults to RoundRobinReport.txt\n" +
                             "\t               A pipe-delimited list should be provided if each distinct listener should\n" +
                             "\t               use a different log file.\n" +
+                            "\tlistenerBuffer= (Optional) If greater than zero, then listeners process events on a background\n" +
+                            "\t               thread, with up to this many events waiting. Defaults to 0 (same thread as the game).\n" +
                             "\tresultsFile=   (Optional) Saves the results of the tournament to a file with this filename.\n" +
                             "\t               Defaults to null\n" +
                             "\treportPeriod=  (Optional) For random mode execution only, after how many games played results are reported.\n" +
                             "\t               Defaults to the end of the tournament\n" +
+                            "\tnThreads=      (Optional) The number of match-ups to run in parallel. Defaults to 1.\n" +
+                            "\t               Each concurrent match-up uses its own Game, copies of the agents\n" +
+                            "\t               and its own listeners (which all write to the same log files).\n" +
                             "\tstatsLog=      The file to use for logging agent-specific statistics (e.g. MCTS iterations/depth)\n" +
                             "\t               A single line will be generated as the average for each agent, implicitly assuming they are\n" +
                             "\t               all of the same type. If not supplied, then no logging will take place.\n" +
@@ -118,6 +140,8 @@ public class RoundRobinTournament extends AbstractTournament {
         String resultsFile = getArg(args, "resultsFile", "");
         int reportPeriod = getArg(args, "reportPeriod", matchups); //matchups
         boolean randomGameParams = getArg(args, "randomGameParams", false);
+        int nThreads = getArg(args, "nThreads", 1);
+        int listenerBuffer = getArg(args, "listenerBuffer", 0);
 
         List<String> listenerClasses = new ArrayList<>(Arrays.asList(getArg(args, "listener", "evaluation.listeners.GameListener").split("\\|")));
         List<String> metricsClasses = new ArrayList<>(Arrays.asList(getArg(args, "metrics", "evaluation.metrics.GameMetrics").split("\\|")));
@@ -155,15 +179,26 @@ public class RoundRobinTournament extends AbstractTournament {
 
         if (resultsFile.length() > 0)
             tournament.setOutputFileName(resultsFile);
+        tournament.setNThreads(nThreads);
 
-        tournament.listeners = new ArrayList<>();
+        List<IStatisticLogger> listenerLoggers = new ArrayList<>();
         for (int l = 0; l < listenerClasses.size(); l++) {
+            // The listeners of all match-ups, which may be running on different threads, log to copies of this,
+            // which share its writer and lock, and so write whole lines to the one file
             IStatisticLogger logger = new FileStatsLogger(listenerFiles.get(l));
+            listenerLoggers.add(logger);
+            String listenerClass = listenerClasses.get(l);
             String metricsClass = metricsClasses.size() == 1 ? metricsClasses.get(0) : metricsClasses.get(l);
-            GameListener gameTracker = GameListener.createListener(listenerClasses.get(l), logger, metricsClass);
-            tournament.listeners.add(gameTracker);
+            tournament.listenerFactories.add(() -> {
+                GameListener gameTracker = GameListener.createListener(listenerClass, logger, metricsClass);
+                if (listenerBuffer > 0)
+                    gameTracker = new AsyncGameListener(gameTracker, listenerBuffer);
+                return gameTracker;
+            });
         }
         tournament.runTournament();
+        // the files are closed once the copies have finished too
+        listenerLoggers.forEach(IStatisticLogger::processDataAndFinish);
         if (!statsLogPrefix.equals("")) {
             for (int i = 0; i < agents.size(); i++) {
                 AbstractPlayer agent = agents.get(i);
@@ -179,19 +214,49 @@ public class RoundRobinTournament extends AbstractTournament {
      */
     @Override
     public void runTournament() {
+        if (nThreads > 1 && !listeners.isEmpty())
+            throw new IllegalStateException("Listeners cannot be shared by match-ups run in parallel; use setListenerFactories() instead");
+        if (nThreads == 1) {
+            for (Supplier<GameListener> factory : listenerFactories)
+                listeners.add(factory.get());
+        }
         for (int g = 0; g < games.size(); g++) {
             if (verbose)
                 System.out.println("Playing " + games.get(g).getGameType().name());
 
             LinkedList<Integer> matchUp = new LinkedList<>();
             createAndRunMatchUp(matchUp, g);
+            runPendingMatchUps(g);
 
             reportResults(g);
         }
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
         for (GameListener listener : listeners)
             listener.allGamesFinished();
     }
 
+    /**
+     * Sets the number of match-ups that are played concurrently.
+     * When this is greater than 1 the match-ups are queued up by evaluateMatchUp(), and then played on a pool of
+     * worker threads by runPendingMatchUps(). Each worker uses its own Game, and copies of the agents, and the results
+     * are merged in the order the match-ups were created, so that a given seed gives the same results for any number
+     * of worker threads.
+     *
+     * @param nThreads - number of worker threads to use
+     */
+    public void setNThreads(int nThreads) {
+        if (nThreads < 1)
+            throw new IllegalArgumentException("nThreads must be at least 1");
+        this.nThreads = nThreads;
+    }
+
+    public int getNThreads() {
+        return nThreads;
+    }
+
 
     public int getWinnerIndex() {
         if (finalRanking == null || finalRanking.isEmpty())
@@ -235,6 +300,11 @@ public class RoundRobinTournament extends AbstractTournament {
      * @param gameIdx  - index of game to play in this evaluation.
      */
     protected void evaluateMatchUp(List<Integer> agentIDs, int gameIdx) {
+        if (nThreads > 1) {
+            // Played later by runPendingMatchUps()
+            pendingMatchUps.add(new ArrayList<>(agentIDs));
+            return;
+        }
         if (debug)
             System.out.printf("Evaluate %s at %tT%n", agentIDs.toString(), System.currentTimeMillis());
         LinkedList<AbstractPlayer> matchUpPlayers = new LinkedList<>();
@@ -267,32 +337,123 @@ public class RoundRobinTournament extends AbstractTournament {
                 System.out.println("Game parameters: " + games.get(gameIdx).getGameState().getGameParameters());
             }
             games.get(gameIdx).run();  // Always running tournaments without visuals
-            GameResult[] results = games.get(gameIdx).getGameState().getPlayerResults();
+            recordResults(agentIDs, games.get(gameIdx).getGameState().getPlayerResults());
+        }
+        games.get(gameIdx).clearListeners();
+        matchUpsRun++;
+    }
 
-            int numDraws = 0;
-            for (int j = 0; j < matchUpPlayers.size(); j++) {
-                if (results[j] == GameResult.WIN) pointsPerPlayer[agentIDs.get(j)] += 1;
-                if (results[j] == GameResult.DRAW) numDraws++;
-            }
+    /**
+     * Plays all match-ups queued by evaluateMatchUp() on the worker pool, and then merges the results.
+     * The seeds used are the same as those used when running the match-ups one after another on a single thread.
+     *
+     * @param gameIdx - index of game to play the queued match-ups with.
+     */
+    protected void runPendingMatchUps(int gameIdx) {
+        if (pendingMatchUps.isEmpty())
+            return;
+        if (executor == null)
+            executor = Executors.newFixedThreadPool(nThreads);
+
+        AbstractParameters baseParams = games.get(gameIdx).getGameState().getGameParameters();
+        long currentSeed = baseParams.getRandomSeed();
+        List<Future<GameResult[][]>> futures = new ArrayList<>(pendingMatchUps.size());
+        for (int m = 0; m < pendingMatchUps.size(); m++) {
+            List<Integer> matchUp = pendingMatchUps.get(m);
+            long firstSeed = currentSeed + (long) m * gamesPerMatchUp + 1;
+            AbstractParameters params = baseParams.copy();
+            futures.add(executor.submit(() -> playMatchUp(matchUp, gameIdx, params, firstSeed)));
+        }
 
-            if (numDraws > 0) {
-                double pointsPerDraw = 1.0 / numDraws;
-                for (int j = 0; j < matchUpPlayers.size(); j++)
-                    if (results[j] == GameResult.DRAW) pointsPerPlayer[agentIDs.get(j)] += pointsPerDraw;
+        // Merge in creation order, so that the aggregated results do not depend on thread scheduling
+        try {
+            for (int m = 0; m < pendingMatchUps.size(); m++) {
+                List<Integer> matchUp = pendingMatchUps.get(m);
+                if (verbose) {
+                    System.out.println(matchUp.stream().map(id -> agents.get(id).toString())
+                            .collect(Collectors.joining(",", "[", "]")));
+                }
+                for (GameResult[] results : futures.get(m).get())
+                    recordResults(matchUp, results);
+                matchUpsRun++;
             }
+        } catch (InterruptedException | ExecutionException e) {
+            throw new AssertionError("Error running match-ups in parallel: " + e.getMessage(), e);
+        }
+        baseParams.setRandomSeed(currentSeed + (long) pendingMatchUps.size() * gamesPerMatchUp);
+        pendingMatchUps.clear();
+    }
 
-            if (verbose) {
-                StringBuffer sb = new StringBuffer();
-                sb.append("[");
-                for (int j = 0; j < matchUpPlayers.size(); j++)
-                    sb.append(results[j]).append(",");
-                sb.setCharAt(sb.length() - 1, ']');
-                System.out.println(sb);
-            }
+    /**
+     * Plays all the games of one match-up on the current thread, using a new Game and fresh copies of the agents.
+     *
+     * @param agentIDs  - IDs of agents participating in this run.
+     * @param gameIdx   - index of game to play in this evaluation.
+     * @param params    - copy of the game parameters, owned by this match-up.
+     * @param firstSeed - seed of the first game; subsequent games increment this.
+     * @return the player results of each game played
+     */
+    private GameResult[][] playMatchUp(List<Integer> agentIDs, int gameIdx, AbstractParameters params, long firstSeed) {
+        if (debug)
+            System.out.printf("Evaluate %s at %tT on %s%n", agentIDs.toString(), System.currentTimeMillis(),
+                    Thread.currentThread().getName());
+        List<AbstractPlayer> matchUpPlayers = new ArrayList<>(agentIDs.size());
+        for (int agentID : agentIDs) {
+            AbstractPlayer original = agents.get(agentID);
+            AbstractPlayer player = original.copy();
+            player.setName(original.toString());
+            if (original.getStatsLogger() != null)
+                player.setStatsLogger(new SynchronizedLogger(original.getStatsLogger()));
+            matchUpPlayers.add(player);
+        }
 
+        Game game = games.get(gameIdx).getGameType().createGameInstance(playersPerGame.get(gameIdx), params);
+        List<GameListener> matchUpListeners = new ArrayList<>();
+        for (Supplier<GameListener> factory : listenerFactories) {
+            GameListener listener = factory.get();
+            matchUpListeners.add(listener);
+            game.addListener(listener);
+        }
+        GameResult[][] retValue = new GameResult[gamesPerMatchUp][];
+        for (int i = 0; i < gamesPerMatchUp; i++) {
+            game.reset(matchUpPlayers, firstSeed + i);
+            if (randomGameParams)
+                game.getGameState().getGameParameters().randomize();
+            game.run();
+            retValue[i] = game.getGameState().getPlayerResults().clone();
+        }
+        for (GameListener listener : matchUpListeners)
+            listener.allGamesFinished();
+        return retValue;
+    }
+
+    /**
+     * Awards points for the result of a single game.
+     *
+     * @param agentIDs - IDs of agents that played the game, in player order.
+     * @param results  - result for each player.
+     */
+    private void recordResults(List<Integer> agentIDs, GameResult[] results) {
+        int numDraws = 0;
+        for (int j = 0; j < agentIDs.size(); j++) {
+            if (results[j] == GameResult.WIN) pointsPerPlayer[agentIDs.get(j)] += 1;
+            if (results[j] == GameResult.DRAW) numDraws++;
+        }
+
+        if (numDraws > 0) {
+            double pointsPerDraw = 1.0 / numDraws;
+            for (int j = 0; j < agentIDs.size(); j++)
+                if (results[j] == GameResult.DRAW) pointsPerPlayer[agentIDs.get(j)] += pointsPerDraw;
+        }
+
+        if (verbose) {
+            StringBuffer sb = new StringBuffer();
+            sb.append("[");
+            for (int j = 0; j < agentIDs.size(); j++)
+                sb.append(results[j]).append(",");
+            sb.setCharAt(sb.length() - 1, ']');
+            System.out.println(sb);
         }
-        games.get(gameIdx).clearListeners();
-        matchUpsRun++;
     }
 
     protected void reportResults(int game_index) {
@@ -328,6 +489,12 @@ public class RoundRobinTournament extends AbstractTournament {
         if (toFile) dataDump.add(str);
         if (verbose) System.out.print(str);
 
+        // Agents sorted by points; ties are broken by the order of the agents so the ranking is reproducible
+        finalRanking = new LinkedHashMap<>();
+        IntStream.range(0, agents.size()).boxed()
+                .sorted(Comparator.comparingDouble((Integer i) -> -pointsPerPlayer[i]).thenComparingInt(i -> i))
+                .forEach(i -> finalRanking.put(i, pointsPerPlayer[i]));
+
         // Sort by points.
         Map<String, Double> valueDescSortMap = ranked.entrySet().stream()
                 .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
@@ -360,4 +527,14 @@ public class RoundRobinTournament extends AbstractTournament {
     public void setListeners(List<GameListener> listeners) {
         this.listeners = listeners;
     }
+
+    /**
+     * Sets how to create the listeners for the games of the tournament. With a single thread, each is called once,
+     * and the listener used for all games. When match-ups are run in parallel, each is called for every match-up, and
+     * allGamesFinished() is called on the listener at the end of that match-up. The listeners of different match-ups
+     * may then be running at the same time, so any loggers they share must be thread-safe (see SynchronizedLogger).
+     */
+    public void setListenerFactories(List<Supplier<GameListener>> listenerFactories) {
+        this.listenerFactories = listenerFactories;
+    }
 }
@@ -1,6 +1,7 @@
 package games.battlelore;
 
 import core.AbstractGameData;
+import core.GameDataCache;
 import core.components.*;
 import games.battlelore.components.Unit;
 
@@ -11,9 +12,13 @@ import java.util.List;
 public class BattleloreData extends AbstractGameData {
     private List<Unit> units;
 
+    /**
+     * The unit types are only read once per process (see GameDataCache), and are shared by all games. They are
+     * treated as immutable, with units copied from them when needed.
+     */
     @Override
     public void load(String dataPath) {
-        units = Unit.loadUnits(dataPath + "units.json");
+        units = GameDataCache.get("BattleloreUnits:" + dataPath, () -> Unit.loadUnits(dataPath + "units.json"));
     }
 
     public List<Unit> getUnits() {
@@ -81,6 +81,58 @@ public class CantStopForwardModel extends StandardForwardModel {
         state.temporaryMarkerPositions = new HashMap<>();
     }
 
+    @Override
+    public boolean supportsUndo() {
+        return true;
+    }
+
+    /**
+     * The parts of the state an action may change. Only those changed by the type of action are saved.
+     */
+    private static final class CantStopUndo {
+        List<Dice> dice;
+        Map<Integer, Integer> temporaryMarkers;
+        int[] playerMarkers;
+        boolean[] completedColumns;
+    }
+
+    @Override
+    protected Object _undoData(AbstractGameState currentState, AbstractAction action) {
+        CantStopGameState state = (CantStopGameState) currentState;
+        CantStopUndo undo = new CantStopUndo();
+        if (action instanceof RollDice) {
+            // dice are rolled in place, and may not have been rolled before (so have no valid value to set back)
+            undo.dice = state.dice.stream().map(Dice::copy).collect(toList());
+        } else if (action instanceof AllocateDice) {
+            // the temporary markers are moved in place
+            undo.temporaryMarkers = new HashMap<>(state.temporaryMarkerPositions);
+        } else if (action instanceof Pass) {
+            // the temporary markers are replaced (not changed), and the markers may be made permanent
+            undo.temporaryMarkers = state.temporaryMarkerPositions;
+            if (!((Pass) action).bust) {
+                undo.playerMarkers = state.playerMarkerPositions[state.getCurrentPlayer()].clone();
+                undo.completedColumns = state.completedColumns.clone();
+            }
+        } else {
+            throw new AssertionError("Unknown action " + action);
+        }
+        return undo;
+    }
+
+    @Override
+    protected void _rewind(AbstractGameState currentState, AbstractAction action, Object undoData) {
+        CantStopGameState state = (CantStopGameState) currentState;
+        CantStopUndo undo = (CantStopUndo) undoData;
+        if (undo.dice != null)
+            state.dice = undo.dice;
+        if (undo.temporaryMarkers != null)
+            state.temporaryMarkerPositions = undo.temporaryMarkers;
+        if (undo.playerMarkers != null) {
+            state.playerMarkerPositions[state.getCurrentPlayer()] = undo.playerMarkers;
+            state.completedColumns = undo.completedColumns;
+        }
+    }
+
     @Override
     protected List<AbstractAction> _computeAvailableActions(AbstractGameState gameState) {
         CantStopGameState state = (CantStopGameState) gameState;
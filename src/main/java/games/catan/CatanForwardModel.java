@@ -13,6 +13,7 @@ import core.properties.PropertyString;
 import games.catan.actions.*;
 import games.catan.components.Graph;
 import games.catan.components.Road;
+import games.catan.components.RoadNetwork;
 import games.catan.components.Settlement;
 
 import java.util.*;
@@ -32,6 +33,7 @@ public class CatanForwardModel extends StandardForwardModelWithTurnOrder {
 
         state.setBoard(generateBoard(params));
         state.setGraph(extractGraphFromBoard(state.getBoard()));
+        state.setRoadNetwork(new RoadNetwork(state.getBoard(), state.getNPlayers()));
         state.areas = new HashMap<>();
 
         // Setup areas
@@ -97,7 +99,7 @@ public class CatanForwardModel extends StandardForwardModelWithTurnOrder {
         // handle scoring
         if (action instanceof BuildRoad) {
             BuildRoad br = (BuildRoad) action;
-            int new_length = gs.getRoadDistance(br.getX(), br.getY(), br.getEdge());
+            int new_length = gs.getRoadNetwork().getRoadLength(gs.getCurrentPlayer());
             if (new_length > gs.longestRoadLength) {
                 gs.longestRoadLength = new_length;
                 // add points for longest road and set the new road in gamestate
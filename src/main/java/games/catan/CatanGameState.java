@@ -12,9 +12,9 @@ import core.interfaces.IGamePhase;
 import core.turnorders.TurnOrder;
 import games.GameType;
 import games.catan.actions.OfferPlayerTrade;
-import games.catan.components.Edge;
 import games.catan.components.Graph;
 import games.catan.components.Road;
+import games.catan.components.RoadNetwork;
 import games.catan.components.Settlement;
 
 import java.util.*;
@@ -25,6 +25,7 @@ import static games.catan.CatanConstants.*;
 public class CatanGameState extends AbstractGameStateWithTurnOrder {
     protected CatanTile[][] board;
     protected Graph<Settlement, Road> catanGraph;
+    protected RoadNetwork roadNetwork; // the length of each player's longest road
     protected Card boughtDevCard; // used to keep a reference to a dev card bought in the current turn to avoid playing it
     protected int[] scores; // score for each player
     protected int[] victoryPoints; // secret points from victory cards
@@ -94,6 +95,7 @@ public class CatanGameState extends AbstractGameStateWithTurnOrder {
         board = null;
         currentTradeOffer = null;
         catanGraph = null;
+        roadNetwork = null;
 
         CatanParameters pp = (CatanParameters) gameParameters;
         scores = new int[getNPlayers()];
@@ -172,6 +174,14 @@ public class CatanGameState extends AbstractGameStateWithTurnOrder {
         return catanGraph;
     }
 
+    public void setRoadNetwork(RoadNetwork roadNetwork) {
+        this.roadNetwork = roadNetwork;
+    }
+
+    public RoadNetwork getRoadNetwork() {
+        return roadNetwork;
+    }
+
     public int getRollValue() {
         return rollValue;
     }
@@ -290,80 +300,6 @@ public class CatanGameState extends AbstractGameStateWithTurnOrder {
         return boughtDevCard;
     }
 
-    public int getRoadDistance(int x, int y, int edge) {
-        // As the settlements are the nodes, we expand them to find roads
-        // calculates the distance length of the road
-        HashSet<Road> roadSet = new HashSet<>();
-        HashSet<Road> roadSet2 = new HashSet<>();
-
-        ArrayList<Settlement> dir1 = new ArrayList<>();
-        ArrayList<Settlement> dir2 = new ArrayList<>();
-        Settlement settl1 = board[x][y].getSettlements()[edge];
-        Settlement settl2 = board[x][y].getSettlements()[(edge + 1) % 6];
-
-        dir1.add(settl1);
-        dir2.add(settl2);
-
-        // find longest segment, we first follow dir_1 then dir_2
-        roadSet = expandRoad(this, roadSet, new ArrayList<>(dir1), new ArrayList<>(dir2));
-        roadSet.addAll(expandRoad(this, roadSet2, new ArrayList<>(dir2), new ArrayList<>(dir1)));
-
-//        System.out.println("Current road length is " + roadSet.size() + " for player " + getCurrentPlayer());
-        return roadSet.size();
-    }
-
-    private static HashSet<Road> expandRoad(CatanGameState gs, HashSet<Road> roadSet, List<Settlement> unexpanded, List<Settlement> expanded) {
-        // return length, makes it possible to compare segments
-        // modify original set
-        if (unexpanded.size() == 0) {
-            return roadSet;
-        }
-        if (unexpanded.size() == 2) {
-            // Handle branching
-            int length = 0;
-            HashSet<Road> longestSegment = new HashSet<>(roadSet);
-            for (Settlement settlement : unexpanded) {
-                ArrayList<Settlement> toExpand = new ArrayList<>();
-                toExpand.add(settlement);
-                HashSet<Road> roadSetCopy = new HashSet<>(roadSet);
-                roadSetCopy = expandRoad(gs, roadSetCopy, toExpand, expanded);
-                if (roadSetCopy.size() >= length) {
-                    length = roadSetCopy.size();
-                    longestSegment = roadSetCopy;
-                }
-            }
-            roadSet.addAll(longestSegment);
-            return roadSet;
-        } else {
-            // case of expanding a single settlement
-            Settlement settlement = unexpanded.remove(0);
-            expanded.add(settlement);
-
-            List<Edge<Settlement, Road>> edges = gs.getGraph().getEdges(settlement);
-            if (edges != null) {
-                for (Edge<Settlement, Road> e : edges) {
-                    Road road = e.getValue();
-                    if (road.getOwner() == gs.getCurrentPlayer()) {
-                        if (expanded.contains(e.getDest())) {
-                            // The road used to get here
-                            roadSet.add(road);
-                        } else {
-                            // if settlement belongs to somebody else it's a deadend
-                            if (e.getDest().getOwner() == -1 || e.getDest().getOwner() == gs.getCurrentPlayer()) {
-                                unexpanded.add(e.getDest());
-                            }
-                        }
-                    }
-
-                }
-
-            }
-        }
-
-        // only gets here when explored a single road
-        return expandRoad(gs, roadSet, unexpanded, expanded);
-    }
-
     public ArrayList<Road> getRoads() {
         // Function that returns all the roads from the the board
         int counter = 0;
@@ -530,6 +466,7 @@ public class CatanGameState extends AbstractGameStateWithTurnOrder {
         copy.board = copyBoard();
         copy.boughtDevCard = boughtDevCard == null ? null : boughtDevCard.copy();
         copy.catanGraph = catanGraph.copy();
+        copy.roadNetwork = roadNetwork.copy();
         copy.areas = copyAreas();
         if (playerId != -1) {
             copy.shuffleDevelopmentCards(playerId);
@@ -75,6 +75,7 @@ public class BuildSettlement extends AbstractAction {
                 }
                 cgs.updateExchangeRates(playerID,exchangeRates);
             }
+            cgs.getRoadNetwork().addSettlement(x, y, vertex, playerID);
             return true;
         } else {
             throw new AssertionError("Settlement already owned: " + this.toString());
@@ -0,0 +1,270 @@
+package games.catan.components;
+
+import games.catan.CatanTile;
+
+import java.util.*;
+
+/**
+ * Keeps track of the length of each player's longest road, updating it as roads and settlements are built rather
+ * than searching the board each time.
+ * ---
+ * The roads (edges) and settlement spots (vertices) of the board are numbered once, from the IDs of the Road and
+ * Settlement objects on the board at the start of the game (these IDs are kept when the state is copied, unlike the
+ * objects themselves). The numbering, and which edges meet at each vertex, is shared by all copies; only the owner
+ * of each edge and vertex, and the road lengths, are copied.
+ * <p>
+ * A player's longest road is the longest path along their roads that uses no road twice, and that does not pass
+ * through a settlement or city of another player (it may end there). When a road is built, only the connected
+ * group of roads it joins can have changed, so only that is searched. When a settlement is built, only players with
+ * two or more roads meeting at that point can have their road broken, and only they are searched again.
+ */
+public class RoadNetwork {
+
+    // The board, shared by all copies
+    private final int[][][] tileEdges;  // [x][y][side] -> edge
+    private final int[][][] tileVertices;  // [x][y][vertex] -> vertex
+    private final int[] edgeEnds;  // the two vertices of edge e are edgeEnds[2e] and edgeEnds[2e + 1]
+    private final int[][] vertexEdges;  // the edges that meet at each vertex
+
+    private byte[] edgeOwners;  // -1 if not built
+    private byte[] vertexOwners;  // -1 if not built
+    private int[] roadLengths;  // for each player
+
+    // Scratch space for searches; not copied
+    private boolean[] usedEdge;
+    private int[] vertexMark;
+    private int[] queue;
+    private int mark;
+
+    /**
+     * Numbers the roads and settlements of the board, and records any that are already owned.
+     */
+    public RoadNetwork(CatanTile[][] board, int nPlayers) {
+        Map<Integer, Integer> edgeIndex = new HashMap<>();
+        Map<Integer, Integer> vertexIndex = new HashMap<>();
+        List<Integer> ends = new ArrayList<>();
+        List<Integer> owners = new ArrayList<>();
+        List<Integer> settlementOwners = new ArrayList<>();
+        tileEdges = new int[board.length][][];
+        tileVertices = new int[board.length][][];
+        for (int x = 0; x < board.length; x++) {
+            tileEdges[x] = new int[board[x].length][];
+            tileVertices[x] = new int[board[x].length][];
+            for (int y = 0; y < board[x].length; y++) {
+                Road[] roads = board[x][y].getRoads();
+                Settlement[] settlements = board[x][y].getSettlements();
+                tileEdges[x][y] = new int[roads.length];
+                tileVertices[x][y] = new int[settlements.length];
+                for (int v = 0; v < settlements.length; v++) {
+                    Integer index = vertexIndex.get(settlements[v].getID());
+                    if (index == null) {
+                        index = vertexIndex.size();
+                        vertexIndex.put(settlements[v].getID(), index);
+                        settlementOwners.add(settlements[v].getOwner());
+                    }
+                    tileVertices[x][y][v] = index;
+                }
+                for (int side = 0; side < roads.length; side++) {
+                    int from = tileVertices[x][y][side];
+                    int to = tileVertices[x][y][(side + 1) % settlements.length];
+                    Integer index = edgeIndex.get(roads[side].getID());
+                    if (index == null) {
+                        index = edgeIndex.size();
+                        edgeIndex.put(roads[side].getID(), index);
+                        ends.add(from);
+                        ends.add(to);
+                        owners.add(roads[side].getOwner());
+                    } else if (!(ends.get(2 * index) == from && ends.get(2 * index + 1) == to ||
+                            ends.get(2 * index) == to && ends.get(2 * index + 1) == from)) {
+                        throw new AssertionError("Road " + roads[side].getID() + " joins different settlements on different tiles");
+                    }
+                    tileEdges[x][y][side] = index;
+                }
+            }
+        }
+
+        int nEdges = edgeIndex.size(), nVertices = vertexIndex.size();
+        edgeEnds = new int[2 * nEdges];
+        edgeOwners = new byte[nEdges];
+        for (int e = 0; e < nEdges; e++) {
+            edgeEnds[2 * e] = ends.get(2 * e);
+            edgeEnds[2 * e + 1] = ends.get(2 * e + 1);
+            edgeOwners[e] = (byte) (int) owners.get(e);
+        }
+        vertexOwners = new byte[nVertices];
+        int[] degree = new int[nVertices];
+        for (int v = 0; v < nVertices; v++)
+            vertexOwners[v] = (byte) (int) settlementOwners.get(v);
+        for (int end : edgeEnds)
+            degree[end]++;
+        vertexEdges = new int[nVertices][];
+        for (int v = 0; v < nVertices; v++)
+            vertexEdges[v] = new int[degree[v]];
+        Arrays.fill(degree, 0);
+        for (int i = 0; i < edgeEnds.length; i++)
+            vertexEdges[edgeEnds[i]][degree[edgeEnds[i]]++] = i / 2;
+
+        roadLengths = new int[nPlayers];
+        for (int p = 0; p < nPlayers; p++)
+            roadLengths[p] = searchAll(p);
+    }
+
+    private RoadNetwork(RoadNetwork other) {
+        tileEdges = other.tileEdges;
+        tileVertices = other.tileVertices;
+        edgeEnds = other.edgeEnds;
+        vertexEdges = other.vertexEdges;
+        edgeOwners = other.edgeOwners.clone();
+        vertexOwners = other.vertexOwners.clone();
+        roadLengths = other.roadLengths.clone();
+    }
+
+    public RoadNetwork copy() {
+        return new RoadNetwork(this);
+    }
+
+    /**
+     * @return the length of the player's longest road
+     */
+    public int getRoadLength(int player) {
+        return roadLengths[player];
+    }
+
+    /**
+     * Records a road built by the player on the given side of a tile, and updates their longest road.
+     *
+     * @return the length of the player's longest road
+     */
+    public int addRoad(int x, int y, int side, int player) {
+        int edge = tileEdges[x][y][side];
+        int previous = edgeOwners[edge];
+        if (previous == player)
+            return roadLengths[player];
+        edgeOwners[edge] = (byte) player;
+        if (previous >= 0) {
+            // Should not happen, but if a road changes hands then both players must be searched in full
+            roadLengths[previous] = searchAll(previous);
+            roadLengths[player] = searchAll(player);
+        } else {
+            roadLengths[player] = Math.max(roadLengths[player], searchFrom(edgeEnds[2 * edge], player));
+        }
+        return roadLengths[player];
+    }
+
+    /**
+     * Records a settlement built by the player at the given vertex of a tile. This may break the roads of other
+     * players through that point.
+     */
+    public void addSettlement(int x, int y, int vertex, int player) {
+        int v = tileVertices[x][y][vertex];
+        int previous = vertexOwners[v];
+        vertexOwners[v] = (byte) player;
+        for (int p = 0; p < roadLengths.length; p++) {
+            if (p == player) {
+                // Should not happen, but if a settlement changes hands then the new owner's roads may now pass it
+                if (previous >= 0 && previous != player)
+                    roadLengths[p] = searchAll(p);
+                continue;
+            }
+            if (roadsAt(v, p) >= 2)
+                roadLengths[p] = searchAll(p);
+        }
+    }
+
+    /**
+     * @return the longest road of the player, over all their roads
+     */
+    private int searchAll(int player) {
+        prepareScratch();
+        mark++;
+        int best = 0;
+        for (int v = 0; v < vertexEdges.length; v++)
+            if (vertexMark[v] != mark && roadsAt(v, player) > 0)
+                best = Math.max(best, searchGroup(v, player));
+        return best;
+    }
+
+    /**
+     * @return the longest road of the player among the roads connected to the start vertex
+     */
+    private int searchFrom(int start, int player) {
+        prepareScratch();
+        mark++;
+        return searchGroup(start, player);
+    }
+
+    private int searchGroup(int start, int player) {
+        // Find all the vertices reached by the player's roads from the start, without passing through a settlement
+        // of another player. Such settlements are not marked as they may also be reached from other groups of roads.
+        int head = 0, tail = 0;
+        queue[tail++] = start;
+        vertexMark[start] = mark;
+        while (head < tail) {
+            int v = queue[head++];
+            if (v != start && blocks(v, player))
+                continue;
+            for (int e : vertexEdges[v]) {
+                if (edgeOwners[e] != player) continue;
+                int other = otherEnd(e, v);
+                if (vertexMark[other] != mark) {
+                    if (!blocks(other, player))
+                        vertexMark[other] = mark;
+                    queue[tail++] = other;
+                }
+            }
+        }
+        // A longest road that starts in the middle of a stretch of road could be made longer from that end, unless
+        // it is a loop; so it is enough to start at the ends of roads, at junctions, and at other players'
+        // settlements, or anywhere if the roads form a single loop
+        int best = 0;
+        boolean searched = false;
+        for (int i = 0; i < tail; i++) {
+            int v = queue[i];
+            if (roadsAt(v, player) != 2 || blocks(v, player)) {
+                best = Math.max(best, longestFrom(v, player, 0));
+                searched = true;
+            }
+        }
+        return searched ? best : longestFrom(start, player, 0);
+    }
+
+    private int roadsAt(int v, int player) {
+        int nRoads = 0;
+        for (int e : vertexEdges[v])
+            if (edgeOwners[e] == player) nRoads++;
+        return nRoads;
+    }
+
+    /**
+     * Depth-first search for the longest path of unused roads from vertex v.
+     */
+    private int longestFrom(int v, int player, int length) {
+        if (length > 0 && blocks(v, player))
+            return length;
+        int best = length;
+        for (int e : vertexEdges[v]) {
+            if (edgeOwners[e] == player && !usedEdge[e]) {
+                usedEdge[e] = true;
+                best = Math.max(best, longestFrom(otherEnd(e, v), player, length + 1));
+                usedEdge[e] = false;
+            }
+        }
+        return best;
+    }
+
+    private boolean blocks(int v, int player) {
+        return vertexOwners[v] != -1 && vertexOwners[v] != player;
+    }
+
+    private int otherEnd(int edge, int v) {
+        return edgeEnds[2 * edge] == v ? edgeEnds[2 * edge + 1] : edgeEnds[2 * edge];
+    }
+
+    private void prepareScratch() {
+        if (usedEdge == null) {
+            usedEdge = new boolean[edgeOwners.length];
+            vertexMark = new int[vertexOwners.length];
+            queue = new int[edgeEnds.length + 1];  // each vertex is queued at most once per road to it
+        }
+    }
+}
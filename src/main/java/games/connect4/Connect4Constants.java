@@ -1,11 +1,13 @@
 package games.connect4;
+import core.components.ComponentIDAllocator;
 import core.components.Token;
 
 import java.util.ArrayList;
 public class Connect4Constants {
-    public static final ArrayList<Token> playerMapping = new ArrayList<Token>() {{
+    // Created with no game's ID allocator bound, as this class may first be used while setting up a game
+    public static final ArrayList<Token> playerMapping = ComponentIDAllocator.unbound(() -> new ArrayList<Token>() {{
         add(new Token("x"));
         add(new Token("o"));
-    }};
+    }});
     public static final String emptyCell = ".";
 }
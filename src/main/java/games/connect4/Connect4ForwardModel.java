@@ -4,6 +4,7 @@ import core.CoreConstants;
 import core.StandardForwardModelWithTurnOrder;
 import core.actions.AbstractAction;
 import core.actions.SetGridValueAction;
+import core.interfaces.IActionCodec;
 import core.components.GridBoard;
 import core.components.Token;
 import core.forwardModels.SequentialActionForwardModel;
@@ -17,36 +18,50 @@ import java.util.List;
 
 public class Connect4ForwardModel extends SequentialActionForwardModel {
 
+    // Actions are encoded by the index of the player whose token they place
+    private static final IActionCodec CODEC = SetGridValueAction.codec(Connect4Constants.playerMapping);
+
+    // The lines checked for a win, as the columns right and the rows up to the next cell: up a column, along a row,
+    // diagonally up and right, and diagonally up and left. These are checked (and the winning cells listed) in the
+    // same order as a scan of the board by columns from the bottom, rows from the left, and then the two diagonals
+    // from the bottom.
+    private static final int[][] LINES = {{0, 1}, {1, 0}, {1, 1}, {-1, 1}};
+
     @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
     protected void _setup(AbstractGameState firstState) {
         Connect4GameParameters c4gp = (Connect4GameParameters) firstState.getGameParameters();
         int gridSize = c4gp.gridSize;
         Connect4GameState state = (Connect4GameState) firstState;
         state.gridBoard = new GridBoard<>(gridSize, gridSize, new Token(Connect4Constants.emptyCell));
         state.winnerCells = new LinkedList<>();
+
+        int nWords = (gridSize * (gridSize + 1) + 63) / 64;
+        state.playerBits = new long[2][nWords];
+        state.columnHeights = new int[gridSize];
+        state.nPieces = 0;
+        state.cellActions = new SetGridValueAction[2][gridSize * gridSize];
+        for (int player = 0; player < 2; player++)
+            for (int x = 0; x < gridSize; x++)
+                for (int y = 0; y < gridSize; y++)
+                    state.cellActions[player][x * gridSize + y] = new SetGridValueAction<>(state.gridBoard.getComponentID(),
+                            x, y, Connect4Constants.playerMapping.get(player));
     }
 
     @Override
     protected List<AbstractAction> _computeAvailableActions(AbstractGameState gameState) {
         Connect4GameState c4gs = (Connect4GameState) gameState;
-        ArrayList<AbstractAction> actions = new ArrayList<>();
+        int width = c4gs.gridBoard.getWidth();
+        int height = c4gs.gridBoard.getHeight();
+        ArrayList<AbstractAction> actions = new ArrayList<>(width);
         int player = c4gs.getCurrentPlayer();
 
         if (gameState.isNotTerminal())
-            for (int x = 0; x < c4gs.gridBoard.getWidth(); x++) {
-                int y = c4gs.gridBoard.getHeight() - 1; // this is bottom of column
-                boolean end = false;
-                while(!end)
-                {
-                    boolean newCol = false;
-                    if (c4gs.gridBoard.getElement(x, y).getTokenType().equals(Connect4Constants.emptyCell)) {
-                        actions.add(new SetGridValueAction<>(c4gs.gridBoard.getComponentID(), x, y, Connect4Constants.playerMapping.get(player)));
-                        newCol = true;
-                    }
-
-                    //Stop when reaching top (column is full) or on finding the first empty cell (action available)
-                    end = (--y <  0 || newCol);
-                }
+            for (int x = 0; x < width; x++) {
+                // the lowest empty cell of each column that is not full
+                int pieces = c4gs.columnHeights[x];
+                if (pieces < height)
+                    actions.add(c4gs.cellActions[player][x * height + height - 1 - pieces]);
             }
         return actions;
     }
@@ -54,108 +69,91 @@ public class Connect4ForwardModel extends SequentialActionForwardModel {
     @Override
     protected void _afterAction(AbstractGameState currentState, AbstractAction action) {
         Connect4GameState c4gs = (Connect4GameState) currentState;
+        SetGridValueAction<?> setValue = (SetGridValueAction<?>) action;
+        int player = playerIndex((Token) setValue.getValue());
+        int bit = c4gs.bitIndex(setValue.getX(), setValue.getY());
+        c4gs.playerBits[player][bit >>> 6] |= 1L << bit;
+        c4gs.columnHeights[setValue.getX()] = c4gs.gridBoard.getHeight() - setValue.getY();
+        c4gs.nPieces++;
 
         // game-specific check for end of game
-        if (checkGameEnd(c4gs)) {
+        if (checkGameEnd(c4gs, player, bit)) {
             return;
         }
         super._afterAction(currentState, action);
     }
 
+    @Override
+    public IActionCodec getActionCodec() {
+        return CODEC;
+    }
+
+    @Override
+    public boolean supportsUndo() {
+        return true;
+    }
+
+    @Override
+    protected Object _undoData(AbstractGameState currentState, AbstractAction action) {
+        // the action fills one cell, and the end of game check may replace the list of winning cells
+        Connect4GameState c4gs = (Connect4GameState) currentState;
+        SetGridValueAction<?> setValue = (SetGridValueAction<?>) action;
+        return new Pair<>(c4gs.gridBoard.getElement(setValue.getX(), setValue.getY()), c4gs.winnerCells);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void _rewind(AbstractGameState currentState, AbstractAction action, Object undoData) {
+        Connect4GameState c4gs = (Connect4GameState) currentState;
+        SetGridValueAction<?> setValue = (SetGridValueAction<?>) action;
+        Pair<Token, LinkedList<Pair<Integer, Integer>>> previous = (Pair<Token, LinkedList<Pair<Integer, Integer>>>) undoData;
+        c4gs.gridBoard.setElement(setValue.getX(), setValue.getY(), previous.a);
+        c4gs.winnerCells = previous.b;
+
+        int player = playerIndex((Token) setValue.getValue());
+        int bit = c4gs.bitIndex(setValue.getX(), setValue.getY());
+        c4gs.playerBits[player][bit >>> 6] &= ~(1L << bit);
+        c4gs.columnHeights[setValue.getX()] = c4gs.gridBoard.getHeight() - 1 - setValue.getY();
+        c4gs.nPieces--;
+    }
+
+    private static int playerIndex(Token piece) {
+        return piece.getTokenType().equals(Connect4Constants.playerMapping.get(0).getTokenType()) ? 0 : 1;
+    }
+
     /**
-     * Checks if the game ended.
+     * Checks if the game ended. As the game ends as soon as anyone has a line, any new line must go through the
+     * piece just played, so only the four lines through that cell are checked.
      *
      * @param gameState - game state to check game end.
+     * @param player    - the player who has just moved
+     * @param bit       - the bitboard index of the cell just filled
      */
-    private boolean checkGameEnd(Connect4GameState gameState) {
+    private boolean checkGameEnd(Connect4GameState gameState, int player, int bit) {
         GridBoard<Token> gridBoard = gameState.getGridBoard();
         Connect4GameParameters c4gp = (Connect4GameParameters) gameState.getGameParameters();
-        boolean gap = false;
-        LinkedList<Pair<Integer, Integer>> winning = new LinkedList<>();;
-
-        // Check columns
-        for (int x = 0; x < gridBoard.getWidth(); x++) {
-            int count = 0;
-            String lastToken = null;
-            winning.clear();
-            for (int y = gridBoard.getHeight() - 1; y >= 0; y--) {
-                Token c = gridBoard.getElement(x, y);
-                if (c.getTokenType().equals(Connect4Constants.emptyCell)) {
-                    count = 0;
-                    lastToken = null;
-                    winning.clear();
-                    gap = true;
-                } else if (lastToken == null || !lastToken.equals(c.getTokenType())) {
-                    winning.clear();
-                    count = 1;
-                    lastToken = c.getTokenType();
-                    winning.add(new Pair<>(x, y));
-                } else {
-                    {
-                        count++;
-                        winning.add(new Pair<>(x, y));
-                        if (count == c4gp.winCount) {
-                            registerWinner(gameState, c, winning);
-                            return true;
-                        }
-                    }
-                    lastToken = c.getTokenType();
-                }
-            }
-        }
-
-        // Check rows
-        for (int y = gridBoard.getHeight() - 1; y >= 0; y--) {
-            int count = 0;
-            String lastToken = null;
-            winning.clear();
-            for (int x = 0; x < gridBoard.getWidth(); x++) {
-                Token c = gridBoard.getElement(x, y);
-                if (c.getTokenType().equals(Connect4Constants.emptyCell)) {
-                    count = 0;
-                    lastToken = null;
-                    winning.clear();
-                } else if (lastToken == null || !lastToken.equals(c.getTokenType())) {
-                    winning.clear();
-                    count = 1;
-                    lastToken = c.getTokenType();
-                    winning.add(new Pair<>(x, y));
-                } else {
-                    {
-                        count++;
-                        winning.add(new Pair<>(x, y));
-                        if (count == c4gp.winCount) {
-                            registerWinner(gameState, c, winning);
-                            return true;
-                        }
-                    }
-                    lastToken = c.getTokenType();
-                }
-            }
-        }
-
-        //Check main diagonals (from col 0)
-        for (int y = gridBoard.getHeight() - 1; y >= 0; y--) {
-            if (checkMainDiagonals(gameState, 0, y))
-                return true;
-
-        }
-
-        //Check main and inverse diagonals (from row 0)
-        for (int x = 1; x < gridBoard.getWidth(); x++) {
-            if (checkMainDiagonals(gameState, x, gridBoard.getHeight() - 1))
-                return true;
-            if (checkInvDiagonals(gameState, x, gridBoard.getHeight() - 1))
-                return true;
-        }
-
-        //Check inv diagonals (from last column)
-        for (int y = gridBoard.getHeight() - 2; y >= 0; y--) { //height -1 is checked in previous loop
-            if (checkInvDiagonals(gameState, gridBoard.getWidth()-1, y))
+        int height = gridBoard.getHeight();
+        int nBits = gridBoard.getWidth() * (height + 1);
+
+        for (int[] line : LINES) {
+            // the step between the bits of neighbouring cells on the line
+            int step = line[0] * (height + 1) + line[1];
+            int back = 0;
+            for (int b = bit - step; back < c4gp.winCount - 1 && b >= 0 && b < nBits && gameState.hasPiece(player, b); b -= step)
+                back++;
+            int forward = 0;
+            for (int b = bit + step; back + forward < c4gp.winCount - 1 && b >= 0 && b < nBits && gameState.hasPiece(player, b); b += step)
+                forward++;
+            if (back + forward + 1 >= c4gp.winCount) {
+                LinkedList<Pair<Integer, Integer>> winning = new LinkedList<>();
+                for (int i = 0, b = bit - back * step; i < c4gp.winCount; i++, b += step)
+                    winning.add(new Pair<>(b / (height + 1), height - 1 - b % (height + 1)));
+                registerWinner(gameState, Connect4Constants.playerMapping.get(player), winning);
                 return true;
+            }
         }
 
-        if (!gap) { //tie
+        if (gameState.nPieces == gridBoard.getWidth() * height) { //tie
             gameState.setGameStatus(CoreConstants.GameResult.DRAW);
             Arrays.fill(gameState.getPlayerResults(), CoreConstants.GameResult.DRAW);
             return true;
@@ -164,73 +162,6 @@ public class Connect4ForwardModel extends SequentialActionForwardModel {
         return false;
     }
 
-
-    private boolean checkMainDiagonals(Connect4GameState gameState, int xStart, int yStart)
-    {
-        GridBoard<Token> gridBoard = gameState.getGridBoard();
-        Connect4GameParameters c4gp = (Connect4GameParameters) gameState.getGameParameters();
-        int count = 0;
-        String lastToken = null;
-        LinkedList<Pair<Integer, Integer>> winning = new LinkedList<>();
-
-        for (int x = xStart, y = yStart; x < gridBoard.getWidth() && y >=0; x++, y--) {
-            Token c = gridBoard.getElement(x, y);
-
-            if (c.getTokenType().equals(Connect4Constants.emptyCell)) {
-                count = 0;
-                lastToken = null;
-                winning.clear();
-            } else if (lastToken == null || !lastToken.equals(c.getTokenType())) {
-                winning.clear();
-                count = 1;
-                lastToken = c.getTokenType();
-                winning.add(new Pair<>(x, y));
-            } else {
-                count++;
-                winning.add(new Pair<>(x, y));
-                if (count == c4gp.winCount) {
-                    registerWinner(gameState, c, winning);
-                    return true;
-                }
-                lastToken = c.getTokenType();
-            }
-        }
-        return false;
-    }
-
-    private boolean checkInvDiagonals(Connect4GameState gameState, int xStart, int yStart)
-    {
-        GridBoard<Token> gridBoard = gameState.getGridBoard();
-        Connect4GameParameters c4gp = (Connect4GameParameters) gameState.getGameParameters();
-        int count = 0;
-        String lastToken = null;
-        LinkedList<Pair<Integer, Integer>> winning = new LinkedList<>();
-
-        for (int x = xStart, y = yStart; x >= 0 && y >= 0; x--, y--) {
-            Token c = gridBoard.getElement(x, y);
-
-            if (c.getTokenType().equals(Connect4Constants.emptyCell)) {
-                count = 0;
-                lastToken = null;
-                winning.clear();
-            } else if (lastToken == null || !lastToken.equals(c.getTokenType())) {
-                winning.clear();
-                count = 1;
-                lastToken = c.getTokenType();
-                winning.add(new Pair<>(x, y));
-            } else {
-                count++;
-                winning.add(new Pair<>(x, y));
-                if (count == c4gp.winCount) {
-                    registerWinner(gameState, c, winning);
-                    return true;
-                }
-                lastToken = c.getTokenType();
-            }
-        }
-        return false;
-    }
-
     /**
      * Inform the game this player has won.
      *
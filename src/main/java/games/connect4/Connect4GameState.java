@@ -3,6 +3,7 @@ package games.connect4;
 import core.AbstractGameState;
 import core.AbstractGameStateWithTurnOrder;
 import core.AbstractParameters;
+import core.actions.SetGridValueAction;
 import core.components.Component;
 import core.components.GridBoard;
 import core.components.Token;
@@ -23,6 +24,18 @@ public class Connect4GameState extends AbstractGameState implements IPrintable,
     GridBoard<Token> gridBoard;
     LinkedList<Pair<Integer, Integer>> winnerCells;
 
+    // Bitboards of each player's pieces, kept in step with gridBoard by the forward model, which uses them to find
+    // the legal moves and wins. Each column has (height + 1) bits, from the bottom row up, and the extra bit at the
+    // top is always clear, so that lines of cells do not run from one column into the next. Column x starts at bit
+    // x * (height + 1); as the board can be up to 12 x 12, this may take more than one long.
+    long[][] playerBits;
+    // Number of pieces in each column, and in total
+    int[] columnHeights;
+    int nPieces;
+    // The action that puts each player's piece in each cell (indexed by x * height + y). Actions are immutable, so
+    // these are created once at setup and shared by all copies
+    SetGridValueAction<Token>[][] cellActions;
+
     public Connect4GameState(AbstractParameters gameParameters, int nPlayers) {
         super(gameParameters, nPlayers);
         winnerCells = new LinkedList<>();
@@ -43,13 +56,14 @@ public class Connect4GameState extends AbstractGameState implements IPrintable,
 
     @Override
     protected AbstractGameState _copy(int playerId) {
-        Connect4GameState s = new Connect4GameState(gameParameters.copy(), getNPlayers());
-        s.gridBoard = gridBoard.copy();
-
-        s.winnerCells.clear();
-        for (Pair<Integer, Integer> wC : this.winnerCells)
-            s.winnerCells.add(wC.copy());
-
+        Connect4GameState s = new Connect4GameState(gameParameters, getNPlayers());
+        s.gridBoard = gridBoard.copyOnWrite();
+        // The list of winning cells is replaced, never changed, once the game has ended
+        s.winnerCells = winnerCells;
+        s.playerBits = new long[][]{playerBits[0].clone(), playerBits[1].clone()};
+        s.columnHeights = columnHeights.clone();
+        s.nPieces = nPieces;
+        s.cellActions = cellActions;
         return s;
     }
 
@@ -85,6 +99,11 @@ public class Connect4GameState extends AbstractGameState implements IPrintable,
         return Objects.hash(super.hashCode(), gridBoard);
     }
 
+    @Override
+    protected long _longHash() {
+        return gridBoard.longHash();
+    }
+
     @Override
     public GridBoard<Token> getGridBoard() {
         return gridBoard;
@@ -95,6 +114,18 @@ public class Connect4GameState extends AbstractGameState implements IPrintable,
         System.out.println(gridBoard.toString());
     }
 
+    /**
+     * @return the index of the bit for cell (x, y) in the bitboards (y = 0 is the top row, as in gridBoard)
+     */
+    int bitIndex(int x, int y) {
+        int height = gridBoard.getHeight();
+        return x * (height + 1) + height - 1 - y;
+    }
+
+    boolean hasPiece(int player, int bit) {
+        return (playerBits[player][bit >>> 6] & (1L << bit)) != 0;
+    }
+
     void registerWinningCells(LinkedList<Pair<Integer, Integer>> winnerCells) {
         this.winnerCells = winnerCells;
     }
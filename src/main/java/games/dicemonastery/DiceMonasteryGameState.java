@@ -647,13 +647,13 @@ public class DiceMonasteryGameState extends AbstractGameState {
         retValue.writtenTexts.putAll(writtenTexts);
         retValue.treasuresCommissioned.putAll(treasuresCommissioned);
 
-        retValue.marketCards = marketCards.copy();
+        retValue.marketCards = marketCards.copyOnWrite();
         if (playerId != -1 && marketCards.getSize() > 1) { // shuffle all except the top card
             MarketCard topCard = retValue.marketCards.draw();
             retValue.marketCards.shuffle(rnd);
             retValue.marketCards.add(topCard);
         }
-        retValue.forageCards = forageCards.copy();
+        retValue.forageCards = forageCards.copyOnWrite();
         if (playerId != -1 && forageCards.getSize() > 1) { // shuffle all except the top card
             ForageCard topCard = retValue.forageCards.draw();
             retValue.forageCards.shuffle(rnd);
@@ -300,10 +300,10 @@ public class DominionGameState extends AbstractGameState implements IPrintable {
                     }
                 }
             }
-            retValue.playerDiscards[p] = playerDiscards[p].copy();
-            retValue.playerTableaux[p] = playerTableaux[p].copy();
+            retValue.playerDiscards[p] = playerDiscards[p].copyOnWrite();
+            retValue.playerTableaux[p] = playerTableaux[p].copyOnWrite();
         }
-        retValue.trashPile = trashPile.copy();
+        retValue.trashPile = trashPile.copyOnWrite();
         retValue.buysLeftForCurrentPlayer = buysLeftForCurrentPlayer;
         retValue.actionsLeftForCurrentPlayer = actionsLeftForCurrentPlayer;
         retValue.spentSoFar = spentSoFar;
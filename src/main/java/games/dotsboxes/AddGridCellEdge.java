@@ -2,11 +2,27 @@ package games.dotsboxes;
 
 import core.AbstractGameState;
 import core.actions.AbstractAction;
+import core.interfaces.IActionCodec;
+import utilities.Vector2D;
 
-import java.util.HashSet;
 import java.util.Objects;
 
 public class AddGridCellEdge extends AbstractAction {
+
+    /**
+     * Codec packing the two ends of the edge (in a fixed order, as edges have no direction) into the code.
+     * Coordinates must be below 2^15.
+     */
+    public static final IActionCodec CODEC = action -> {
+        if (!(action instanceof AddGridCellEdge))
+            return -1;
+        DBEdge edge = ((AddGridCellEdge) action).edge;
+        long from = encode(edge.from), to = encode(edge.to);
+        if (from < 0 || to < 0)
+            return -1;
+        return Math.min(from, to) << 30 | Math.max(from, to);
+    };
+
     DBEdge edge;  // Normally not good practice to keep references, as they wouldn't match the copies. But our equals should match.
 
     public AddGridCellEdge(DBEdge edge) {
@@ -15,24 +31,26 @@ public class AddGridCellEdge extends AbstractAction {
 
     @Override
     public boolean execute(AbstractGameState gs) {
-        // Find neighbouring cells
         DBGameState dbgs = (DBGameState) gs;
+        int player = gs.getCurrentPlayer();
+        int e = dbgs.edgeIndex(edge);
+        if (e < 0)
+            throw new IllegalArgumentException("Edge is not on the board : " + edge);
 
-        int nCellsCompleteBefore = dbgs.cellToOwnerMap.size();
         // Mark this edge as complete by current player and check if connected cells are complete too
-        dbgs.edgeToOwnerMap.put(edge, gs.getCurrentPlayer());
-
-        HashSet<DBCell> cells = dbgs.edgeToCellMap.get(edge);
-        for (DBCell c : cells) {
-            int nEdgesComplete = dbgs.countCompleteEdges(c);
-            if (nEdgesComplete == 4) {  // A cell has 4 sides
+        dbgs.placedEdges.set(e);
+        dbgs.setEdgeOwner(e, player);
+        boolean scored = false;
+        for (int c : dbgs.edgeToCells[e]) {
+            if (++dbgs.cellEdgeCount[c] == 4) {  // A cell has 4 sides
                 // All edges complete, this box complete
-                dbgs.cellToOwnerMap.put(c, gs.getCurrentPlayer());
-                dbgs.nCellsPerPlayer[gs.getCurrentPlayer()]++;
+                dbgs.setCellOwner(c, player);
+                dbgs.nCellsPerPlayer[player]++;
+                dbgs.nCellsComplete++;
+                scored = true;
             }
         }
-        int nCellsCompleteAfter = dbgs.cellToOwnerMap.size();
-        dbgs.setLastActionScored(nCellsCompleteAfter == nCellsCompleteBefore);
+        dbgs.setLastActionScored(!scored);
         return true;  // Always able to execute
     }
 
@@ -63,4 +81,10 @@ public class AddGridCellEdge extends AbstractAction {
     public String toString() {
         return edge.from.toString() + " -> " + edge.to.toString();
     }
+
+    private static long encode(Vector2D point) {
+        if (point.getX() < 0 || point.getX() >= 1 << 15 || point.getY() < 0 || point.getY() >= 1 << 15)
+            return -1;
+        return (long) point.getX() << 15 | point.getY();
+    }
 }
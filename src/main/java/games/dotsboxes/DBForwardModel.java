@@ -3,11 +3,12 @@ package games.dotsboxes;
 import core.AbstractGameState;
 import core.StandardForwardModel;
 import core.actions.AbstractAction;
+import core.interfaces.IActionCodec;
 import utilities.Vector2D;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 
 public class DBForwardModel extends StandardForwardModel {
@@ -18,36 +19,57 @@ public class DBForwardModel extends StandardForwardModel {
         DBParameters dbp = (DBParameters) firstState.getGameParameters();
 
         dbgs.lastActionScored = false;
-        // Generate edge to cell mapping and all cell objects with appropriate constructor
-        dbgs.edgeToCellMap = new HashMap<>();
-        dbgs.cellToEdgesMap = new HashMap<>();
-        dbgs.cellToOwnerMap = new HashMap<>();
-        dbgs.edgeToOwnerMap = new HashMap<>();
-        dbgs.edges = new HashSet<>();
-        dbgs.cells = new HashSet<>();
-        for (int i = 0; i < dbp.gridHeight; i++) {
-            for (int j = 0; j < dbp.gridWidth; j++) {
-                DBCell c = new DBCell(j, i);
-                dbgs.cells.add(c);
-                HashSet<DBEdge> edges = new HashSet<>(4);
-                edges.add(new DBEdge(new Vector2D(j, i), new Vector2D(j, i + 1)));
-                edges.add(new DBEdge(new Vector2D(j, i), new Vector2D(j + 1, i)));
-                edges.add(new DBEdge(new Vector2D(j + 1, i), new Vector2D(j + 1, i + 1)));
-                edges.add(new DBEdge(new Vector2D(j, i + 1), new Vector2D(j + 1, i + 1)));
-
-                for (DBEdge edge : edges) {
-                    dbgs.edges.add(edge);
-                    if (!dbgs.edgeToCellMap.containsKey(edge)) {
-                        dbgs.edgeToCellMap.put(edge, new HashSet<>());
-                    }
-                    dbgs.edgeToCellMap.get(edge).add(c);
-                }
+        // Number all edges and cells, and work out which edges surround each cell (see DBGameState)
+        int width = dbp.gridWidth, height = dbp.gridHeight;
+        int nHorizontal = (height + 1) * width;
+        int nEdges = nHorizontal + height * (width + 1);
+        dbgs.gridWidth = width;
+        dbgs.gridHeight = height;
+        dbgs.edges = new DBEdge[nEdges];
+        dbgs.edgeActions = new AddGridCellEdge[nEdges];
+        for (int i = 0; i <= height; i++) {
+            for (int j = 0; j < width; j++)
+                dbgs.edges[i * width + j] = new DBEdge(new Vector2D(j, i), new Vector2D(j + 1, i));
+        }
+        for (int i = 0; i < height; i++) {
+            for (int j = 0; j <= width; j++)
+                dbgs.edges[nHorizontal + i * (width + 1) + j] = new DBEdge(new Vector2D(j, i), new Vector2D(j, i + 1));
+        }
+        for (int e = 0; e < nEdges; e++)
+            dbgs.edgeActions[e] = new AddGridCellEdge(dbgs.edges[e]);
 
-                dbgs.cellToEdgesMap.put(c, edges);
+        dbgs.cells = new DBCell[width * height];
+        dbgs.cellToEdges = new int[width * height][];
+        int[] nEdgeCells = new int[nEdges];
+        int[][] edgeToCells = new int[nEdges][2];
+        for (int i = 0; i < height; i++) {
+            for (int j = 0; j < width; j++) {
+                int c = i * width + j;
+                dbgs.cells[c] = new DBCell(j, i);
+                dbgs.cellToEdges[c] = new int[]{
+                        nHorizontal + i * (width + 1) + j,  // left
+                        i * width + j,  // top
+                        nHorizontal + i * (width + 1) + j + 1,  // right
+                        (i + 1) * width + j  // bottom
+                };
+                for (int e : dbgs.cellToEdges[c])
+                    edgeToCells[e][nEdgeCells[e]++] = c;
             }
         }
+        dbgs.edgeToCells = new int[nEdges][];
+        for (int e = 0; e < nEdges; e++)
+            dbgs.edgeToCells[e] = Arrays.copyOf(edgeToCells[e], nEdgeCells[e]);
+
         // Initialise other variables
         dbgs.nCellsPerPlayer = new int[dbgs.getNPlayers()];
+        dbgs.placedEdges = new BitSet(nEdges);
+        dbgs.edgeOwners = new byte[nEdges];
+        Arrays.fill(dbgs.edgeOwners, (byte) -1);
+        dbgs.cellOwners = new byte[width * height];
+        Arrays.fill(dbgs.cellOwners, (byte) -1);
+        dbgs.cellEdgeCount = new byte[width * height];
+        dbgs.nCellsComplete = 0;
+        dbgs.ownersHash = 0;
     }
 
     @Override
@@ -56,7 +78,7 @@ public class DBForwardModel extends StandardForwardModel {
         DBParameters dbp = (DBParameters) currentState.getGameParameters();
 
         // Check end of game (when all cells completed)
-        if (dbgs.cellToOwnerMap.size() == dbp.gridWidth * dbp.gridHeight) {
+        if (dbgs.nCellsComplete == dbp.gridWidth * dbp.gridHeight) {
             // Game is over. Set status and find winner
             endGame(dbgs);
         } else if (dbgs.getLastActionScored()) {
@@ -66,18 +88,46 @@ public class DBForwardModel extends StandardForwardModel {
     }
 
     @Override
-    protected List<AbstractAction> _computeAvailableActions(AbstractGameState gameState) {
-        HashSet<AbstractAction> actions = new HashSet<>();  // Same edge may appear in multiple cells, ensure unique actions
-        DBGameState dbgs = (DBGameState) gameState;
+    public IActionCodec getActionCodec() {
+        return AddGridCellEdge.CODEC;
+    }
 
-        // Actions in this game are adding edges to the board (that don't already exist)
-        for (DBEdge e : dbgs.edges) {
-            if (!dbgs.edgeToOwnerMap.containsKey(e)) {
-                // Can add this edge
-                actions.add(new AddGridCellEdge(e));
+    @Override
+    public boolean supportsUndo() {
+        return true;
+    }
+
+    @Override
+    protected Object _undoData(AbstractGameState currentState, AbstractAction action) {
+        // Everything else can be worked out from the edge that was added
+        return ((DBGameState) currentState).lastActionScored;
+    }
+
+    @Override
+    protected void _rewind(AbstractGameState currentState, AbstractAction action, Object undoData) {
+        DBGameState dbgs = (DBGameState) currentState;
+        int edge = dbgs.edgeIndex(((AddGridCellEdge) action).edge);
+        dbgs.placedEdges.clear(edge);
+        dbgs.setEdgeOwner(edge, -1);
+        // The edge was missing before, so any completed cell next to it was completed by this action
+        for (int c : dbgs.edgeToCells[edge]) {
+            if (dbgs.cellEdgeCount[c]-- == 4) {
+                dbgs.nCellsPerPlayer[dbgs.cellOwners[c]]--;
+                dbgs.setCellOwner(c, -1);
+                dbgs.nCellsComplete--;
             }
         }
+        dbgs.lastActionScored = (Boolean) undoData;
+    }
 
-        return new ArrayList<>(actions);
+    @Override
+    protected List<AbstractAction> _computeAvailableActions(AbstractGameState gameState) {
+        DBGameState dbgs = (DBGameState) gameState;
+        List<AbstractAction> actions = new ArrayList<>(dbgs.edges.length - dbgs.placedEdges.cardinality());
+
+        // Actions in this game are adding edges to the board (that don't already exist)
+        for (int e = dbgs.placedEdges.nextClearBit(0); e < dbgs.edges.length; e = dbgs.placedEdges.nextClearBit(e + 1))
+            actions.add(dbgs.edgeActions[e]);
+        return actions;
     }
 }
@@ -9,6 +9,7 @@ import core.turnorders.AlternatingTurnOrder;
 import core.turnorders.StandardTurnOrder;
 import core.turnorders.TurnOrder;
 import games.GameType;
+import utilities.ZobristHash;
 
 import java.util.*;
 
@@ -16,20 +17,25 @@ public class DBGameState extends AbstractGameState {
 
     IStateHeuristic heuristic;
 
-    // List of all edges possible
-    HashSet<DBEdge> edges;
-    // List of all cells possible
-    HashSet<DBCell> cells;
-    // Mapping from each edge to the cells it neighbours
-    HashMap<DBEdge, HashSet<DBCell>> edgeToCellMap;
-    // Mapping from each cell to its edges
-    HashMap<DBCell, HashSet<DBEdge>> cellToEdgesMap;
+    // The board, shared by all copies. Edges and cells are numbered from 0: cell (x, y) is y * gridWidth + x, the
+    // horizontal edges from (x, y) to (x + 1, y) come first, numbered y * gridWidth + x, followed by the vertical
+    // edges from (x, y) to (x, y + 1), numbered nHorizontalEdges + y * (gridWidth + 1) + x.
+    int gridWidth, gridHeight;
+    DBEdge[] edges;
+    DBCell[] cells;
+    int[][] edgeToCells;  // The cells each edge borders (one or two)
+    int[][] cellToEdges;  // The four edges of each cell
+    AddGridCellEdge[] edgeActions;  // The action that places each edge
 
     // Mutable state:
     int[] nCellsPerPlayer;
-    HashMap<DBCell, Integer> cellToOwnerMap;  // Mapping from each cell to its owner, if complete
-    HashMap<DBEdge, Integer> edgeToOwnerMap;  // Mapping from each edge to its owner, if placed
+    BitSet placedEdges;
+    byte[] edgeOwners;  // Owner of each edge, if placed (-1 otherwise)
+    byte[] cellOwners;  // Owner of each cell, if complete (-1 otherwise)
+    byte[] cellEdgeCount;  // Number of edges placed around each cell
+    int nCellsComplete;
     boolean lastActionScored;
+    long ownersHash;  // Zobrist hash of edgeOwners and cellOwners (see setEdgeOwner() and setCellOwner())
 
     /**
      * Constructor. Initialises some generic game state variables.
@@ -48,21 +54,28 @@ public class DBGameState extends AbstractGameState {
 
     @Override
     protected List<Component> _getAllComponents() {
-        return new ArrayList<Component>() {{ addAll(edges); addAll(cells); }};
+        return new ArrayList<Component>() {{ addAll(Arrays.asList(edges)); addAll(Arrays.asList(cells)); }};
     }
 
     @Override
     protected AbstractGameState _copy(int playerId) {
         DBGameState dbgs = new DBGameState(gameParameters, getNPlayers());
+        dbgs.gridWidth = gridWidth;
+        dbgs.gridHeight = gridHeight;
         dbgs.edges = edges;
         dbgs.cells = cells;
-        dbgs.edgeToCellMap = edgeToCellMap;
-        dbgs.cellToEdgesMap = cellToEdgesMap;
+        dbgs.edgeToCells = edgeToCells;
+        dbgs.cellToEdges = cellToEdges;
+        dbgs.edgeActions = edgeActions;
         dbgs.lastActionScored = lastActionScored;
 
         dbgs.nCellsPerPlayer = nCellsPerPlayer.clone();
-        dbgs.cellToOwnerMap = (HashMap<DBCell, Integer>) cellToOwnerMap.clone();
-        dbgs.edgeToOwnerMap = (HashMap<DBEdge, Integer>) edgeToOwnerMap.clone();
+        dbgs.placedEdges = (BitSet) placedEdges.clone();
+        dbgs.edgeOwners = edgeOwners.clone();
+        dbgs.cellOwners = cellOwners.clone();
+        dbgs.cellEdgeCount = cellEdgeCount.clone();
+        dbgs.nCellsComplete = nCellsComplete;
+        dbgs.ownersHash = ownersHash;
         dbgs.heuristic = heuristic;
         return dbgs;
     }
@@ -94,13 +107,15 @@ public class DBGameState extends AbstractGameState {
         if (!(o instanceof DBGameState)) return false;
         if (!super.equals(o)) return false;
         DBGameState that = (DBGameState) o;
-        return lastActionScored == that.lastActionScored && Objects.equals(heuristic, that.heuristic) && Objects.equals(edges, that.edges) && Objects.equals(cells, that.cells) && Objects.equals(edgeToCellMap, that.edgeToCellMap) && Objects.equals(cellToEdgesMap, that.cellToEdgesMap) && Arrays.equals(nCellsPerPlayer, that.nCellsPerPlayer) && Objects.equals(cellToOwnerMap, that.cellToOwnerMap) && Objects.equals(edgeToOwnerMap, that.edgeToOwnerMap);
+        return lastActionScored == that.lastActionScored && Objects.equals(heuristic, that.heuristic) && gridWidth == that.gridWidth && gridHeight == that.gridHeight && Arrays.equals(nCellsPerPlayer, that.nCellsPerPlayer) && Arrays.equals(cellOwners, that.cellOwners) && Arrays.equals(edgeOwners, that.edgeOwners);
     }
 
     @Override
     public int hashCode() {
-        int result = Objects.hash(super.hashCode(), heuristic, edges, cells, edgeToCellMap, cellToEdgesMap, cellToOwnerMap, edgeToOwnerMap, lastActionScored);
+        int result = Objects.hash(super.hashCode(), heuristic, gridWidth, gridHeight, lastActionScored);
         result = 31 * result + Arrays.hashCode(nCellsPerPlayer);
+        result = 31 * result + Arrays.hashCode(cellOwners);
+        result = 31 * result + Arrays.hashCode(edgeOwners);
         return result;
     }
 
@@ -119,9 +134,9 @@ public class DBGameState extends AbstractGameState {
         sb.append(result).append("|*|");
         result = Arrays.hashCode(nCellsPerPlayer);
         sb.append(result).append("|");
-        result = Objects.hashCode(cellToOwnerMap);
+        result = Arrays.hashCode(cellOwners);
         sb.append(result).append("|");
-        result = Objects.hashCode(edgeToOwnerMap);
+        result = Arrays.hashCode(edgeOwners);
         sb.append(result).append("|");
         result = Objects.hashCode(lastActionScored);
         sb.append(result).append("|");
@@ -131,14 +146,76 @@ public class DBGameState extends AbstractGameState {
 
 
     public int countCompleteEdges(DBCell c) {
-        int retValue = 0;
-        for (DBEdge e: cellToEdgesMap.get(c)) {
-            if (edgeToOwnerMap.containsKey(e)) {
-                retValue++;
-            }
-        }
-        return retValue;
+        return cellEdgeCount[cellIndex(c)];
+    }
+
+    public int countCompleteEdges(int cell) {
+        return cellEdgeCount[cell];
+    }
+
+    /**
+     * @return the owner of the cell, or -1 if it is not complete
+     */
+    public int getCellOwner(DBCell c) {
+        return cellOwners[cellIndex(c)];
+    }
+
+    /**
+     * @return the owner of the edge, or -1 if it has not been placed (or is not on the board)
+     */
+    public int getEdgeOwner(DBEdge e) {
+        int edge = edgeIndex(e);
+        return edge < 0 ? -1 : edgeOwners[edge];
+    }
+
+    public int cellIndex(DBCell c) {
+        return c.position.getY() * gridWidth + c.position.getX();
     }
+
+    /**
+     * @return the number of the edge between the two points, or -1 if they are not neighbouring dots on the board
+     */
+    public int edgeIndex(DBEdge e) {
+        int x = Math.min(e.from.getX(), e.to.getX()), y = Math.min(e.from.getY(), e.to.getY());
+        int dx = Math.abs(e.from.getX() - e.to.getX()), dy = Math.abs(e.from.getY() - e.to.getY());
+        if (dx == 1 && dy == 0 && x >= 0 && x < gridWidth && y >= 0 && y <= gridHeight)
+            return y * gridWidth + x;
+        if (dx == 0 && dy == 1 && x >= 0 && x <= gridWidth && y >= 0 && y < gridHeight)
+            return (gridHeight + 1) * gridWidth + y * (gridWidth + 1) + x;
+        return -1;
+    }
+
+    /**
+     * Sets the owner of an edge (-1 if not placed), keeping the hash of the owners up to date.
+     */
+    void setEdgeOwner(int edge, int player) {
+        if (edgeOwners[edge] >= 0)
+            ownersHash ^= ZobristHash.key(edge, edgeOwners[edge]);
+        edgeOwners[edge] = (byte) player;
+        if (player >= 0)
+            ownersHash ^= ZobristHash.key(edge, player);
+    }
+
+    /**
+     * Sets the owner of a cell (-1 if not complete), keeping the hash of the owners up to date.
+     */
+    void setCellOwner(int cell, int player) {
+        // Cells are numbered after the edges for the hash
+        if (cellOwners[cell] >= 0)
+            ownersHash ^= ZobristHash.key(edgeOwners.length + cell, cellOwners[cell]);
+        cellOwners[cell] = (byte) player;
+        if (player >= 0)
+            ownersHash ^= ZobristHash.key(edgeOwners.length + cell, player);
+    }
+
+    /**
+     * Everything else that changes during the game follows from who owns each edge and cell.
+     */
+    @Override
+    protected long _longHash() {
+        return ZobristHash.combine(ownersHash, lastActionScored ? 1 : 0);
+    }
+
     public boolean getLastActionScored(){return lastActionScored;}
     public void setLastActionScored(boolean value){lastActionScored = value;}
 }
@@ -29,11 +29,9 @@ public class DBStateFeatures extends AbstractStateFeature {
 
         // CELLS
         int[] cellCountByEdges = new int[5];
-        for (DBCell cell : state.cells) {
-            int edges = state.countCompleteEdges(cell);
-            cellCountByEdges[edges]++;
-        }
-        double totalCells = state.cells.size();
+        for (int cell = 0; cell < state.cells.length; cell++)
+            cellCountByEdges[state.countCompleteEdges(cell)]++;
+        double totalCells = state.cells.length;
 
         int multiplier = state.getCurrentPlayer() == playerID ? 1 : -1;
         retValue[0] = cellCountByEdges[2] * multiplier / totalCells;
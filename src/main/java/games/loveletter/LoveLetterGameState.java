@@ -10,6 +10,7 @@ import core.components.PartialObservableDeck;
 import core.interfaces.IPrintable;
 import games.GameType;
 import games.loveletter.cards.LoveLetterCard;
+import utilities.ZobristHash;
 
 import java.util.*;
 
@@ -157,6 +158,17 @@ public class LoveLetterGameState extends AbstractGameState implements IPrintable
         return result;
     }
 
+    @Override
+    protected long _longHash() {
+        long hash = ZobristHash.combine(drawPile.longHash(), reserveCards.longHash());
+        for (int p = 0; p < getNPlayers(); p++) {
+            hash = ZobristHash.combine(hash, playerHandCards.get(p).longHash());
+            hash = ZobristHash.combine(hash, playerDiscardCards.get(p).longHash());
+            hash = ZobristHash.combine(hash, affectionTokens[p] * 2L + (effectProtection[p] ? 1 : 0));
+        }
+        return hash;
+    }
+
     /**
      * Updates components after round setup.
      */
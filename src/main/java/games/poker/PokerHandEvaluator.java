@@ -0,0 +1,156 @@
+package games.poker;
+
+import core.components.Deck;
+import core.components.FrenchCard;
+
+/**
+ * Ranks poker hands of any number of cards (from a single deck) using lookup tables, without creating any objects.
+ * ---
+ * A set of cards is held in a long, with one bit per card: bit (13 * suit + rank), where rank is 0 for a 2 up to 12
+ * for an Ace. The four 13-bit suit masks are combined with a few bitwise operations to find the ranks held once,
+ * twice, three and four times, and tables indexed by a 13-bit mask of ranks give the highest rank, the highest
+ * straight and the five highest ranks. This is the same approach as the poker-eval library.
+ * <p>
+ * The value of a hand is an int, larger for better hands, and equal for hands that tie. The hand's category is in
+ * bits 20 and up (0 for a high card, up to 9 for a royal flush), and below that are up to five ranks to break ties,
+ * each in 4 bits with 1 for a 2 up to 13 for an Ace (0 for none), most important first. As elsewhere in this game,
+ * Aces are high only, so A-2-3-4-5 is not a straight.
+ */
+public final class PokerHandEvaluator {
+
+    public static final int HIGH_CARD = 0, ONE_PAIR = 1, TWO_PAIR = 2, THREE_OF_A_KIND = 3, STRAIGHT = 4, FLUSH = 5,
+            FULL_HOUSE = 6, FOUR_OF_A_KIND = 7, STRAIGHT_FLUSH = 8, ROYAL_FLUSH = 9;
+
+    private static final int ACE = 12;
+    private static final int CATEGORY_SHIFT = 20;
+
+    // For each 13-bit mask of ranks: the highest rank (-1 if none), the highest rank of a straight (-1 if none), and
+    // the highest five ranks, as 4-bit values (rank + 1) with the highest in bits 16-19
+    private static final byte[] TOP_CARD = new byte[1 << 13];
+    private static final byte[] STRAIGHT_HIGH = new byte[1 << 13];
+    private static final int[] TOP_FIVE = new int[1 << 13];
+
+    static {
+        for (int mask = 0; mask < 1 << 13; mask++) {
+            TOP_CARD[mask] = (byte) (31 - Integer.numberOfLeadingZeros(mask));
+            STRAIGHT_HIGH[mask] = -1;
+            for (int high = ACE; high >= 4; high--) {
+                int straight = 0x1F << (high - 4);
+                if ((mask & straight) == straight) {
+                    STRAIGHT_HIGH[mask] = (byte) high;
+                    break;
+                }
+            }
+            int top = 0;
+            int remaining = mask;
+            for (int i = 0; i < 5; i++) {
+                int rank = 31 - Integer.numberOfLeadingZeros(remaining);
+                top = (top << 4) | (rank + 1);
+                if (rank >= 0)
+                    remaining &= ~(1 << rank);
+            }
+            TOP_FIVE[mask] = top;
+        }
+    }
+
+    private PokerHandEvaluator() {
+    }
+
+    /**
+     * @return the bit for this card in a hand mask
+     */
+    public static long cardBit(FrenchCard card) {
+        return 1L << (13 * card.suite.ordinal() + card.number - 2);
+    }
+
+    /**
+     * @return the mask of all the cards in the deck
+     */
+    public static long handMask(Deck<FrenchCard> deck) {
+        long mask = 0;
+        for (int i = 0; i < deck.getSize(); i++)
+            mask |= cardBit(deck.get(i));
+        return mask;
+    }
+
+    /**
+     * @param cards - mask of the cards in the hand, with one bit per card (see cardBit())
+     * @return the value of the best poker hand that can be made from these cards; higher is better
+     */
+    public static int evaluate(long cards) {
+        int s0 = (int) cards & 0x1FFF;
+        int s1 = (int) (cards >>> 13) & 0x1FFF;
+        int s2 = (int) (cards >>> 26) & 0x1FFF;
+        int s3 = (int) (cards >>> 39) & 0x1FFF;
+
+        // With more than seven cards a hand may have a flush as well as four of a kind or a full house, so the
+        // categories are checked from the best down
+        int flush = Math.max(Math.max(flushValue(s0), flushValue(s1)), Math.max(flushValue(s2), flushValue(s3)));
+        if (flush >= STRAIGHT_FLUSH << CATEGORY_SHIFT)
+            return flush;
+
+        int ranks = s0 | s1 | s2 | s3;
+        int four = s0 & s1 & s2 & s3;
+        int atLeastThree = (s0 & s1 & s2) | (s0 & s1 & s3) | (s0 & s2 & s3) | (s1 & s2 & s3);
+        int atLeastTwo = (s0 & s1) | (s0 & s2) | (s0 & s3) | (s1 & s2) | (s1 & s3) | (s2 & s3);
+        int three = atLeastThree & ~four;
+        int pairs = atLeastTwo & ~atLeastThree;
+
+        if (four != 0) {
+            int quad = TOP_CARD[four];
+            return value(FOUR_OF_A_KIND, (quad + 1) << 4 | TOP_CARD[ranks & ~(1 << quad)] + 1, 2);
+        }
+        if (three != 0) {
+            int trips = TOP_CARD[three];
+            int pair = TOP_CARD[(three & ~(1 << trips)) | pairs];
+            if (pair >= 0)
+                return value(FULL_HOUSE, (trips + 1) << 4 | pair + 1, 2);
+        }
+        if (flush >= 0)
+            return flush;
+        int straight = STRAIGHT_HIGH[ranks];
+        if (straight >= 0)
+            return value(STRAIGHT, straight + 1, 1);
+        if (three != 0) {
+            int trips = TOP_CARD[three];
+            return value(THREE_OF_A_KIND, (trips + 1) << 8 | TOP_FIVE[ranks & ~(1 << trips)] >>> 12, 3);
+        }
+        if (pairs != 0) {
+            int high = TOP_CARD[pairs];
+            int low = TOP_CARD[pairs & ~(1 << high)];
+            if (low >= 0)
+                return value(TWO_PAIR, (high + 1) << 8 | (low + 1) << 4 | TOP_CARD[ranks & ~(1 << high | 1 << low)] + 1, 3);
+            return value(ONE_PAIR, (high + 1) << 12 | TOP_FIVE[ranks & ~(1 << high)] >>> 8, 4);
+        }
+        return value(HIGH_CARD, TOP_FIVE[ranks], 5);
+    }
+
+    /**
+     * @return the category of a hand value from evaluate(), from HIGH_CARD to ROYAL_FLUSH
+     */
+    public static int category(int value) {
+        return value >>> CATEGORY_SHIFT;
+    }
+
+    /**
+     * @return the value of the best flush (or straight flush) in one suit, or -1 if there are fewer than five cards
+     */
+    private static int flushValue(int suit) {
+        if (Integer.bitCount(suit) < 5)
+            return -1;
+        int straight = STRAIGHT_HIGH[suit];
+        if (straight == ACE)
+            return value(ROYAL_FLUSH, straight + 1, 1);
+        if (straight >= 0)
+            return value(STRAIGHT_FLUSH, straight + 1, 1);
+        return value(FLUSH, TOP_FIVE[suit], 5);
+    }
+
+    /**
+     * @param ranks  - the ranks that break ties, 4 bits each, with the most important in the highest bits
+     * @param nRanks - the number of ranks given
+     */
+    private static int value(int category, int ranks, int nRanks) {
+        return category << CATEGORY_SHIFT | ranks << (4 * (5 - nRanks));
+    }
+}
@@ -15,11 +15,13 @@ public class PokerHeuristic extends TunableParameters implements IStateHeuristic
     double FACTOR_MONEY = 0.8;
     double FACTOR_HAND = 0.2;
     double FACTOR_HAND_OVER_MONEY = 0.0;
+    double FACTOR_HAND_STRENGTH = 0.0;
 
     public PokerHeuristic() {
         addTunableParameter("FACTOR_MONEY", 0.8);
         addTunableParameter("FACTOR_HAND", 0.2);
         addTunableParameter("FACTOR_HAND_OVER_MONEY", 0.0);
+        addTunableParameter("FACTOR_HAND_STRENGTH", 0.0);
     }
 
     @Override
@@ -27,6 +29,7 @@ public class PokerHeuristic extends TunableParameters implements IStateHeuristic
         FACTOR_MONEY = (double) getParameterValue("FACTOR_MONEY");
         FACTOR_HAND = (double) getParameterValue("FACTOR_HAND");
         FACTOR_HAND_OVER_MONEY = (double) getParameterValue("FACTOR_HAND_OVER_MONEY");
+        FACTOR_HAND_STRENGTH = (double) getParameterValue("FACTOR_HAND_STRENGTH");
     }
 
     /**
@@ -40,6 +43,7 @@ public class PokerHeuristic extends TunableParameters implements IStateHeuristic
         retValue.FACTOR_MONEY = FACTOR_MONEY;
         retValue.FACTOR_HAND = FACTOR_HAND;
         retValue.FACTOR_HAND_OVER_MONEY = FACTOR_HAND_OVER_MONEY;
+        retValue.FACTOR_HAND_STRENGTH = FACTOR_HAND_STRENGTH;
         return retValue;
     }
 
@@ -54,7 +58,8 @@ public class PokerHeuristic extends TunableParameters implements IStateHeuristic
         if (o instanceof PokerHeuristic) {
             PokerHeuristic other = (PokerHeuristic) o;
             return other.FACTOR_MONEY == FACTOR_MONEY && other.FACTOR_HAND == FACTOR_HAND &&
-                    other.FACTOR_HAND_OVER_MONEY == FACTOR_HAND_OVER_MONEY;
+                    other.FACTOR_HAND_OVER_MONEY == FACTOR_HAND_OVER_MONEY &&
+                    other.FACTOR_HAND_STRENGTH == FACTOR_HAND_STRENGTH;
         }
         return false;
     }
@@ -156,8 +161,15 @@ public class PokerHeuristic extends TunableParameters implements IStateHeuristic
                     break;
             }
         }
+        // the category of the best poker hand from the player's cards and the community cards so far (0 to 1)
+        double handStrength = 0.0;
+        if (FACTOR_HAND_STRENGTH != 0.0) {
+            long cards = PokerHandEvaluator.handMask(pgs.getPlayerDecks().get(playerId)) | PokerHandEvaluator.handMask(pgs.communityCards);
+            handStrength = PokerHandEvaluator.category(PokerHandEvaluator.evaluate(cards)) / (double) PokerHandEvaluator.ROYAL_FLUSH;
+        }
         return value * FACTOR_HAND / 100.0 + pgs.playerMoney[playerId].getValue() / maxMoney * FACTOR_MONEY +
-                value * 1.0 / (pgs.playerMoney[playerId].getValue() + 1) * FACTOR_HAND_OVER_MONEY;
+                value * 1.0 / (pgs.playerMoney[playerId].getValue() + 1) * FACTOR_HAND_OVER_MONEY +
+                handStrength * FACTOR_HAND_STRENGTH;
         // FACTOR_HAND_OVER_MONEY is purely for backwards compatibility with the original heuristic
     }
 
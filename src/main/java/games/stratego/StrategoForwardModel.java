@@ -20,6 +20,7 @@ public class StrategoForwardModel extends StandardForwardModel {
         StrategoParams params = (StrategoParams) firstState.getGameParameters();
         StrategoGameState state = (StrategoGameState) firstState;
         state.gridBoard = new GridBoard<>(params.gridSize, params.gridSize);
+        state.knownHash = 0;
         Random random = new Random(params.getRandomSeed());
 
         StrategoConstants.PieceSetups[] setups = StrategoConstants.PieceSetups.values();
@@ -90,4 +91,51 @@ public class StrategoForwardModel extends StandardForwardModel {
             }
         }
     }
+
+    @Override
+    public boolean supportsUndo() {
+        return true;
+    }
+
+    /**
+     * The pieces on the two squares a move involves, as they were before the move.
+     */
+    private static final class MoveUndo {
+        final Piece moved, target;  // target is null if the destination was empty
+        final int[] from, to;
+        final boolean movedKnown, targetKnown;
+
+        MoveUndo(Piece moved, Piece target, int[] from, int[] to) {
+            this.moved = moved;
+            this.target = target;
+            this.from = from;
+            this.to = to;
+            this.movedKnown = moved.isPieceKnown();
+            this.targetKnown = target != null && target.isPieceKnown();
+        }
+    }
+
+    @Override
+    protected Object _undoData(AbstractGameState currentState, AbstractAction action) {
+        StrategoGameState sgs = (StrategoGameState) currentState;
+        Move move = (Move) action;
+        Piece moved = (Piece) sgs.getComponentById(move.getMovedPieceID());
+        int[] to = move.to(sgs).clone();
+        return new MoveUndo(moved, sgs.gridBoard.getElement(to[0], to[1]), moved.getPiecePosition(), to);
+    }
+
+    @Override
+    protected void _rewind(AbstractGameState currentState, AbstractAction action, Object undoData) {
+        StrategoGameState sgs = (StrategoGameState) currentState;
+        GridBoard<Piece> board = sgs.gridBoard;
+        MoveUndo undo = (MoveUndo) undoData;
+        board.setElement(undo.from[0], undo.from[1], undo.moved);
+        board.setElement(undo.to[0], undo.to[1], undo.target);
+        undo.moved.setPiecePosition(undo.from);
+        sgs.setPieceKnown(undo.moved, undo.movedKnown);
+        if (undo.target != null) {
+            undo.target.setPiecePosition(undo.to);
+            sgs.setPieceKnown(undo.target, undo.targetKnown);
+        }
+    }
 }
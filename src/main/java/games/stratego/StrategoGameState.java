@@ -6,6 +6,7 @@ import core.components.Component;
 import core.components.GridBoard;
 import games.GameType;
 import games.stratego.components.Piece;
+import utilities.ZobristHash;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -13,6 +14,8 @@ import java.util.Random;
 
 public class StrategoGameState extends AbstractGameState {
     GridBoard<Piece> gridBoard;
+    // XOR of one key per piece that is known to both players, kept up to date by setPieceKnown()
+    long knownHash;
 
     /**
      * Constructor. Initialises some generic game state variables.
@@ -37,6 +40,7 @@ public class StrategoGameState extends AbstractGameState {
     protected AbstractGameState _copy(int playerId) {
         StrategoGameState s = new StrategoGameState(gameParameters, 2);
         s.gridBoard = gridBoard.emptyCopy();
+        s.knownHash = knownHash;
         Piece.Alliance playerAlliance = null;
 
         // All piece types that will be hidden for opponent
@@ -95,6 +99,25 @@ public class StrategoGameState extends AbstractGameState {
         return gridBoard.hashCode();
     }
 
+    /**
+     * The grid's hash is kept up to date as pieces move, and knownHash as they are revealed, so this does not need a
+     * pass over the pieces.
+     */
+    @Override
+    protected long _longHash() {
+        return ZobristHash.combine(gridBoard.longHash(), knownHash);
+    }
+
+    /**
+     * Sets whether a piece is known to both players. This should be used rather than Piece.setPieceKnown(), so that
+     * the hash of the state is updated.
+     */
+    public void setPieceKnown(Piece piece, boolean known) {
+        if (piece.isPieceKnown() != known)
+            knownHash ^= ZobristHash.mix(piece.getComponentID());
+        piece.setPieceKnown(known);
+    }
+
     public GridBoard<Piece> getGridBoard() {
         return gridBoard;
     }
@@ -29,8 +29,8 @@ public class AttackMove extends Move {
         Piece attackedPiece = (Piece) gs.getComponentById(attackedPieceID);
         int movedPieceRank = movedPiece.getPieceRank();
         int attackedPieceRank = attackedPiece.getPieceRank();
-        movedPiece.setPieceKnown(true);
-        attackedPiece.setPieceKnown(true);
+        ((StrategoGameState) gs).setPieceKnown(movedPiece, true);
+        ((StrategoGameState) gs).setPieceKnown(attackedPiece, true);
 
         if (attackedPiece.getPieceType() == Piece.PieceType.FLAG){
             gs.setGameStatus(CoreConstants.GameResult.GAME_END);
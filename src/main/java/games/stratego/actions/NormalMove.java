@@ -31,7 +31,7 @@ public class NormalMove extends Move{
                 Distance.manhattan_distance(destinationCoordinate, movedPiece.getPiecePosition()) >
                         ((StrategoParams)gs.getGameParameters()).moveSpeed) {
             // Piece revealed itself to be scout
-            movedPiece.setPieceKnown(true);
+            ((StrategoGameState) gs).setPieceKnown(movedPiece, true);
         }
         movedPiece.setPiecePosition(destinationCoordinate);
 
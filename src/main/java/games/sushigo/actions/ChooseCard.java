@@ -72,7 +72,12 @@ public class ChooseCard extends AbstractAction implements IExtendedSequence {
 
     @Override
     public ChooseCard copy() {
-        return this; // immutable
+        if (!useChopsticks)
+            return this; // immutable
+        // chopstickChooseDone changes while the action is in progress
+        ChooseCard retValue = new ChooseCard(playerId, cardIdx, true);
+        retValue.chopstickChooseDone = chopstickChooseDone;
+        return retValue;
     }
 
     @Override
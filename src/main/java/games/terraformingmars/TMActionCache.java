@@ -0,0 +1,141 @@
+package games.terraformingmars;
+
+import games.terraformingmars.actions.*;
+import games.terraformingmars.components.Award;
+import games.terraformingmars.components.TMCard;
+
+import java.util.*;
+
+import static games.terraformingmars.TMTypes.Resource.MegaCredit;
+import static games.terraformingmars.TMTypes.StandardProject.*;
+import static games.terraformingmars.TMTypes.ActionType.*;
+
+/**
+ * The actions that may be offered to each player in the Actions phase, created once at the start of the game rather
+ * than every time the available actions are computed: playing each project card, the standard projects, claiming
+ * each milestone or funding each award (at each cost), and the basic resource actions.
+ * ---
+ * These depend only on the player and the game parameters, not on the rest of the game state, so they are shared by
+ * all copies of the game state. They must therefore never be changed: TMForwardModel checks whether they can be played,
+ * and copies them (or PayForAction copies them) before they are executed.
+ * <p>
+ * Only the actions are cached, not whether they can be played: canBePlayed() is still checked for each of them every
+ * time. Its result depends on counters and tags that are changed directly all through the game (and in each copy of
+ * the state), so there is no one place where a cached result could be invalidated. TMForwardModel(false) does without
+ * the cache altogether, which gives the same actions.
+ */
+public class TMActionCache {
+
+    private final HashMap<Integer, PlayCard>[] playCards;  // by card component ID
+    private final TMAction[][] standardProjects;
+    private final HashMap<Integer, ClaimAwardMilestone[]>[] claims;  // by milestone or award component ID, then cost
+    private final PlaceTile[] plantsToGreenery;
+    private final ModifyGlobalParameter[] heatToTemperature;
+
+    // All of the above, to tell them apart from actions that belong to a game state
+    private final Set<TMAction> shared = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * @param cards - all the project cards in the game; each is copied
+     */
+    @SuppressWarnings("unchecked")
+    public TMActionCache(TMGameState gs, List<TMCard> cards) {
+        TMGameParameters params = (TMGameParameters) gs.getGameParameters();
+        int nPlayers = gs.getNPlayers();
+        playCards = new HashMap[nPlayers];
+        standardProjects = new TMAction[nPlayers][];
+        claims = new HashMap[nPlayers];
+        plantsToGreenery = new PlaceTile[nPlayers];
+        heatToTemperature = new ModifyGlobalParameter[nPlayers];
+
+        for (int player = 0; player < nPlayers; player++) {
+            playCards[player] = new HashMap<>();
+            for (TMCard card : cards) {
+                playCards[player].put(card.getComponentID(), add(new PlayCard(player, card.copy(), false)));
+            }
+
+            List<TMAction> projects = new ArrayList<>();
+            // - Increase energy production 1 step for 11 MC
+            projects.add(new ModifyPlayerResource(PowerPlant, params.getnCostSPEnergy(), player, 1, TMTypes.Resource.Energy));
+            // - Increase temperature 1 step for 14 MC
+            projects.add(new ModifyGlobalParameter(StandardProject, MegaCredit, params.getnCostSPTemp(), TMTypes.GlobalParameter.Temperature, 1, false));
+            // - Place ocean tile for 18 MC
+            projects.add(new PlaceTile(Aquifer, params.getnCostSPOcean(), player, TMTypes.Tile.Ocean, TMTypes.MapTileType.Ocean));
+            // - Place greenery tile for 23 MC
+            projects.add(new PlaceTile(Greenery, params.getnCostSPGreenery(), player, TMTypes.Tile.Greenery, TMTypes.MapTileType.Ground));
+            // - Place city tile and increase MC prod by 1 for 25 MC
+            TMAction a1 = new PlaceTile(player, TMTypes.Tile.City, TMTypes.MapTileType.Ground, true);
+            TMAction a2 = new ModifyPlayerResource(player, params.nSPCityMCGain, MegaCredit, true);
+            projects.add(new CompoundAction(StandardProject, player, new TMAction[]{a1, a2}, params.nCostSPCity));
+            // - Air Scraping, increase Venus parameter for 15MC, if Venus expansion enabled
+            if (params.expansions.contains(TMTypes.Expansion.Venus)) {
+                projects.add(new ModifyGlobalParameter(StandardProject, MegaCredit, params.nCostVenus, TMTypes.GlobalParameter.Venus, 1, false));
+            }
+            standardProjects[player] = projects.toArray(new TMAction[0]);
+            for (TMAction a : standardProjects[player]) add(a);
+
+            claims[player] = new HashMap<>();
+            for (Award m : gs.milestones) {
+                claims[player].put(m.getComponentID(), claimActions(player, m, params.getnCostMilestone()));
+            }
+            for (Award a : gs.awards) {
+                claims[player].put(a.getComponentID(), claimActions(player, a, params.getnCostAwards()));
+            }
+
+            // 8 plants into greenery tile
+            plantsToGreenery[player] = add(new PlaceTile(TMTypes.BasicResourceAction.PlantToGreenery, params.getnCostGreeneryPlant(), player, TMTypes.Tile.Greenery, TMTypes.MapTileType.Ground));
+            // 8 heat into temperature increase
+            heatToTemperature[player] = add(new ModifyGlobalParameter(BasicResourceAction, TMTypes.Resource.Heat, params.getnCostTempHeat(), TMTypes.GlobalParameter.Temperature, 1, false));
+        }
+    }
+
+    private ClaimAwardMilestone[] claimActions(int player, Award toClaim, int[] costs) {
+        // One for each number already claimed, and then one with no cost, for when no more can be claimed
+        ClaimAwardMilestone[] actions = new ClaimAwardMilestone[costs.length + 1];
+        for (int i = 0; i <= costs.length; i++) {
+            actions[i] = add(new ClaimAwardMilestone(player, toClaim, i < costs.length ? costs[i] : 0));
+        }
+        return actions;
+    }
+
+    private <T extends TMAction> T add(T action) {
+        shared.add(action);
+        return action;
+    }
+
+    /**
+     * @return the action for the player to play the card, or a new one if the card was not in the deck given at the
+     * start of the game
+     */
+    public PlayCard getPlayCard(int player, TMCard card) {
+        PlayCard a = playCards[player].get(card.getComponentID());
+        return a != null ? a : new PlayCard(player, card, false);
+    }
+
+    public TMAction[] getStandardProjects(int player) {
+        return standardProjects[player];
+    }
+
+    /**
+     * @param nClaimed - the number of milestones claimed (or awards funded) so far, or -1 if no more can be claimed
+     */
+    public ClaimAwardMilestone getClaim(int player, Award toClaim, int nClaimed) {
+        ClaimAwardMilestone[] actions = claims[player].get(toClaim.getComponentID());
+        return actions[nClaimed == -1 ? actions.length - 1 : nClaimed];
+    }
+
+    public PlaceTile getPlantsToGreenery(int player) {
+        return plantsToGreenery[player];
+    }
+
+    public ModifyGlobalParameter getHeatToTemperature(int player) {
+        return heatToTemperature[player];
+    }
+
+    /**
+     * @return true if the action is one of those held here, which must be copied before it is executed
+     */
+    public boolean isShared(TMAction action) {
+        return shared.contains(action);
+    }
+}
@@ -25,6 +25,18 @@ import static games.terraformingmars.TMTypes.ActionType.*;
 
 public class TMForwardModel extends StandardForwardModelWithTurnOrder {
 
+    // If false, the candidate actions are created afresh every time they are needed, rather than taken from a
+    // TMActionCache. This is much slower, and is only useful as a check on the cache.
+    private final boolean cacheActions;
+
+    public TMForwardModel() {
+        this(true);
+    }
+
+    public TMForwardModel(boolean cacheActions) {
+        this.cacheActions = cacheActions;
+    }
+
     @Override
     protected void _setup(AbstractGameState firstState) {
         TMGameState gs = (TMGameState) firstState;
@@ -132,6 +144,8 @@ public class TMForwardModel extends StandardForwardModelWithTurnOrder {
             gs.awards = new HashSet<>();
         }
 
+        gs.actionCache = cacheActions ? new TMActionCache(gs, gs.projectCards.getComponents()) : null;
+
         // Shuffle dekcs
         gs.projectCards.shuffle(rnd);
         gs.corpCards.shuffle(rnd);
@@ -350,6 +364,8 @@ public class TMForwardModel extends StandardForwardModelWithTurnOrder {
             if (a != null && a.canBePlayed(gs)) {
                 if (a.getCost() != 0) {
                     actions.add(new PayForAction(player, a));
+                } else if (gs.actionCache != null && gs.actionCache.isShared(a)) {
+                    actions.add(a.copy());
                 } else {
                     actions.add(a);
                 }
@@ -414,11 +430,13 @@ public class TMForwardModel extends StandardForwardModelWithTurnOrder {
                 }
             }
 
+            // (without a cache, one holding no cards is created, so that each PlayCard is new as well)
+            TMActionCache actionCache = gs.actionCache != null ? gs.actionCache : new TMActionCache(gs, Collections.emptyList());
             possibleActions.add(new TMAction(player));  // Can always just pass
 
             // Play a card actions
             for (int i = 0; i < gs.playerHands[player].getSize(); i++) {
-                possibleActions.add(new PlayCard(player, gs.playerHands[player].get(i), false));
+                possibleActions.add(actionCache.getPlayCard(player, gs.playerHands[player].get(i)));
             }
 
             // Buy a standard project
@@ -426,51 +444,27 @@ public class TMForwardModel extends StandardForwardModelWithTurnOrder {
             if (gs.playerHands[player].getSize() > 0) {
                 possibleActions.add(new SellProjects(player));
             }
-
-            // - Increase energy production 1 step for 11 MC
-            possibleActions.add(new ModifyPlayerResource(PowerPlant, params.getnCostSPEnergy(), player, 1, TMTypes.Resource.Energy));
-
-            // - Increase temperature 1 step for 14 MC
-            possibleActions.add(new ModifyGlobalParameter(StandardProject, TMTypes.Resource.MegaCredit, params.getnCostSPTemp(), TMTypes.GlobalParameter.Temperature, 1, false));
-
-            // - Place ocean tile for 18 MC
-            possibleActions.add(new PlaceTile(Aquifer, params.getnCostSPOcean(), player, TMTypes.Tile.Ocean, TMTypes.MapTileType.Ocean));
-
-            // - Place greenery tile for 23 MC
-            possibleActions.add(new PlaceTile(Greenery, params.getnCostSPGreenery(), player, TMTypes.Tile.Greenery, TMTypes.MapTileType.Ground));
-
-            // - Place city tile and increase MC prod by 1 for 25 MC
-            TMAction a1 = new PlaceTile(player, TMTypes.Tile.City, TMTypes.MapTileType.Ground, true);
-            TMAction a2 = new ModifyPlayerResource(player, params.nSPCityMCGain, TMTypes.Resource.MegaCredit, true);
-            possibleActions.add(new CompoundAction(StandardProject, player, new TMAction[]{a1, a2}, params.nCostSPCity));
-
-            // - Air Scraping, increase Venus parameter for 15MC, if Venus expansion enabled
-            if (params.expansions.contains(TMTypes.Expansion.Venus)) {
-                possibleActions.add(new ModifyGlobalParameter(StandardProject, MegaCredit, params.nCostVenus, TMTypes.GlobalParameter.Venus, 1, false));
-            }
+            // - Power plant, asteroid, aquifer, greenery, city (and air scraping)
+            Collections.addAll(possibleActions, actionCache.getStandardProjects(player));
 
             // Claim a milestone
-            int nMilestonesClaimed = gs.getnMilestonesClaimed().getValue();
-            int milestoneCost = 0;
-            if (!gs.getnMilestonesClaimed().isMaximum()) milestoneCost = params.getnCostMilestone()[nMilestonesClaimed];
+            int nMilestonesClaimed = gs.getnMilestonesClaimed().isMaximum() ? -1 : gs.getnMilestonesClaimed().getValue();
             for (Milestone m : gs.milestones) {
-                possibleActions.add(new ClaimAwardMilestone(player, m, milestoneCost));
+                possibleActions.add(actionCache.getClaim(player, m, nMilestonesClaimed));
             }
             // Fund an award
-            int nAwardsFunded = gs.getnAwardsFunded().getValue();
-            int awardCost = 0;
-            if (!gs.getnAwardsFunded().isMaximum()) awardCost = params.getnCostAwards()[nAwardsFunded];
+            int nAwardsFunded = gs.getnAwardsFunded().isMaximum() ? -1 : gs.getnAwardsFunded().getValue();
             for (Award a : gs.awards) {
-                possibleActions.add(new ClaimAwardMilestone(player, a, awardCost));
+                possibleActions.add(actionCache.getClaim(player, a, nAwardsFunded));
             }
 
             // Use an active card action  - only 1, mark as used, then mark unused at the beginning of next generation
             possibleActions.addAll(gs.playerExtraActions[player]);
 
             // 8 plants into greenery tile
-            possibleActions.add(new PlaceTile(TMTypes.BasicResourceAction.PlantToGreenery, params.getnCostGreeneryPlant(), player, TMTypes.Tile.Greenery, TMTypes.MapTileType.Ground));
+            possibleActions.add(actionCache.getPlantsToGreenery(player));
             // 8 heat into temperature increase
-            possibleActions.add(new ModifyGlobalParameter(BasicResourceAction, TMTypes.Resource.Heat, params.getnCostTempHeat(), TMTypes.GlobalParameter.Temperature, 1, false));
+            possibleActions.add(actionCache.getHeatToTemperature(player));
         }
 
         return possibleActions;
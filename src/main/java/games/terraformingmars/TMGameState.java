@@ -68,6 +68,9 @@ public class TMGameState extends AbstractGameStateWithTurnOrder {
     Counter nMilestonesClaimed;
     Counter nAwardsFunded;
 
+    // Actions that may be offered to players, shared by all copies of this state
+    TMActionCache actionCache;
+
     /**
      * Constructor. Initialises some generic game state variables.
      *
@@ -121,6 +124,7 @@ public class TMGameState extends AbstractGameStateWithTurnOrder {
     protected AbstractGameStateWithTurnOrder __copy(int playerId) {
         Random rnd = new Random(getGameParameters().getRandomSeed());
         TMGameState copy = new TMGameState(gameParameters, getNPlayers());
+        copy.actionCache = actionCache;
 
         // General public info
         copy.generation = generation;
@@ -140,7 +144,7 @@ public class TMGameState extends AbstractGameStateWithTurnOrder {
         }
         copy.globalParameters = new HashMap<>();
         for (TMTypes.GlobalParameter p : globalParameters.keySet()) {
-            copy.globalParameters.put(p, globalParameters.get(p).copy());
+            copy.globalParameters.put(p, globalParameters.get(p).copyOnWrite());
         }
         copy.bonuses = new HashSet<>();
         for (Bonus b : bonuses) {
@@ -1,5 +1,6 @@
 package games.terraformingmars;
 
+import core.GameDataCache;
 import core.components.Counter;
 import core.components.Deck;
 import core.components.GridBoard;
@@ -19,6 +20,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 
 import static games.terraformingmars.components.TMMapTile.parseMapTile;
 
@@ -303,9 +305,8 @@ public class TMTypes {
 
         public void loadBoard(GridBoard<TMMapTile> board, HashSet<TMMapTile> extraTiles, HashSet<Bonus> bonuses,
                               HashSet<Milestone> milestones, HashSet<Award> awards, HashMap<GlobalParameter, games.terraformingmars.components.GlobalParameter> globalParameters) {
-            JSONParser jsonParser = new JSONParser();
-            try (FileReader reader = new FileReader(getBoardPath())) {
-                JSONObject data = (JSONObject) jsonParser.parse(reader);
+            try {
+                JSONObject data = (JSONObject) GameDataCache.getJSON(getBoardPath());
 
                 // Process main map
                 if (data.get("board") != null) {
@@ -386,23 +387,34 @@ public class TMTypes {
         }
 
         private void loadCards(Deck<TMCard> deck, String path) {
+            // The cards are only parsed once per process, and each game gets copies of them
+            boolean corporations = deck.getComponentName().equalsIgnoreCase("corporations");
+            List<TMCard> cards = GameDataCache.get("TMCards:" + corporations + ":" + path, () -> parseCards(path, corporations));
+            for (TMCard card : cards) {
+                deck.add(card.copy());
+            }
+        }
+
+        private static List<TMCard> parseCards(String path, boolean corporations) {
+            List<TMCard> cards = new ArrayList<>();
             JSONParser jsonParser = new JSONParser();
             try (FileReader reader = new FileReader(path)) {
                 JSONArray data = (JSONArray) jsonParser.parse(reader);
                 for (Object o: data) {
                     TMCard card;
-                    if (deck.getComponentName().equalsIgnoreCase("corporations")) {
+                    if (corporations) {
                         card = TMCard.loadCorporation((JSONObject)o);
                     } else {
 //                        card = TMCard.loadCardHTML((JSONObject) o);
                         card = TMCard.loadCardJSON((JSONObject) o);
                     }
-                    deck.add(card);
+                    cards.add(card);
                 }
             } catch (IOException ignored) {
             } catch (ParseException e) {
                 e.printStackTrace();
             }
+            return cards;
         }
     }
 
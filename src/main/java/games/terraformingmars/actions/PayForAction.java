@@ -8,6 +8,7 @@ import games.terraformingmars.TMGameState;
 import games.terraformingmars.TMTypes;
 import games.terraformingmars.components.TMCard;
 import games.terraformingmars.rules.requirements.PlayableActionRequirement;
+import games.terraformingmars.rules.requirements.Requirement;
 
 import java.util.*;
 
@@ -61,9 +62,7 @@ public class PayForAction extends TMAction implements IExtendedSequence {
                 // If only 1 option, just do it
                 TMAction a = (TMAction) actions.get(0);
                 boolean s1 = a.execute(gs);
-                this.action.player = player;
-                this.action.requirements.remove(this.action.costRequirement);  // No need to check this for playing it
-                boolean s2 = this.action.execute(gs);
+                boolean s2 = paidAction(this.action.costRequirement).execute(gs);  // No need to check cost for playing it
                 stage = resourcesToPayWith.length;
                 return s1 && s2;
             } else {
@@ -83,7 +82,7 @@ public class PayForAction extends TMAction implements IExtendedSequence {
 
         if (stage >= resourcesToPayWith.length) {
             // Shouldn't happen
-            actions.add(action);
+            actions.add(action.copy());
             return actions;
         }
 
@@ -105,11 +104,22 @@ public class PayForAction extends TMAction implements IExtendedSequence {
 
         if (actions.size() == 0) {
             // Shouldn't happen
-            actions.add(action);
+            actions.add(action.copy());
         }
         return actions;
     }
 
+    /**
+     * The wrapped action may be shared with other states (see TMActionCache), so a copy of it is executed, without
+     * the given cost requirement.
+     */
+    private TMAction paidAction(Requirement<TMGameState> costRequirement) {
+        TMAction a = action.copy();
+        a.player = player;
+        a.requirements.remove(costRequirement);
+        return a;
+    }
+
     @Override
     public int getCurrentPlayer(AbstractGameState state) {
         return player;
@@ -120,9 +130,7 @@ public class PayForAction extends TMAction implements IExtendedSequence {
         if (! (action instanceof ModifyPlayerResource)) {
             // Shouldn't happen
             stage = resourcesToPayWith.length;
-            this.action.player = player;
-            this.action.requirements.remove(costRequirement);
-            this.action.execute(state);
+            paidAction(costRequirement).execute(state);
             return;
         }
         TMGameState gs = (TMGameState) state;
@@ -131,9 +139,7 @@ public class PayForAction extends TMAction implements IExtendedSequence {
         stage++;
         if (costPaid >= getCost()) {
             // Action paid for, execute
-            this.action.player = player;
-            this.action.requirements.remove(costRequirement);
-            this.action.execute(state);
+            paidAction(costRequirement).execute(state);
             stage = resourcesToPayWith.length;
         }
     }
@@ -65,6 +65,16 @@ public class GlobalParameter extends Counter {
         return copy;
     }
 
+    @Override
+    public GlobalParameter copyOnWrite() {
+        GlobalParameter copy = new GlobalParameter(values, valueIdx, minimum, maximum, componentName, componentID);
+        for (Pair<Integer, Integer> p: increases) {
+            copy.increases.add(p.copy());
+        }
+        copyComponentTo(copy);
+        return copy;
+    }
+
     public ArrayList<Pair<Integer, Integer>> getIncreases() {
         return increases;
     }
@@ -13,8 +13,8 @@ public class CounterRequirement implements Requirement<TMGameState> {
 
     public String counterCode;
 
-    int counterID = -1;
-    int thresholdIdx;
+    int thresholdIdx;  // as given; see Target for the index into the counter's values
+    Target target;  // found on first use, and kept by copies
     public boolean max;  // if true, value of counter must be <= threshold, if false >=
 
     public CounterRequirement(String code, int threshold, boolean max) {
@@ -25,11 +25,12 @@ public class CounterRequirement implements Requirement<TMGameState> {
 
     @Override
     public boolean testCondition(TMGameState gs) {
-        int value = getCounter(gs).getValueIdx();
+        Target t = getTarget(gs);
+        int value = t.getCounter(gs).getValueIdx();
         int discount = discount(gs);
 
-        if (max && (value - discount <= thresholdIdx)) return true;
-        return !max && (value + discount >= thresholdIdx);
+        if (max && (value - discount <= t.thresholdIdx)) return true;
+        return !max && (value + discount >= t.thresholdIdx);
     }
 
     private int discount(TMGameState gs) {
@@ -57,12 +58,13 @@ public class CounterRequirement implements Requirement<TMGameState> {
 
     @Override
     public String getDisplayText(TMGameState gs) {
-        Counter c = getCounter(gs);
+        Target t = getTarget(gs);
+        Counter c = t.getCounter(gs);
         String text = "";
         if (c == null) return text;
         TMTypes.GlobalParameter p = Utils.searchEnum(TMTypes.GlobalParameter.class, c.getComponentName());
         if (p != null) {
-            text = c.getValues()[thresholdIdx] + " " + p.getShortString();
+            text = c.getValues()[t.thresholdIdx] + " " + p.getShortString();
         } else {
             text = c.getValue() + " " + c.getComponentName();
         }
@@ -71,7 +73,7 @@ public class CounterRequirement implements Requirement<TMGameState> {
 
     @Override
     public String getReasonForFailure(TMGameState gs) {
-        int value = getCounter(gs).getValue();
+        int value = getTarget(gs).getCounter(gs).getValue();
         int discount = discount(gs);
 
         if (max) {
@@ -89,30 +91,56 @@ public class CounterRequirement implements Requirement<TMGameState> {
     @Override
     public CounterRequirement copy() {
         CounterRequirement copy = new CounterRequirement(counterCode, thresholdIdx, max);
-        copy.counterID = counterID;
+        copy.target = target;
         return copy;
     }
 
-    private Counter getCounter(TMGameState gs) {
-        Counter which;
-        if (counterID == -1) {
-            which = gs.stringToGPOrPlayerResCounter(counterCode, -1);
-            counterID = which.getComponentID();
+    private Target getTarget(TMGameState gs) {
+        Target t = target;
+        if (t == null) {
+            // Requirements of the actions in TMActionCache are shared between copies of the game state (which may be
+            // used by several threads), so this is set in one step, to an object that does not change
+            t = new Target(gs, counterCode, thresholdIdx, max);
+            target = t;
+        }
+        return t;
+    }
+
+    /**
+     * What the counter code refers to: a global parameter, or else a resource (or production of a resource) of the
+     * current player. The counter is read directly from the game state, rather than looked up by component ID.
+     */
+    private static final class Target {
+        final TMTypes.GlobalParameter parameter;
+        final TMTypes.Resource resource;
+        final boolean production;
+        final int thresholdIdx;
+
+        Target(TMGameState gs, String counterCode, int threshold, boolean max) {
+            Counter which = gs.stringToGPOrPlayerResCounter(counterCode, -1);
+            parameter = Utils.searchEnum(TMTypes.GlobalParameter.class, counterCode);
+            if (parameter == null) {
+                resource = TMTypes.Resource.valueOf(counterCode.split("prod")[0]);
+                production = counterCode.contains("prod");
+            } else {
+                resource = null;
+                production = false;
+            }
             if (which.getComponentName().equalsIgnoreCase("temperature") ||
                     which.getComponentName().equalsIgnoreCase("venus")) {
                 // Turn to index
-                thresholdIdx = Utils.indexOf(which.getValues(), thresholdIdx);
+                threshold = Utils.indexOf(which.getValues(), threshold);
             }
-        } else {
-            gs.getAllComponents();
-            which = (Counter) gs.getComponentById(counterID);
+            if (max && threshold == -1) {
+                threshold = which.getMaximum()-1;
+            }
+            thresholdIdx = threshold;
         }
 
-        if (max && thresholdIdx == -1) {
-            thresholdIdx = which.getMaximum()-1;
+        Counter getCounter(TMGameState gs) {
+            if (parameter != null) return gs.getGlobalParameters().get(parameter);
+            return (production ? gs.getPlayerProduction() : gs.getPlayerResources())[gs.getCurrentPlayer()].get(resource);
         }
-
-        return which;
     }
 
     @Override
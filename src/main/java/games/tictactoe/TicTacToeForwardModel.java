@@ -5,6 +5,7 @@ import core.CoreConstants;
 import core.StandardForwardModel;
 import core.actions.AbstractAction;
 import core.actions.SetGridValueAction;
+import core.interfaces.IActionCodec;
 import core.components.GridBoard;
 import core.components.Token;
 
@@ -15,6 +16,9 @@ import java.util.List;
 
 public class TicTacToeForwardModel extends StandardForwardModel {
 
+    // Actions are encoded by the index of the player whose token they place
+    private static final IActionCodec CODEC = SetGridValueAction.codec(TicTacToeConstants.playerMapping);
+
     @Override
     protected void _setup(AbstractGameState firstState) {
         TicTacToeGameParameters tttgp = (TicTacToeGameParameters) firstState.getGameParameters();
@@ -47,6 +51,29 @@ public class TicTacToeForwardModel extends StandardForwardModel {
         endPlayerTurn(currentState);
     }
 
+    @Override
+    public IActionCodec getActionCodec() {
+        return CODEC;
+    }
+
+    @Override
+    public boolean supportsUndo() {
+        return true;
+    }
+
+    @Override
+    protected Object _undoData(AbstractGameState currentState, AbstractAction action) {
+        // the only game-specific change is to the cell played in
+        SetGridValueAction<?> setValue = (SetGridValueAction<?>) action;
+        return ((TicTacToeGameState) currentState).gridBoard.getElement(setValue.getX(), setValue.getY());
+    }
+
+    @Override
+    protected void _rewind(AbstractGameState currentState, AbstractAction action, Object undoData) {
+        SetGridValueAction<?> setValue = (SetGridValueAction<?>) action;
+        ((TicTacToeGameState) currentState).gridBoard.setElement(setValue.getX(), setValue.getY(), (Token) undoData);
+    }
+
     /**
      * Checks if the game ended.
      *
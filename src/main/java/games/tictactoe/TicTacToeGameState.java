@@ -37,7 +37,7 @@ public class TicTacToeGameState extends AbstractGameState implements IPrintable,
     @Override
     protected TicTacToeGameState _copy(int playerId) {
         TicTacToeGameState s = new TicTacToeGameState(gameParameters.copy(), getNPlayers());
-        s.gridBoard = gridBoard.copy();
+        s.gridBoard = gridBoard.copyOnWrite();
         return s;
     }
 
@@ -71,6 +71,12 @@ public class TicTacToeGameState extends AbstractGameState implements IPrintable,
     public int hashCode() {
         return Objects.hash(super.hashCode(), gridBoard);
     }
+
+    @Override
+    protected long _longHash() {
+        return gridBoard.longHash();
+    }
+
     @Override
     public String toString() {
         return Objects.hash(gameParameters) + "|" +
@@ -10,7 +10,7 @@ import utilities.Utils;
 import utilities.Vector2D;
 
 import java.awt.*;
-import java.util.HashSet;
+import java.util.Set;
 
 import static gui.GUI.defaultItemSize;
 import static core.CoreConstants.*;
@@ -52,7 +52,7 @@ public class GraphBoardView extends ComponentView {
                 Vector2D pos = new Vector2D((int) (poss.getX() * scaleW), (int) (poss.getY() * scaleH));
                 PropertyBoolean edge = ((PropertyBoolean) b.getProperty(edgeHash));
 
-                HashSet<BoardNode> neighbours = b.getNeighbours();
+                Set<BoardNode> neighbours = b.getNeighbours();
                 for (BoardNode b2 : neighbours) {
                     PropertyVector2D posProp2 = (PropertyVector2D) b2.getProperty(coordinateHash);
                     if (posProp2 != null) {
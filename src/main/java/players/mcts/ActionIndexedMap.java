@@ -0,0 +1,183 @@
+package players.mcts;
+
+import core.actions.AbstractAction;
+import core.actions.ActionTable;
+
+import java.util.*;
+
+/**
+ * Map from actions to values, held in an array indexed by the ID of each action in an ActionTable. Used for the
+ * children of a SingleTreeNode when the game has an IActionCodec, so that finding the statistics for an action is an
+ * array lookup (after encoding the action), rather than hashing it and calling equals().
+ * <p>
+ * Keys are always the shared instances from the ActionTable, and are iterated in the order they were added.
+ * Null keys are not allowed (as actions in a tree are never null).
+ */
+class ActionIndexedMap<V> extends AbstractMap<AbstractAction, V> {
+
+    final ActionTable table;
+    private Object[] values = new Object[16];
+    private boolean[] present = new boolean[16];
+    // IDs of the actions in the map, in the order they were added
+    private int[] ids = new int[16];
+    private int size;
+
+    ActionIndexedMap(ActionTable table) {
+        this.table = table;
+    }
+
+    private int indexOf(Object key) {
+        if (!(key instanceof AbstractAction))
+            return -1;
+        int id = table.indexOf((AbstractAction) key);
+        return id >= 0 && id < present.length && present[id] ? id : -1;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        int id = indexOf(key);
+        return id < 0 ? null : (V) values[id];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V put(AbstractAction key, V value) {
+        int id = table.id(key);
+        if (id >= present.length) {
+            int length = Math.max(present.length * 2, id + 1);
+            values = Arrays.copyOf(values, length);
+            present = Arrays.copyOf(present, length);
+        }
+        V old = (V) values[id];
+        values[id] = value;
+        if (!present[id]) {
+            present[id] = true;
+            if (size == ids.length)
+                ids = Arrays.copyOf(ids, size * 2);
+            ids[size++] = id;
+        }
+        return old;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(Object key) {
+        int id = indexOf(key);
+        if (id < 0)
+            return null;
+        V old = (V) values[id];
+        removeID(id);
+        return old;
+    }
+
+    private void removeID(int id) {
+        values[id] = null;
+        present[id] = false;
+        for (int i = 0; i < size; i++) {
+            if (ids[i] == id) {
+                System.arraycopy(ids, i + 1, ids, i, size - i - 1);
+                size--;
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            values[ids[i]] = null;
+            present[ids[i]] = false;
+        }
+        size = 0;
+    }
+
+    @Override
+    public Set<Entry<AbstractAction, V>> entrySet() {
+        return new AbstractSet<Entry<AbstractAction, V>>() {
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public Iterator<Entry<AbstractAction, V>> iterator() {
+                return new Iterator<Entry<AbstractAction, V>>() {
+                    int next = 0;
+                    int last = -1;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < size;
+                    }
+
+                    @Override
+                    public Entry<AbstractAction, V> next() {
+                        if (next >= size)
+                            throw new NoSuchElementException();
+                        last = ids[next++];
+                        return new IndexedEntry(last);
+                    }
+
+                    @Override
+                    public void remove() {
+                        if (last < 0)
+                            throw new IllegalStateException();
+                        removeID(last);
+                        next--;
+                        last = -1;
+                    }
+                };
+            }
+        };
+    }
+
+    private class IndexedEntry implements Entry<AbstractAction, V> {
+        final int id;
+
+        IndexedEntry(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public AbstractAction getKey() {
+            return table.get(id);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V getValue() {
+            return (V) values[id];
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V setValue(V value) {
+            V old = (V) values[id];
+            values[id] = value;
+            return old;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Entry)) return false;
+            Entry<?, ?> e = (Entry<?, ?>) o;
+            return getKey().equals(e.getKey()) && Objects.equals(getValue(), e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return getKey().hashCode() ^ Objects.hashCode(getValue());
+        }
+    }
+}
@@ -0,0 +1,948 @@
+package players.mcts;
+
+import core.AbstractForwardModel;
+import core.AbstractGameState;
+import core.AbstractPlayer;
+import core.UndoToken;
+import core.actions.AbstractAction;
+import core.actions.ActionTable;
+import core.interfaces.IActionHeuristic;
+import core.interfaces.IStateHeuristic;
+import core.interfaces.IStatisticLogger;
+import players.PlayerConstants;
+import utilities.ElapsedCpuTimer;
+import utilities.Pair;
+import utilities.Utils;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import static players.PlayerConstants.*;
+import static players.mcts.MCTSEnums.Information.Closed_Loop;
+import static players.mcts.MCTSEnums.Information.Open_Loop;
+import static players.mcts.MCTSEnums.OpponentTreePolicy.*;
+import static players.mcts.MCTSEnums.RolloutTermination.DEFAULT;
+import static players.mcts.MCTSEnums.SelectionPolicy.*;
+import static utilities.Utils.entropyOf;
+import static utilities.Utils.noise;
+
+/**
+ * An alternative to a tree of SingleTreeNodes, which keeps the same statistics in flat arrays indexed by node ID
+ * instead of in one object (with its own maps and arrays) per node. This needs far fewer bytes per node, and far fewer
+ * objects for the garbage collector to trace, which matters on long searches. MCTSPlayer uses it when
+ * MCTSParams.compactTree is set and supports() is true; the search itself follows SingleTreeNode.
+ * <p>
+ * Node 0 is the root. Each node has a contiguous range of edges, one per distinct action seen at the node. An edge
+ * holds the ID of the action (from an ActionTable, so equal actions share an ID), the number of iterations in which the
+ * action was available at the node, and the first child reached by it. In Open Loop search the same action can be
+ * followed by different players; the children for the others are chained from the first by nextSibling.
+ * A node's range first has room for the actions available on its first visit; if more are seen later, the range is
+ * moved to the end of the edge arrays with twice the room.
+ * <p>
+ * With MCTSParams.nThreads > 1 and Tree parallelism, all the threads search this one tree; see the second mctsSearch().
+ */
+public class CompactTree {
+
+    /**
+     * @param params - the parameters for the search
+     * @return - true if this tree supports all the options set in params. Closed Loop search, MultiTree and OMA
+     * policies, progressive widening and bias, MAST expansion, advantage functions, tree reuse, root parallelisation
+     * and Expert Iteration data all need the SingleTreeNode tree. Tree parallelisation cannot be used with MAST, as
+     * the MAST statistics would be shared by all the threads.
+     */
+    public static boolean supports(MCTSParams params) {
+        return params.information != Closed_Loop
+                && (params.opponentTreePolicy == SelfOnly || params.opponentTreePolicy == Paranoid || params.opponentTreePolicy == MaxN)
+                && params.progressiveWideningConstant < 1.0 && params.biasVisits <= 0
+                && params.expansionPolicy != MCTSEnums.Strategies.MAST
+                && (params.advantageFunction == null || params.advantageFunction == IActionHeuristic.nullReturn)
+                && (params.nThreads <= 1 || params.parallelism == MCTSEnums.Parallelism.Tree && !params.useMAST)
+                && !params.reuseTree && !params.gatherExpertIterationData;
+    }
+
+    private final MCTSParams params;
+    private final IStateHeuristic heuristic;
+    private final AbstractGameState rootState;
+    private final int decisionPlayer, nPlayers;
+    private final ActionTable actionTable;
+    List<Map<AbstractAction, Pair<Integer, Double>>> MASTStatistics; // a list of one Map per player. Action -> (visits, totValue)
+    private double highReward = Double.NEGATIVE_INFINITY;
+    private double lowReward = Double.POSITIVE_INFINITY;
+
+    // Nodes. totValue and totSquares have nPlayers entries per node
+    private int nNodes, nTerminalNodes, maxDepth;
+    private int[] visits, actor, depth, firstEdge, nEdges, edgeRoom, nextSibling;
+    private double[] totValue, totSquares;
+
+    // Edges
+    private int nEdgeSlots;
+    private int[] edgeAction, edgeChild, edgeValidVisits;
+
+    // The actions available at the root (as offsets from its firstEdge), which are only computed once
+    private final int[] rootEdges;
+
+    // The search on the thread that created the tree, and (with tree parallelisation) those on the worker threads.
+    // The nodes, edges, action table and reward ranges above are shared by all the searches, and are only read or
+    // written while holding the lock on this tree. The state copies, forward model calls and heuristic evaluations,
+    // which take most of the time, are made without it.
+    private final Search search;
+    private final List<Search> searches = new ArrayList<>();
+    // The number of virtual losses added to each node on the path of a search, while it is not backed up.
+    // Only used with tree parallelisation, so that a single search behaves exactly as before.
+    private int virtualLoss;
+    // The lowest value backed up for each player, which is used as the value of a virtual loss
+    private final double[] lowValue;
+
+    public CompactTree(MCTSPlayer player, AbstractGameState state, Random rnd) {
+        this.params = player.params;
+        this.heuristic = player.heuristic;
+        this.decisionPlayer = state.getCurrentPlayer();
+        this.nPlayers = state.getNPlayers();
+        this.actionTable = new ActionTable(player.getForwardModel().getActionCodec());
+        MASTStatistics = new ArrayList<>();
+        for (int i = 0; i < nPlayers; i++)
+            MASTStatistics.add(new HashMap<>());
+        lowValue = new double[nPlayers];
+        Arrays.fill(lowValue, Double.POSITIVE_INFINITY);
+
+        int capacity = 256;
+        visits = new int[capacity];
+        actor = new int[capacity];
+        depth = new int[capacity];
+        firstEdge = new int[capacity];
+        nEdges = new int[capacity];
+        edgeRoom = new int[capacity];
+        nextSibling = new int[capacity];
+        totValue = new double[capacity * nPlayers];
+        totSquares = new double[capacity * nPlayers];
+        edgeAction = new int[capacity * 4];
+        edgeChild = new int[capacity * 4];
+        edgeValidVisits = new int[capacity * 4];
+
+        rootState = state.copy();
+        search = new Search(player, rootState, rnd);
+        searches.add(search);
+        search.copyCount++;
+        // the actions at the root are only computed once, from the root state
+        newNode(decisionPlayer, 0, state);
+        search.visit(0, decisionPlayer, state);
+        rootEdges = Arrays.copyOf(search.available, search.nAvailable);
+    }
+
+    /**
+     * Performs full MCTS search, using the defined budget limits.
+     */
+    public void mctsSearch(IStatisticLogger statsLogger) {
+        search.run();
+        if (statsLogger != null) {
+            logTreeStatistics(statsLogger);
+        }
+    }
+
+    /**
+     * Tree parallelisation. Each worker searches this tree on a thread of the executor, with its own forward model,
+     * heuristic, rollout and opponent models and random number generator, while the player that created it searches on this
+     * thread. Each has the full budget, as with root parallelisation. A search adds virtualLoss losses to the nodes on
+     * its path as it goes down the tree, and removes them when it backs up, so that the other searches are less likely
+     * to follow the same path in the meantime.
+     *
+     * @param workers  - players to search with, each with its own forward model (as for root parallelisation)
+     * @param executor - to run the workers' searches on
+     */
+    public void mctsSearch(IStatisticLogger statsLogger, MCTSPlayer[] workers, ExecutorService executor) {
+        virtualLoss = params.virtualLoss;
+        List<Future<?>> results = new ArrayList<>();
+        for (MCTSPlayer worker : workers) {
+            // the copy of the root state is made here, as copying a state on several threads at once is not safe
+            Search workerSearch = new Search(worker, rootState.copy(), worker.rnd);
+            searches.add(workerSearch);
+            results.add(executor.submit(workerSearch::run));
+        }
+        search.run();
+        try {
+            for (Future<?> result : results)
+                result.get();
+        } catch (InterruptedException | ExecutionException e) {
+            throw new AssertionError("Error in parallel MCTS search: " + e.getMessage(), e);
+        }
+        if (statsLogger != null) {
+            logTreeStatistics(statsLogger);
+        }
+    }
+
+    /**
+     * The search on one thread: its forward model, heuristic, rollout and opponent models, random number generator and
+     * counts of the budget used, and the path of its current iteration.
+     */
+    private class Search {
+        final AbstractForwardModel forwardModel;
+        final IStateHeuristic heuristic;
+        final AbstractPlayer[] opponentModels;
+        final Random rnd;
+        // the state each iteration starts from
+        final AbstractGameState searchRoot;
+        int numIters, fmCallsCount, copyCount, rolloutActionsTaken;
+        long timeTaken;
+
+        // The nodes on the path of the current iteration. The actions available at path[i] (in the state as it passed
+        // through) are available[pathStart[i]] to available[pathStart[i + 1] - 1], as offsets from the firstEdge of
+        // path[i] (as its edges may be moved by another search). pathLoss has the values of the virtual losses added
+        // to each node on the path, nPlayers per node
+        int pathLength, nAvailable;
+        int[] path = new int[32], pathStart = new int[33], available = new int[256];
+        double[] pathLoss = new double[0];
+
+        // Maps action IDs to the edges of the node being visited (as an offset from its firstEdge, or -1 once the
+        // action has been seen in the current list). edgeOfAction[id] is only valid if actionMark[id] == mark
+        int[] edgeOfAction = new int[64], actionMark = new int[64];
+        int mark;
+
+        // Open Loop only, if MCTSParams.useUndo and the forward model supports it (as for the root of a SingleTreeNode tree)
+        AbstractGameState undoState;
+        final List<UndoToken> undoTokens = new ArrayList<>();
+        boolean undoBroken;
+
+        Search(MCTSPlayer player, AbstractGameState searchRoot, Random rnd) {
+            this.forwardModel = player.getForwardModel();
+            this.heuristic = player.heuristic;
+            this.searchRoot = searchRoot;
+            this.rnd = rnd;
+            opponentModels = new AbstractPlayer[nPlayers];
+            for (int p = 0; p < nPlayers; p++) {
+                if (p == decisionPlayer)
+                    opponentModels[p] = player.rolloutStrategy;
+                else
+                    opponentModels[p] = player.getOpponentModel(p);
+            }
+        }
+
+        void run() {
+            // Variables for tracking time budget
+            double avgTimeTaken;
+            double acumTimeTaken = 0;
+            long remaining;
+            int remainingLimit = params.breakMS;
+            ElapsedCpuTimer elapsedTimer = new ElapsedCpuTimer();
+            if (params.budgetType == BUDGET_TIME) {
+                elapsedTimer.setMaxTimeMillis(params.budget);
+            }
+
+            boolean stop = false;
+            while (!stop) {
+                AbstractGameState state;
+                if (params.information == Open_Loop && params.useUndo && forwardModel.supportsUndo()) {
+                    if (undoState == null) {
+                        undoState = searchRoot.copy();
+                        undoBroken = false;
+                        copyCount++;
+                    }
+                    state = undoState;
+                } else {
+                    state = params.information == Open_Loop ? searchRoot.copy() : searchRoot.copy(decisionPlayer);
+                    copyCount++;
+                }
+
+                // New timer for this iteration
+                ElapsedCpuTimer elapsedTimerIteration = new ElapsedCpuTimer();
+
+                oneSearchIteration(state);
+                if (undoState != null)
+                    rewindUndoState();
+
+                // Finished iteration
+                numIters++;
+                PlayerConstants budgetType = params.budgetType;
+                if (budgetType == BUDGET_TIME) {
+                    acumTimeTaken += (elapsedTimerIteration.elapsedMillis());
+                    avgTimeTaken = acumTimeTaken / numIters;
+                    remaining = elapsedTimer.remainingTimeMillis();
+                    stop = remaining <= 2 * avgTimeTaken || remaining <= remainingLimit;
+                } else if (budgetType == BUDGET_ITERATIONS) {
+                    stop = numIters >= params.budget;
+                } else if (budgetType == BUDGET_FM_CALLS) {
+                    stop = fmCallsCount > params.budget || numIters > params.budget;
+                } else if (budgetType == BUDGET_COPY_CALLS) {
+                    stop = copyCount > params.budget || numIters > params.budget;
+                } else if (budgetType == BUDGET_FMANDCOPY_CALLS) {
+                    stop = (copyCount + fmCallsCount) > params.budget || numIters > params.budget;
+                }
+            }
+            timeTaken = elapsedTimer.elapsedMillis();
+        }
+
+        /**
+         * Selection, expansion, rollout and back up, as in SingleTreeNode.oneSearchIteration()
+         */
+        private void oneSearchIteration(AbstractGameState state) {
+            double[] startingValues = new double[nPlayers];
+            for (int i = 0; i < nPlayers; i++)
+                startingValues[i] = heuristic.evaluateState(state, i);
+
+            // the root's available actions never change
+            path[0] = 0;
+            pathStart[0] = 0;
+            System.arraycopy(rootEdges, 0, available, 0, rootEdges.length);
+            nAvailable = rootEdges.length;
+            pathStart[1] = nAvailable;
+            pathLength = 1;
+            if (virtualLoss > 0) {
+                synchronized (CompactTree.this) {
+                    addVirtualLoss(0);
+                }
+            }
+
+            List<Pair<Integer, AbstractAction>> treeActions = new ArrayList<>();
+            int node = 0, nodeDepth = 0;
+            while (state.isNotTerminalForPlayer(decisionPlayer) && nodeDepth < params.maxTreeDepth && nAvailable > pathStart[pathLength - 1]) {
+                int start = pathStart[pathLength - 1];
+                boolean expanding;
+                int offset;
+                AbstractAction chosen;
+                synchronized (CompactTree.this) {
+                    int first = firstEdge[node];
+                    int nUnexpanded = 0;
+                    for (int i = start; i < nAvailable; i++) {
+                        if (edgeChild[first + available[i]] == -1)
+                            nUnexpanded++;
+                    }
+                    if (nUnexpanded > 0 && atNodeLimit()) {
+                        // the tree cannot grow any further, so we roll out from here
+                        break;
+                    }
+                    expanding = nUnexpanded > 0;
+                    if (expanding) {
+                        // expand a random unexpanded action
+                        int choice = rnd.nextInt(nUnexpanded);
+                        offset = -1;
+                        for (int i = start; offset == -1; i++) {
+                            if (edgeChild[first + available[i]] == -1 && choice-- == 0)
+                                offset = available[i];
+                        }
+                    } else {
+                        offset = treePolicyEdge(node, available, start, nAvailable, true) - first;
+                    }
+                    chosen = actionTable.get(edgeAction[first + offset]);
+                }
+                advance(state, chosen);
+                if (!expanding)
+                    treeActions.add(new Pair<>(decisionPlayer, chosen));
+                int nextPlayer = nextActor(state);
+                int child;
+                synchronized (CompactTree.this) {
+                    int edge = firstEdge[node] + offset;
+                    if (expanding && edgeChild[edge] == -1) {
+                        child = newNode(nextPlayer, nodeDepth + 1, state);
+                        edgeChild[edge] = child;
+                    } else {
+                        // (if expanding, another search has expanded the action in the meantime)
+                        child = childFor(edge, nextPlayer, nodeDepth + 1, state);
+                    }
+                }
+                if (child == -1)
+                    break; // a new node would be needed for this transition, and the tree is at maxNodes
+                node = child;
+                nodeDepth++;
+                visit(node, nextPlayer, state);
+                if (expanding)
+                    break;
+            }
+
+            List<Pair<Integer, AbstractAction>> rolloutActions = new ArrayList<>();
+            int lastActorInTree = treeActions.isEmpty() ? decisionPlayer : treeActions.get(treeActions.size() - 1).a;
+            double[] delta = rollOut(state, rolloutActions, startingValues, lastActorInTree);
+            rolloutActionsTaken += rolloutActions.size();
+            backUp(delta);
+            // (MAST is not supported with tree parallelisation, so MASTStatistics is only used by this search)
+            if (params.useMAST) {
+                List<Pair<Integer, AbstractAction>> MASTActions = new ArrayList<>();
+                switch (params.MAST) {
+                    case Rollout:
+                        MASTActions = rolloutActions;
+                        break;
+                    case Tree:
+                        MASTActions = treeActions;
+                        break;
+                    case Both:
+                        MASTActions = rolloutActions;
+                        MASTActions.addAll(treeActions);
+                        break;
+                }
+                for (Pair<Integer, AbstractAction> pair : MASTActions) {
+                    Pair<Integer, Double> stats = MASTStatistics.get(pair.a).getOrDefault(pair.b, new Pair<>(0, 0.0));
+                    stats.a++;  // visits
+                    stats.b += delta[pair.a];   // value
+                    MASTStatistics.get(pair.a).put(pair.b.copy(), stats);
+                }
+            }
+        }
+
+        private int nextActor(AbstractGameState state) {
+            return params.opponentTreePolicy == SelfOnly ? decisionPlayer : state.getCurrentPlayer();
+        }
+
+        /**
+         * Adds the node to the path of this iteration. If it is the turn of the node's actor in the state, then the
+         * actions available are recorded (with new edges for any not seen at this node before).
+         */
+        private void visit(int node, int nodeActor, AbstractGameState state) {
+            if (pathLength + 1 == path.length) {
+                path = Arrays.copyOf(path, path.length * 2);
+                pathStart = Arrays.copyOf(pathStart, path.length + 1);
+            }
+            path[pathLength] = node;
+            pathStart[pathLength] = nAvailable;
+            pathLength++;
+            List<AbstractAction> actions = null;
+            if (state.getCurrentPlayer() == nodeActor) {
+                actions = forwardModel.computeAvailableActions(state);
+                if (nAvailable + actions.size() > available.length)
+                    available = Arrays.copyOf(available, Math.max(available.length * 2, nAvailable + actions.size()));
+            }
+            if (actions != null || virtualLoss > 0) {
+                synchronized (CompactTree.this) {
+                    if (virtualLoss > 0)
+                        addVirtualLoss(pathLength - 1);
+                    if (actions != null)
+                        addAvailable(node, actions);
+                }
+            }
+            pathStart[pathLength] = nAvailable;
+        }
+
+        /**
+         * Adds the actions to those available at the node on this iteration. The lock on the tree must be held.
+         */
+        private void addAvailable(int node, List<AbstractAction> actions) {
+            if (edgeRoom[node] == 0)
+                reserveEdges(node, Math.max(actions.size(), 1));
+            if (actionTable.size() > actionMark.length) {
+                // other searches may have added actions to the node
+                actionMark = Arrays.copyOf(actionMark, Math.max(actionMark.length * 2, actionTable.size()));
+                edgeOfAction = Arrays.copyOf(edgeOfAction, actionMark.length);
+            }
+            mark++;
+            for (int i = 0; i < nEdges[node]; i++) {
+                int id = edgeAction[firstEdge[node] + i];
+                actionMark[id] = mark;
+                edgeOfAction[id] = i;
+            }
+            for (AbstractAction action : actions) {
+                int id = actionTable.id(action);
+                if (id >= actionMark.length) {
+                    actionMark = Arrays.copyOf(actionMark, Math.max(actionMark.length * 2, id + 1));
+                    edgeOfAction = Arrays.copyOf(edgeOfAction, actionMark.length);
+                }
+                if (actionMark[id] != mark)
+                    available[nAvailable++] = addEdge(node, id);
+                else if (edgeOfAction[id] >= 0)
+                    available[nAvailable++] = edgeOfAction[id];
+                // else a duplicate in the list of actions
+                actionMark[id] = mark;
+                edgeOfAction[id] = -1;
+            }
+        }
+
+        /**
+         * Adds virtualLoss visits to the node at the given position on the path, each valued at the lowest value backed
+         * up so far for each player (or 0 before there is one). The lock on the tree must be held.
+         */
+        private void addVirtualLoss(int pathIndex) {
+            if (pathLoss.length < path.length * nPlayers)
+                pathLoss = Arrays.copyOf(pathLoss, path.length * nPlayers);
+            int node = path[pathIndex];
+            visits[node] += virtualLoss;
+            for (int j = 0; j < nPlayers; j++) {
+                double loss = lowValue[j] == Double.POSITIVE_INFINITY ? 0.0 : lowValue[j] * virtualLoss;
+                pathLoss[pathIndex * nPlayers + j] = loss;
+                totValue[node * nPlayers + j] += loss;
+            }
+        }
+
+        /**
+         * Advance the state with the given action (and then to our next turn in a SelfOnly tree), counting FM calls.
+         * The action is copied first, as executing it may change it.
+         */
+        private void advance(AbstractGameState state, AbstractAction action) {
+            applyAction(state, action.copy());
+            fmCallsCount++;
+            if (params.opponentTreePolicy == SelfOnly) {
+                while (state.getCurrentPlayer() != decisionPlayer && state.isNotTerminalForPlayer(decisionPlayer)) {
+                    List<AbstractAction> availableActions = forwardModel.computeAvailableActions(state);
+                    if (availableActions.isEmpty())
+                        throw new AssertionError("Should always have at least one action possible...");
+                    applyAction(state, opponentModels[state.getCurrentPlayer()]._getAction(state, availableActions));
+                    fmCallsCount++;
+                }
+            }
+        }
+
+        private void applyAction(AbstractGameState state, AbstractAction action) {
+            if (state == undoState && !undoBroken) {
+                if (forwardModel.canUndo(state)) {
+                    undoTokens.add(forwardModel.nextWithUndo(state, action));
+                    return;
+                }
+                undoBroken = true;
+            }
+            forwardModel.next(state, action);
+        }
+
+        private void rewindUndoState() {
+            if (undoBroken) {
+                undoState = null;
+            } else {
+                for (int i = undoTokens.size() - 1; i >= 0; i--)
+                    forwardModel.rewind(undoState, undoTokens.get(i));
+            }
+            undoTokens.clear();
+        }
+
+        /**
+         * Applies the tree policy at the node to the edges at offsets[start] to offsets[end - 1] from its firstEdge
+         * (which must all be expanded). The lock on the tree must be held.
+         *
+         * @return - the edge chosen
+         */
+        private int treePolicyEdge(int node, int[] offsets, int start, int end, boolean explore) {
+            if (end - start == 1)
+                return firstEdge[node] + offsets[start];
+            switch (params.treePolicy) {
+                case UCB:
+                case AlphaGo:
+                case UCB_Tuned:
+                    return ucb(node, offsets, start, end);
+                case EXP3:
+                case RegretMatching:
+                    return sampleFromDistribution(node, offsets, start, end, explore ? params.exploreEpsilon : 0.0);
+                default:
+                    throw new AssertionError("Unknown treepolicy: " + params.treePolicy);
+            }
+        }
+
+        private int ucb(int node, int[] offsets, int start, int end) {
+            int player = actor[node];
+            int bestEdge = -1;
+            double bestValue = -Double.MAX_VALUE;
+            for (int i = start; i < end; i++) {
+                int edge = firstEdge[node] + offsets[i];
+                double hvVal = actionTotValue(edge, player);
+                int actionVisits = actionVisits(edge);
+                double childValue = hvVal / (actionVisits + params.epsilon);
+                if (params.normaliseRewards)
+                    childValue = Utils.normalise(childValue, lowReward, highReward);
+
+                int effectiveTotalVisits = Math.max(edgeValidVisits[edge], 1) + 1;
+                double explorationTerm = params.K * Math.sqrt(Math.log(effectiveTotalVisits) / (actionVisits + params.epsilon));
+                switch (params.treePolicy) {
+                    case AlphaGo:
+                        explorationTerm = params.K * Math.sqrt(effectiveTotalVisits) / (actionVisits + 1.0);
+                        break;
+                    case UCB_Tuned:
+                        double range = highReward - lowReward;
+                        if (range < 1e-6) range = 1e-6;
+                        double meanSq = actionSquaredValue(edge, player) / (actionVisits + params.epsilon);
+                        double standardVar = 0.25;
+                        if (params.normaliseRewards) {
+                            meanSq = (meanSq + lowReward * lowReward - 2 * lowReward * hvVal / (actionVisits + params.epsilon)) / (range * range);
+                        } else {
+                            standardVar = Math.sqrt(range / 2.0);
+                        }
+                        double variance = Math.max(0.0, meanSq - childValue * childValue);
+                        double minTerm = Math.min(standardVar, variance + Math.sqrt(2 * Math.log(effectiveTotalVisits) / (actionVisits + params.epsilon)));
+                        explorationTerm = params.K * Math.sqrt(Math.log(effectiveTotalVisits) / (actionVisits + params.epsilon) * minTerm);
+                        break;
+                    default:
+                        // keep default
+                }
+
+                // Apply small noise to break ties randomly
+                double uctValue = noise(childValue + explorationTerm, params.epsilon, rnd.nextDouble());
+                if (Double.isNaN(uctValue))
+                    throw new AssertionError("Numeric error calculating uctValue");
+                if (uctValue > bestValue) {
+                    bestEdge = edge;
+                    bestValue = uctValue;
+                }
+            }
+            if (bestEdge == -1)
+                throw new AssertionError("We have a null value in UCT : shouldn't really happen!");
+            return bestEdge;
+        }
+
+        private int sampleFromDistribution(int node, int[] offsets, int start, int end, double explore) {
+            int player = actor[node];
+            double nodeValue = totValue[node * nPlayers + player];
+            double[] values = new double[end - start];
+            double sum = 0.0;
+            for (int i = start; i < end; i++) {
+                int edge = firstEdge[node] + offsets[i];
+                int actionVisits = actionVisits(edge);
+                double value = 0.0;
+                if (actionVisits > 0) {
+                    double actionValue = actionTotValue(edge, player);
+                    if (params.treePolicy == MCTSEnums.TreePolicy.EXP3) {
+                        double meanActionValue = actionValue / actionVisits;
+                        if (params.normaliseRewards)
+                            meanActionValue = Utils.normalise(meanActionValue, lowReward, highReward);
+                        else
+                            meanActionValue = meanActionValue - nodeValue / visits[node];
+                        value = Math.exp(meanActionValue);
+                    } else {
+                        // RegretMatching: the regret against our accumulated reward if we had always taken this action
+                        value = Math.max(0.0, actionValue * visits[node] / actionVisits - nodeValue);
+                    }
+                }
+                values[i - start] = value;
+                sum += value;
+            }
+            // normalise to a pdf (uniform if all values are zero), add on the exploration bonus, and sample from it
+            double exploreBonus = explore / values.length;
+            double cdfSample = rnd.nextDouble();
+            double cdf = 0.0;
+            for (int i = 0; i < values.length; i++) {
+                double probability = sum == 0.0 ? 1.0 / values.length : values[i] / sum;
+                cdf += probability * (1.0 - explore) + exploreBonus;
+                if (cdf >= cdfSample)
+                    return firstEdge[node] + offsets[start + i];
+            }
+            // only reachable through rounding error
+            return firstEdge[node] + offsets[end - 1];
+        }
+
+        /**
+         * Perform a Monte Carlo rollout from the end of the path, as in SingleTreeNode.rollOut()
+         *
+         * @return - value of rollout.
+         */
+        private double[] rollOut(AbstractGameState rolloutState, List<Pair<Integer, AbstractAction>> rolloutActions, double[] startingValues, int lastActor) {
+            int rolloutDepth = 0; // counting from end of tree
+            int roundAtStartOfRollout = rolloutState.getRoundCounter();
+            if (params.rolloutLength > 0 || params.rolloutTermination != DEFAULT) {
+                while (!finishRollout(rolloutState, rolloutDepth, lastActor, roundAtStartOfRollout)) {
+                    List<AbstractAction> availableActions = forwardModel.computeAvailableActions(rolloutState);
+                    if (availableActions.isEmpty())
+                        break;
+                    AbstractAction next = opponentModels[rolloutState.getCurrentPlayer()]._getAction(rolloutState, availableActions);
+                    lastActor = rolloutState.getCurrentPlayer();
+                    rolloutActions.add(new Pair<>(lastActor, next));
+                    int startingFMCalls = fmCallsCount;
+                    advance(rolloutState, next);
+                    rolloutDepth += (fmCallsCount - startingFMCalls);
+                }
+            }
+            double[] retValue = new double[nPlayers];
+            for (int i = 0; i < retValue.length; i++) {
+                retValue[i] = heuristic.evaluateState(rolloutState, i) - startingValues[i];
+                if (Double.isNaN(retValue[i]))
+                    throw new AssertionError("Illegal heuristic value - should be a number");
+            }
+            return retValue;
+        }
+
+        private boolean finishRollout(AbstractGameState rollerState, int depth, int lastActor, int roundAtStartOfRollout) {
+            if (!rollerState.isNotTerminal())
+                return true;
+            int currentActor = rollerState.getCurrentPlayer();
+            if (depth >= params.rolloutLength) {
+                switch (params.rolloutTermination) {
+                    case DEFAULT:
+                        return true;
+                    case END_TURN:
+                        return lastActor == decisionPlayer && currentActor != decisionPlayer;
+                    case START_TURN:
+                        return lastActor != decisionPlayer && currentActor == decisionPlayer;
+                    case END_ROUND:
+                        return rollerState.getRoundCounter() != roundAtStartOfRollout;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Back up the result through all the nodes on the path, as in SingleTreeNode.backUp(), removing any virtual
+         * losses added to them
+         */
+        private void backUp(double[] result) {
+            synchronized (CompactTree.this) {
+                if (params.normaliseRewards || params.treePolicy == MCTSEnums.TreePolicy.UCB_Tuned) {
+                    for (double r : result) {
+                        if (lowReward > r)
+                            lowReward = r;
+                        if (highReward < r)
+                            highReward = r;
+                    }
+                }
+                for (int i = 0; i < pathLength; i++) {
+                    int node = path[i];
+                    visits[node] += 1 - virtualLoss;
+                    int first = firstEdge[node];
+                    for (int a = pathStart[i]; a < pathStart[i + 1]; a++)
+                        edgeValidVisits[first + available[a]]++;
+                    int offset = node * nPlayers;
+                    for (int j = 0; j < nPlayers; j++) {
+                        double value;
+                        switch (params.opponentTreePolicy) {
+                            case SelfOnly:
+                                value = result[decisionPlayer];
+                                break;
+                            case Paranoid:
+                                value = j == decisionPlayer ? result[decisionPlayer] : -result[decisionPlayer];
+                                break;
+                            default:
+                                value = result[j];
+                        }
+                        if (virtualLoss > 0) {
+                            totValue[offset + j] -= pathLoss[i * nPlayers + j];
+                            if (lowValue[j] > value)
+                                lowValue[j] = value;
+                        }
+                        totValue[offset + j] += value;
+                        totSquares[offset + j] += value * value;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return - the child reached by the (expanded) edge when nextPlayer acts next, which is created if there is none
+     * (or -1 if there is none, and the tree is at maxNodes). The lock on the tree must be held.
+     */
+    private int childFor(int edge, int nextPlayer, int childDepth, AbstractGameState state) {
+        int last = -1;
+        for (int child = edgeChild[edge]; child != -1; child = nextSibling[child]) {
+            if (actor[child] == nextPlayer)
+                return child;
+            last = child;
+        }
+        if (atNodeLimit())
+            return -1;
+        int child = newNode(nextPlayer, childDepth, state);
+        nextSibling[last] = child;
+        return child;
+    }
+
+    private int newNode(int nodeActor, int nodeDepth, AbstractGameState state) {
+        if (nNodes == visits.length) {
+            int capacity = visits.length * 2;
+            visits = Arrays.copyOf(visits, capacity);
+            actor = Arrays.copyOf(actor, capacity);
+            depth = Arrays.copyOf(depth, capacity);
+            firstEdge = Arrays.copyOf(firstEdge, capacity);
+            nEdges = Arrays.copyOf(nEdges, capacity);
+            edgeRoom = Arrays.copyOf(edgeRoom, capacity);
+            nextSibling = Arrays.copyOf(nextSibling, capacity);
+            totValue = Arrays.copyOf(totValue, capacity * nPlayers);
+            totSquares = Arrays.copyOf(totSquares, capacity * nPlayers);
+        }
+        int node = nNodes++;
+        actor[node] = nodeActor;
+        depth[node] = nodeDepth;
+        nextSibling[node] = -1;
+        maxDepth = Math.max(maxDepth, nodeDepth);
+        if (!state.isNotTerminal())
+            nTerminalNodes++;
+        return node;
+    }
+
+    /**
+     * @return - the offset of the new edge from the firstEdge of the node
+     */
+    private int addEdge(int node, int action) {
+        if (nEdges[node] == edgeRoom[node])
+            reserveEdges(node, Math.max(4, edgeRoom[node] * 2));
+        int offset = nEdges[node]++;
+        int edge = firstEdge[node] + offset;
+        edgeAction[edge] = action;
+        edgeChild[edge] = -1;
+        edgeValidVisits[edge] = 0;
+        return offset;
+    }
+
+    /**
+     * Moves the edges of the node to the end of the edge arrays, with room for the given number.
+     */
+    private void reserveEdges(int node, int room) {
+        if (nEdgeSlots + room > edgeAction.length) {
+            int capacity = Math.max(nEdgeSlots + room, edgeAction.length * 2);
+            edgeAction = Arrays.copyOf(edgeAction, capacity);
+            edgeChild = Arrays.copyOf(edgeChild, capacity);
+            edgeValidVisits = Arrays.copyOf(edgeValidVisits, capacity);
+        }
+        int from = firstEdge[node];
+        System.arraycopy(edgeAction, from, edgeAction, nEdgeSlots, nEdges[node]);
+        System.arraycopy(edgeChild, from, edgeChild, nEdgeSlots, nEdges[node]);
+        System.arraycopy(edgeValidVisits, from, edgeValidVisits, nEdgeSlots, nEdges[node]);
+        firstEdge[node] = nEdgeSlots;
+        edgeRoom[node] = room;
+        nEdgeSlots += room;
+    }
+
+    /**
+     * @return - true if the tree has MCTSParams.maxNodes nodes (if that is positive). Nodes cannot be removed from this
+     * tree, so it then stops growing, and each iteration rolls out from where it leaves the tree.
+     */
+    private boolean atNodeLimit() {
+        return params.maxNodes > 0 && nNodes >= params.maxNodes;
+    }
+
+    private int actionVisits(int edge) {
+        int retValue = 0;
+        for (int child = edgeChild[edge]; child != -1; child = nextSibling[child])
+            retValue += visits[child];
+        return retValue;
+    }
+
+    private double actionTotValue(int edge, int playerId) {
+        double retValue = 0.0;
+        for (int child = edgeChild[edge]; child != -1; child = nextSibling[child])
+            retValue += totValue[child * nPlayers + playerId];
+        return retValue;
+    }
+
+    private double actionSquaredValue(int edge, int playerId) {
+        double retValue = 0.0;
+        for (int child = edgeChild[edge]; child != -1; child = nextSibling[child])
+            retValue += totSquares[child * nPlayers + playerId];
+        return retValue;
+    }
+
+    /**
+     * Calculates the best action from the root according to the selection policy, as in SingleTreeNode.bestAction()
+     *
+     * @return - the best AbstractAction
+     */
+    public AbstractAction bestAction() {
+        int bestEdge = bestEdge();
+        return actionTable.get(edgeAction[bestEdge]);
+    }
+
+    private int bestEdge() {
+        int rootStart = firstEdge[0], rootEnd = rootStart + nEdges[0];
+        MCTSEnums.SelectionPolicy policy = params.selectionPolicy;
+        boolean allExpanded = true;
+        Set<Integer> visitCounts = new HashSet<>();
+        for (int edge = rootStart; edge < rootEnd; edge++) {
+            if (edgeChild[edge] == -1)
+                allExpanded = false;
+            else
+                visitCounts.add(actionVisits(edge));
+        }
+        // if all the actions have the same number of visits, then we use average score instead
+        if (policy == ROBUST && visitCounts.size() == 1)
+            policy = SIMPLE;
+
+        if (policy == TREE && allExpanded)
+            return search.treePolicyEdge(0, rootEdges, 0, rootEdges.length, false);
+        int bestEdge = -1;
+        double bestValue = -Double.MAX_VALUE;
+        for (int edge = rootStart; edge < rootEnd; edge++) {
+            if (edgeChild[edge] == -1)
+                continue;
+            double childValue = actionVisits(edge); // if ROBUST
+            if (policy == SIMPLE)
+                childValue = actionTotValue(edge, decisionPlayer) / (actionVisits(edge) + params.epsilon);
+            // Apply small noise to break ties randomly
+            childValue = noise(childValue, params.epsilon, search.rnd.nextDouble());
+            if (childValue > bestValue) {
+                bestValue = childValue;
+                bestEdge = edge;
+            }
+        }
+        if (bestEdge == -1)
+            throw new AssertionError("Unexpected - no selection made.");
+        return bestEdge;
+    }
+
+    /**
+     * @return - for each expanded action at the root, the statistics MCTSPlayer.getDecisionStats() gives
+     */
+    Map<AbstractAction, Map<String, Object>> getDecisionStats(IActionHeuristic advantageFunction) {
+        Map<AbstractAction, Map<String, Object>> retValue = new LinkedHashMap<>();
+        if (visits[0] > 1) {
+            double heuristicValue = heuristic != null ? heuristic.evaluateState(rootState, decisionPlayer) : 0.0;
+            for (int edge = firstEdge[0], end = edge + nEdges[0]; edge < end; edge++) {
+                if (edgeChild[edge] == -1)
+                    continue;
+                AbstractAction action = actionTable.get(edgeAction[edge]);
+                int actionVisits = actionVisits(edge);
+                Map<String, Object> actionValues = new HashMap<>();
+                actionValues.put("visits", actionVisits);
+                actionValues.put("visitProportion", actionVisits / (double) visits[0]);
+                actionValues.put("meanValue", actionTotValue(edge, decisionPlayer) / actionVisits);
+                actionValues.put("heuristic", heuristicValue);
+                actionValues.put("advantage", advantageFunction != null ? advantageFunction.evaluateAction(action, rootState) : 0.0);
+                retValue.put(action, actionValues);
+            }
+        }
+        return retValue;
+    }
+
+    /**
+     * @return - the number of nodes in the tree
+     */
+    public int getNodeCount() {
+        return nNodes;
+    }
+
+    public int getVisits() {
+        return visits[0];
+    }
+
+    private void logTreeStatistics(IStatisticLogger statsLogger) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        int numIters = 0, fmCallsCount = 0, copyCount = 0, rolloutActionsTaken = 0;
+        for (Search s : searches) {
+            numIters += s.numIters;
+            fmCallsCount += s.fmCallsCount;
+            copyCount += s.copyCount;
+            rolloutActionsTaken += s.rolloutActionsTaken;
+        }
+        int rootStart = firstEdge[0], rootEnd = rootStart + nEdges[0];
+        int maxVisits = 0;
+        double[] visitProportions = new double[nEdges[0]];
+        for (int edge = rootStart; edge < rootEnd; edge++) {
+            int actionVisits = actionVisits(edge);
+            visitProportions[edge - rootStart] = actionVisits / (double) visits[0];
+            maxVisits = Math.max(maxVisits, actionVisits);
+        }
+        int leaves = 0, totalActions = 0, maxActions = 0;
+        for (int node = 0; node < nNodes; node++) {
+            boolean leaf = true;
+            for (int edge = firstEdge[node], end = edge + nEdges[node]; edge < end && leaf; edge++)
+                leaf = edgeChild[edge] == -1;
+            if (leaf)
+                leaves++;
+            totalActions += nEdges[node];
+            maxActions = Math.max(maxActions, nEdges[node]);
+        }
+        stats.put("round", rootState.getRoundCounter());
+        stats.put("turn", rootState.getTurnCounter());
+        stats.put("turnOwner", rootState.getTurnOwner());
+        stats.put("actingPlayer", decisionPlayer);
+        stats.put("visitEntropy", entropyOf(visitProportions));
+        stats.put("iterations", numIters);
+        stats.put("fmCalls", fmCallsCount);
+        stats.put("copyCalls", copyCount);
+        stats.put("time", search.timeTaken);
+        stats.put("totalNodes", nNodes);
+        stats.put("leafNodes", leaves);
+        stats.put("terminalNodes", nTerminalNodes);
+        stats.put("maxDepth", maxDepth);
+        stats.put("nActionsRoot", nEdges[0]);
+        stats.put("nActionsTree", (double) totalActions / nNodes);
+        stats.put("maxActionsAtNode", maxActions);
+        stats.put("maxVisitProportion", maxVisits / (double) numIters);
+        int bestEdge = bestEdge();
+        double bestValue = actionTotValue(bestEdge, decisionPlayer) / actionVisits(bestEdge);
+        stats.put("bestAction", actionTable.get(edgeAction[bestEdge]));
+        stats.put("bestValue", bestValue);
+        stats.put("normalisedBestValue", Utils.normalise(bestValue, lowReward, highReward));
+        stats.put("lowReward", lowReward);
+        stats.put("highReward", highReward);
+        stats.put("rolloutActions", rolloutActionsTaken / numIters);
+        statsLogger.record(stats);
+    }
+}
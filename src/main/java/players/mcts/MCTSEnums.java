@@ -24,6 +24,18 @@ public class MCTSEnums {
         UCB, EXP3, AlphaGo, RegretMatching, UCB_Tuned
     }
 
+    public enum TranspositionReplacement {
+        DepthPreferred, LRU
+        // DepthPreferred keeps the shallower of two nodes that hash to the same slot
+        // LRU keeps the most recently used nodes
+    }
+
+    public enum Parallelism {
+        Root, Tree
+        // Root searches a separate tree on each thread, and merges their root statistics at the end
+        // Tree searches one CompactTree on all threads, with virtual loss to spread them over the tree
+    }
+
     public enum RolloutTermination {
         DEFAULT, END_TURN, START_TURN, END_ROUND;
     }
@@ -20,10 +20,12 @@ import static players.mcts.MCTSEnums.Information.Open_Loop;
 import static players.mcts.MCTSEnums.MASTType.Rollout;
 import static players.mcts.MCTSEnums.OpponentTreePolicy.MaxN;
 import static players.mcts.MCTSEnums.OpponentTreePolicy.Paranoid;
+import static players.mcts.MCTSEnums.Parallelism.Root;
 import static players.mcts.MCTSEnums.RolloutTermination.DEFAULT;
 import static players.mcts.MCTSEnums.SelectionPolicy.ROBUST;
 import static players.mcts.MCTSEnums.Strategies.PARAMS;
 import static players.mcts.MCTSEnums.Strategies.RANDOM;
+import static players.mcts.MCTSEnums.TranspositionReplacement.DepthPreferred;
 import static players.mcts.MCTSEnums.TreePolicy.UCB;
 
 public class MCTSParams extends PlayerParameters {
@@ -64,6 +66,15 @@ public class MCTSParams extends PlayerParameters {
     public boolean nodesStoreScoreDelta = true;
     public boolean maintainMasterState = false;
     public boolean discardStateAfterEachIteration = true;  // default will remove reference to OpenLoopState in backup(). Saves memory!
+    public boolean reuseTree = false;  // keep the subtree reached by the actions actually taken for the next decision
+    public int nThreads = 1;  // more than 1 searches on this many threads in parallel, as set by parallelism
+    public MCTSEnums.Parallelism parallelism = Root;
+    public int virtualLoss = 1;  // Tree parallelism only: the number of losses each thread adds to the nodes on its path until it backs up
+    public int transpositionTableSize = 0;  // Closed_Loop only: if positive, nodes for the same state are shared, with at most this many in the table
+    public MCTSEnums.TranspositionReplacement transpositionReplacement = DepthPreferred;
+    public boolean useUndo = false;  // Open_Loop only: if true and the forward model supports undo, search on one copy of the state and rewind it after each iteration
+    public int maxNodes = 0;  // if positive, the tree is kept to at most this many nodes (pruning the least visited, or else no longer expanding)
+    public boolean compactTree = false;  // keep the tree in flat arrays (CompactTree) rather than as SingleTreeNodes, if CompactTree.supports() these parameters
     public MCTSEnums.RolloutTermination rolloutTermination = DEFAULT;
     public IStateHeuristic heuristic = AbstractGameState::getHeuristicScore;
     public IStateHeuristic opponentHeuristic = AbstractGameState::getHeuristicScore;
@@ -111,6 +122,15 @@ public class MCTSParams extends PlayerParameters {
         addTunableParameter("discardStateAfterEachIteration", true);
         addTunableParameter("advantageFunction", IActionHeuristic.nullReturn);
         addTunableParameter("omaVisits", 0);
+        addTunableParameter("reuseTree", false);
+        addTunableParameter("nThreads", 1);
+        addTunableParameter("parallelism", Root, Arrays.asList(MCTSEnums.Parallelism.values()));
+        addTunableParameter("virtualLoss", 1, Arrays.asList(0, 1, 3, 10));
+        addTunableParameter("transpositionTableSize", 0, Arrays.asList(0, 10000, 100000, 1000000));
+        addTunableParameter("transpositionReplacement", DepthPreferred, Arrays.asList(MCTSEnums.TranspositionReplacement.values()));
+        addTunableParameter("useUndo", false);
+        addTunableParameter("maxNodes", 0, Arrays.asList(0, 1000, 10000, 100000));
+        addTunableParameter("compactTree", false);
     }
 
     @Override
@@ -165,6 +185,15 @@ public class MCTSParams extends PlayerParameters {
         discardStateAfterEachIteration = (boolean) getParameterValue("discardStateAfterEachIteration");
         if (information == Closed_Loop)
             discardStateAfterEachIteration = false;
+        reuseTree = (boolean) getParameterValue("reuseTree");
+        nThreads = (int) getParameterValue("nThreads");
+        parallelism = (MCTSEnums.Parallelism) getParameterValue("parallelism");
+        virtualLoss = (int) getParameterValue("virtualLoss");
+        transpositionTableSize = (int) getParameterValue("transpositionTableSize");
+        transpositionReplacement = (MCTSEnums.TranspositionReplacement) getParameterValue("transpositionReplacement");
+        useUndo = (boolean) getParameterValue("useUndo");
+        maxNodes = (int) getParameterValue("maxNodes");
+        compactTree = (boolean) getParameterValue("compactTree");
         if (expansionPolicy == MCTSEnums.Strategies.MAST || rolloutType == MCTSEnums.Strategies.MAST
                 || (biasVisits > 0 && advantageFunction == null)) {
             useMAST = true;
@@ -267,6 +296,15 @@ public class MCTSParams extends PlayerParameters {
         retValue.heuristic = heuristic;
         retValue.opponentHeuristic = opponentHeuristic;
         retValue.discardStateAfterEachIteration = discardStateAfterEachIteration;
+        retValue.reuseTree = reuseTree;
+        retValue.nThreads = nThreads;
+        retValue.parallelism = parallelism;
+        retValue.virtualLoss = virtualLoss;
+        retValue.transpositionTableSize = transpositionTableSize;
+        retValue.transpositionReplacement = transpositionReplacement;
+        retValue.useUndo = useUndo;
+        retValue.maxNodes = maxNodes;
+        retValue.compactTree = compactTree;
         return retValue;
     }
 
@@ -5,6 +5,7 @@ import core.AbstractGameState;
 import core.AbstractPlayer;
 import core.actions.AbstractAction;
 import core.interfaces.IActionHeuristic;
+import evaluation.TunableParameters;
 import evaluation.listeners.GameListener;
 import core.interfaces.IStateHeuristic;
 import evaluation.metrics.Event;
@@ -12,8 +13,13 @@ import utilities.Pair;
 import utilities.Utils;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
+import static players.mcts.MCTSEnums.Information.Closed_Loop;
 import static players.mcts.MCTSEnums.OpponentTreePolicy.*;
 import static players.mcts.MCTSEnums.OpponentTreePolicy.MultiTree;
 
@@ -29,6 +35,14 @@ public class MCTSPlayer extends AbstractPlayer {
     protected AbstractPlayer rolloutStrategy;
     protected boolean debug = false;
     protected SingleTreeNode root;
+    // Used instead of root if params.compactTree is set (and supported)
+    protected CompactTree compactTree;
+    // Length of the game history when root was searched (used to reuse the tree at the next decision)
+    private int historySizeAtRoot;
+    // Used when params.nThreads > 1: each worker searches on a separate thread, either its own tree (root
+    // parallelisation) or the same CompactTree (tree parallelisation)
+    private MCTSPlayer[] workers;
+    private ExecutorService executor;
     List<Map<AbstractAction, Pair<Integer, Double>>> MASTStats;
     private AbstractPlayer opponentModel;
     private IActionHeuristic advantageFunction;
@@ -63,15 +77,26 @@ public class MCTSPlayer extends AbstractPlayer {
         if (advantageFunction instanceof AbstractPlayer)
             ((AbstractPlayer) advantageFunction).initializePlayer(state);
         MASTStats = null;
+        root = null;
+        compactTree = null;
+        historySizeAtRoot = 0;
+        workers = null;
     }
 
     @Override
     public AbstractAction _getAction(AbstractGameState gameState, List<AbstractAction> actions) {
+        if (useCompactTree())
+            return compactTreeSearch(gameState);
+        compactTree = null;
         // Search for best action from the root
-        if (params.opponentTreePolicy == MultiTree || params.opponentTreePolicy == MultiTreeParanoid)
+        SingleTreeNode reusedRoot = params.reuseTree ? reuseTree(gameState.getHistory(), gameState) : null;
+        if (reusedRoot != null)
+            root = reusedRoot;
+        else if (params.opponentTreePolicy == MultiTree || params.opponentTreePolicy == MultiTreeParanoid)
             root = new MultiTreeNode(this, gameState, rnd);
         else
             root = SingleTreeNode.createRootNode(this, gameState, rnd);
+        historySizeAtRoot = gameState.getHistorySize();
 
         if (MASTStats != null)
             root.MASTStatistics = MASTStats.stream()
@@ -82,7 +107,10 @@ public class MCTSPlayer extends AbstractPlayer {
             ((MASTPlayer) rolloutStrategy).setStats(root.MASTStatistics);
             ((MASTPlayer) rolloutStrategy).temperature = params.MASTBoltzmann;
         }
-        root.mctsSearch(getStatsLogger());
+        if (params.nThreads > 1 && !(root instanceof MultiTreeNode))
+            rootParallelSearch(gameState);
+        else
+            root.mctsSearch(getStatsLogger());
         if (params.gatherExpertIterationData) {
             ExpertIterationDataGatherer eidg = new ExpertIterationDataGatherer(
                     params.expertIterationFileStem,
@@ -110,6 +138,114 @@ public class MCTSPlayer extends AbstractPlayer {
     }
 
 
+    /**
+     * Tree parallelisation needs a CompactTree, so throws an IllegalArgumentException if that does not support the
+     * other parameters (rather than quietly searching with root parallelisation instead)
+     */
+    private boolean useCompactTree() {
+        boolean treeParallel = params.nThreads > 1 && params.parallelism == MCTSEnums.Parallelism.Tree;
+        boolean supported = CompactTree.supports(params)
+                && !(advantageFunction instanceof ITreeProcessor) && !(rolloutStrategy instanceof ITreeProcessor)
+                && !(heuristic instanceof ITreeProcessor) && !(opponentModel instanceof ITreeProcessor);
+        if (treeParallel && !supported)
+            throw new IllegalArgumentException("Tree parallelism is not supported with these parameters - see CompactTree.supports()");
+        return (params.compactTree || treeParallel) && supported;
+    }
+
+    private AbstractAction compactTreeSearch(AbstractGameState gameState) {
+        root = null;
+        compactTree = new CompactTree(this, gameState, rnd);
+        if (MASTStats != null)
+            compactTree.MASTStatistics = MASTStats.stream()
+                    .map(m -> Utils.decay(m, params.MASTGamma))
+                    .collect(Collectors.toList());
+        if (rolloutStrategy instanceof MASTPlayer) {
+            ((MASTPlayer) rolloutStrategy).setStats(compactTree.MASTStatistics);
+            ((MASTPlayer) rolloutStrategy).temperature = params.MASTBoltzmann;
+        }
+        if (params.nThreads > 1) {
+            createWorkers(gameState);
+            compactTree.mctsSearch(getStatsLogger(), workers, executor);
+        } else {
+            compactTree.mctsSearch(getStatsLogger());
+        }
+        MASTStats = compactTree.MASTStatistics;
+        return compactTree.bestAction();
+    }
+
+    /**
+     * Finds the node in the tree from our last decision that has been reached by the actions taken since, and
+     * re-roots the tree there. This is not supported for MultiTree or OMA trees, or for Closed Loop search (where the
+     * states stored in the tree may not match those actually reached).
+     *
+     * @return the re-rooted node, or null if a new tree needs to be created
+     */
+    private SingleTreeNode reuseTree(List<AbstractAction> history, AbstractGameState gameState) {
+        if (root == null || params.information == Closed_Loop || params.opponentTreePolicy == MultiTree
+                || params.opponentTreePolicy == MultiTreeParanoid || params.opponentTreePolicy == OMA
+                || params.opponentTreePolicy == OMA_All)
+            return null;
+        if (history.size() <= historySizeAtRoot)
+            return null; // no history available (or a new game)
+        return root.reRoot(history.subList(historySizeAtRoot, history.size()), gameState);
+    }
+
+    /**
+     * Root parallelisation. Each of the (nThreads - 1) workers builds an independent tree from the same state with its
+     * own forward model and random number generator, while this player searches root as usual. The root statistics of
+     * all the worker trees are then merged into root.
+     */
+    private void rootParallelSearch(AbstractGameState gameState) {
+        createWorkers(gameState);
+        // the worker roots are created here, as this reads from gameState, which is not safe to share across threads
+        List<Future<SingleTreeNode>> results = new ArrayList<>();
+        for (MCTSPlayer worker : workers) {
+            SingleTreeNode workerRoot = SingleTreeNode.createRootNode(worker, gameState, worker.rnd);
+            if (worker.rolloutStrategy instanceof MASTPlayer) {
+                ((MASTPlayer) worker.rolloutStrategy).setStats(workerRoot.MASTStatistics);
+                ((MASTPlayer) worker.rolloutStrategy).temperature = params.MASTBoltzmann;
+            }
+            results.add(executor.submit(() -> {
+                workerRoot.mctsSearch(null);
+                return workerRoot;
+            }));
+        }
+        root.mctsSearch(getStatsLogger());
+        try {
+            for (Future<SingleTreeNode> result : results)
+                root.mergeRootStatistics(result.get());
+        } catch (InterruptedException | ExecutionException e) {
+            throw new AssertionError("Error in parallel MCTS search: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Creates the (nThreads - 1) workers, each with its own forward model, random number generator, and rollout and
+     * opponent models, and the thread pool they search on (if they do not exist already)
+     */
+    private void createWorkers(AbstractGameState gameState) {
+        if (workers == null) {
+            workers = new MCTSPlayer[params.nThreads - 1];
+            for (int i = 0; i < workers.length; i++) {
+                // the parameters are only read during search, so can be shared (unlike the rollout and opponent models)
+                workers[i] = new MCTSPlayer(params, toString());
+                workers[i].rnd = new Random(rnd.nextLong());
+                // each searches on its own thread, so is given its own copy of the heuristic if it has one (any other
+                // heuristic is shared, and must be safe to call on several threads at once - see IStateHeuristic)
+                workers[i].heuristic = heuristic instanceof TunableParameters ?
+                        (IStateHeuristic) ((TunableParameters) heuristic).copy() : heuristic;
+                workers[i].setForwardModel(getForwardModel().copy());
+                workers[i].initializePlayer(gameState);
+            }
+        }
+        if (executor == null)
+            executor = Executors.newFixedThreadPool(workers.length, r -> {
+                Thread thread = new Thread(r, "MCTS-worker");
+                thread.setDaemon(true);
+                return thread;
+            });
+    }
+
     public AbstractPlayer getOpponentModel(int playerID) {
         return opponentModel;
     }
@@ -122,6 +258,10 @@ public class MCTSPlayer extends AbstractPlayer {
             ((GameListener) heuristic).onEvent(Event.createEvent(Event.GameEvent.GAME_OVER, state));
         if (advantageFunction instanceof GameListener)
             ((GameListener) advantageFunction).onEvent(Event.createEvent(Event.GameEvent.GAME_OVER, state));
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
 
     }
 
@@ -145,6 +285,8 @@ public class MCTSPlayer extends AbstractPlayer {
 
     @Override
     public Map<AbstractAction, Map<String, Object>> getDecisionStats() {
+        if (compactTree != null)
+            return compactTree.getDecisionStats(advantageFunction);
         Map<AbstractAction, Map<String, Object>> retValue = new LinkedHashMap<>();
 
         if (root != null && root.getVisits() > 1) {
@@ -97,8 +97,12 @@ public class MultiTreeNode extends SingleTreeNode {
         nodeExpanded = new boolean[currentLocation.length];
         expansionActionTaken = new boolean[currentLocation.length];
         maxDepthReached = new boolean[currentLocation.length];
-        for (int i = 0; i < currentLocation.length; i++)
+        for (int i = 0; i < currentLocation.length; i++) {
             currentLocation[i] = roots[i];
+            // MCTSParams.maxNodes applies to each player's tree separately
+            if (roots[i] != null && roots[i].atNodeLimit() && roots[i].canPrune())
+                roots[i].pruneTree();
+        }
 
         List<Pair<Integer, AbstractAction>> actionsInTree = new ArrayList<>();
         List<Pair<Integer, AbstractAction>> actionsInRollout = new ArrayList<>();
@@ -140,6 +144,14 @@ public class MultiTreeNode extends SingleTreeNode {
                 currentNode.setActionsFromOpenLoopState(currentState);
                 List<AbstractAction> unexpanded = currentNode.unexpandedActions();
                 AbstractAction chosen;
+                if (!unexpanded.isEmpty() && currentNode.root.atNodeLimit()) {
+                    // the tree for this player cannot grow any further, so they are now in rollout
+                    maxDepthReached[currentActor] = true;
+                    chosen = opponentModels[currentActor]._getAction(currentState, forwardModel.computeAvailableActions(currentState));
+                    actionsInRollout.add(new Pair<>(currentActor, chosen));
+                    advance(currentState, chosen);
+                    continue;
+                }
                 if (!unexpanded.isEmpty()) {
                     // We have an unexpanded action
                     if (expansionActionTaken[currentActor])
@@ -200,7 +212,11 @@ public class MultiTreeNode extends SingleTreeNode {
             if (expansionActionTaken[playerId]) {
                 expandNode(playerId, state);
             } else {
-                currentLocation[playerId] = currentLocation[playerId].nextNodeInTree(lastAction[playerId]);
+                SingleTreeNode next = currentLocation[playerId].nextNodeInTree(lastAction[playerId]);
+                if (next == null)
+                    maxDepthReached[playerId] = true; // the tree is at maxNodes, so we stay where we are
+                else
+                    currentLocation[playerId] = next;
             }
             lastAction[playerId] = null;
             // we reset this as we have processed the action (required so that when we terminate the loop of
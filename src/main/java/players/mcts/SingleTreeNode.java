@@ -3,7 +3,9 @@ package players.mcts;
 import core.AbstractForwardModel;
 import core.AbstractGameState;
 import core.AbstractPlayer;
+import core.UndoToken;
 import core.actions.AbstractAction;
+import core.actions.ActionTable;
 import core.interfaces.IStateHeuristic;
 import core.interfaces.IStatisticLogger;
 import players.PlayerConstants;
@@ -30,6 +32,8 @@ import static utilities.Utils.noise;
 public class SingleTreeNode {
 
     private final Map<AbstractAction, Integer> nValidVisits = new HashMap<>();
+    // Used instead of nValidVisits if the root has an actionTable, indexed by action ID
+    private int[] validVisitsByID;
     // State in this node (closed loop)
     protected AbstractGameState state;
     // State in this node (open loop - this is updated by onward trajectory....be very careful about using)
@@ -52,6 +56,8 @@ public class SingleTreeNode {
     protected int nVisits;
     protected int rolloutActionsTaken;
     List<AbstractAction> actionsFromOpenLoopState = new ArrayList<>();
+    // IDs of actionsFromOpenLoopState, if the root has an actionTable
+    int[] actionIDsFromOpenLoopState;
     Map<AbstractAction, Double> advantagesOfActionsFromOLS = new HashMap<>();
     // Depth of this node
     int depth;
@@ -70,6 +76,30 @@ public class SingleTreeNode {
     // only ever have one position in the array populated: and similarly if we are using a SelfOnly tree).
     Map<AbstractAction, SingleTreeNode[]> children = new HashMap<>();
     List<Map<AbstractAction, Pair<Integer, Double>>> MASTStatistics; // a list of one Map per player. Action -> (visits, totValue)
+    // Only the root holds the transposition table (Closed_Loop, if MCTSParams.transpositionTableSize > 0). With this,
+    // a node can be reached from several parents; parent is then the one it was most recently reached from, so that
+    // backUp() follows the path taken in the current iteration
+    TranspositionTable transpositions;
+    // Only the root uses these (Open_Loop, if MCTSParams.useUndo and the forward model supports it). Each iteration
+    // then runs on undoState, and the actions taken are rewound at the end rather than copying the state again.
+    // If an action cannot be undone (undoBroken), the state is discarded and a new copy made for the next iteration
+    AbstractGameState undoState;
+    List<UndoToken> undoTokens;
+    boolean undoBroken;
+    // Only the root holds this, if the game has an IActionCodec. All nodes then use the same instance of each action,
+    // and keep their children (and valid visits) in arrays indexed by action ID
+    ActionTable actionTable;
+    // Only the root uses these. nodeCount is the number of nodes in the tree; if MCTSParams.maxNodes is positive, the
+    // tree is pruned when it reaches this many (see pruneTree()), and the nodes removed are kept in nodePool for reuse
+    int nodeCount;
+    Deque<SingleTreeNode> nodePool;
+    // Only the root holds pruneOrder, if the tree can be pruned. Every other node is then in the circular list of the
+    // nodes with the same number of visits (or at least PRUNE_LISTS - 1), in the order they reached that number, and
+    // pruneOrder[v] is the first node in the list for v visits. This lets pruneTree() find the least visited nodes
+    // without sorting the whole tree.
+    SingleTreeNode[] pruneOrder;
+    SingleTreeNode prevInPruneOrder, nextInPruneOrder;
+    private static final int PRUNE_LISTS = 256;
     ToDoubleBiFunction<AbstractAction, AbstractGameState> advantageFunction = (a, s) -> advantagesOfActionsFromOLS.getOrDefault(a, 0.0);
     ToDoubleBiFunction<AbstractAction, AbstractGameState> MASTFunction;
     // The total value of all trajectories through this node (one element per player)
@@ -103,21 +133,122 @@ public class SingleTreeNode {
         retValue.MASTStatistics = new ArrayList<>();
         for (int i = 0; i < state.getNPlayers(); i++)
             retValue.MASTStatistics.add(new HashMap<>());
-        retValue.MASTFunction = (a, s) -> {
-            Map<AbstractAction, Pair<Integer, Double>> MAST = retValue.MASTStatistics.get(retValue.decisionPlayer);
+        retValue.setRootMASTFunction();
+        // (MultiTree and OMA searches rely on each node having a single parent, so do not share nodes)
+        MCTSEnums.OpponentTreePolicy policy = player.params.opponentTreePolicy;
+        if (player.params.transpositionTableSize > 0 && player.params.information == Closed_Loop
+                && (policy == SelfOnly || policy == Paranoid || policy == MaxN)) {
+            retValue.transpositions = new TranspositionTable(player.params.transpositionTableSize, player.params.transpositionReplacement);
+        }
+        retValue.instantiate(null, null, state);
+        if (retValue.transpositions != null)
+            retValue.transpositions.put(retValue.state.longHash(), retValue);
+        return retValue;
+    }
+
+    private void setRootMASTFunction() {
+        MASTFunction = (a, s) -> {
+            Map<AbstractAction, Pair<Integer, Double>> MAST = MASTStatistics.get(decisionPlayer);
             if (MAST.containsKey(a)) {
                 Pair<Integer, Double> stats = MAST.get(a);
-                return stats.b / (stats.a + retValue.params.epsilon);
+                return stats.b / (stats.a + params.epsilon);
             }
             return 0.0;
         };
-        retValue.instantiate(null, null, state);
-        return retValue;
+    }
+
+    /**
+     * Used to reuse the tree from one decision to the next. Starting from this root node, follows the actions that
+     * have actually been taken in the game since the search (the first of which is our own decision), and turns the
+     * node reached into the root of a new tree for the given state. The rest of the old tree is discarded.
+     *
+     * @param actionsTaken - the actions taken in the game since this tree was searched
+     * @param state        - the current game state, from which the next search will start
+     * @return the new root node, or null if the tree has no node for this line of play
+     */
+    public SingleTreeNode reRoot(List<AbstractAction> actionsTaken, AbstractGameState state) {
+        if (root != this)
+            throw new AssertionError("Only the root of a tree can be re-rooted");
+        if (actionsTaken.isEmpty())
+            return null;
+        SingleTreeNode newRoot;
+        if (params.opponentTreePolicy.selfOnlyTree) {
+            // the tree only contains our own decisions, so the other actions taken do not move us through it
+            SingleTreeNode[] nodeArray = children.get(actionsTaken.get(0));
+            newRoot = nodeArray == null ? null : nodeArray[decisionPlayer];
+        } else {
+            newRoot = descendTo(actionsTaken, 0);
+        }
+        if (newRoot == null || newRoot.terminalNode || newRoot.decisionPlayer != state.getCurrentPlayer())
+            return null;
+        newRoot.makeRoot(this, state);
+        return newRoot;
+    }
+
+    private SingleTreeNode descendTo(List<AbstractAction> actionsTaken, int index) {
+        if (index == actionsTaken.size())
+            return this;
+        SingleTreeNode[] nodeArray = children.get(actionsTaken.get(index));
+        if (nodeArray == null)
+            return null;
+        // we do not know who acted after each action, so try each possible next player in turn
+        for (SingleTreeNode child : nodeArray) {
+            if (child != null) {
+                SingleTreeNode found = child.descendTo(actionsTaken, index + 1);
+                if (found != null)
+                    return found;
+            }
+        }
+        return null;
+    }
+
+    private void makeRoot(SingleTreeNode oldRoot, AbstractGameState state) {
+        nodeCount = 0;
+        for (SingleTreeNode node : allNodesInTree()) {
+            if (node != this)
+                node.depth -= depth;
+            node.root = this;
+            nodeCount++;
+        }
+        nodePool = oldRoot.nodePool;
+        if (oldRoot.pruneOrder != null) {
+            pruneOrder = new SingleTreeNode[PRUNE_LISTS];
+            rebuildPruneOrder();
+        }
+        depth = 0;
+        parent = null;
+        actionToReach = null;
+        fmCallsCount = 0;
+        copyCount = 0;
+        paranoidPlayer = oldRoot.paranoidPlayer;
+        lowReward = oldRoot.lowReward;
+        highReward = oldRoot.highReward;
+        MASTStatistics = oldRoot.MASTStatistics;
+        actionTable = oldRoot.actionTable;
+        setRootMASTFunction();
+        round = state.getRoundCounter();
+        turn = state.getTurnCounter();
+        turnOwner = state.getTurnOwner();
+        terminalNode = !state.isNotTerminal();
+        // as in instantiate(), the root keeps its own copy of the state, which must never be changed
+        copyCount++;
+        this.state = state.copy();
+        setActionsFromOpenLoopState(state);
     }
 
     public static SingleTreeNode createChildNode(SingleTreeNode parent, AbstractAction actionToReach, AbstractGameState state) {
-        SingleTreeNode retValue = (parent instanceof OMATreeNode) ? new OMATreeNode() : new SingleTreeNode();
+        SingleTreeNode root = parent.root;
+        SingleTreeNode retValue;
+        if (parent instanceof OMATreeNode)
+            retValue = new OMATreeNode();
+        else if (root.nodePool != null && !root.nodePool.isEmpty())
+            retValue = root.nodePool.pop();
+        else
+            retValue = new SingleTreeNode();
         retValue.instantiate(parent, actionToReach, state);
+        root.nodeCount++;
+        if (root.pruneOrder != null)
+            root.addToPruneOrder(retValue);
         return retValue;
     }
 
@@ -130,6 +261,10 @@ public class SingleTreeNode {
         this.opponentModels = root.opponentModels;
         this.forwardModel = root.forwardModel;
         this.rnd = root.rnd;
+        if (parent == null && actionTable == null && forwardModel.getActionCodec() != null)
+            actionTable = new ActionTable(forwardModel.getActionCodec());
+        if (root.actionTable != null && !(children instanceof ActionIndexedMap && ((ActionIndexedMap<?>) children).table == root.actionTable))
+            children = new ActionIndexedMap<>(root.actionTable);
         this.round = state.getRoundCounter();
         this.turn = state.getTurnCounter();
         this.turnOwner = state.getTurnOwner();
@@ -144,8 +279,15 @@ public class SingleTreeNode {
             depth = 0;
         }
 
-        totValue = new double[state.getNPlayers()];
-        totSquares = new double[state.getNPlayers()];
+        if (parent == null) {
+            nodeCount = 1;
+            if (params.maxNodes > 0 && canPrune())
+                pruneOrder = new SingleTreeNode[PRUNE_LISTS];
+        }
+        if (totValue == null || totValue.length != state.getNPlayers()) {
+            totValue = new double[state.getNPlayers()];
+            totSquares = new double[state.getNPlayers()];
+        }
         if (params.information != Closed_Loop && (params.maintainMasterState || depth == 0)) {
             // if we're using open loop, then we need to make sure the reference state is never changed
             // however this is only used at the root - and we can switch the copy off for other nodes for performance
@@ -179,6 +321,8 @@ public class SingleTreeNode {
         openLoopState = actionState;
         if (actionState.getCurrentPlayer() == this.decisionPlayer) {
             actionsFromOpenLoopState = forwardModel.computeAvailableActions(actionState);
+            if (root.actionTable != null)
+                actionIDsFromOpenLoopState = root.actionTable.internAll(actionsFromOpenLoopState, actionIDsFromOpenLoopState);
             //      System.out.printf("Setting OLS actions for P%d (%d)%n%s%n", decisionPlayer, actionState.getCurrentPlayer(),
 //                actionsFromOpenLoopState.stream().map(a -> "\t" + a.toString() + "\n").collect(joining()));
             if (params.expansionPolicy == MAST) {
@@ -225,8 +369,18 @@ public class SingleTreeNode {
                     openLoopState = state;
                     break;
                 case Open_Loop:
-                    openLoopState = state.copy();
-                    copyCount++;
+                    if (params.useUndo && forwardModel.supportsUndo() && !(this instanceof MultiTreeNode)) {
+                        if (undoState == null) {
+                            undoState = state.copy();
+                            undoTokens = new ArrayList<>();
+                            undoBroken = false;
+                            copyCount++;
+                        }
+                        openLoopState = undoState;
+                    } else {
+                        openLoopState = state.copy();
+                        copyCount++;
+                    }
                     break;
                 case Information_Set:
                     openLoopState = state.copy(decisionPlayer);
@@ -239,6 +393,8 @@ public class SingleTreeNode {
 
             // Selection + expansion: navigate tree until a node not fully expanded is found, add a new node to the tree
             oneSearchIteration();
+            if (undoState != null)
+                rewindUndoState();
 
             // Finished iteration
             numIters++;
@@ -356,9 +512,29 @@ public class SingleTreeNode {
         return retValue;
     }
 
+    /**
+     * Counts a valid visit for each of actionsFromOpenLoopState, when the root has an actionTable.
+     */
+    private void addValidVisits() {
+        for (int i = 0; i < actionsFromOpenLoopState.size(); i++)
+            addValidVisits(actionIDsFromOpenLoopState[i], 1);
+    }
+
+    private void addValidVisits(int id, int visits) {
+        if (validVisitsByID == null || id >= validVisitsByID.length)
+            validVisitsByID = validVisitsByID == null ? new int[Math.max(16, id + 1)]
+                    : Arrays.copyOf(validVisitsByID, Math.max(validVisitsByID.length * 2, id + 1));
+        validVisitsByID[id] += visits;
+    }
+
     private int validVisitsFor(AbstractAction action) {
         if (params.information == Closed_Loop)
             return nVisits;
+        if (root.actionTable != null) {
+            // as with nValidVisits, an action with no valid visits counts as one
+            int id = root.actionTable.indexOf(action);
+            return id < 0 || validVisitsByID == null || id >= validVisitsByID.length || validVisitsByID[id] == 0 ? 1 : validVisitsByID[id];
+        }
         return nValidVisits.getOrDefault(action, 1);
     }
 
@@ -412,11 +588,16 @@ public class SingleTreeNode {
 
         SingleTreeNode cur = this;
         int actingPlayer = cur.decisionPlayer;
+        if (root.atNodeLimit() && root.canPrune())
+            root.pruneTree();
 
         // Keep iterating while the state reached is not terminal and the depth of the tree is not exceeded
         while (cur.openLoopState.isNotTerminalForPlayer(actingPlayer) && cur.depth < params.maxTreeDepth && cur.actionsFromOpenLoopState.size() > 0) {
             List<AbstractAction> unexpanded = cur.unexpandedActions();
-            if (!unexpanded.isEmpty()) {
+            if (!unexpanded.isEmpty() && root.atNodeLimit()) {
+                // the tree cannot grow any further, so we roll out from here
+                break;
+            } else if (!unexpanded.isEmpty()) {
                 // We have an unexpanded action
                 AbstractAction chosen = cur.expand(unexpanded);
                 AbstractGameState nextState = cur.openLoopState;
@@ -439,14 +620,185 @@ public class SingleTreeNode {
                     // to pick it up in the next uct() call as we descend the tree
                     cur.advance(cur.openLoopState, chosen);
                 }
-                cur = cur.nextNodeInTree(chosen);
-                // else we keep cur, but will exit immediately
+                SingleTreeNode next = cur.nextNodeInTree(chosen);
                 treeActions.add(new Pair<>(actingPlayer, chosen));
+                if (next == null)
+                    break; // a new node would be needed for this transition, and the tree is at maxNodes
+                cur = next;
             }
         }
         return cur;
     }
 
+    /**
+     * @return - true if this is the root, and the tree has MCTSParams.maxNodes nodes (if that is positive)
+     */
+    boolean atNodeLimit() {
+        return params.maxNodes > 0 && nodeCount >= params.maxNodes;
+    }
+
+    /**
+     * OMA trees keep statistics about the nodes below each OMA node, and with a transposition table a node can have
+     * several parents, so neither of these is pruned. They simply stop growing at maxNodes.
+     */
+    boolean canPrune() {
+        return transpositions == null && !(this instanceof OMATreeNode);
+    }
+
+    /**
+     * Called on the root when the tree reaches MCTSParams.maxNodes. The least visited nodes (with their subtrees) are
+     * removed until the tree is down to three quarters of maxNodes, so that it can grow for a while before this is
+     * needed again. Of the nodes with the same visits, the one that reached that number first goes first. An action
+     * whose nodes have all been removed becomes unexpanded again. The nodes removed are kept in nodePool, to be reused
+     * by createChildNode().
+     */
+    void pruneTree() {
+        int target = params.maxNodes * 3 / 4;
+        int visits = 0;
+        while (nodeCount > target) {
+            while (visits < PRUNE_LISTS - 1 && pruneOrder[visits] == null)
+                visits++;
+            if (visits == PRUNE_LISTS - 1)
+                break;
+            SingleTreeNode node = pruneOrder[visits];
+            node.parent.removeChild(node);
+            releaseSubtree(node);
+        }
+        if (nodeCount > target && pruneOrder[PRUNE_LISTS - 1] != null) {
+            // only the nodes with the most visits are left, and these are not kept in order of visits, so are sorted
+            List<SingleTreeNode> nodes = new ArrayList<>();
+            SingleTreeNode node = pruneOrder[PRUNE_LISTS - 1];
+            do {
+                nodes.add(node);
+                node = node.nextInPruneOrder;
+            } while (node != pruneOrder[PRUNE_LISTS - 1]);
+            nodes.sort(Comparator.comparingInt(n -> n.nVisits));
+            for (SingleTreeNode n : nodes) {
+                if (nodeCount <= target)
+                    break;
+                if (n.root != this)
+                    continue; // already removed with an ancestor
+                n.parent.removeChild(n);
+                releaseSubtree(n);
+            }
+        }
+    }
+
+    private void addToPruneOrder(SingleTreeNode node) {
+        int list = Math.min(node.nVisits, PRUNE_LISTS - 1);
+        SingleTreeNode first = pruneOrder[list];
+        if (first == null) {
+            node.prevInPruneOrder = node;
+            node.nextInPruneOrder = node;
+            pruneOrder[list] = node;
+        } else {
+            // at the end of the list, which is just before the first node
+            node.prevInPruneOrder = first.prevInPruneOrder;
+            node.nextInPruneOrder = first;
+            first.prevInPruneOrder.nextInPruneOrder = node;
+            first.prevInPruneOrder = node;
+        }
+    }
+
+    private void removeFromPruneOrder(SingleTreeNode node) {
+        if (node.nextInPruneOrder == null)
+            return;
+        int list = Math.min(node.nVisits, PRUNE_LISTS - 1);
+        if (node.nextInPruneOrder == node) {
+            pruneOrder[list] = null;
+        } else {
+            node.prevInPruneOrder.nextInPruneOrder = node.nextInPruneOrder;
+            node.nextInPruneOrder.prevInPruneOrder = node.prevInPruneOrder;
+            if (pruneOrder[list] == node)
+                pruneOrder[list] = node.nextInPruneOrder;
+        }
+        node.prevInPruneOrder = null;
+        node.nextInPruneOrder = null;
+    }
+
+    /**
+     * Called on the root when the nodes in the tree, or their visits, have changed other than one at a time (on
+     * re-rooting, or merging another tree). Nodes with the same visits then go in the order they are found.
+     */
+    private void rebuildPruneOrder() {
+        Arrays.fill(pruneOrder, null);
+        List<SingleTreeNode> nodes = allNodesInTree();
+        for (SingleTreeNode node : nodes) {
+            node.prevInPruneOrder = null;
+            node.nextInPruneOrder = null;
+        }
+        for (SingleTreeNode node : nodes) {
+            if (node != this)
+                addToPruneOrder(node);
+        }
+    }
+
+    private void removeChild(SingleTreeNode child) {
+        SingleTreeNode[] nodeArray = children.get(child.actionToReach);
+        boolean anyLeft = false;
+        for (int p = 0; p < nodeArray.length; p++) {
+            if (nodeArray[p] == child)
+                nodeArray[p] = null;
+            else if (nodeArray[p] != null)
+                anyLeft = true;
+        }
+        if (!anyLeft)
+            children.put(child.actionToReach, null); // to be expanded again
+    }
+
+    /**
+     * Called on the root for a node that is no longer in the tree. The node and all nodes below it are cleared, and
+     * put in nodePool.
+     */
+    private void releaseSubtree(SingleTreeNode node) {
+        if (nodePool == null)
+            nodePool = new ArrayDeque<>();
+        Deque<SingleTreeNode> toRelease = new ArrayDeque<>();
+        toRelease.push(node);
+        while (!toRelease.isEmpty()) {
+            SingleTreeNode n = toRelease.pop();
+            for (SingleTreeNode[] nodeArray : n.children.values()) {
+                if (nodeArray != null)
+                    for (SingleTreeNode child : nodeArray)
+                        if (child != null)
+                            toRelease.push(child);
+            }
+            nodeCount--;
+            if (pruneOrder != null)
+                removeFromPruneOrder(n);
+            n.clear();
+            if (n.getClass() == SingleTreeNode.class)
+                nodePool.push(n);
+        }
+    }
+
+    /**
+     * Removes all references from a node that is no longer in the tree, and resets its statistics, so that it can be
+     * instantiated again.
+     */
+    private void clear() {
+        root = null;
+        parent = null;
+        state = null;
+        openLoopState = null;
+        actionToReach = null;
+        nVisits = 0;
+        rolloutActionsTaken = 0;
+        fmCallsCount = 0;
+        copyCount = 0;
+        paranoidPlayer = -1;
+        highReward = Double.NEGATIVE_INFINITY;
+        lowReward = Double.POSITIVE_INFINITY;
+        nValidVisits.clear();
+        if (validVisitsByID != null)
+            Arrays.fill(validVisitsByID, 0);
+        children.clear();
+        actionsFromOpenLoopState = new ArrayList<>();
+        advantagesOfActionsFromOLS = new HashMap<>();
+        Arrays.fill(totValue, 0.0);
+        Arrays.fill(totSquares, 0.0);
+    }
+
     protected List<AbstractAction> actionsToConsider(List<AbstractAction> allAvailable, int usedElsewhere) {
         if (!allAvailable.isEmpty() && params.progressiveWideningConstant >= 1.0) {
             int actionsToConsider = (int) Math.floor(params.progressiveWideningConstant * Math.pow(nVisits + 1, params.progressiveWideningExponent));
@@ -509,7 +861,20 @@ public class SingleTreeNode {
     protected SingleTreeNode expandNode(AbstractAction actionCopy, AbstractGameState nextState) {
         // then instantiate a new node
         int nextPlayer = params.opponentTreePolicy.selfOnlyTree ? decisionPlayer : nextState.getCurrentPlayer();
-        SingleTreeNode tn = SingleTreeNode.createChildNode(this, actionCopy, nextState);
+        SingleTreeNode tn = null;
+        if (root.transpositions != null) {
+            // if we already have a node for this state (reached by other actions), then we link to that
+            long hash = nextState.longHash();
+            tn = root.transpositions.get(hash, nextState, depth + 1);
+            if (tn == null) {
+                tn = SingleTreeNode.createChildNode(this, actionCopy, nextState);
+                root.transpositions.put(hash, tn);
+            } else {
+                tn.parent = this;
+            }
+        }
+        if (tn == null)
+            tn = SingleTreeNode.createChildNode(this, actionCopy, nextState);
         SingleTreeNode[] nodeArray = new SingleTreeNode[nextState.getNPlayers()];
         nodeArray[nextPlayer] = tn; // we store this by id of the player who will take their turn next
         children.put(actionCopy, nodeArray);
@@ -528,7 +893,7 @@ public class SingleTreeNode {
      */
     protected void advance(AbstractGameState gs, AbstractAction act) {
         // we execute a copy(), because this can change the action, so we then don't find the node later!
-        forwardModel.next(gs, act.copy());
+        root.applyAction(gs, act.copy());
         root.fmCallsCount++;
         if (params.opponentTreePolicy == SelfOnly && gs.getCurrentPlayer() != decisionPlayer)
             advanceToTurnOfPlayer(gs, decisionPlayer);
@@ -549,11 +914,40 @@ public class SingleTreeNode {
             if (availableActions.isEmpty())
                 throw new AssertionError("Should always have at least one action possible...");
             AbstractAction action = oppModel._getAction(gs, availableActions);
-            forwardModel.next(gs, action);
+            root.applyAction(gs, action);
             root.fmCallsCount++;
         }
     }
 
+    /**
+     * Applies the action with the forward model. If the state is the root's undoState, this records how to undo it.
+     * Only called on the root.
+     */
+    private void applyAction(AbstractGameState gs, AbstractAction action) {
+        if (gs == undoState && !undoBroken) {
+            if (forwardModel.canUndo(gs)) {
+                undoTokens.add(forwardModel.nextWithUndo(gs, action));
+                return;
+            }
+            undoBroken = true;
+        }
+        forwardModel.next(gs, action);
+    }
+
+    /**
+     * Puts undoState back to the root state at the end of an iteration, by rewinding the actions taken in reverse
+     * order.
+     */
+    private void rewindUndoState() {
+        if (undoBroken) {
+            undoState = null;
+            return;
+        }
+        for (int i = undoTokens.size() - 1; i >= 0; i--)
+            forwardModel.rewind(undoState, undoTokens.get(i));
+        undoTokens.clear();
+    }
+
     /**
      * Apply relevant policy to choose a child.
      *
@@ -598,6 +992,8 @@ public class SingleTreeNode {
             // in this case we have determinism...there should just be a single child node in the array...so we get that
             Optional<SingleTreeNode> next = Arrays.stream(nodeArray).filter(Objects::nonNull).findFirst();
             if (next.isPresent()) {
+                if (root.transpositions != null)
+                    next.get().parent = this;
                 return next.get();
             } else {
                 throw new AssertionError("We have no node to move to...");
@@ -609,9 +1005,12 @@ public class SingleTreeNode {
                 // need to create a new node - this is because we have a different player acting than expected
                 if (params.opponentTreePolicy.selfOnlyTree)
                     throw new AssertionError("Not sure this should be possible though");
+                if (root.atNodeLimit())
+                    return null;
                 nodeArray[nextPlayer] = SingleTreeNode.createChildNode(this, actionChosen.copy(), openLoopState);
                 nextNode = nodeArray[nextPlayer];
             } else if (params.opponentTreePolicy.selfOnlyTree && nextNode.decisionPlayer != decisionPlayer) {
+                root.releaseSubtree(nextNode);
                 nodeArray[nextPlayer] = SingleTreeNode.createChildNode(this, actionChosen.copy(), openLoopState);
                 nextNode = nodeArray[nextPlayer];
             } else {
@@ -894,10 +1293,19 @@ public class SingleTreeNode {
                 if (n.depth > 0 && !params.maintainMasterState)
                     n.state = null;
             }
-            n.nVisits++;
+            if (n.nextInPruneOrder != null && n.nVisits < PRUNE_LISTS - 1) {
+                // move to the end of the list for its new number of visits
+                n.root.removeFromPruneOrder(n);
+                n.nVisits++;
+                n.root.addToPruneOrder(n);
+            } else {
+                n.nVisits++;
+            }
             // Here we look at actionsFromOpenLoopState to see which ones were valid
             // when we passed through, and keep track of valid visits
-            if (params.information != Closed_Loop)
+            if (params.information != Closed_Loop && root.actionTable != null)
+                n.addValidVisits();
+            else if (params.information != Closed_Loop)
                 for (AbstractAction action : n.actionsFromOpenLoopState) {
                     if (!n.nValidVisits.containsKey(action))
                         n.nValidVisits.put(action, 1);
@@ -999,6 +1407,97 @@ public class SingleTreeNode {
         return bestAction;
     }
 
+    /**
+     * Used for root parallelisation. Adds the statistics of the root, and of the immediate children, of another tree
+     * searched from the same state into this one, so that bestAction() is based on the visits and values of all the
+     * trees. Children that only the other tree has expanded are moved across to this one. Statistics below the
+     * immediate children are not merged.
+     *
+     * @param other - the root of another tree, which should not be used afterwards
+     */
+    public void mergeRootStatistics(SingleTreeNode other) {
+        if (other.decisionPlayer != decisionPlayer)
+            throw new AssertionError("Cannot merge trees for different decision players");
+        addStatistics(other);
+        lowReward = Math.min(lowReward, other.lowReward);
+        highReward = Math.max(highReward, other.highReward);
+        for (Map.Entry<AbstractAction, Integer> entry : other.nValidVisits.entrySet())
+            nValidVisits.merge(entry.getKey(), entry.getValue(), Integer::sum);
+        if (other.validVisitsByID != null) {
+            // the trees have different action tables, so the IDs are matched up through the actions
+            for (int id = 0; id < other.validVisitsByID.length; id++) {
+                if (other.validVisitsByID[id] > 0)
+                    addValidVisits(root.actionTable.id(other.root.actionTable.get(id)), other.validVisitsByID[id]);
+            }
+        }
+        for (Map.Entry<AbstractAction, SingleTreeNode[]> entry : other.children.entrySet()) {
+            SingleTreeNode[] otherNodes = entry.getValue();
+            if (otherNodes == null) {
+                children.putIfAbsent(entry.getKey(), null);
+                continue;
+            }
+            SingleTreeNode[] nodes = children.get(entry.getKey());
+            if (nodes == null) {
+                nodes = new SingleTreeNode[otherNodes.length];
+                children.put(entry.getKey(), nodes);
+            }
+            for (int p = 0; p < otherNodes.length; p++) {
+                if (otherNodes[p] == null)
+                    continue;
+                if (nodes[p] == null) {
+                    nodes[p] = otherNodes[p];
+                    nodes[p].parent = this;
+                    // the moved nodes must use this tree's forward model, random generator etc. from now on
+                    for (SingleTreeNode node : nodes[p].allNodesInTree()) {
+                        nodeCount++;
+                        node.root = this;
+                        node.params = params;
+                        node.heuristic = heuristic;
+                        node.opponentModels = opponentModels;
+                        node.forwardModel = forwardModel;
+                        node.rnd = rnd;
+                        node.changeActionTable(other.actionTable);
+                    }
+                } else {
+                    nodes[p].addStatistics(otherNodes[p]);
+                }
+            }
+        }
+        if (pruneOrder != null)
+            rebuildPruneOrder();
+    }
+
+    /**
+     * Called on a node moved from another tree (see mergeRootStatistics()), to index its children and valid visits by
+     * the IDs of this tree's action table rather than the one they came from.
+     */
+    private void changeActionTable(ActionTable from) {
+        ActionTable to = root.actionTable;
+        if (from == null || to == null || from == to)
+            return;
+        Map<AbstractAction, SingleTreeNode[]> oldChildren = children;
+        children = new ActionIndexedMap<>(to);
+        children.putAll(oldChildren);
+        if (validVisitsByID != null) {
+            int[] oldVisits = validVisitsByID;
+            validVisitsByID = null;
+            for (int id = 0; id < oldVisits.length; id++) {
+                if (oldVisits[id] > 0)
+                    addValidVisits(to.id(from.get(id)), oldVisits[id]);
+            }
+        }
+        if (actionIDsFromOpenLoopState != null)
+            actionIDsFromOpenLoopState = to.internAll(actionsFromOpenLoopState, null);
+    }
+
+    private void addStatistics(SingleTreeNode other) {
+        nVisits += other.nVisits;
+        for (int p = 0; p < totValue.length; p++) {
+            totValue[p] += other.totValue[p];
+            totSquares[p] += other.totSquares[p];
+        }
+    }
+
     public int getVisits() {
         return nVisits;
     }
@@ -1063,12 +1562,23 @@ public class SingleTreeNode {
         return parent;
     }
 
+    /**
+     * @return the transposition table of this tree (held by the root), or null if nodes are not shared
+     */
+    public TranspositionTable getTranspositionTable() {
+        return root.transpositions;
+    }
+
     public List<SingleTreeNode> allNodesInTree() {
         List<SingleTreeNode> retValue = new ArrayList<>();
+        // with a transposition table the same node can be reached from several parents, but we list it once
+        Set<SingleTreeNode> seen = Collections.newSetFromMap(new IdentityHashMap<>());
         Queue<SingleTreeNode> nodeQueue = new ArrayDeque<>();
         nodeQueue.add(this);
         while (!nodeQueue.isEmpty()) {
             SingleTreeNode node = nodeQueue.poll();
+            if (!seen.add(node))
+                continue;
             retValue.add(node);
             nodeQueue.addAll(node.getChildren().values().stream()
                     .filter(Objects::nonNull)
@@ -0,0 +1,117 @@
+package players.mcts;
+
+import core.AbstractGameState;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded table of tree nodes keyed on AbstractGameState.longHash(). Used in Closed_Loop search so that all the
+ * sequences of actions that reach the same state share one node (and its statistics), turning the tree into a DAG.
+ * <p>
+ * Only nodes at the same depth are shared, which keeps the DAG acyclic in games where a state can repeat.
+ * States are not compared with equals(), as that also compares the game tick. The tick counts every action applied
+ * to the state, including those that do not add a node to the tree (such as opponents' actions in a SelfOnly tree),
+ * so the same position at the same depth can have different ticks. This relies on longHash() (which leaves out the
+ * tick) to tell states apart instead. Games that do not override AbstractGameState._longHash() fall back on a hash
+ * that includes the tick, and so rarely find transpositions.
+ * A node that drops out of the table stays in the tree; it just stops being found by other sequences of actions.
+ * When the table is full, new nodes replace old ones according to MCTSParams.transpositionReplacement:
+ * - DepthPreferred keeps one node per slot, and only replaces it with a node that is at least as shallow (as nodes
+ * nearer the root summarise more of the search).
+ * - LRU keeps the most recently used nodes.
+ */
+public class TranspositionTable {
+
+    private final MCTSEnums.TranspositionReplacement replacement;
+    private final int capacity;
+    // DepthPreferred: one slot per hash bucket
+    private long[] keys;
+    private SingleTreeNode[] slots;
+    // LRU: ordered by last access
+    private LinkedHashMap<Long, SingleTreeNode> recent;
+    private int hits, misses;
+
+    public TranspositionTable(int capacity, MCTSEnums.TranspositionReplacement replacement) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Transposition table size must be positive: " + capacity);
+        this.capacity = capacity;
+        this.replacement = replacement;
+        switch (replacement) {
+            case DepthPreferred:
+                keys = new long[capacity];
+                slots = new SingleTreeNode[capacity];
+                break;
+            case LRU:
+                recent = new LinkedHashMap<Long, SingleTreeNode>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<Long, SingleTreeNode> eldest) {
+                        return size() > TranspositionTable.this.capacity;
+                    }
+                };
+                break;
+            default:
+                throw new AssertionError("Unknown replacement policy: " + replacement);
+        }
+    }
+
+    /**
+     * Finds the node for the given state, if there is one in the table at the given depth.
+     *
+     * @param hash  - longHash() of the state.
+     * @param state - the state, used to check that the same player is to move.
+     * @param depth - depth of the node wanted.
+     * @return - the node, or null if there is none.
+     */
+    public SingleTreeNode get(long hash, AbstractGameState state, int depth) {
+        SingleTreeNode node;
+        if (replacement == MCTSEnums.TranspositionReplacement.DepthPreferred) {
+            int slot = slot(hash);
+            node = slots[slot] != null && keys[slot] == hash ? slots[slot] : null;
+        } else {
+            node = recent.get(hash);
+        }
+        if (node == null || node.depth != depth || node.decisionPlayer != state.getCurrentPlayer()) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return node;
+    }
+
+    /**
+     * Adds a node to the table, which may replace another.
+     *
+     * @param hash - longHash() of the state in the node.
+     * @param node - the node.
+     */
+    public void put(long hash, SingleTreeNode node) {
+        if (replacement == MCTSEnums.TranspositionReplacement.DepthPreferred) {
+            int slot = slot(hash);
+            if (slots[slot] == null || node.depth <= slots[slot].depth) {
+                keys[slot] = hash;
+                slots[slot] = node;
+            }
+        } else {
+            recent.put(hash, node);
+        }
+    }
+
+    private int slot(long hash) {
+        return (int) Long.remainderUnsigned(hash, capacity);
+    }
+
+    /**
+     * @return - the number of nodes found in the table.
+     */
+    public int getHits() {
+        return hits;
+    }
+
+    /**
+     * @return - the number of lookups that did not find a node.
+     */
+    public int getMisses() {
+        return misses;
+    }
+}
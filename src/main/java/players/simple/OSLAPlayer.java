@@ -4,6 +4,7 @@ import core.AbstractForwardModel;
 import core.AbstractGameState;
 import core.AbstractGameStateWithTurnOrder;
 import core.AbstractPlayer;
+import core.UndoToken;
 import core.actions.AbstractAction;
 import core.interfaces.IStateHeuristic;
 import core.turnorders.StandardTurnOrder;
@@ -46,14 +47,25 @@ public class OSLAPlayer extends AbstractPlayer {
         AbstractAction bestAction = null;
         int playerID = gs.getCurrentPlayer();
 
+        // If the forward model can undo actions, then each action is tried and undone on a single copy of the state
+        AbstractForwardModel fm = getForwardModel();
+        boolean advanceToEndOfRound = gs instanceof AbstractGameStateWithTurnOrder && ((AbstractGameStateWithTurnOrder) gs).getTurnOrder() instanceof StandardTurnOrder;
+        AbstractGameState scratch = !advanceToEndOfRound && fm.canUndo(gs) ? gs.copy() : null;
+
         double[] valState = new double[actions.size()];
         for (int actionIndex = 0; actionIndex < actions.size(); actionIndex++) {
             AbstractAction action = actions.get(actionIndex);
-            AbstractGameState gsCopy = gs.copy();
-
-            getForwardModel().next(gsCopy, action);
+            AbstractGameState gsCopy;
+            UndoToken undo = null;
+            if (scratch != null) {
+                gsCopy = scratch;
+                undo = fm.nextWithUndo(gsCopy, action);
+            } else {
+                gsCopy = gs.copy();
+                fm.next(gsCopy, action);
+            }
 
-            if (gs instanceof AbstractGameStateWithTurnOrder && ((AbstractGameStateWithTurnOrder)gsCopy).getTurnOrder() instanceof StandardTurnOrder) {
+            if (advanceToEndOfRound) {
                 advanceToEndOfRoundWithRandomActions(gsCopy, playerID);
             }
 
@@ -63,6 +75,9 @@ public class OSLAPlayer extends AbstractPlayer {
                 valState[actionIndex] = gsCopy.getHeuristicScore(playerID);
             }
 
+            if (undo != null)
+                fm.rewind(scratch, undo);
+
             double Q = noise(valState[actionIndex], this.epsilon, this.random.nextDouble());
             //     System.out.println(Arrays.stream(valState).mapToObj(v -> String.format("%1.3f", v)).collect(Collectors.joining("\t")));
 
@@ -0,0 +1,46 @@
+package utilities;
+
+/**
+ * Helpers for building 64-bit Zobrist-style hashes, as used by AbstractGameState.longHash().
+ * <p>
+ * A classic Zobrist hash XORs together one random key per (position, piece) pair, so that moving a piece only
+ * needs the keys for the squares it leaves and enters. Rather than holding tables of random keys (which would need
+ * to know every position and component in advance) the keys here are computed by mixing the inputs with the
+ * SplitMix64 finaliser, which gives well-distributed 64-bit values and is cheap enough to call on every change.
+ */
+public final class ZobristHash {
+
+    private ZobristHash() {
+    }
+
+    /**
+     * @param x - value to mix.
+     * @return - a well-distributed 64-bit key for the value.
+     */
+    public static long mix(long x) {
+        x += 0x9E3779B97F4A7C15L;
+        x = (x ^ (x >>> 30)) * 0xBF58476D1CE4E5B9L;
+        x = (x ^ (x >>> 27)) * 0x94D049BB133111EBL;
+        return x ^ (x >>> 31);
+    }
+
+    /**
+     * @param position - where the item is (e.g. a cell index).
+     * @param item     - what is there (e.g. a component ID).
+     * @return - the key for the item being in that position.
+     */
+    public static long key(long position, long item) {
+        return mix(mix(position) ^ item);
+    }
+
+    /**
+     * Combines a hash with another value, in an order-dependent way.
+     *
+     * @param hash  - hash so far.
+     * @param value - value to add to it.
+     * @return - the combined hash.
+     */
+    public static long combine(long hash, long value) {
+        return mix(hash * 31 + value);
+    }
+}
@@ -0,0 +1,104 @@
+package test.core;
+
+import core.AbstractForwardModel;
+import core.AbstractGameState;
+import core.Game;
+import core.actions.AbstractAction;
+import core.actions.ActionTable;
+import core.actions.SetGridValueAction;
+import core.components.Token;
+import core.interfaces.IActionCodec;
+import games.GameType;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class ActionTableTest {
+
+    // All the actions for both players in the first few moves of a game
+    private static List<AbstractAction> someActions(GameType gameType) {
+        Game game = gameType.createGameInstance(2, 1);
+        AbstractGameState state = game.getGameState();
+        AbstractForwardModel fm = game.getForwardModel();
+        List<AbstractAction> retValue = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            List<AbstractAction> actions = fm.computeAvailableActions(state);
+            retValue.addAll(actions);
+            fm.next(state, actions.get(actions.size() / 2));
+        }
+        return retValue;
+    }
+
+    @Test
+    public void codecsEncodeEqualActionsTheSame() {
+        for (GameType gameType : new GameType[]{GameType.TicTacToe, GameType.Connect4, GameType.DotsAndBoxes}) {
+            IActionCodec codec = gameType.createGameInstance(2, 1).getForwardModel().getActionCodec();
+            List<AbstractAction> actions = someActions(gameType);
+            for (AbstractAction a : actions) {
+                long code = codec.encode(a);
+                // (the players' tokens are static, and so have component IDs above 2^30)
+                assertTrue(gameType + " " + a, code >= 0);
+                assertEquals(code, codec.encode(a.copy()));
+                for (AbstractAction b : actions)
+                    assertEquals(a.equals(b), code == codec.encode(b));
+            }
+        }
+    }
+
+    @Test
+    public void gridCodecOnlyEncodesTheGivenValues() {
+        Token x = new Token("x"), o = new Token("o"), other = new Token("other");
+        IActionCodec codec = SetGridValueAction.codec(Arrays.asList(x, o));
+        long code = codec.encode(new SetGridValueAction<>(5, 1, 2, x));
+        assertTrue(code >= 0);
+        assertNotEquals(code, codec.encode(new SetGridValueAction<>(5, 1, 2, o)));
+        assertNotEquals(code, codec.encode(new SetGridValueAction<>(5, 2, 1, x)));
+        assertNotEquals(code, codec.encode(new SetGridValueAction<>(6, 1, 2, x)));
+        assertEquals(-1, codec.encode(new SetGridValueAction<>(5, 1, 2, other)));
+        assertEquals(-1, codec.encode(new SetGridValueAction<>(5, 1 << 12, 2, x)));
+    }
+
+    private void checkTable(ActionTable table, List<AbstractAction> actions) {
+        Map<AbstractAction, Integer> expected = new HashMap<>();
+        List<AbstractAction> firstSeen = new ArrayList<>();
+        for (AbstractAction action : actions) {
+            assertEquals(expected.getOrDefault(action, -1).intValue(), table.indexOf(action));
+            AbstractAction copy = action.copy();
+            if (!expected.containsKey(action)) {
+                expected.put(action, expected.size());
+                firstSeen.add(copy);
+            }
+            assertEquals(expected.get(action).intValue(), table.id(copy));
+            assertSame(firstSeen.get(expected.get(action)), table.intern(action.copy()));
+        }
+        assertEquals(expected.size(), table.size());
+        for (int id = 0; id < table.size(); id++)
+            assertSame(firstSeen.get(id), table.get(id));
+
+        List<AbstractAction> copies = new ArrayList<>();
+        for (AbstractAction action : actions)
+            copies.add(action.copy());
+        int[] ids = table.internAll(copies, new int[1]);
+        assertTrue(ids.length >= actions.size());
+        for (int i = 0; i < actions.size(); i++) {
+            assertSame(firstSeen.get(ids[i]), copies.get(i));
+            assertEquals(expected.get(actions.get(i)).intValue(), ids[i]);
+        }
+    }
+
+    @Test
+    public void tableGivesDenseIDsWithACodec() {
+        // Dots and Boxes has more than enough actions to make the table grow
+        List<AbstractAction> actions = someActions(GameType.DotsAndBoxes);
+        assertTrue(actions.size() > 64);
+        checkTable(new ActionTable(GameType.DotsAndBoxes.createGameInstance(2, 1).getForwardModel().getActionCodec()), actions);
+    }
+
+    @Test
+    public void tableGivesDenseIDsWithoutACodec() {
+        checkTable(new ActionTable(null), someActions(GameType.DotsAndBoxes));
+        checkTable(new ActionTable(null), someActions(GameType.TicTacToe));
+    }
+}
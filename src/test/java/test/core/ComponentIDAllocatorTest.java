@@ -0,0 +1,98 @@
+package test.core;
+
+import core.AbstractGameState;
+import core.components.Component;
+import core.components.ComponentIDAllocator;
+import core.components.Token;
+import games.connect4.Connect4Constants;
+import games.connect4.Connect4ForwardModel;
+import games.connect4.Connect4GameParameters;
+import games.connect4.Connect4GameState;
+import games.tictactoe.TicTacToeConstants;
+import games.tictactoe.TicTacToeForwardModel;
+import games.tictactoe.TicTacToeGameParameters;
+import games.tictactoe.TicTacToeGameState;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class ComponentIDAllocatorTest {
+
+    private static Set<Integer> ids(AbstractGameState state) {
+        Set<Integer> ids = new HashSet<>();
+        for (Component c : state.getAllComponents().getComponents())
+            ids.add(c.getComponentID());
+        assertFalse(ids.isEmpty());
+        return ids;
+    }
+
+    @Test
+    public void staticTokensDoNotClashWithGames() {
+        // Setting up these games may be what first initialises the constants classes
+        Connect4GameState connect4 = new Connect4GameState(new Connect4GameParameters(1), 2);
+        new Connect4ForwardModel().setup(connect4);
+        TicTacToeGameState ticTacToe = new TicTacToeGameState(new TicTacToeGameParameters(1), 2);
+        new TicTacToeForwardModel().setup(ticTacToe);
+        new TicTacToeForwardModel().computeAvailableActions(ticTacToe);
+        // A second game of each, whose IDs cover the same range as the first
+        Connect4GameState connect4b = new Connect4GameState(new Connect4GameParameters(2), 2);
+        new Connect4ForwardModel().setup(connect4b);
+        TicTacToeGameState ticTacToeB = new TicTacToeGameState(new TicTacToeGameParameters(2), 2);
+        new TicTacToeForwardModel().setup(ticTacToeB);
+
+        Set<Integer> gameIDs = new HashSet<>(ids(connect4));
+        gameIDs.addAll(ids(ticTacToe));
+        gameIDs.addAll(ids(connect4.copy()));
+        gameIDs.addAll(ids(connect4b));
+        gameIDs.addAll(ids(ticTacToeB));
+        Set<Integer> staticIDs = new HashSet<>();
+        for (Token t : Connect4Constants.playerMapping)
+            staticIDs.add(t.getComponentID());
+        for (Token t : TicTacToeConstants.playerMapping)
+            staticIDs.add(t.getComponentID());
+
+        assertEquals(4, staticIDs.size());
+        for (int id : staticIDs)
+            assertFalse("Static token has ID " + id + " also used in a game", gameIDs.contains(id));
+    }
+
+    @Test
+    public void unboundIgnoresTheBoundAllocator() {
+        ComponentIDAllocator game1 = new ComponentIDAllocator();
+        ComponentIDAllocator game2 = new ComponentIDAllocator();
+        ComponentIDAllocator previous = ComponentIDAllocator.bind(game1);
+        try {
+            Token a = new Token("a");
+            Token constant = ComponentIDAllocator.unbound(() -> new Token("constant"));
+            Token b = new Token("b");
+            assertEquals(0, a.getComponentID());
+            assertEquals(1, b.getComponentID());
+
+            ComponentIDAllocator.bind(game2);
+            Token c = new Token("c");
+            assertEquals(0, c.getComponentID());
+            assertNotEquals(constant.getComponentID(), a.getComponentID());
+            assertNotEquals(constant.getComponentID(), b.getComponentID());
+            assertTrue(constant.getComponentID() >= 1 << 30);
+        } finally {
+            ComponentIDAllocator.bind(previous);
+        }
+    }
+
+    @Test
+    public void bindingIsPerThread() throws InterruptedException {
+        ComponentIDAllocator previous = ComponentIDAllocator.bind(new ComponentIDAllocator());
+        try {
+            int[] otherID = new int[1];
+            Thread other = new Thread(() -> otherID[0] = new Token("other").getComponentID());
+            other.start();
+            other.join();
+            assertTrue(otherID[0] >= 1 << 30);
+            assertEquals(0, new Token("here").getComponentID());
+        } finally {
+            ComponentIDAllocator.bind(previous);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package test.core;
+
+import core.components.Card;
+import core.components.Deck;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+
+import static core.CoreConstants.VisibilityMode.VISIBLE_TO_ALL;
+import static org.junit.Assert.*;
+
+public class DeckCopyOnWriteTest {
+
+    Deck<Card> deck;
+    List<Card> cards;
+
+    @Before
+    public void setup() {
+        deck = new Deck<>("deck", VISIBLE_TO_ALL);
+        cards = new ArrayList<>();
+        for (int i = 0; i < 5; i++)
+            cards.add(new Card("card" + i));
+        // add() puts each card at the top, so add in reverse to keep the deck in the order of cards
+        for (int i = cards.size() - 1; i >= 0; i--)
+            deck.add(cards.get(i));
+    }
+
+    @Test
+    public void copiesStartWithTheSameComponents() {
+        Deck<Card> copy = deck.copyOnWrite();
+        assertEquals(cards, copy.getComponents());
+        assertEquals(deck, copy);
+        assertEquals(deck.longHash(), copy.longHash());
+        assertEquals(cards, copy.copyOnWrite().getComponents());
+    }
+
+    @Test
+    public void changingACopyDoesNotChangeTheOriginal() {
+        Deck<Card> copy = deck.copyOnWrite();
+        long hash = deck.longHash();
+        copy.draw();
+        copy.add(new Card("new"));
+        copy.remove(cards.get(4));
+        assertEquals(cards, deck.getComponents());
+        assertEquals(hash, deck.longHash());
+        assertNotEquals(hash, copy.longHash());
+
+        Deck<Card> other = deck.copyOnWrite();
+        other.clear();
+        assertEquals(0, other.getSize());
+        assertEquals(cards, deck.getComponents());
+    }
+
+    @Test
+    public void changingTheOriginalDoesNotChangeACopy() {
+        Deck<Card> copy = deck.copyOnWrite();
+        Deck<Card> copyOfCopy = copy.copyOnWrite();
+        deck.shuffle(new Random(1));
+        deck.setComponent(0, new Card("new"));
+        deck.pickLast();
+        assertEquals(4, deck.getSize());
+        assertEquals(cards, copy.getComponents());
+        assertEquals(cards, copyOfCopy.getComponents());
+    }
+
+    @Test
+    public void changingTheComponentsListOfACopyDoesNotChangeTheOriginal() {
+        Deck<Card> copy = deck.copyOnWrite();
+        List<Card> components = copy.getComponents();
+        components.remove(0);
+        components.add(new Card("new"));
+        components.set(0, cards.get(4));
+        Iterator<Card> it = components.iterator();
+        it.next();
+        it.remove();
+        components.sort(Comparator.comparing(Card::getComponentName).reversed());
+        assertEquals(cards, deck.getComponents());
+        // the list handed out is a view of the copy, so changes to it are changes to the copy
+        assertEquals(components, copy.getComponents());
+        assertEquals(Arrays.asList("new", "card4", "card3", "card2"), names(copy));
+    }
+
+    @Test
+    public void changingTheComponentsListOfTheOriginalDoesNotChangeACopy() {
+        List<Card> components = deck.getComponents();
+        Deck<Card> copy = deck.copyOnWrite();
+        components.clear();
+        assertEquals(0, deck.getSize());
+        assertEquals(cards, copy.getComponents());
+    }
+
+    @Test
+    public void aViewFollowsItsDeckAfterTheDeckTakesItsOwnCopy() {
+        Deck<Card> copy = deck.copyOnWrite();
+        List<Card> view = copy.getComponents();
+        copy.draw();
+        assertEquals(4, view.size());
+        assertEquals(cards.subList(1, 5), view);
+        assertEquals(5, deck.getComponents().size());
+    }
+
+    private static List<String> names(Deck<Card> deck) {
+        List<String> retValue = new ArrayList<>();
+        for (Card c : deck.getComponents())
+            retValue.add(c.getComponentName());
+        return retValue;
+    }
+}
@@ -0,0 +1,154 @@
+package test.core;
+
+import core.*;
+import core.actions.AbstractAction;
+import core.components.BoardNode;
+import core.components.ComponentIDAllocator;
+import core.components.GraphBoard;
+import core.components.Token;
+import games.GameType;
+import org.junit.Before;
+import org.junit.Test;
+import players.simple.RandomPlayer;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class GameDataCacheTest {
+
+    @Before
+    public void setup() {
+        GameDataCache.clear();
+    }
+
+    @Test
+    public void loadsOnceAndCounts() {
+        AtomicInteger loads = new AtomicInteger();
+        Object first = GameDataCache.get("test:a", () -> {
+            loads.incrementAndGet();
+            return new Object();
+        });
+        Object second = GameDataCache.get("test:a", () -> {
+            loads.incrementAndGet();
+            return new Object();
+        });
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertEquals(1, GameDataCache.getMisses());
+        assertEquals(1, GameDataCache.getHits());
+
+        GameDataCache.clear();
+        assertEquals(0, GameDataCache.getMisses());
+        assertEquals(0, GameDataCache.getHits());
+        assertNotSame(first, GameDataCache.get("test:a", Object::new));
+    }
+
+    @Test
+    public void nullIsNotCached() {
+        assertNull(GameDataCache.get("test:null", () -> null));
+        Object value = new Object();
+        assertSame(value, GameDataCache.get("test:null", () -> value));
+    }
+
+    @Test
+    public void threadsShareOneValue() throws InterruptedException, ExecutionException {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Object>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return GameDataCache.get("test:threads", Object::new);
+                }));
+            }
+            start.countDown();
+            Object value = results.get(0).get();
+            for (Future<Object> result : results)
+                assertSame(value, result.get());
+            assertEquals(8, GameDataCache.getHits() + GameDataCache.getMisses());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void loadingIgnoresTheBoundAllocator() {
+        ComponentIDAllocator allocator = new ComponentIDAllocator();
+        ComponentIDAllocator previous = ComponentIDAllocator.bind(allocator);
+        try {
+            Token inGame = new Token("game");
+            Token cached = GameDataCache.get("test:token", () -> new Token("cached"));
+            Token nextInGame = new Token("game");
+            // the cached token does not take an ID from the game's allocator
+            assertEquals(inGame.getComponentID() + 1, nextInGame.getComponentID());
+            assertNotEquals(inGame.getComponentID(), cached.getComponentID());
+            assertNotEquals(nextInGame.getComponentID(), cached.getComponentID());
+        } finally {
+            ComponentIDAllocator.bind(previous);
+        }
+    }
+
+    @Test
+    public void gameDataIsParsedOnceAndCopied() {
+        AbstractGameData data = new AbstractGameData();
+        data.load("data/pandemic/");
+        assertEquals(1, GameDataCache.getMisses());
+        AbstractGameData other = new AbstractGameData();
+        other.load("data/pandemic/");
+        assertEquals(1, GameDataCache.getMisses());
+        assertEquals(1, GameDataCache.getHits());
+
+        GraphBoard world = data.findGraphBoard("cities");
+        GraphBoard otherWorld = other.findGraphBoard("cities");
+        assertNotSame(world, otherWorld);
+        assertEquals(world.getComponentID(), otherWorld.getComponentID());
+        assertEquals(world.getBoardNodes().size(), otherWorld.getBoardNodes().size());
+        // changing one copy does not change the cached prototype
+        BoardNode first = world.getBoardNodes().get(0);
+        world.breakConnection(first, first.getNeighbours().iterator().next());
+        GraphBoard later = data.findGraphBoard("cities");
+        assertEquals(otherWorld.getBoardNodes().get(0).getNeighbours().size(), later.getBoardNodes().get(0).getNeighbours().size());
+        assertNotEquals(first.getNeighbours().size(), later.getBoardNodes().get(0).getNeighbours().size());
+    }
+
+    private static List<String> playGame(GameType gameType, int nPlayers, long seed, int maxActions) {
+        List<AbstractPlayer> players = new ArrayList<>();
+        for (int i = 0; i < nPlayers; i++)
+            players.add(new RandomPlayer(new Random(seed + i)));
+        Game game = gameType.createGameInstance(nPlayers, seed);
+        game.reset(players);
+        AbstractGameState state = game.getGameState();
+        List<String> retValue = new ArrayList<>();
+        for (int i = 0; i < maxActions && state.isNotTerminal(); i++) {
+            List<AbstractAction> actions = game.getForwardModel().computeAvailableActions(state);
+            AbstractAction action = players.get(state.getCurrentPlayer()).getAction(state, actions);
+            retValue.add(actions.size() + " " + action.getString(state));
+            game.getForwardModel().next(state, action);
+        }
+        for (int p = 0; p < nPlayers; p++)
+            retValue.add(String.valueOf(state.getGameScore(p)));
+        return retValue;
+    }
+
+    @Test
+    public void cachedGamesPlayAsFromFiles() {
+        // (Battlelore is not included, as games with the same seed do not play the same even without the cache)
+        for (GameType gameType : new GameType[]{GameType.Pandemic, GameType.TerraformingMars}) {
+            int nPlayers = 3;
+            GameDataCache.clear();
+            List<String> fromFiles = playGame(gameType, nPlayers, 100, 20);
+            assertTrue(GameDataCache.getMisses() > 0);
+            long misses = GameDataCache.getMisses();
+            List<String> fromCache = playGame(gameType, nPlayers, 100, 20);
+            // (Terraforming Mars looks for a board file for each expansion, and files that do not exist are not cached)
+            if (gameType == GameType.Pandemic)
+                assertEquals(misses, GameDataCache.getMisses());
+            assertTrue(GameDataCache.getHits() > 0);
+            assertEquals(gameType.name(), fromFiles, fromCache);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package test.core;
+
+import core.components.BoardNode;
+import core.components.GraphBoard;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class GraphBoardTest {
+
+    GraphBoard board;
+
+    // A square a - b - c - d - a, with a diagonal a - c, and sides on a's connections
+    @Before
+    public void setup() {
+        board = new GraphBoard("square");
+        List<BoardNode> nodes = new ArrayList<>();
+        for (String name : new String[]{"a", "b", "c", "d"})
+            nodes.add(new BoardNode(-1, name));
+        board.setBoardNodes(nodes);
+        nodes.get(0).addNeighbour(nodes.get(1), 1);
+        nodes.get(0).addNeighbour(nodes.get(3), 3);
+        for (int i = 0; i < 4; i++)
+            board.addConnection(nodes.get(i), nodes.get((i + 1) % 4));
+        board.addConnection(nodes.get(0), nodes.get(2));
+    }
+
+    private Set<Integer> neighbourIDs(BoardNode node) {
+        Set<Integer> retValue = new HashSet<>();
+        for (BoardNode neighbour : node.getNeighbours())
+            retValue.add(neighbour.getComponentID());
+        return retValue;
+    }
+
+    private Set<Integer> indexIDs(GraphBoard board, int nodeIndex) {
+        Set<Integer> retValue = new HashSet<>();
+        for (int index : board.getNeighbourIndices(nodeIndex))
+            retValue.add(board.getBoardNodes().get(index).getComponentID());
+        return retValue;
+    }
+
+    @Test
+    public void copiesHaveTheSameNeighbours() {
+        GraphBoard copy = board.copy();
+        GraphBoard copyOfCopy = copy.copy();
+        for (int i = 0; i < 4; i++) {
+            BoardNode node = board.getBoardNodes().get(i);
+            for (GraphBoard b : new GraphBoard[]{copy, copyOfCopy}) {
+                BoardNode nodeCopy = b.getBoardNodes().get(i);
+                assertEquals(node.getComponentID(), nodeCopy.getComponentID());
+                assertEquals(neighbourIDs(node), neighbourIDs(nodeCopy));
+                assertEquals(neighbourIDs(node), indexIDs(b, i));
+                assertEquals(node.getNeighbours().size(), nodeCopy.getNeighbours().size());
+                // the neighbours of a copy are the nodes of that copy
+                for (BoardNode neighbour : nodeCopy.getNeighbours()) {
+                    assertTrue(nodeCopy.getNeighbours().contains(neighbour));
+                    assertSame(neighbour, b.getBoardNodes().get(b.getBoardNodes().indexOf(neighbour)));
+                }
+            }
+        }
+        BoardNode a = copy.getBoardNodes().get(0);
+        assertEquals(2, a.getNeighbourSideMapping().size());
+        assertEquals(Integer.valueOf(1), a.getNeighbourSideMapping().get(copy.getBoardNodes().get(1)));
+        assertEquals(Integer.valueOf(3), a.getNeighbourSideMapping().get(copy.getBoardNodes().get(3)));
+        assertNull(a.getNeighbourSideMapping().get(copy.getBoardNodes().get(2)));
+        assertFalse(copy.getBoardNodes().get(1).getNeighbours().contains(copy.getBoardNodes().get(3)));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void neighboursOfACopyAreReadOnly() {
+        GraphBoard copy = board.copy();
+        copy.getBoardNodes().get(0).getNeighbours().remove(copy.getBoardNodes().get(1));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void neighboursOfTheOriginalAreReadOnly() {
+        board.getBoardNodes().get(0).getNeighbours().clear();
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void sideMappingIsReadOnly() {
+        board.copy().getBoardNodes().get(0).getNeighbourSideMapping().put(board.getBoardNodes().get(2), 2);
+    }
+
+    @Test
+    public void changingACopyDoesNotChangeTheOriginal() {
+        GraphBoard copy = board.copy();
+        GraphBoard otherCopy = board.copy();
+        BoardNode b = copy.getBoardNodes().get(1), d = copy.getBoardNodes().get(3);
+        copy.addConnection(b, d);
+        copy.breakConnection(copy.getBoardNodes().get(0), copy.getBoardNodes().get(2));
+
+        assertTrue(b.getNeighbours().contains(d));
+        assertEquals(new HashSet<>(Arrays.asList(b.getComponentID(), d.getComponentID())), neighbourIDs(copy.getBoardNodes().get(0)));
+        assertEquals(new HashSet<>(Arrays.asList(b.getComponentID(), d.getComponentID())), indexIDs(copy, 2));
+        for (GraphBoard unchanged : new GraphBoard[]{board, otherCopy}) {
+            assertFalse(unchanged.getBoardNodes().get(1).getNeighbours().contains(unchanged.getBoardNodes().get(3)));
+            assertEquals(3, unchanged.getBoardNodes().get(0).getNeighbours().size());
+            assertEquals(3, unchanged.getNeighbourIndices(0).length);
+        }
+    }
+
+    @Test
+    public void changingTheOriginalDoesNotChangeACopy() {
+        GraphBoard copy = board.copy();
+        // the view taken before the change follows the original's neighbours
+        Set<BoardNode> neighboursOfB = board.getBoardNodes().get(1).getNeighbours();
+        board.addConnection(board.getBoardNodes().get(1), board.getBoardNodes().get(3));
+        assertTrue(neighboursOfB.contains(board.getBoardNodes().get(3)));
+        assertEquals(3, board.getNeighbourIndices(1).length);
+
+        assertFalse(copy.getBoardNodes().get(1).getNeighbours().contains(copy.getBoardNodes().get(3)));
+        assertEquals(2, copy.getNeighbourIndices(1).length);
+        // and later copies have the new connection
+        GraphBoard laterCopy = board.copy();
+        assertTrue(laterCopy.getBoardNodes().get(1).getNeighbours().contains(laterCopy.getBoardNodes().get(3)));
+    }
+}
@@ -0,0 +1,61 @@
+package test.core;
+
+import core.AbstractGameState;
+import core.AbstractPlayer;
+import core.Game;
+import core.actions.AbstractAction;
+import games.GameType;
+import org.junit.Test;
+import players.simple.RandomPlayer;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class HistoryTest {
+
+    @Test
+    public void actionTextIsFromTheStateItWasAppliedTo() {
+        List<AbstractPlayer> players = Arrays.asList(new RandomPlayer(new Random(1)), new RandomPlayer(new Random(2)),
+                new RandomPlayer(new Random(3)));
+        Game game = GameType.LoveLetter.createGameInstance(3, 5);
+        game.reset(players);
+        AbstractGameState state = game.getGameState();
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 40 && state.isNotTerminal(); i++) {
+            List<AbstractAction> actions = game.getForwardModel().computeAvailableActions(state);
+            AbstractAction action = players.get(state.getCurrentPlayer()).getAction(state, actions);
+            expected.add("Player " + state.getCurrentPlayer() + " : " + action.getString(state));
+            game.getForwardModel().next(state, action);
+        }
+
+        // Redeterminised copies are asked first, so that the original cannot have supplied the text
+        AbstractGameState[] copies = new AbstractGameState[]{state.copy(0), state.copy(1), state.copy()};
+        List<List<String>> copyText = new ArrayList<>();
+        for (AbstractGameState copy : copies)
+            copyText.add(copy.getHistoryAsText());
+        List<String> text = state.getHistoryAsText();
+        for (List<String> t : copyText)
+            assertEquals(text, t);
+
+        // The text includes logged events as well as actions, with the actions in order
+        Iterator<String> it = text.iterator();
+        for (String e : expected) {
+            boolean found = false;
+            while (!found && it.hasNext())
+                found = it.next().equals(e);
+            assertTrue(e, found);
+        }
+        assertEquals(expected.size(), state.getHistorySize());
+
+        // Actions taken on a copy only appear in its own history
+        AbstractGameState copy = copies[0];
+        if (copy.isNotTerminal()) {
+            List<AbstractAction> actions = game.getForwardModel().computeAvailableActions(copy);
+            game.getForwardModel().next(copy, actions.get(0));
+            assertEquals(expected.size() + 1, copy.getHistorySize());
+            assertEquals(expected.size(), state.getHistorySize());
+            assertEquals(text, state.getHistoryAsText());
+        }
+    }
+}
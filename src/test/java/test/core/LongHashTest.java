@@ -0,0 +1,174 @@
+package test.core;
+
+import core.AbstractForwardModel;
+import core.AbstractGameState;
+import core.AbstractPlayer;
+import core.Game;
+import core.UndoToken;
+import core.actions.AbstractAction;
+import core.components.Card;
+import core.components.Deck;
+import games.GameType;
+import org.junit.Test;
+import players.simple.RandomPlayer;
+
+import java.util.*;
+
+import static core.CoreConstants.VisibilityMode.VISIBLE_TO_ALL;
+import static org.junit.Assert.*;
+
+public class LongHashTest {
+
+    // The hash the deck would have if computed from scratch
+    private static long rehash(Deck<Card> deck) {
+        Deck<Card> other = deck.copy();
+        other.setComponents(new ArrayList<>(other.getComponents()));
+        return other.longHash();
+    }
+
+    @Test
+    public void deckHashIsUpdatedAsTheDeckChanges() {
+        Random rnd = new Random(42);
+        List<Card> cards = new ArrayList<>();
+        for (int i = 0; i < 20; i++)
+            cards.add(new Card("card" + i));
+        Deck<Card> deck = new Deck<>("deck", VISIBLE_TO_ALL);
+        Deck<Card> copy = deck.copyOnWrite();
+        deck.longHash();
+        copy.longHash();
+        for (int i = 0; i < 2000; i++) {
+            Deck<Card> d = rnd.nextBoolean() ? deck : copy;
+            int size = d.getSize();
+            Card card = cards.get(rnd.nextInt(cards.size()));
+            switch (rnd.nextInt(12)) {
+                case 0:
+                    d.add(card);
+                    break;
+                case 1:
+                    d.add(card, rnd.nextInt(size + 1));
+                    break;
+                case 2:
+                    d.add(Arrays.asList(card, cards.get(0), cards.get(1)), rnd.nextInt(size + 1));
+                    break;
+                case 3:
+                    d.draw();
+                    break;
+                case 4:
+                    d.pickLast();
+                    break;
+                case 5:
+                    if (size > 0) d.remove(rnd.nextInt(size));
+                    break;
+                case 6:
+                    if (size > 0) d.setComponent(rnd.nextInt(size), card);
+                    break;
+                case 7:
+                    d.getComponents().add(card);
+                    break;
+                case 8:
+                    if (size > 0) d.getComponents().remove(rnd.nextInt(size));
+                    break;
+                case 9:
+                    if (size > 0) d.getComponents().set(rnd.nextInt(size), card);
+                    break;
+                case 10:
+                    d.shuffle(rnd);
+                    break;
+                case 11:
+                    if (rnd.nextInt(20) == 0) d.clear();
+                    else if (d == deck) copy = deck.copyOnWrite();
+                    else deck = copy.copyOnWrite();
+                    break;
+            }
+            assertEquals(rehash(deck), deck.longHash());
+            assertEquals(rehash(copy), copy.longHash());
+        }
+    }
+
+    @Test
+    public void deckHashDependsOnTheOrder() {
+        Deck<Card> deck = new Deck<>("deck", VISIBLE_TO_ALL);
+        Card a = new Card("a"), b = new Card("b");
+        deck.add(a);
+        deck.add(b);
+        long hash = deck.longHash();
+        deck.setComponent(0, a);
+        deck.setComponent(1, b);
+        assertNotEquals(hash, deck.longHash());
+        deck.setComponent(0, b);
+        deck.setComponent(1, a);
+        assertEquals(hash, deck.longHash());
+    }
+
+    private static AbstractGameState play(Game game, List<AbstractAction> actions) {
+        AbstractGameState state = game.getGameState().copy();
+        for (AbstractAction action : actions)
+            game.getForwardModel().next(state, action.copy());
+        return state;
+    }
+
+    @Test
+    public void dotsAndBoxesTranspositionsHashTheSame() {
+        Game game = GameType.DotsAndBoxes.createGameInstance(2, 7);
+        AbstractGameState start = game.getGameState();
+        List<AbstractAction> actions = game.getForwardModel().computeAvailableActions(start);
+        int n = actions.size();
+        // Four edges far enough apart that none of them completes a cell, so the players alternate
+        AbstractAction e0 = actions.get(0), e1 = actions.get(n - 1), e2 = actions.get(n / 3), e3 = actions.get(2 * n / 3);
+
+        AbstractGameState first = play(game, Arrays.asList(e0, e1, e2, e3));
+        AbstractGameState second = play(game, Arrays.asList(e2, e3, e0, e1));
+        AbstractGameState swapped = play(game, Arrays.asList(e1, e0, e2, e3));
+        assertEquals(first.getTurnCounter(), second.getTurnCounter());
+        assertEquals(first.longHash(), second.longHash());
+        assertNotEquals(first.longHash(), swapped.longHash());
+        assertNotEquals(first.longHash(), start.longHash());
+        assertEquals(first.longHash(), first.copy().longHash());
+    }
+
+    @Test
+    public void dotsAndBoxesHashIsRestoredByUndo() {
+        checkHashIsRestoredByUndo(GameType.DotsAndBoxes);
+    }
+
+    @Test
+    public void strategoHashIsRestoredByUndo() {
+        checkHashIsRestoredByUndo(GameType.Stratego);
+    }
+
+    private static void checkHashIsRestoredByUndo(GameType gameType) {
+        Game game = gameType.createGameInstance(2, 7);
+        AbstractGameState state = game.getGameState();
+        AbstractForwardModel fm = game.getForwardModel();
+        Random rnd = new Random(3);
+        Deque<UndoToken> tokens = new ArrayDeque<>();
+        Deque<Long> hashes = new ArrayDeque<>();
+        while (state.isNotTerminal()) {
+            List<AbstractAction> actions = fm.computeAvailableActions(state);
+            hashes.push(state.longHash());
+            tokens.push(fm.nextWithUndo(state, actions.get(rnd.nextInt(actions.size()))));
+            assertNotEquals(hashes.peek().longValue(), state.longHash());
+            assertEquals(state.longHash(), state.copy().longHash());
+        }
+        while (!tokens.isEmpty()) {
+            fm.rewind(state, tokens.pop());
+            assertEquals(hashes.pop().longValue(), state.longHash());
+        }
+    }
+
+    @Test
+    public void copiesHashTheSame() {
+        for (GameType gameType : new GameType[]{GameType.LoveLetter, GameType.Dominion, GameType.DotsAndBoxes, GameType.Stratego}) {
+            List<AbstractPlayer> players = Arrays.asList(new RandomPlayer(new Random(1)), new RandomPlayer(new Random(2)));
+            Game game = gameType.createGameInstance(2, 11);
+            game.reset(players);
+            AbstractGameState state = game.getGameState();
+            for (int i = 0; i < 30 && state.isNotTerminal(); i++) {
+                assertEquals(gameType.name(), state.longHash(), state.copy().longHash());
+                List<AbstractAction> actions = game.getForwardModel().computeAvailableActions(state);
+                AbstractAction action = players.get(state.getCurrentPlayer()).getAction(state, actions);
+                game.getForwardModel().next(state, action);
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package test.evaluation;
+
+import core.Game;
+import evaluation.listeners.AsyncGameListener;
+import evaluation.listeners.GameListener;
+import evaluation.metrics.Event;
+import games.GameType;
+import org.junit.Test;
+
+import java.util.*;
+
+import static evaluation.metrics.Event.GameEvent.*;
+import static org.junit.Assert.*;
+
+public class AsyncGameListenerTest {
+
+    // Records what it is given, slowly enough that the game thread gets ahead of it
+    static class RecordingListener extends GameListener {
+        final List<Integer> players = Collections.synchronizedList(new ArrayList<>());
+        final List<Game> games = Collections.synchronizedList(new ArrayList<>());
+        final Set<Thread> threads = Collections.synchronizedSet(new HashSet<>());
+        volatile int eventsAtFinish = -1;
+
+        @Override
+        public void onEvent(Event event) {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+            threads.add(Thread.currentThread());
+            games.add(getGame());
+            players.add(event.playerID);
+        }
+
+        @Override
+        public void allGamesFinished() {
+            eventsAtFinish = players.size();
+        }
+    }
+
+    private static void send(GameListener listener, Event.GameEvent type, int from, int to) {
+        for (int i = from; i < to; i++)
+            listener.onEvent(Event.createEvent(type, null, null, i));
+    }
+
+    private static List<Integer> range(int from, int to) {
+        List<Integer> retValue = new ArrayList<>();
+        for (int i = from; i < to; i++)
+            retValue.add(i);
+        return retValue;
+    }
+
+    @Test
+    public void eventsArriveInOrderOnAnotherThread() {
+        RecordingListener delegate = new RecordingListener();
+        AsyncGameListener listener = new AsyncGameListener(delegate, 4);
+        send(listener, ACTION_TAKEN, 0, 200);
+        listener.flush();
+        assertEquals(range(0, 200), delegate.players);
+        assertEquals(1, delegate.threads.size());
+        assertFalse(delegate.threads.contains(Thread.currentThread()));
+        listener.allGamesFinished();
+    }
+
+    @Test
+    public void flushWaitsForAllEvents() {
+        RecordingListener delegate = new RecordingListener();
+        AsyncGameListener listener = new AsyncGameListener(delegate, 1000, false);
+        send(listener, ACTION_TAKEN, 0, 50);
+        listener.flush();
+        assertEquals(range(0, 50), delegate.players);
+        // GAME_OVER flushes by itself
+        send(listener, GAME_OVER, 50, 51);
+        assertEquals(range(0, 51), delegate.players);
+        listener.allGamesFinished();
+    }
+
+    @Test
+    public void allGamesFinishedDrainsTheQueueFirst() {
+        RecordingListener delegate = new RecordingListener();
+        AsyncGameListener listener = new AsyncGameListener(delegate, 1000);
+        send(listener, ACTION_TAKEN, 0, 100);
+        listener.allGamesFinished();
+        assertEquals(100, delegate.eventsAtFinish);
+        assertEquals(range(0, 100), delegate.players);
+        // and the listener can be used again afterwards
+        send(listener, ACTION_TAKEN, 100, 110);
+        listener.allGamesFinished();
+        assertEquals(range(0, 110), delegate.players);
+    }
+
+    @Test
+    public void gameChangesBetweenEvents() {
+        Game first = GameType.TicTacToe.createGameInstance(2, 1);
+        Game second = GameType.TicTacToe.createGameInstance(2, 2);
+        RecordingListener delegate = new RecordingListener();
+        AsyncGameListener listener = new AsyncGameListener(delegate, 8);
+        listener.setGame(first);
+        send(listener, ACTION_TAKEN, 0, 20);
+        listener.setGame(second);
+        send(listener, ACTION_TAKEN, 20, 40);
+        listener.allGamesFinished();
+        for (int i = 0; i < 40; i++)
+            assertSame(i < 20 ? first : second, delegate.games.get(i));
+    }
+
+    @Test(expected = AssertionError.class)
+    public void errorsAreThrownOnTheGameThread() {
+        AsyncGameListener listener = new AsyncGameListener(new GameListener() {
+            @Override
+            public void onEvent(Event event) {
+                throw new IllegalStateException("metric failed");
+            }
+        }, 8);
+        send(listener, ACTION_TAKEN, 0, 5);
+        listener.flush();
+    }
+}
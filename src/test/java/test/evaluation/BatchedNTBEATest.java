@@ -0,0 +1,82 @@
+package test.evaluation;
+
+import core.CoreConstants;
+import evaluation.BatchedNTBEA;
+import evaluation.GameEvaluator;
+import evaluation.ITPSearchSpace;
+import games.GameType;
+import ntbea.NTupleSystem;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.junit.Test;
+import players.mcts.MCTSParams;
+import players.simple.RandomPlayer;
+import utilities.Pair;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class BatchedNTBEATest {
+
+    // Keeps every setting evaluated, and its result, in the order they are given to the model
+    static class RecordingEvaluator extends GameEvaluator {
+        final List<String> evaluations = new ArrayList<>();
+
+        RecordingEvaluator(ITPSearchSpace searchSpace, long seed) {
+            super(GameType.TicTacToe, searchSpace, null, 2,
+                    Collections.singletonList(new RandomPlayer(new Random(seed))), seed,
+                    (s, p) -> s.getPlayerResults()[p] == CoreConstants.GameResult.WIN ? 1.0 : 0.0, null,
+                    true);
+        }
+
+        @Override
+        public double[] evaluateBatch(List<int[]> batch) {
+            double[] results = super.evaluateBatch(batch);
+            for (int i = 0; i < results.length; i++)
+                evaluations.add(Arrays.toString(batch.get(i)) + " : " + results[i]);
+            return results;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static JSONArray values(Object... values) {
+        JSONArray retValue = new JSONArray();
+        retValue.addAll(Arrays.asList(values));
+        return retValue;
+    }
+
+    @SuppressWarnings("unchecked")
+    // The settings evaluated (with their results) and the recommendation, from one trial
+    private static Pair<List<String>, double[]> run(int nThreads) {
+        MCTSParams params = new MCTSParams();
+        params.setRandomSeed(42);
+        JSONObject json = new JSONObject();
+        json.put("K", values(0.1, 1.0, 10.0));
+        json.put("rolloutLength", values(0, 3, 10));
+        json.put("maxTreeDepth", values(1, 10));
+        json.put("budget", 50);
+        // SingleTreeNode iterates over maps keyed by actions, whose hash codes here include component IDs that depend
+        // on what else has been created, so only the compact tree plays the same game for the same seed every time
+        json.put("compactTree", true);
+        ITPSearchSpace searchSpace = new ITPSearchSpace(params, json);
+
+        NTupleSystem model = new NTupleSystem(searchSpace);
+        model.addTuples();
+        RecordingEvaluator evaluator = new RecordingEvaluator(searchSpace, 7);
+        evaluator.setNThreads(nThreads);
+        new BatchedNTBEA(model, 1.0, 10, 4, 3).runTrial(evaluator, 24);
+        return new Pair<>(evaluator.evaluations, model.getBestOfSampled());
+    }
+
+    @Test
+    public void resultsDoNotDependOnThreads() {
+        Pair<List<String>, double[]> sequential = run(1);
+        assertEquals(24, sequential.a.size());
+        for (int nThreads : new int[]{2, 4}) {
+            Pair<List<String>, double[]> parallel = run(nThreads);
+            assertEquals(sequential.a, parallel.a);
+            assertArrayEquals(sequential.b, parallel.b, 0.0);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package test.evaluation;
+
+import evaluation.loggers.BinaryStatsLogger;
+import evaluation.loggers.BinaryStatsReader;
+import org.junit.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class BinaryStatsLoggerTest {
+
+    File file;
+
+    @Before
+    public void setup() throws IOException {
+        file = File.createTempFile("BinaryStatsLoggerTest", ".bin");
+    }
+
+    @After
+    public void cleanup() {
+        file.delete();
+    }
+
+    private void checkRoundTrip(boolean compress) {
+        BinaryStatsLogger logger = new BinaryStatsLogger(file.getPath(), false, compress, 3);
+        for (int i = 0; i < 10; i++) {
+            Map<String, Object> data = new LinkedHashMap<>();
+            data.put("Score", i * 1.5);
+            data.put("Turn", i);
+            if (i != 4)
+                data.put("Name", "P" + i);
+            logger.record(data);
+        }
+        // a second logger on the same file, with different columns
+        BinaryStatsLogger other = (BinaryStatsLogger) logger.emptyCopy("other");
+        String[] keys = {"A", "B"};
+        other.record(keys, new double[]{1.0, 2.0});
+        other.record(keys, new double[]{3.0, Double.NaN});
+        logger.processDataAndFinish();
+        other.processDataAndFinish();
+
+        List<BinaryStatsReader.Table> tables = BinaryStatsReader.read(file.getPath());
+        assertEquals(2, tables.size());
+        BinaryStatsReader.Table first = tables.get(0);
+        assertArrayEquals(new String[]{"Score", "Turn", "Name"}, first.names);
+        assertEquals(BinaryStatsLogger.ColumnType.DOUBLE, first.types[0]);
+        assertEquals(BinaryStatsLogger.ColumnType.LONG, first.types[1]);
+        assertEquals(BinaryStatsLogger.ColumnType.STRING, first.types[2]);
+        assertEquals(10, first.getRowCount());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i * 1.5, first.getDoubles("Score")[i], 0.0);
+            assertEquals(i, first.getLongs("Turn")[i]);
+            assertEquals(i == 4 ? null : "P" + i, first.get(i, "Name"));
+        }
+        BinaryStatsReader.Table second = tables.get(1);
+        assertEquals(2, second.getRowCount());
+        assertArrayEquals(new double[]{2.0, Double.NaN}, second.getDoubles("B"), 0.0);
+    }
+
+    @Test
+    public void roundTrip() {
+        checkRoundTrip(false);
+    }
+
+    @Test
+    public void roundTripCompressed() {
+        checkRoundTrip(true);
+    }
+
+    @Test
+    public void arrayKeysAreMatchedByName() {
+        BinaryStatsLogger logger = new BinaryStatsLogger(file.getPath(), false, false, 4);
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("Score", 0.5);
+        data.put("Turn", 1);
+        logger.record(data);
+        // the same array, with its contents changed between calls
+        String[] keys = {"Score", "Turn"};
+        logger.record(keys, new double[]{1.5, 2});
+        keys[0] = "Turn";
+        keys[1] = "Score";
+        logger.record(keys, new double[]{3, 2.5});
+        // the same number of keys, but not all the columns
+        keys[1] = "Unknown";
+        logger.record(keys, new double[]{4, 3.5});
+        // NaN in a column of whole numbers is missing
+        logger.record(new String[]{"Score", "Turn"}, new double[]{4.5, Double.NaN});
+        logger.processDataAndFinish();
+
+        BinaryStatsReader.Table table = BinaryStatsReader.read(file.getPath()).get(0);
+        assertEquals(5, table.getRowCount());
+        assertArrayEquals(new double[]{0.5, 1.5, 2.5, Double.NaN, 4.5}, table.getDoubles("Score"), 0.0);
+        assertArrayEquals(new double[]{1, 2, 3, 4, Double.NaN}, table.getDoubles("Turn"), 0.0);
+        assertNull(table.get(4, "Turn"));
+    }
+}
@@ -0,0 +1,63 @@
+package test.evaluation;
+
+import evaluation.loggers.FileStatsLogger;
+import org.junit.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class FileStatsLoggerTest {
+
+    File file;
+
+    @Before
+    public void setup() throws IOException {
+        file = File.createTempFile("FileStatsLoggerTest", ".txt");
+    }
+
+    @After
+    public void cleanup() {
+        file.delete();
+    }
+
+    @Test
+    public void arrayKeysAreMatchedByName() throws IOException {
+        FileStatsLogger logger = new FileStatsLogger(file.getPath(), "\t", false);
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("Score", 0.5);
+        data.put("Turn", 1);
+        logger.record(data);
+        // the same array, with its contents changed between calls
+        String[] keys = {"Score", "Turn"};
+        logger.record(keys, new double[]{1.5, 2});
+        keys[0] = "Turn";
+        keys[1] = "Score";
+        logger.record(keys, new double[]{3, 2.5});
+        // the same number of keys, but not all the columns
+        keys[1] = "Unknown";
+        logger.record(keys, new double[]{4, 3.5});
+        logger.processDataAndFinish();
+
+        List<String> lines = Files.readAllLines(file.toPath());
+        assertEquals(Arrays.asList("Score\tTurn", "0.500\t1", "1.50\t2.00", "2.50\t3.00", "\t4.00"), lines);
+    }
+
+    @Test
+    public void copiesShareTheFile() throws IOException {
+        FileStatsLogger logger = new FileStatsLogger(file.getPath(), "\t", false);
+        FileStatsLogger copy = logger.emptyCopy("copy");
+        String[] keys = {"A", "B"};
+        logger.record(keys, new double[]{1, 2});
+        copy.record(keys, new double[]{3, 4});
+        copy.processDataAndFinish();
+        logger.record(keys, new double[]{5, 6});
+        logger.processDataAndFinish();
+
+        List<String> lines = Files.readAllLines(file.toPath());
+        assertEquals(Arrays.asList("A\tB", "1.00\t2.00", "3.00\t4.00", "5.00\t6.00"), lines);
+    }
+}
@@ -0,0 +1,180 @@
+package test.evaluation;
+
+import core.AbstractGameState;
+import core.AbstractPlayer;
+import core.actions.AbstractAction;
+import core.interfaces.IStatisticLogger;
+import evaluation.listeners.GameListener;
+import evaluation.loggers.FileStatsLogger;
+import evaluation.metrics.AbstractMetric;
+import evaluation.metrics.Event;
+import evaluation.tournaments.RoundRobinTournament;
+import games.GameType;
+import org.junit.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+
+public class RoundRobinTournamentTest {
+
+    // Always plays the action at a fixed position in the list, so that results do not depend on which copy plays
+    static class FixedPlayer extends AbstractPlayer {
+        final int position;
+
+        FixedPlayer(int position) {
+            this.position = position;
+            setName("Fixed" + position);
+        }
+
+        @Override
+        public AbstractAction _getAction(AbstractGameState gameState, List<AbstractAction> possibleActions) {
+            return possibleActions.get(Math.min(position, possibleActions.size() - 1));
+        }
+
+        @Override
+        public FixedPlayer copy() {
+            return new FixedPlayer(position);
+        }
+    }
+
+    static class CountingListener extends GameListener {
+        final AtomicInteger gamesOver;
+        final AtomicInteger finished;
+
+        CountingListener(AtomicInteger gamesOver, AtomicInteger finished) {
+            this.gamesOver = gamesOver;
+            this.finished = finished;
+        }
+
+        @Override
+        public void onEvent(Event event) {
+            if (event.type == Event.GameEvent.GAME_OVER)
+                gamesOver.incrementAndGet();
+        }
+
+        @Override
+        public void allGamesFinished() {
+            finished.incrementAndGet();
+        }
+    }
+
+    // Logs a long row for every event, so that buffers fill up mid-game
+    static class RowListener extends GameListener {
+        RowListener(IStatisticLogger logger) {
+            super(logger, new AbstractMetric[0]);
+        }
+
+        @Override
+        public void onEvent(Event event) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("Event", event.type.name());
+            row.put("Game", getGame().getGameState().getGameID());
+            for (int i = 0; i < 20; i++)
+                row.put("Column" + i, String.join("", Collections.nCopies(50, String.valueOf(i % 10))));
+            loggers.get(event.type).record(row);
+        }
+    }
+
+    File resultsFile;
+
+    @Before
+    public void setup() throws IOException {
+        resultsFile = File.createTempFile("RoundRobinTournamentTest", ".txt");
+        resultsFile.delete();
+    }
+
+    @After
+    public void cleanup() {
+        resultsFile.delete();
+    }
+
+    private RoundRobinTournament createTournament(int nThreads) {
+        List<AbstractPlayer> agents = new ArrayList<>();
+        for (int i = 0; i < 3; i++)
+            agents.add(new FixedPlayer(i));
+        RoundRobinTournament tournament = new RoundRobinTournament(agents, GameType.TicTacToe, 2, 3, false, null);
+        tournament.verbose = false;
+        tournament.setNThreads(nThreads);
+        return tournament;
+    }
+
+    private String results(RoundRobinTournament tournament) throws IOException {
+        tournament.setOutputFileName(resultsFile.getPath());
+        tournament.runTournament();
+        String retValue = new String(Files.readAllBytes(resultsFile.toPath()));
+        resultsFile.delete();
+        return retValue;
+    }
+
+    @Test
+    public void parallelResultsMatchSequential() throws IOException {
+        String sequential = results(createTournament(1));
+        assertFalse(sequential.isEmpty());
+        assertEquals(sequential, results(createTournament(2)));
+        assertEquals(sequential, results(createTournament(4)));
+    }
+
+    @Test
+    public void listenersSeeEveryGameWhenParallel() throws IOException {
+        for (int nThreads : new int[]{1, 3}) {
+            AtomicInteger gamesOver = new AtomicInteger();
+            AtomicInteger finished = new AtomicInteger();
+            RoundRobinTournament tournament = createTournament(nThreads);
+            List<Supplier<GameListener>> factories = new ArrayList<>();
+            factories.add(() -> new CountingListener(gamesOver, finished));
+            tournament.setListenerFactories(factories);
+            results(tournament);
+            // 6 match-ups (ordered pairs of 3 agents) of 3 games each
+            assertEquals(18, gamesOver.get());
+            // one listener for the whole tournament, or one for each match-up
+            assertEquals(nThreads == 1 ? 1 : 6, finished.get());
+        }
+    }
+
+    @Test
+    public void fileLoggerCopiesWriteWholeLinesWhenParallel() throws IOException {
+        File logFile = File.createTempFile("RoundRobinTournamentTest", ".txt");
+        try {
+            FileStatsLogger logger = new FileStatsLogger(logFile.getPath(), "\t", false);
+            RoundRobinTournament tournament = createTournament(3);
+            List<Supplier<GameListener>> factories = new ArrayList<>();
+            factories.add(() -> new RowListener(logger));
+            tournament.setListenerFactories(factories);
+            results(tournament);
+            logger.processDataAndFinish();
+
+            List<String> lines = Files.readAllLines(logFile.toPath());
+            assertEquals("Event\tGame", lines.get(0).substring(0, 10));
+            int rows = 0, gamesOver = 0;
+            for (String line : lines.subList(1, lines.size())) {
+                String[] fields = line.split("\t", -1);
+                assertEquals(line, 22, fields.length);
+                Event.GameEvent.valueOf(fields[0]);
+                Integer.parseInt(fields[1]);
+                for (int i = 0; i < 20; i++)
+                    assertEquals(line, String.join("", Collections.nCopies(50, String.valueOf(i % 10))), fields[i + 2]);
+                if (fields[0].equals("GAME_OVER"))
+                    gamesOver++;
+                rows++;
+            }
+            // one header, however many copies wrote to the file
+            assertEquals(rows + 1, lines.size());
+            assertEquals(18, gamesOver);
+        } finally {
+            logFile.delete();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void sharedListenersRejectedWhenParallel() {
+        RoundRobinTournament tournament = createTournament(2);
+        tournament.setListeners(new ArrayList<>(Collections.singletonList(new CountingListener(new AtomicInteger(), new AtomicInteger()))));
+        tournament.runTournament();
+    }
+}
@@ -0,0 +1,58 @@
+package test.evaluation;
+
+import core.interfaces.IStatisticLogger;
+import evaluation.loggers.SummaryLogger;
+import evaluation.loggers.SynchronizedLogger;
+import evaluation.summarisers.TAGNumericStatSummary;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class SynchronizedLoggerTest {
+
+    private static SummaryLogger summaryLogger() {
+        SummaryLogger logger = new SummaryLogger();
+        logger.printToConsole = false;
+        return logger;
+    }
+
+    @Test
+    public void recordsFromManyThreads() throws InterruptedException {
+        SummaryLogger inner = summaryLogger();
+        IStatisticLogger logger = new SynchronizedLogger(inner);
+        String[] keys = {"A", "B"};
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 5000; i++) {
+                    logger.record("X", 1);
+                    logger.record(Collections.singletonMap("Y", 2.0));
+                    logger.record(keys, new double[]{3.0, 4.0});
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+
+        Map<String, ?> summary = logger.summary();
+        assertEquals(40000, ((TAGNumericStatSummary) summary.get("X")).n());
+        assertEquals(40000, ((TAGNumericStatSummary) summary.get("Y")).n());
+        assertEquals(40000, ((TAGNumericStatSummary) summary.get("A")).n());
+        assertEquals(4.0, ((TAGNumericStatSummary) summary.get("B")).mean(), 1e-9);
+        assertSame(inner.summary(), summary);
+    }
+
+    @Test
+    public void emptyCopyIsSynchronizedAndEmpty() {
+        IStatisticLogger logger = new SynchronizedLogger(summaryLogger());
+        logger.record("X", 1);
+        IStatisticLogger copy = logger.emptyCopy("copy");
+        assertTrue(copy instanceof SynchronizedLogger);
+        assertTrue(copy.summary().isEmpty());
+        copy.record("X", 2);
+        assertEquals(1, ((TAGNumericStatSummary) logger.summary().get("X")).n());
+    }
+}
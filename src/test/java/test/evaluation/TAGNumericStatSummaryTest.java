@@ -0,0 +1,139 @@
+package test.evaluation;
+
+import evaluation.loggers.SummaryLogger;
+import evaluation.summarisers.TAGNumericStatSummary;
+import evaluation.summarisers.TAGQuantileSketch;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class TAGNumericStatSummaryTest {
+
+    private static double[] randomValues(int n, long seed) {
+        Random rnd = new Random(seed);
+        double[] retValue = new double[n];
+        for (int i = 0; i < n; i++)
+            retValue[i] = rnd.nextGaussian() * 10 + (i % 7);
+        return retValue;
+    }
+
+    // The largest difference between q and the fraction of the values below the estimated quantile
+    private static double maxRankError(TAGQuantileSketch sketch, double[] values) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        double retValue = 0;
+        for (int i = 1; i < 100; i++) {
+            double q = i / 100.0;
+            int rank = Arrays.binarySearch(sorted, sketch.quantile(q));
+            assertTrue("the estimate is one of the values", rank >= 0);
+            retValue = Math.max(retValue, Math.abs(rank / (double) sorted.length - q));
+        }
+        return retValue;
+    }
+
+    @Test
+    public void sketchIsExactForFewValues() {
+        double[] values = randomValues(TAGQuantileSketch.DEFAULT_K, 1);
+        TAGQuantileSketch sketch = new TAGQuantileSketch();
+        for (double v : values)
+            sketch.add(v);
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        for (int i = 0; i <= 100; i++) {
+            double q = i / 100.0;
+            assertEquals(sorted[Math.min(sorted.length - 1, (int) Math.floor(q * sorted.length))], sketch.quantile(q), 0.0);
+        }
+    }
+
+    @Test
+    public void sketchIsAccurateForManyValues() {
+        double[] values = randomValues(200000, 2);
+        TAGQuantileSketch sketch = new TAGQuantileSketch();
+        for (double v : values)
+            sketch.add(v);
+        assertEquals(values.length, sketch.n());
+        assertTrue(maxRankError(sketch, values) < 0.02);
+    }
+
+    @Test
+    public void mergedSketchesAreAccurate() {
+        double[] values = randomValues(100000, 3);
+        TAGQuantileSketch[] sketches = new TAGQuantileSketch[8];
+        for (int s = 0; s < sketches.length; s++)
+            sketches[s] = new TAGQuantileSketch();
+        for (int i = 0; i < values.length; i++)
+            sketches[i * sketches.length / values.length].add(values[i]);
+        TAGQuantileSketch merged = new TAGQuantileSketch();
+        for (TAGQuantileSketch sketch : sketches)
+            merged.add(sketch);
+        assertEquals(values.length, merged.n());
+        assertTrue(maxRankError(merged, values) < 0.02);
+    }
+
+    @Test
+    public void mergedSummariesMatchOneSummary() {
+        double[] values = randomValues(5000, 4);
+        TAGNumericStatSummary all = new TAGNumericStatSummary("all", true);
+        TAGNumericStatSummary merged = new TAGNumericStatSummary("merged", true);
+        TAGNumericStatSummary[] parts = new TAGNumericStatSummary[3];
+        int[] ends = {100, 3000, values.length};
+        int start = 0;
+        for (int p = 0; p < parts.length; p++) {
+            parts[p] = new TAGNumericStatSummary("part" + p, true);
+            for (int i = start; i < ends[p]; i++) {
+                parts[p].add(values[i]);
+                all.add(values[i]);
+            }
+            start = ends[p];
+            merged.add(parts[p]);
+        }
+        assertEquals(all.n(), merged.n());
+        assertEquals(all.mean(), merged.mean(), 1e-9);
+        assertEquals(all.sd(), merged.sd(), 1e-9);
+        assertEquals(all.skew(), merged.skew(), 1e-9);
+        assertEquals(all.kurtosis(), merged.kurtosis(), 1e-9);
+        assertEquals(all.sum(), merged.sum(), 1e-6);
+        assertEquals(all.min(), merged.min(), 0.0);
+        assertEquals(all.max(), merged.max(), 0.0);
+        assertEquals((double) all.getSummary().get("Delta"), (double) merged.getSummary().get("Delta"), 1e-12);
+        assertEquals(all.getElements(), merged.getElements());
+        assertEquals(all.median(), merged.median(), 0.5);
+    }
+
+    @Test
+    public void elementsAreNotKeptByDefault() {
+        TAGNumericStatSummary summary = new TAGNumericStatSummary("dropped");
+        summary.add(1.0, 3.0, 2.0);
+        assertFalse(summary.keepsElements());
+        assertFalse(summary.copy().keepsElements());
+        assertEquals(3, summary.n());
+        assertEquals(2.0, summary.median(), 0.0);
+
+        SummaryLogger logger = new SummaryLogger();
+        logger.record("X", 4.0);
+        assertFalse(((TAGNumericStatSummary) logger.summary().get("X")).keepsElements());
+    }
+
+    @Test(expected = AssertionError.class)
+    public void elementsAreNotAvailableIfNotKept() {
+        TAGNumericStatSummary summary = new TAGNumericStatSummary("dropped");
+        summary.add(1.0);
+        summary.getElements();
+    }
+
+    @Test
+    public void elementsAreKeptOnlyWhenAskedFor() {
+        TAGNumericStatSummary summary = new TAGNumericStatSummary("kept", true);
+        summary.add(1.0, 3.0, 2.0);
+        assertEquals(Arrays.asList(1.0, 3.0, 2.0), summary.getElements());
+        assertEquals(Arrays.asList(1.0, 3.0, 2.0), summary.copy().getElements());
+
+        SummaryLogger logger = new SummaryLogger();
+        logger.keepElements = true;
+        SummaryLogger copy = logger.emptyCopy("copy");
+        copy.record("X", 4.0);
+        assertEquals(Collections.singletonList(4.0), ((TAGNumericStatSummary) copy.summary().get("X")).getElements());
+    }
+}
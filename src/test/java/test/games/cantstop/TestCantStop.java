@@ -3,6 +3,7 @@ package test.games.cantstop;
 import core.AbstractPlayer;
 import core.CoreConstants;
 import core.Game;
+import core.UndoToken;
 import core.actions.AbstractAction;
 import games.GameType;
 import games.cantstop.CantStopForwardModel;
@@ -355,5 +356,23 @@ public class TestCantStop {
         assertEquals(CantStopGamePhase.Decision, state.getGamePhase());
     }
 
-
+    @Test
+    public void testUndoPutsStateBack() {
+        CantStopGameState state = (CantStopGameState) cantStop.getGameState();
+        CantStopGameState original = (CantStopGameState) state.copy();
+        List<UndoToken> tokens = new ArrayList<>();
+        tokens.add(fm.nextWithUndo(state, new RollDice()));
+        tokens.add(fm.nextWithUndo(state, fm.computeAvailableActions(state).get(0)));
+        tokens.add(fm.nextWithUndo(state, new Pass(false)));
+        assertEquals(1, state.getCurrentPlayer());
+        assertNotEquals(original.hashCode(), state.hashCode());
+
+        for (int i = tokens.size() - 1; i >= 0; i--)
+            fm.rewind(state, tokens.get(i));
+        assertEquals(original, state);
+        assertEquals(original.hashCode(), state.hashCode());
+        assertEquals(0, state.getCurrentPlayer());
+        assertEquals(CantStopGamePhase.Decision, state.getGamePhase());
+        assertEquals(0, state.getHistory().size());
+    }
 }
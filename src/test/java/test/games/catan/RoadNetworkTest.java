@@ -0,0 +1,124 @@
+package test.games.catan;
+
+import core.actions.AbstractAction;
+import games.catan.CatanForwardModel;
+import games.catan.CatanGameState;
+import games.catan.CatanParameters;
+import games.catan.CatanTile;
+import games.catan.actions.BuildRoad;
+import games.catan.actions.BuildSettlement;
+import games.catan.actions.PlaceSettlementWithRoad;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Plays random games with plenty of roads, and checks the longest road of each player kept by the RoadNetwork
+ * against a brute-force search of all the roads built so far.
+ */
+public class RoadNetworkTest {
+
+    // Road and settlement IDs to their owners, and road IDs to the IDs of the settlements at each end. (Tiles share
+    // their roads and settlements with their neighbours, but copies of the state do not, and so a road or settlement
+    // can then be built again from a neighbouring tile. As in the RoadNetwork, the last owner counts.)
+    Map<Integer, Integer> roadOwner = new HashMap<>();
+    Map<Integer, Integer> settlementOwner = new HashMap<>();
+    Map<Integer, int[]> roadEnds = new HashMap<>();
+
+    private void record(CatanGameState state, AbstractAction action) {
+        CatanTile[][] board = state.getBoard();
+        if (action instanceof BuildRoad) {
+            BuildRoad road = (BuildRoad) action;
+            addRoad(board, road.x, road.y, road.edge, road.playerID);
+        } else if (action instanceof BuildSettlement) {
+            BuildSettlement settlement = (BuildSettlement) action;
+            settlementOwner.put(board[settlement.x][settlement.y].getSettlements()[settlement.vertex].getID(), settlement.playerID);
+        } else if (action instanceof PlaceSettlementWithRoad) {
+            PlaceSettlementWithRoad place = (PlaceSettlementWithRoad) action;
+            settlementOwner.put(board[place.x][place.y].getSettlements()[place.i].getID(), place.player);
+            addRoad(board, place.x, place.y, place.i, place.player);
+        }
+    }
+
+    private void addRoad(CatanTile[][] board, int x, int y, int edge, int player) {
+        int id = board[x][y].getRoads()[edge].getID();
+        roadOwner.put(id, player);
+        roadEnds.put(id, new int[]{board[x][y].getSettlements()[edge].getID(), board[x][y].getSettlements()[(edge + 1) % 6].getID()});
+    }
+
+    private int longestRoad(int player) {
+        int best = 0;
+        Set<Integer> vertices = new HashSet<>();
+        for (Map.Entry<Integer, Integer> road : roadOwner.entrySet()) {
+            if (road.getValue() == player) {
+                vertices.add(roadEnds.get(road.getKey())[0]);
+                vertices.add(roadEnds.get(road.getKey())[1]);
+            }
+        }
+        for (int v : vertices)
+            best = Math.max(best, longestRoadFrom(v, player, 0, new HashSet<>()));
+        return best;
+    }
+
+    private int longestRoadFrom(int vertex, int player, int length, Set<Integer> used) {
+        // a road cannot continue through another player's settlement
+        Integer owner = settlementOwner.get(vertex);
+        if (length > 0 && owner != null && owner != player)
+            return length;
+        int best = length;
+        for (Map.Entry<Integer, Integer> road : roadOwner.entrySet()) {
+            if (road.getValue() != player || used.contains(road.getKey()))
+                continue;
+            int[] ends = roadEnds.get(road.getKey());
+            if (ends[0] != vertex && ends[1] != vertex)
+                continue;
+            used.add(road.getKey());
+            best = Math.max(best, longestRoadFrom(ends[0] == vertex ? ends[1] : ends[0], player, length + 1, used));
+            used.remove(road.getKey());
+        }
+        return best;
+    }
+
+    // Mostly roads, when there are any to build
+    private static AbstractAction pick(List<AbstractAction> actions, Random rnd) {
+        List<AbstractAction> roads = new ArrayList<>();
+        for (AbstractAction a : actions)
+            if (a instanceof BuildRoad)
+                roads.add(a);
+        if (!roads.isEmpty() && rnd.nextInt(10) < 8)
+            return roads.get(rnd.nextInt(roads.size()));
+        return actions.get(rnd.nextInt(actions.size()));
+    }
+
+    @Test
+    public void longestRoadsMatchBruteForce() {
+        int longest = 0;
+        for (int g = 0; g < 30; g++) {
+            roadOwner.clear();
+            settlementOwner.clear();
+            roadEnds.clear();
+            int nPlayers = 2 + g % 3;
+            CatanForwardModel fm = new CatanForwardModel();
+            CatanGameState state = new CatanGameState(new CatanParameters(g), nPlayers);
+            fm.setup(state);
+            Random rnd = new Random(g);
+            for (int n = 0; n < 2000 && state.isNotTerminal(); n++) {
+                AbstractAction action = pick(fm.computeAvailableActions(state), rnd);
+                // copies must carry the network with them
+                if (rnd.nextInt(5) == 0)
+                    state = (CatanGameState) state.copy();
+                record(state, action);
+                fm.next(state, action);
+                for (int p = 0; p < nPlayers; p++) {
+                    int expected = longestRoad(p);
+                    assertEquals("game " + g + " player " + p, expected, state.getRoadNetwork().getRoadLength(p));
+                    longest = Math.max(longest, expected);
+                }
+            }
+        }
+        // the games should include some long, branching networks
+        assertTrue(longest >= 8);
+    }
+}
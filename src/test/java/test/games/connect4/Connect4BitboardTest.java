@@ -0,0 +1,197 @@
+package test.games.connect4;
+
+import core.AbstractGameState;
+import core.CoreConstants;
+import core.UndoToken;
+import core.actions.AbstractAction;
+import core.actions.SetGridValueAction;
+import core.components.GridBoard;
+import core.components.Token;
+import games.connect4.*;
+import org.junit.Test;
+import utilities.Pair;
+
+import java.lang.reflect.Field;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the bitboard win and draw detection against a scan of the whole grid, as the forward model used to do.
+ */
+public class Connect4BitboardTest {
+
+    private static Connect4GameState newGame(int gridSize, int winCount) {
+        Connect4GameParameters params = new Connect4GameParameters(1);
+        params.setParameterValue("gridSize", gridSize);
+        params.setParameterValue("winCount", winCount);
+        Connect4GameState state = new Connect4GameState(params, 2);
+        new Connect4ForwardModel().setup(state);
+        return state;
+    }
+
+    private static AbstractAction actionInColumn(Connect4ForwardModel fm, AbstractGameState state, int column) {
+        for (AbstractAction action : fm.computeAvailableActions(state))
+            if (((SetGridValueAction<?>) action).getX() == column)
+                return action;
+        throw new AssertionError("Column " + column + " is full");
+    }
+
+    private static Connect4GameState play(int gridSize, int winCount, int... columns) {
+        Connect4ForwardModel fm = new Connect4ForwardModel();
+        Connect4GameState state = newGame(gridSize, winCount);
+        for (int column : columns) {
+            assertTrue(state.isNotTerminal());
+            fm.next(state, actionInColumn(fm, state, column));
+            checkAgainstGridScan(state, winCount);
+        }
+        return state;
+    }
+
+    // The player with a line of winCount pieces, or -1 if there is none, from a scan of every cell and direction
+    private static int gridScanWinner(GridBoard<Token> grid, int winCount) {
+        int[][] directions = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+        for (int x = 0; x < grid.getWidth(); x++) {
+            for (int y = 0; y < grid.getHeight(); y++) {
+                String token = grid.getElement(x, y).getTokenType();
+                if (token.equals(Connect4Constants.emptyCell))
+                    continue;
+                for (int[] d : directions) {
+                    int n = 1;
+                    while (n < winCount && x + d[0] * n >= 0 && x + d[0] * n < grid.getWidth() && y + d[1] * n >= 0
+                            && y + d[1] * n < grid.getHeight() && grid.getElement(x + d[0] * n, y + d[1] * n).getTokenType().equals(token))
+                        n++;
+                    if (n == winCount)
+                        return token.equals(Connect4Constants.playerMapping.get(0).getTokenType()) ? 0 : 1;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static boolean gridIsFull(GridBoard<Token> grid) {
+        for (int x = 0; x < grid.getWidth(); x++)
+            if (grid.getElement(x, 0).getTokenType().equals(Connect4Constants.emptyCell))
+                return false;
+        return true;
+    }
+
+    private static void checkAgainstGridScan(Connect4GameState state, int winCount) {
+        GridBoard<Token> grid = state.getGridBoard();
+        int winner = gridScanWinner(grid, winCount);
+        if (winner >= 0) {
+            assertEquals(CoreConstants.GameResult.GAME_END, state.getGameStatus());
+            assertEquals(CoreConstants.GameResult.WIN, state.getPlayerResults()[winner]);
+            assertEquals(CoreConstants.GameResult.LOSE, state.getPlayerResults()[1 - winner]);
+            // the winning cells are a line of the winner's pieces
+            List<Pair<Integer, Integer>> cells = state.getWinningCells();
+            assertEquals(winCount, cells.size());
+            int dx = cells.get(1).a - cells.get(0).a, dy = cells.get(1).b - cells.get(0).b;
+            for (int i = 0; i < winCount; i++) {
+                Pair<Integer, Integer> cell = cells.get(i);
+                assertEquals(cells.get(0).a + i * dx, (int) cell.a);
+                assertEquals(cells.get(0).b + i * dy, (int) cell.b);
+                assertEquals(Connect4Constants.playerMapping.get(winner).getTokenType(), grid.getElement(cell.a, cell.b).getTokenType());
+            }
+        } else if (gridIsFull(grid)) {
+            assertEquals(CoreConstants.GameResult.DRAW, state.getGameStatus());
+            assertEquals(CoreConstants.GameResult.DRAW, state.getPlayerResults()[0]);
+            assertEquals(CoreConstants.GameResult.DRAW, state.getPlayerResults()[1]);
+        } else {
+            assertTrue(state.isNotTerminal());
+        }
+    }
+
+    private static void checkWin(int winner, int dx, int dy, Connect4GameState state) {
+        assertEquals(CoreConstants.GameResult.WIN, state.getPlayerResults()[winner]);
+        List<Pair<Integer, Integer>> cells = state.getWinningCells();
+        assertEquals(dx, cells.get(1).a - cells.get(0).a);
+        assertEquals(dy, cells.get(1).b - cells.get(0).b);
+    }
+
+    @Test
+    public void verticalWin() {
+        // (y = 0 is the top row, so a line up a column has y decreasing)
+        checkWin(0, 0, -1, play(8, 4, 3, 4, 3, 4, 3, 4, 3));
+    }
+
+    @Test
+    public void horizontalWin() {
+        checkWin(1, 1, 0, play(8, 4, 0, 2, 0, 3, 1, 4, 7, 5));
+    }
+
+    @Test
+    public void diagonalWins() {
+        // up and to the right
+        checkWin(0, 1, -1, play(8, 4, 0, 1, 1, 2, 2, 3, 2, 3, 3, 7, 3));
+        // up and to the left
+        checkWin(0, -1, -1, play(8, 4, 7, 6, 6, 5, 5, 4, 5, 4, 4, 0, 4));
+    }
+
+    @Test
+    public void fullBoardIsADraw() {
+        Connect4GameState state = play(6, 4, 2, 0, 2, 5, 5, 2, 4, 5, 4, 3, 1, 0, 2, 0, 2, 5, 1, 3, 0, 5, 5, 2, 0, 4, 1,
+                4, 3, 0, 4, 1, 3, 4, 3, 1, 1, 3);
+        assertEquals(CoreConstants.GameResult.DRAW, state.getGameStatus());
+        assertTrue(new Connect4ForwardModel().computeAvailableActions(state).isEmpty());
+    }
+
+    @Test
+    public void randomGamesMatchGridScan() {
+        Connect4ForwardModel fm = new Connect4ForwardModel();
+        Random rnd = new Random(11);
+        int[] endings = new int[3];  // wins for each player, and draws
+        for (int game = 0; game < 400; game++) {
+            int gridSize = 6 + 2 * rnd.nextInt(4);
+            int winCount = 3 + rnd.nextInt(4);
+            Connect4GameState state = newGame(gridSize, winCount);
+            while (state.isNotTerminal()) {
+                List<AbstractAction> actions = fm.computeAvailableActions(state);
+                fm.next(state, actions.get(rnd.nextInt(actions.size())));
+                checkAgainstGridScan(state, winCount);
+            }
+            endings[state.getGameStatus() == CoreConstants.GameResult.DRAW ? 2 : state.getPlayerResults()[0] == CoreConstants.GameResult.WIN ? 0 : 1]++;
+        }
+        for (int ending : endings)
+            assertTrue(ending > 0);
+    }
+
+    // The bitboards and column heights are package-private, so are read here by reflection
+    private static Object field(Connect4GameState state, String name) throws ReflectiveOperationException {
+        Field field = Connect4GameState.class.getDeclaredField(name);
+        field.setAccessible(true);
+        Object value = field.get(state);
+        if (value instanceof long[][])
+            return new long[][]{((long[][]) value)[0].clone(), ((long[][]) value)[1].clone()};
+        if (value instanceof int[])
+            return ((int[]) value).clone();
+        return value;
+    }
+
+    @Test
+    public void undoRestoresBitboardsAndHash() throws ReflectiveOperationException {
+        Connect4ForwardModel fm = new Connect4ForwardModel();
+        Random rnd = new Random(5);
+        for (int game = 0; game < 50; game++) {
+            Connect4GameState state = newGame(8, 4);
+            Deque<UndoToken> tokens = new ArrayDeque<>();
+            Deque<Object[]> before = new ArrayDeque<>();
+            while (state.isNotTerminal()) {
+                List<AbstractAction> actions = fm.computeAvailableActions(state);
+                before.push(new Object[]{field(state, "playerBits"), field(state, "columnHeights"), field(state, "nPieces"),
+                        state.longHash(), actions, state.getGameStatus()});
+                tokens.push(fm.nextWithUndo(state, actions.get(rnd.nextInt(actions.size()))));
+            }
+            while (!tokens.isEmpty()) {
+                fm.rewind(state, tokens.pop());
+                Object[] expected = before.pop();
+                assertArrayEquals((long[][]) expected[0], (long[][]) field(state, "playerBits"));
+                assertArrayEquals((int[]) expected[1], (int[]) field(state, "columnHeights"));
+                assertEquals(expected[2], field(state, "nPieces"));
+                assertEquals(expected[3], state.longHash());
+                assertEquals(expected[4], fm.computeAvailableActions(state));
+                assertEquals(expected[5], state.getGameStatus());
+            }
+        }
+    }
+}
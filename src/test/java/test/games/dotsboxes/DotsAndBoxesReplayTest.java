@@ -0,0 +1,131 @@
+package test.games.dotsboxes;
+
+import core.AbstractGameState;
+import core.CoreConstants;
+import core.UndoToken;
+import core.actions.AbstractAction;
+import games.dotsboxes.*;
+import org.junit.Test;
+import utilities.Vector2D;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Plays random games, and checks the state after every move against a simple model of the rules that works only
+ * from the coordinates of the edges drawn so far.
+ */
+public class DotsAndBoxesReplayTest {
+
+    // Each edge is {x, y, horizontal ? 1 : 0}, from the dot at (x, y) to the right or down
+    private static List<List<Integer>> allEdges(int width, int height) {
+        List<List<Integer>> retValue = new ArrayList<>();
+        for (int y = 0; y <= height; y++)
+            for (int x = 0; x < width; x++)
+                retValue.add(Arrays.asList(x, y, 1));
+        for (int y = 0; y < height; y++)
+            for (int x = 0; x <= width; x++)
+                retValue.add(Arrays.asList(x, y, 0));
+        return retValue;
+    }
+
+    private static DBEdge toEdge(List<Integer> edge) {
+        int x = edge.get(0), y = edge.get(1);
+        return edge.get(2) == 1 ? new DBEdge(new Vector2D(x, y), new Vector2D(x + 1, y))
+                : new DBEdge(new Vector2D(x, y), new Vector2D(x, y + 1));
+    }
+
+    private static List<List<Integer>> sides(int x, int y) {
+        return Arrays.asList(Arrays.asList(x, y, 1), Arrays.asList(x, y + 1, 1), Arrays.asList(x, y, 0), Arrays.asList(x + 1, y, 0));
+    }
+
+    private static void playGame(int width, int height, int nPlayers, long seed) {
+        DBParameters params = new DBParameters(seed);
+        params.setParameterValue("gridWidth", width);
+        params.setParameterValue("gridHeight", height);
+        DBForwardModel fm = new DBForwardModel();
+        AbstractGameState state = new DBGameState(params, nPlayers);
+        fm.setup(state);
+        Random rnd = new Random(seed);
+        List<List<Integer>> order = allEdges(width, height);
+        Collections.shuffle(order, rnd);
+
+        // the model of the rules
+        Map<List<Integer>, Integer> edgeOwners = new HashMap<>();
+        int[][] cellOwners = new int[width][height];
+        for (int[] column : cellOwners)
+            Arrays.fill(column, -1);
+        int[] scores = new int[nPlayers];
+        int player = 0;
+
+        for (List<Integer> edge : order) {
+            assertTrue(state.isNotTerminal());
+            assertEquals(player, state.getCurrentPlayer());
+            AbstractAction action = new AddGridCellEdge(toEdge(edge));
+            Set<AbstractAction> expected = new HashSet<>();
+            for (List<Integer> e : order)
+                if (!edgeOwners.containsKey(e))
+                    expected.add(new AddGridCellEdge(toEdge(e)));
+            List<AbstractAction> actions = fm.computeAvailableActions(state);
+            assertEquals(expected.size(), actions.size());
+            assertEquals(expected, new HashSet<>(actions));
+
+            // a copy, or an undo, along the way must make no difference
+            if (rnd.nextInt(5) == 0)
+                state = state.copy();
+            if (rnd.nextInt(4) == 0) {
+                long hash = state.longHash();
+                UndoToken token = fm.nextWithUndo(state, action.copy());
+                fm.rewind(state, token);
+                assertEquals(hash, state.longHash());
+                assertEquals(player, state.getCurrentPlayer());
+            }
+            fm.next(state, action.copy());
+
+            edgeOwners.put(edge, player);
+            boolean scored = false;
+            int x = edge.get(0), y = edge.get(1);
+            // the cells either side of the edge
+            int[][] cells = edge.get(2) == 1 ? new int[][]{{x, y - 1}, {x, y}} : new int[][]{{x - 1, y}, {x, y}};
+            for (int[] cell : cells) {
+                if (cell[0] < 0 || cell[0] >= width || cell[1] < 0 || cell[1] >= height)
+                    continue;
+                if (edgeOwners.keySet().containsAll(sides(cell[0], cell[1]))) {
+                    cellOwners[cell[0]][cell[1]] = player;
+                    scores[player]++;
+                    scored = true;
+                }
+            }
+            if (!scored)
+                player = (player + 1) % nPlayers;
+
+            DBGameState dbgs = (DBGameState) state;
+            for (int p = 0; p < nPlayers; p++)
+                assertEquals(scores[p], state.getGameScore(p), 0.0);
+            assertEquals(!scored, dbgs.getLastActionScored());
+            for (List<Integer> e : order)
+                assertEquals(edgeOwners.getOrDefault(e, -1).intValue(), dbgs.getEdgeOwner(toEdge(e)));
+            for (int cx = 0; cx < width; cx++)
+                for (int cy = 0; cy < height; cy++)
+                    assertEquals(cellOwners[cx][cy], dbgs.getCellOwner(new DBCell(cx, cy)));
+        }
+
+        assertFalse(state.isNotTerminal());
+        int best = Arrays.stream(scores).max().getAsInt();
+        for (int p = 0; p < nPlayers; p++) {
+            if (scores[p] < best)
+                assertEquals(CoreConstants.GameResult.LOSE, state.getPlayerResults()[p]);
+            else
+                assertNotEquals(CoreConstants.GameResult.LOSE, state.getPlayerResults()[p]);
+        }
+    }
+
+    @Test
+    public void randomGamesFollowTheRules() {
+        int[][] sizes = {{5, 5}, {7, 5}, {3, 8}, {1, 1}, {11, 11}};
+        for (int[] size : sizes)
+            for (int g = 0; g < 10; g++)
+                playGame(size[0], size[1], 2 + g % 3, g);
+    }
+}
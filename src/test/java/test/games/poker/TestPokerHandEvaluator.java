@@ -0,0 +1,201 @@
+package test.games.poker;
+
+import core.components.FrenchCard;
+import core.components.FrenchCard.FrenchCardType;
+import core.components.FrenchCard.Suite;
+import games.poker.PokerHandEvaluator;
+import org.junit.Test;
+
+import java.util.*;
+
+import static games.poker.PokerHandEvaluator.*;
+import static org.junit.Assert.*;
+
+public class TestPokerHandEvaluator {
+
+    // Cards as e.g. "Ah", "Td", "9s"
+    private static long hand(String... cards) {
+        long mask = 0;
+        for (String card : cards) {
+            int number = "23456789TJQKA".indexOf(card.charAt(0)) + 2;
+            Suite suite = Suite.values()["dhcs".indexOf(card.charAt(1))];
+            FrenchCard c = number <= 10 ? new FrenchCard(FrenchCardType.Number, suite, number) :
+                    new FrenchCard(FrenchCardType.values()[number - 11], suite);
+            mask |= PokerHandEvaluator.cardBit(c);
+        }
+        return mask;
+    }
+
+    // Card i (from 0 to 51) is number (i % 13 + 2) of suite (i / 13)
+    private static FrenchCard card(int i) {
+        int number = i % 13 + 2;
+        Suite suite = Suite.values()[i / 13];
+        return number <= 10 ? new FrenchCard(FrenchCardType.Number, suite, number) :
+                new FrenchCard(FrenchCardType.values()[number - 11], suite);
+    }
+
+    private static List<FrenchCard> randomHand(Random rnd, int size) {
+        List<Integer> deck = new ArrayList<>();
+        for (int i = 0; i < 52; i++)
+            deck.add(i);
+        Collections.shuffle(deck, rnd);
+        List<FrenchCard> retValue = new ArrayList<>();
+        for (int i = 0; i < size; i++)
+            retValue.add(card(deck.get(i)));
+        return retValue;
+    }
+
+    private static long mask(List<FrenchCard> cards) {
+        long mask = 0;
+        for (FrenchCard c : cards)
+            mask |= PokerHandEvaluator.cardBit(c);
+        return mask;
+    }
+
+    // The category of a 5-card hand, as the game used to rank it before PokerHandEvaluator
+    private static int previousCategory(List<FrenchCard> cards) {
+        Set<Suite> suites = new HashSet<>();
+        Map<Integer, Integer> numberCount = new HashMap<>();
+        List<Integer> numbers = new ArrayList<>();
+        for (FrenchCard c : cards) {
+            suites.add(c.suite);
+            numbers.add(c.number);
+            numberCount.merge(c.number, 1, Integer::sum);
+        }
+        Collections.sort(numbers);
+        boolean consecutive = true;
+        for (int i = 0; i < numbers.size() - 1; i++)
+            if (numbers.get(i + 1) - numbers.get(i) != 1) consecutive = false;
+        int maxCount = Collections.max(numberCount.values());
+        if (suites.size() == 1) {
+            if (consecutive)
+                return numbers.contains(FrenchCardType.Ace.getNumber()) ? ROYAL_FLUSH : STRAIGHT_FLUSH;
+            return FLUSH;
+        }
+        switch (numberCount.size()) {
+            case 2:
+                return maxCount == 4 ? FOUR_OF_A_KIND : FULL_HOUSE;
+            case 3:
+                return maxCount == 3 ? THREE_OF_A_KIND : TWO_PAIR;
+            case 4:
+                return ONE_PAIR;
+            default:
+                return consecutive ? STRAIGHT : HIGH_CARD;
+        }
+    }
+
+    // The standard value of a 5-card hand (Aces high only): the category, and then the numbers ordered by how many
+    // times they appear and then by number, in base 15
+    private static long fiveCardValue(List<FrenchCard> cards) {
+        Map<Integer, Integer> numberCount = new HashMap<>();
+        for (FrenchCard c : cards)
+            numberCount.merge(c.number, 1, Integer::sum);
+        List<Integer> order = new ArrayList<>(numberCount.keySet());
+        order.sort((a, b) -> !numberCount.get(a).equals(numberCount.get(b)) ? numberCount.get(b) - numberCount.get(a) : b - a);
+        boolean flush = cards.stream().allMatch(c -> c.suite == cards.get(0).suite);
+        boolean straight = order.size() == 5 && order.get(0) - order.get(4) == 4;
+        int first = numberCount.get(order.get(0)), second = order.size() > 1 ? numberCount.get(order.get(1)) : 0;
+        int category = straight && flush ? STRAIGHT_FLUSH : first == 4 ? FOUR_OF_A_KIND : first == 3 && second == 2 ? FULL_HOUSE :
+                flush ? FLUSH : straight ? STRAIGHT : first == 3 ? THREE_OF_A_KIND : first == 2 && second == 2 ? TWO_PAIR :
+                        first == 2 ? ONE_PAIR : HIGH_CARD;
+        long value = category;
+        for (int i = 0; i < 5; i++)
+            value = value * 15 + (i < order.size() ? order.get(i) : 0);
+        return value;
+    }
+
+    // The best value of any five of the cards, by trying every subset
+    private static long bruteForceValue(List<FrenchCard> cards) {
+        long best = -1;
+        int n = cards.size();
+        for (int subset = 0; subset < 1 << n; subset++) {
+            if (Integer.bitCount(subset) != 5)
+                continue;
+            List<FrenchCard> five = new ArrayList<>();
+            for (int i = 0; i < n; i++)
+                if ((subset & (1 << i)) != 0)
+                    five.add(cards.get(i));
+            best = Math.max(best, fiveCardValue(five));
+        }
+        return best;
+    }
+
+    @Test
+    public void fiveCardCategoriesMatchPreviousRanking() {
+        Random rnd = new Random(17);
+        int[] seen = new int[ROYAL_FLUSH + 1];
+        for (int i = 0; i < 200000; i++) {
+            List<FrenchCard> cards = randomHand(rnd, 5);
+            int category = category(evaluate(mask(cards)));
+            assertEquals(cards.toString(), previousCategory(cards), category);
+            seen[category]++;
+        }
+        // every category but the rarest two came up
+        for (int category = HIGH_CARD; category <= FOUR_OF_A_KIND; category++)
+            assertTrue(seen[category] > 0);
+    }
+
+    @Test
+    public void handsAreOrderedAsByBruteForce() {
+        Random rnd = new Random(23);
+        for (int size = 5; size <= 8; size++) {
+            List<List<FrenchCard>> hands = new ArrayList<>();
+            for (int i = 0; i < 3000; i++)
+                hands.add(randomHand(rnd, size));
+            // plus some with flushes and straights, which are rare in random hands
+            for (int i = 0; i < 300; i++) {
+                List<FrenchCard> cards = new ArrayList<>();
+                int suite = rnd.nextInt(4), low = rnd.nextInt(9);
+                for (int j = 0; j < 5; j++)
+                    cards.add(card(i % 2 == 0 ? 13 * suite + low + j : 13 * ((suite + j) % 4) + low + j));
+                Set<Integer> used = new HashSet<>();
+                for (FrenchCard c : cards)
+                    used.add(13 * c.suite.ordinal() + c.number - 2);
+                while (cards.size() < size) {
+                    int c = rnd.nextInt(52);
+                    if (used.add(c))
+                        cards.add(card(c));
+                }
+                hands.add(cards);
+            }
+            hands.sort(Comparator.comparingInt(h -> evaluate(mask(h))));
+            for (int i = 1; i < hands.size(); i++) {
+                List<FrenchCard> a = hands.get(i - 1), b = hands.get(i);
+                int byEvaluator = Integer.compare(evaluate(mask(a)), evaluate(mask(b)));
+                int byBruteForce = Long.compare(bruteForceValue(a), bruteForceValue(b));
+                assertEquals(a + " vs " + b, byEvaluator, byBruteForce);
+            }
+        }
+    }
+
+    @Test
+    public void categories() {
+        assertEquals(ROYAL_FLUSH, category(evaluate(hand("Ah", "Kh", "Qh", "Jh", "Th", "2c", "2d"))));
+        assertEquals(STRAIGHT_FLUSH, category(evaluate(hand("9s", "8s", "7s", "6s", "5s", "9d", "9h"))));
+        assertEquals(FOUR_OF_A_KIND, category(evaluate(hand("9s", "9c", "9d", "9h", "5s", "Ad"))));
+        assertEquals(FULL_HOUSE, category(evaluate(hand("9s", "9c", "9d", "5h", "5s", "5d", "Ad"))));
+        assertEquals(FLUSH, category(evaluate(hand("2d", "7d", "9d", "Jd", "Kd", "Kc", "Ks"))));
+        assertEquals(STRAIGHT, category(evaluate(hand("9s", "8c", "7d", "6h", "5s"))));
+        assertEquals(THREE_OF_A_KIND, category(evaluate(hand("9s", "9c", "9d", "2h", "5s", "Kd"))));
+        assertEquals(TWO_PAIR, category(evaluate(hand("9s", "9c", "5d", "5h", "3s", "3d", "Ad"))));
+        assertEquals(ONE_PAIR, category(evaluate(hand("9s", "9c", "5d", "4h", "2s", "Jd", "Ad"))));
+        assertEquals(HIGH_CARD, category(evaluate(hand("9s", "8c", "5d", "4h", "2s", "Jd", "Ad"))));
+        // Aces are high only
+        assertEquals(HIGH_CARD, category(evaluate(hand("As", "2c", "3d", "4h", "5s"))));
+    }
+
+    @Test
+    public void tieBreaks() {
+        // the pair counts before the other cards
+        assertTrue(evaluate(hand("Ts", "Tc", "2d", "3h", "4s")) > evaluate(hand("9s", "9c", "Ad", "Kh", "Qs")));
+        // kickers beyond the best five cards do not count
+        assertEquals(evaluate(hand("As", "Kc", "Qd", "Jh", "9s", "3d", "2c")),
+                evaluate(hand("Ad", "Kh", "Qs", "Jc", "9d", "4h", "3s")));
+        // the third pair can be the kicker for two pair
+        assertTrue(evaluate(hand("As", "Ac", "Kd", "Kh", "Qs", "Qd", "2c")) > evaluate(hand("Ad", "Ah", "Ks", "Kc", "Jd", "3h", "2s")));
+        // a full house from two sets of three uses the higher as the three
+        assertTrue(evaluate(hand("9s", "9c", "9d", "5h", "5s", "5d")) > evaluate(hand("8s", "8c", "8d", "Ah", "As")));
+        // with more than seven cards, four of a kind beats a flush
+        assertEquals(FOUR_OF_A_KIND, category(evaluate(hand("9s", "9c", "9d", "9h", "2d", "4d", "6d", "Jd", "Kd"))));
+    }
+}
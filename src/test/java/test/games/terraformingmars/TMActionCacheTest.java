@@ -0,0 +1,64 @@
+package test.games.terraformingmars;
+
+import core.actions.AbstractAction;
+import games.terraformingmars.TMForwardModel;
+import games.terraformingmars.TMGameParameters;
+import games.terraformingmars.TMGameState;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Plays the same random games with and without the TMActionCache. Without it the actions are created afresh from the
+ * current state for every decision, so any cached action that has gone out of date shows up as a difference.
+ */
+public class TMActionCacheTest {
+
+    @Test
+    public void cachedActionsMatchUncached() {
+        int decisions = 0;
+        for (int g = 0; g < 8; g++) {
+            int nPlayers = 2 + g % 3;
+            TMForwardModel cached = new TMForwardModel(), uncached = new TMForwardModel(false);
+            TMGameState state = new TMGameState(new TMGameParameters(g), nPlayers);
+            TMGameState reference = new TMGameState(new TMGameParameters(g), nPlayers);
+            cached.setup(state);
+            uncached.setup(reference);
+            Random rnd = new Random(g);
+            for (int n = 0; n < 1000 && state.isNotTerminal(); n++) {
+                List<AbstractAction> actions = cached.computeAvailableActions(state);
+                List<AbstractAction> expected = uncached.computeAvailableActions(reference);
+                assertEquals("game " + g + " decision " + n, expected, actions);
+                decisions++;
+
+                // both states are copied at the same points, as the copies share the cached actions
+                if (rnd.nextInt(7) == 0) {
+                    state = (TMGameState) state.copy();
+                    reference = (TMGameState) reference.copy();
+                }
+                int chosen = rnd.nextInt(actions.size());
+                // Random play can choose an action that then fails (with either forward model), which ends the game
+                // here, but it must fail in the same way without the cache
+                String error = null, expectedError = null;
+                try {
+                    cached.next(state, actions.get(chosen));
+                } catch (AssertionError e) {
+                    error = e.getMessage();
+                }
+                try {
+                    uncached.next(reference, expected.get(chosen));
+                } catch (AssertionError e) {
+                    expectedError = e.getMessage();
+                }
+                assertEquals(expectedError, error);
+                if (error != null)
+                    break;
+            }
+            assertEquals(reference.isNotTerminal(), state.isNotTerminal());
+            assertArrayEquals(reference.getPlayerResults(), state.getPlayerResults());
+        }
+        assertTrue(decisions > 1000);
+    }
+}
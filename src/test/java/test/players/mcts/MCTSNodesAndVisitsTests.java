@@ -109,6 +109,247 @@ public class MCTSNodesAndVisitsTests {
         runGame(game, 4, new int[0], new int[0]);
     }
 
+    @Test
+    public void reuseTreeSelfOnly() {
+        params.opponentTreePolicy = MCTSEnums.OpponentTreePolicy.SelfOnly;
+        params.reuseTree = true;
+        runGameWithTreeReuse(createGame(params), 6);
+    }
+
+    @Test
+    public void reuseTreeMaxN() {
+        params.opponentTreePolicy = MCTSEnums.OpponentTreePolicy.MaxN;
+        params.reuseTree = true;
+        runGameWithTreeReuse(createGame(params), 6);
+    }
+
+    @Test
+    public void rootParallel() {
+        params.opponentTreePolicy = MCTSEnums.OpponentTreePolicy.MaxN;
+        params.nThreads = 3;
+        Game game = createGame(params);
+        AbstractGameState state = game.getGameState();
+        AbstractForwardModel forwardModel = game.getForwardModel();
+        int counter = 0;
+        do {
+            AbstractAction actionChosen = game.getPlayers().get(state.getCurrentPlayer())
+                    ._getAction(state, forwardModel.computeAvailableActions(state));
+            if (state.getCurrentPlayer() == 0) {
+                // the statistics from all three trees are merged into the root
+                SingleTreeNode root = mctsPlayer.getRoot(0);
+                assertEquals(600, root.getVisits());
+                int childVisits = root.getChildren().values().stream()
+                        .filter(Objects::nonNull)
+                        .flatMap(Arrays::stream)
+                        .filter(Objects::nonNull)
+                        .mapToInt(SingleTreeNode::getVisits).sum();
+                assertEquals(600, childVisits);
+                counter++;
+            }
+            forwardModel.next(state, actionChosen);
+        } while (counter < 4);
+    }
+
+    @Test
+    public void actionTableTrees() {
+        // Connect4 has an action codec, so the trees keep their children in arrays indexed by action ID
+        params.opponentTreePolicy = MCTSEnums.OpponentTreePolicy.MaxN;
+        for (int nThreads : new int[]{1, 3}) {
+            params.nThreads = nThreads;
+            mctsPlayer = new TestMCTSPlayer(params);
+            Game game = GameType.Connect4.createGameInstance(2, 32);
+            game.reset(Arrays.asList(mctsPlayer, new RandomPlayer(new Random(3023))));
+            AbstractGameState state = game.getGameState();
+            AbstractForwardModel forwardModel = game.getForwardModel();
+            int counter = 0;
+            do {
+                List<AbstractAction> available = forwardModel.computeAvailableActions(state);
+                AbstractAction actionChosen = game.getPlayers().get(state.getCurrentPlayer())._getAction(state, available);
+                if (state.getCurrentPlayer() == 0) {
+                    SingleTreeNode root = mctsPlayer.getRoot(0);
+                    assertEquals(200 * nThreads, root.getVisits());
+                    assertEquals(new HashSet<>(available), root.getChildren().keySet());
+                    assertTrue(available.contains(actionChosen));
+                    // (with several threads, the nodes from the other trees are now found through this tree's IDs)
+                    for (SingleTreeNode node : root.allNodesInTree()) {
+                        if (node != root)
+                            assertSame(node, node.getParent().getChildren().get(node.getActionToReach())[node.getActor()]);
+                    }
+                    counter++;
+                }
+                forwardModel.next(state, actionChosen);
+            } while (counter < 4 && state.isNotTerminal());
+        }
+    }
+
+    @Test
+    public void transpositionTable() {
+        params.information = MCTSEnums.Information.Closed_Loop;
+        params.discardStateAfterEachIteration = false;
+        params.transpositionTableSize = 1000;
+        for (MCTSEnums.TranspositionReplacement replacement : MCTSEnums.TranspositionReplacement.values()) {
+            params.transpositionReplacement = replacement;
+            mctsPlayer = new TestMCTSPlayer(params);
+            Game game = GameType.TicTacToe.createGameInstance(2, 32);
+            game.reset(Arrays.asList(mctsPlayer, new RandomPlayer(new Random(3023))));
+            AbstractGameState state = game.getGameState();
+            mctsPlayer._getAction(state, game.getForwardModel().computeAvailableActions(state));
+
+            SingleTreeNode root = mctsPlayer.getRoot(0);
+            assertEquals(200, root.getVisits());
+            // different orders of the same moves reach the same node
+            assertTrue(root.getTranspositionTable().getHits() > 0);
+            List<SingleTreeNode> nodes = root.allNodesInTree();
+            assertEquals(nodes.size(), new HashSet<>(nodes).size());
+            for (SingleTreeNode node : nodes) {
+                if (node != root)
+                    assertEquals(node.getParent().getDepth() + 1, node.getDepth());
+            }
+        }
+    }
+
+    @Test
+    public void compactTree() {
+        params.compactTree = true;
+        for (MCTSEnums.OpponentTreePolicy policy : new MCTSEnums.OpponentTreePolicy[]{
+                MCTSEnums.OpponentTreePolicy.SelfOnly, MCTSEnums.OpponentTreePolicy.Paranoid, MCTSEnums.OpponentTreePolicy.MaxN}) {
+            params.opponentTreePolicy = policy;
+            Game game = createGame(params);
+            AbstractGameState state = game.getGameState();
+            AbstractForwardModel forwardModel = game.getForwardModel();
+            int counter = 0;
+            do {
+                IStatisticLogger logger = new SummaryLogger();
+                mctsPlayer.setStatsLogger(logger);
+                AbstractAction actionChosen = game.getPlayers().get(state.getCurrentPlayer())
+                        ._getAction(state, forwardModel.computeAvailableActions(state));
+                if (state.getCurrentPlayer() == 0) {
+                    logger.processDataAndFinish();
+                    assertNull(mctsPlayer.getRoot(0));
+                    CompactTree tree = mctsPlayer.getCompactTree();
+                    assertEquals(200, tree.getVisits());
+                    // one node is added on each iteration (as for SingleTreeNode), plus the root
+                    assertEquals(201, tree.getNodeCount(), 10);
+                    assertFalse(mctsPlayer.getDecisionStats().isEmpty());
+                    counter++;
+                }
+                forwardModel.next(state, actionChosen);
+            } while (counter < 4);
+        }
+    }
+
+    @Test
+    public void treeParallel() {
+        params.nThreads = 3;
+        params.parallelism = MCTSEnums.Parallelism.Tree;
+        params.virtualLoss = 3;
+        for (MCTSEnums.OpponentTreePolicy policy : new MCTSEnums.OpponentTreePolicy[]{
+                MCTSEnums.OpponentTreePolicy.SelfOnly, MCTSEnums.OpponentTreePolicy.Paranoid, MCTSEnums.OpponentTreePolicy.MaxN}) {
+            params.opponentTreePolicy = policy;
+            Game game = createGame(params);
+            AbstractGameState state = game.getGameState();
+            AbstractForwardModel forwardModel = game.getForwardModel();
+            int counter = 0;
+            do {
+                AbstractAction actionChosen = game.getPlayers().get(state.getCurrentPlayer())
+                        ._getAction(state, forwardModel.computeAvailableActions(state));
+                if (state.getCurrentPlayer() == 0) {
+                    // all three threads search the one tree, and every virtual loss has been removed
+                    assertNull(mctsPlayer.getRoot(0));
+                    CompactTree tree = mctsPlayer.getCompactTree();
+                    assertEquals(600, tree.getVisits());
+                    int childVisits = mctsPlayer.getDecisionStats().values().stream()
+                            .mapToInt(stats -> (int) stats.get("visits")).sum();
+                    assertEquals(600, childVisits);
+                    // (two threads may both expand the same action, in which case only one node is added)
+                    assertTrue(tree.getNodeCount() <= 601);
+                    assertTrue(tree.getNodeCount() > 550);
+                    counter++;
+                }
+                forwardModel.next(state, actionChosen);
+            } while (counter < 4);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void treeParallelNeedsCompactTreeSupport() {
+        params.nThreads = 3;
+        params.parallelism = MCTSEnums.Parallelism.Tree;
+        params.opponentTreePolicy = MCTSEnums.OpponentTreePolicy.MultiTree;
+        Game game = createGame(params);
+        AbstractGameState state = game.getGameState();
+        game.getPlayers().get(state.getCurrentPlayer())
+                ._getAction(state, game.getForwardModel().computeAvailableActions(state));
+    }
+
+    @Test
+    public void reuseTreeWithMaxNodes() {
+        // the nodes kept from the previous tree must be pruned in the same way as new ones
+        params.opponentTreePolicy = MCTSEnums.OpponentTreePolicy.MaxN;
+        params.reuseTree = true;
+        params.maxNodes = 100;
+        runGameWithTreeReuse(createGame(params), 6);
+    }
+
+    @Test
+    public void maxNodes() {
+        params.maxNodes = 100;
+        params.maxTreeDepth = 100;
+        for (MCTSEnums.Information information : MCTSEnums.Information.values()) {
+            params.information = information;
+            params.discardStateAfterEachIteration = information != MCTSEnums.Information.Closed_Loop;
+            Game game = createGame(params);
+            AbstractGameState state = game.getGameState();
+            AbstractForwardModel forwardModel = game.getForwardModel();
+            int counter = 0;
+            do {
+                AbstractAction actionChosen = game.getPlayers().get(state.getCurrentPlayer())
+                        ._getAction(state, forwardModel.computeAvailableActions(state));
+                if (state.getCurrentPlayer() == 0) {
+                    SingleTreeNode root = mctsPlayer.getRoot(0);
+                    assertEquals(200, root.getVisits());
+                    // the tree is pruned back when it reaches 100 nodes
+                    assertTrue(root.allNodesInTree().size() <= 100);
+                    for (SingleTreeNode node : root.allNodesInTree()) {
+                        if (node != root)
+                            assertSame(node, node.getParent().getChildren().get(node.getActionToReach())[node.getActor()]);
+                    }
+                    counter++;
+                }
+                forwardModel.next(state, actionChosen);
+            } while (counter < 4);
+        }
+    }
+
+    private void runGameWithTreeReuse(Game game, int moves) {
+        int counter = 0;
+        int reusedMoves = 0;
+        AbstractGameState state = game.getGameState();
+        AbstractForwardModel forwardModel = game.getForwardModel();
+        do {
+            AbstractAction actionChosen = game.getPlayers().get(state.getCurrentPlayer())
+                    ._getAction(state, forwardModel.computeAvailableActions(state));
+
+            if (state.getCurrentPlayer() == 0) {
+                SingleTreeNode root = mctsPlayer.getRoot(0);
+                assertNull(root.getParent());
+                assertEquals(0, root.getDepth());
+                assertEquals(0, root.getActor());
+                // every node must now belong to the new tree, with depths measured from the new root
+                for (SingleTreeNode node : root.allNodesInTree()) {
+                    if (node != root)
+                        assertEquals(node.getParent().getDepth() + 1, node.getDepth());
+                }
+                assertTrue(root.getVisits() >= 200);
+                if (root.getVisits() > 200)
+                    reusedMoves++;
+                counter++;
+            }
+            forwardModel.next(state, actionChosen);
+        } while (counter < moves);
+        assertTrue(reusedMoves > 0);
+    }
+
     private void runGame(Game game, int moves, int[] expectedNodes, int[] errorMargin) {
         int counter = 0;
         AbstractGameState state = game.getGameState();
@@ -2,6 +2,7 @@ package test.players.mcts;
 
 import core.AbstractGameState;
 import core.actions.AbstractAction;
+import players.mcts.CompactTree;
 import players.mcts.MCTSParams;
 import players.mcts.MCTSPlayer;
 import players.mcts.MultiTreeNode;
@@ -27,4 +28,8 @@ public class TestMCTSPlayer extends MCTSPlayer {
         return root;
     }
 
+    public CompactTree getCompactTree() {
+        return compactTree;
+    }
+
 }